@@ -0,0 +1,88 @@
+package rtsp.bench;
+
+import rtsp.config.ConfigManager;
+
+/**
+ * @class public class LoadConfig
+ * @brief RtspLoadGenerator 설정 (서버 주소와 register 인증 정보는 서버의 config 파일에서 읽는다.)
+ */
+public class LoadConfig {
+
+    private final String serverIp;
+    private final int registerPort;
+    private final int rtspPort;
+    private final String magicCookie;
+    private final String hashKey;
+
+    private final String clientIp;
+    private final int clientBasePort;
+    private final String uri;
+    private final long durationMs;
+    private final long timeoutMs;
+    private final int recvBufSize;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public LoadConfig(ConfigManager configManager, String uri, int clientBasePort, long durationMs, long timeoutMs) {
+        this.serverIp = configManager.getLocalListenIp();
+        this.registerPort = configManager.getLocalRtspRegisterListenPort();
+        this.rtspPort = configManager.getLocalRtspListenPort();
+        this.magicCookie = configManager.getMagicCookie();
+        this.hashKey = configManager.getHashKey();
+
+        // 서버는 RTSP 연결의 원격 주소로 RTP 를 보내므로 client 도 같은 loopback 주소를 사용한다.
+        this.clientIp = serverIp;
+        this.clientBasePort = clientBasePort;
+        this.uri = uri.startsWith("rtsp://") ? uri : "rtsp://" + serverIp + ":" + rtspPort + (uri.startsWith("/") ? "" : "/") + uri;
+        this.durationMs = durationMs;
+        this.timeoutMs = timeoutMs;
+        this.recvBufSize = configManager.getRecvBufSize();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public String getServerIp() {
+        return serverIp;
+    }
+
+    public int getRegisterPort() {
+        return registerPort;
+    }
+
+    public int getRtspPort() {
+        return rtspPort;
+    }
+
+    public String getMagicCookie() {
+        return magicCookie;
+    }
+
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    public int getClientBasePort() {
+        return clientBasePort;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int getRecvBufSize() {
+        return recvBufSize;
+    }
+
+}
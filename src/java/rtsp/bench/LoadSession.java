@@ -0,0 +1,497 @@
+package rtsp.bench;
+
+import com.google.gson.JsonObject;
+import rtsp.protocol.register.RegisterRtspUnitReq;
+import rtsp.protocol.register.RegisterRtspUnitRes;
+import rtsp.protocol.register.UnRegisterRtspUnitReq;
+import rtsp.protocol.register.UnRegisterRtspUnitRes;
+import rtsp.protocol.register.base.URtspMessageType;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class LoadSession
+ * @brief RtspLoadGenerator 가 실행하는 client session 한 개
+ * 1) UDP register 프로토콜로 RtspUnit 등록 (nonce 없이 요청 > 401 의 realm 으로 nonce 생성 > 재요청)
+ * 2) RTSP OPTIONS > DESCRIBE > SETUP > PLAY 후 지정한 시간 동안 RTP 수신
+ * 3) TEARDOWN, UNREGISTER
+ * 실패하면 실패한 단계와 이유를 기록하고 종료한다.
+ */
+public class LoadSession implements Runnable {
+
+    private static final String RTSP_VERSION = "RTSP/1.0";
+    private static final String USER_AGENT = "URTSP LoadGenerator";
+    private static final int RECV_BUF_SIZE = 2048;
+    private static final int RTP_CLOCK_RATE = 90000; // MP2T
+    private static final int MAX_PLAY_RETRY = 3;
+    private static final long EXPIRES = 3600;
+
+    private final int index;
+    private final String rtspUnitId;
+    private final LoadConfig config;
+    private final int registerListenPort;
+    private final int rtpListenPort;
+
+    private final RtpReceiveStats rtpStats = new RtpReceiveStats(RTP_CLOCK_RATE);
+
+    private int cseq = 0;
+    private int registerSeq = 0;
+
+    private String failedStage = null;
+    private String failReason = null;
+    private long registerNanos = -1;
+    private long setupNanos = -1;    // OPTIONS ~ SETUP
+    private long playResponseNanos = -1;
+    private long playRequestNanos = 0;  // 마지막 PLAY 요청 시각
+    private long firstPacketNanos = -1; // PLAY 요청 ~ 첫 RTP 패킷
+    private long receiveNanos = 0;   // 첫 RTP 패킷 ~ 마지막 RTP 패킷
+    private int playRetryCount = 0;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public LoadSession(int index, String rtspUnitId, LoadConfig config) {
+        this.index = index;
+        this.rtspUnitId = rtspUnitId;
+        this.config = config;
+
+        // register listen port 는 short 로 전달되므로 32767 이하여야 한다.
+        this.registerListenPort = config.getClientBasePort() + index * 2;
+        this.rtpListenPort = registerListenPort + 1;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void run() {
+        try (DatagramSocket registerSocket = new DatagramSocket(new InetSocketAddress(config.getClientIp(), registerListenPort));
+             DatagramSocket rtpSocket = new DatagramSocket(new InetSocketAddress(config.getClientIp(), rtpListenPort))) {
+            registerSocket.setSoTimeout((int) config.getTimeoutMs());
+            rtpSocket.setReceiveBufferSize(config.getRecvBufSize());
+
+            long startNanos = System.nanoTime();
+            if (!register(registerSocket)) {
+                return;
+            }
+            registerNanos = System.nanoTime() - startNanos;
+
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(config.getServerIp(), config.getRtspPort()), (int) config.getTimeoutMs());
+                socket.setSoTimeout((int) config.getTimeoutMs());
+                socket.setTcpNoDelay(true);
+
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+
+                String sessionId = setup(in, out);
+                if (sessionId != null && play(in, out, sessionId)) {
+                    receive(rtpSocket);
+                }
+
+                if (sessionId != null) {
+                    request(in, out, "TEARDOWN", "Session: " + sessionId + "\r\n");
+                }
+            } catch (IOException e) {
+                fail("RTSP", e.toString());
+            }
+
+            unregister(registerSocket);
+        } catch (IOException e) {
+            fail("SOCKET", e.toString());
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private boolean register(DatagramSocket registerSocket) throws IOException {
+        RegisterRtspUnitReq firstReq = newRegisterReq();
+        RegisterRtspUnitRes firstRes = sendRegister(registerSocket, firstReq);
+        if (firstRes == null) {
+            return false;
+        }
+
+        if (firstRes.getStatusCode() != RegisterRtspUnitRes.NOT_AUTHORIZED) {
+            return fail("REGISTER", "Unexpected status code. (" + firstRes.getStatusCode() + ")");
+        }
+
+        // nonce = MD5(MD5(realm + hashKey)) (서버와 같은 방식으로 문자열 변환)
+        RegisterRtspUnitReq secondReq = newRegisterReq();
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            messageDigest.update(firstRes.getRealm().getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(config.getHashKey().getBytes(StandardCharsets.UTF_8));
+            byte[] a1 = messageDigest.digest();
+            messageDigest.reset();
+            messageDigest.update(a1);
+            secondReq.setNonce(new String(messageDigest.digest()));
+        } catch (Exception e) {
+            return fail("REGISTER", e.toString());
+        }
+
+        RegisterRtspUnitRes secondRes = sendRegister(registerSocket, secondReq);
+        if (secondRes == null) {
+            return false;
+        }
+
+        if (secondRes.getStatusCode() != RegisterRtspUnitRes.SUCCESS) {
+            return fail("REGISTER", "Unexpected status code. (" + secondRes.getStatusCode() + ")");
+        }
+        return true;
+    }
+
+    private RegisterRtspUnitReq newRegisterReq() {
+        return new RegisterRtspUnitReq(
+                config.getMagicCookie(), URtspMessageType.REGISTER, ++registerSeq, System.currentTimeMillis(),
+                rtspUnitId, EXPIRES, (short) registerListenPort
+        );
+    }
+
+    private RegisterRtspUnitRes sendRegister(DatagramSocket registerSocket, RegisterRtspUnitReq req) throws IOException {
+        byte[] data = req.getByteData();
+        registerSocket.send(new DatagramPacket(data, data.length, new InetSocketAddress(config.getServerIp(), config.getRegisterPort())));
+
+        byte[] buf = new byte[RECV_BUF_SIZE];
+        DatagramPacket packet = new DatagramPacket(buf, buf.length);
+        try {
+            registerSocket.receive(packet);
+        } catch (SocketTimeoutException e) {
+            fail("REGISTER", "Response timeout.");
+            return null;
+        }
+
+        byte[] resData = new byte[packet.getLength()];
+        System.arraycopy(buf, 0, resData, 0, resData.length);
+        try {
+            return new RegisterRtspUnitRes(resData);
+        } catch (Exception e) {
+            fail("REGISTER", e.toString());
+            return null;
+        }
+    }
+
+    private void unregister(DatagramSocket registerSocket) throws IOException {
+        UnRegisterRtspUnitReq req = new UnRegisterRtspUnitReq(
+                config.getMagicCookie(), URtspMessageType.UNREGISTER, ++registerSeq, System.currentTimeMillis(),
+                rtspUnitId, (short) registerListenPort
+        );
+        byte[] data = req.getByteData();
+        registerSocket.send(new DatagramPacket(data, data.length, new InetSocketAddress(config.getServerIp(), config.getRegisterPort())));
+
+        byte[] buf = new byte[RECV_BUF_SIZE];
+        DatagramPacket packet = new DatagramPacket(buf, buf.length);
+        try {
+            registerSocket.receive(packet);
+            byte[] resData = new byte[packet.getLength()];
+            System.arraycopy(buf, 0, resData, 0, resData.length);
+            UnRegisterRtspUnitRes res = new UnRegisterRtspUnitRes(resData);
+            if (res.getStatusCode() != UnRegisterRtspUnitRes.SUCCESS) {
+                fail("UNREGISTER", "Unexpected status code. (" + res.getStatusCode() + ")");
+            }
+        } catch (SocketTimeoutException e) {
+            fail("UNREGISTER", "Response timeout.");
+        } catch (Exception e) {
+            fail("UNREGISTER", e.toString());
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn private String setup(InputStream in, OutputStream out)
+     * @brief OPTIONS, DESCRIBE, SETUP 을 순서대로 요청하는 함수
+     * @return 성공 시 SETUP 응답의 session id, 실패 시 null 반환
+     */
+    private String setup(InputStream in, OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+
+        if (request(in, out, "OPTIONS", "") == null) {
+            return null;
+        }
+
+        if (request(in, out, "DESCRIBE", "Accept: application/sdp\r\n") == null) {
+            return null;
+        }
+
+        // 서버는 Transport header 의 마지막 항목을 client_port 로 사용한다.
+        RtspResponse setupRes = request(in, out, "SETUP", "Transport: RTP/AVP;unicast;client_port=" + rtpListenPort + "\r\n");
+        if (setupRes == null) {
+            return null;
+        }
+
+        String sessionId = setupRes.getHeader("session");
+        if (sessionId == null) {
+            fail("SETUP", "Session header is not found.");
+            return null;
+        }
+
+        int timeoutIndex = sessionId.indexOf(';');
+        if (timeoutIndex >= 0) {
+            sessionId = sessionId.substring(0, timeoutIndex);
+        }
+
+        setupNanos = System.nanoTime() - startNanos;
+        return sessionId.trim();
+    }
+
+    private boolean play(InputStream in, OutputStream out, String sessionId) throws IOException {
+        String headers = "Session: " + sessionId + "\r\n" + "Range: npt=0.000-\r\n";
+        while (true) {
+            playRequestNanos = System.nanoTime();
+            RtspResponse playRes = sendRequest(in, out, "PLAY", headers);
+            if (playRes == null) {
+                return false;
+            }
+
+            // PLAY 준비 pool 이 가득 차면 503 + Retry-After 로 응답한다.
+            if (playRes.getStatusCode() == 503 && playRetryCount < MAX_PLAY_RETRY) {
+                playRetryCount++;
+                String retryAfter = playRes.getHeader("retry-after");
+                sleep(retryAfter != null ? TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim())) : 1000);
+                continue;
+            }
+
+            if (playRes.getStatusCode() != 200) {
+                return fail("PLAY", playRes.getStatusLine());
+            }
+
+            playResponseNanos = System.nanoTime() - playRequestNanos;
+            return true;
+        }
+    }
+
+    /**
+     * @fn private void receive(DatagramSocket rtpSocket)
+     * @brief PLAY 응답 후 지정한 시간 동안 RTP 패킷을 받는 함수
+     * 첫 패킷이 제한 시간 안에 오지 않거나, 수신 중 idle 시간이 제한 시간을 넘으면(미디어 끝) 종료한다.
+     */
+    private void receive(DatagramSocket rtpSocket) throws IOException {
+        byte[] buf = new byte[RECV_BUF_SIZE];
+        DatagramPacket packet = new DatagramPacket(buf, buf.length);
+        long endNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getDurationMs());
+        rtpSocket.setSoTimeout((int) config.getTimeoutMs());
+
+        while (System.nanoTime() < endNanos) {
+            try {
+                rtpSocket.receive(packet);
+            } catch (SocketTimeoutException e) {
+                if (rtpStats.getPacketCount() == 0) {
+                    fail("RTP", "First packet timeout.");
+                }
+                break;
+            }
+
+            long arrivalNanos = System.nanoTime();
+            if (rtpStats.onPacket(buf, packet.getLength(), arrivalNanos) && firstPacketNanos < 0) {
+                firstPacketNanos = arrivalNanos - playRequestNanos;
+            }
+        }
+
+        receiveNanos = rtpStats.getLastArrivalNanos() - rtpStats.getFirstArrivalNanos();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn private RtspResponse request(InputStream in, OutputStream out, String method, String headers)
+     * @brief RTSP 요청을 보내고 200 응답을 받는 함수
+     * @return 성공 시 응답, 실패 시 null 반환 (실패 단계는 method 이름으로 기록)
+     */
+    private RtspResponse request(InputStream in, OutputStream out, String method, String headers) throws IOException {
+        RtspResponse res = sendRequest(in, out, method, headers);
+        if (res == null) {
+            return null;
+        }
+
+        if (res.getStatusCode() != 200) {
+            fail(method, res.getStatusLine());
+            return null;
+        }
+        return res;
+    }
+
+    private RtspResponse sendRequest(InputStream in, OutputStream out, String method, String headers) throws IOException {
+        String req = method + " " + config.getUri() + " " + RTSP_VERSION + "\r\n"
+                + "CSeq: " + (++cseq) + "\r\n"
+                + "User-Agent: " + USER_AGENT + "\r\n"
+                + headers
+                + "\r\n";
+        out.write(req.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+
+        try {
+            RtspResponse res = RtspResponse.read(in);
+            if (res == null) {
+                fail(method, "Connection is closed.");
+            }
+            return res;
+        } catch (SocketTimeoutException e) {
+            // 서버는 상태가 맞지 않는 요청에 응답하지 않는다.
+            fail(method, "Response timeout.");
+            return null;
+        }
+    }
+
+    private boolean fail(String stage, String reason) {
+        if (failedStage == null) {
+            failedStage = stage;
+            failReason = reason;
+        }
+        return false;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isSuccess() {
+        return failedStage == null;
+    }
+
+    public String getFailedStage() {
+        return failedStage;
+    }
+
+    public RtpReceiveStats getRtpStats() {
+        return rtpStats;
+    }
+
+    public long getFirstPacketNanos() {
+        return firstPacketNanos;
+    }
+
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("index", index);
+        json.addProperty("rtspUnitId", rtspUnitId);
+        json.addProperty("success", isSuccess());
+        if (failedStage != null) {
+            json.addProperty("failedStage", failedStage);
+            json.addProperty("failReason", failReason);
+        }
+        json.addProperty("registerMs", registerNanos / 1e6);
+        json.addProperty("setupMs", setupNanos / 1e6);
+        json.addProperty("playResponseMs", playResponseNanos / 1e6);
+        json.addProperty("playRetryCount", playRetryCount);
+        json.addProperty("timeToFirstPacketMs", firstPacketNanos / 1e6);
+        json.addProperty("receiveMs", receiveNanos / 1e6);
+        json.addProperty("packets", rtpStats.getPacketCount());
+        json.addProperty("bytes", rtpStats.getByteCount());
+        json.addProperty("expectedPackets", rtpStats.getExpectedCount());
+        json.addProperty("lostPackets", rtpStats.getLostCount());
+        json.addProperty("sequenceGaps", rtpStats.getGapCount());
+        json.addProperty("outOfOrderPackets", rtpStats.getOutOfOrderCount());
+        json.addProperty("jitterMs", rtpStats.getJitterMs());
+        json.addProperty("maxInterArrivalMs", rtpStats.getMaxInterArrivalMs());
+        return json;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @class private static class RtspResponse
+     * @brief RTSP 응답 (status line, header, body)
+     */
+    private static class RtspResponse {
+
+        private final String statusLine;
+        private final int statusCode;
+        private final Map<String, String> headerMap;
+
+        private RtspResponse(String statusLine, int statusCode, Map<String, String> headerMap) {
+            this.statusLine = statusLine;
+            this.statusCode = statusCode;
+            this.headerMap = headerMap;
+        }
+
+        /**
+         * @return 응답, 연결이 끊겼으면 null 반환
+         */
+        static RtspResponse read(InputStream in) throws IOException {
+            String statusLine = readLine(in);
+            if (statusLine == null) {
+                return null;
+            }
+
+            String[] tokens = statusLine.split(" ", 3);
+            int statusCode = tokens.length >= 2 ? Integer.parseInt(tokens[1]) : -1;
+
+            Map<String, String> headerMap = new HashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colonIndex = line.indexOf(':');
+                if (colonIndex > 0) {
+                    headerMap.put(line.substring(0, colonIndex).trim().toLowerCase(), line.substring(colonIndex + 1).trim());
+                }
+            }
+
+            // body (SDP) 는 사용하지 않으므로 읽고 버린다.
+            String contentLength = headerMap.get("content-length");
+            if (contentLength != null) {
+                long remaining = Long.parseLong(contentLength);
+                while (remaining > 0) {
+                    long skipped = in.skip(remaining);
+                    if (skipped <= 0) {
+                        if (in.read() < 0) {
+                            break;
+                        }
+                        skipped = 1;
+                    }
+                    remaining -= skipped;
+                }
+            }
+
+            return new RtspResponse(statusLine, statusCode, headerMap);
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    lineBuffer.write(b);
+                }
+            }
+
+            if (b < 0 && lineBuffer.size() == 0) {
+                return null;
+            }
+            return new String(lineBuffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        String getStatusLine() {
+            return statusLine;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        String getHeader(String name) {
+            return headerMap.get(name);
+        }
+
+    }
+
+}
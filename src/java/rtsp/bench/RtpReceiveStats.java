@@ -0,0 +1,139 @@
+package rtsp.bench;
+
+/**
+ * @class public class RtpReceiveStats
+ * @brief session 한 개가 받은 RTP 패킷 통계 (수신 스레드 한 개에서만 갱신)
+ * sequence number 는 wrap-around 를 고려해서 확장하고, jitter 는 RFC 3550 6.4.1 의 inter-arrival jitter 로 계산한다.
+ */
+public class RtpReceiveStats {
+
+    public static final int RTP_HEADER_SIZE = 12;
+
+    private static final int SEQ_MOD = 1 << 16;
+
+    private final int clockRate; // RTP timestamp 단위 (MP2T = 90000)
+
+    private long packetCount = 0;
+    private long byteCount = 0; // RTP header 포함
+    private long firstArrivalNanos = 0;
+    private long lastArrivalNanos = 0;
+    private long maxInterArrivalNanos = 0;
+
+    private int baseSeq = 0;
+    private int maxSeq = 0;
+    private long seqCycles = 0;
+    private long gapCount = 0;       // sequence 가 건너뛴 횟수
+    private long outOfOrderCount = 0; // 이전보다 작은 sequence (중복 포함)
+
+    private long lastTransit = 0;
+    private double jitter = 0; // timestamp 단위
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public RtpReceiveStats(int clockRate) {
+        this.clockRate = clockRate;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean onPacket(byte[] data, int length, long arrivalNanos)
+     * @brief 수신한 RTP 패킷 한 개를 통계에 반영하는 함수
+     * @param data 수신 buffer
+     * @param length 수신한 길이
+     * @param arrivalNanos 수신 시각 (System.nanoTime())
+     * @return RTP 패킷이면 true, 아니면 false 반환
+     */
+    public boolean onPacket(byte[] data, int length, long arrivalNanos) {
+        if (length < RTP_HEADER_SIZE || (data[0] & 0xC0) != 0x80) {
+            return false;
+        }
+
+        int seq = ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+        long timestamp = ((long) (data[4] & 0xFF) << 24) | ((data[5] & 0xFF) << 16) | ((data[6] & 0xFF) << 8) | (data[7] & 0xFF);
+
+        if (packetCount == 0) {
+            firstArrivalNanos = arrivalNanos;
+            baseSeq = seq;
+            maxSeq = seq;
+        } else {
+            long interArrival = arrivalNanos - lastArrivalNanos;
+            if (interArrival > maxInterArrivalNanos) {
+                maxInterArrivalNanos = interArrival;
+            }
+
+            int delta = (seq - maxSeq + SEQ_MOD) % SEQ_MOD;
+            if (delta > 0 && delta < SEQ_MOD / 2) {
+                if (seq < maxSeq) {
+                    seqCycles++;
+                }
+                if (delta > 1) {
+                    gapCount++;
+                }
+                maxSeq = seq;
+            } else {
+                outOfOrderCount++;
+            }
+        }
+
+        // transit = 도착 시각(timestamp 단위) - RTP timestamp, J += (|D| - J) / 16
+        long arrival = (long) ((double) arrivalNanos * clockRate / 1_000_000_000L);
+        long transit = arrival - timestamp;
+        if (packetCount > 0) {
+            long d = Math.abs(transit - lastTransit);
+            jitter += (d - jitter) / 16.0;
+        }
+        lastTransit = transit;
+
+        lastArrivalNanos = arrivalNanos;
+        packetCount++;
+        byteCount += length;
+        return true;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public long getPacketCount() {
+        return packetCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getFirstArrivalNanos() {
+        return firstArrivalNanos;
+    }
+
+    public long getLastArrivalNanos() {
+        return lastArrivalNanos;
+    }
+
+    public long getExpectedCount() {
+        if (packetCount == 0) {
+            return 0;
+        }
+        return seqCycles * SEQ_MOD + maxSeq - baseSeq + 1;
+    }
+
+    public long getLostCount() {
+        return Math.max(0, getExpectedCount() - packetCount);
+    }
+
+    public long getGapCount() {
+        return gapCount;
+    }
+
+    public long getOutOfOrderCount() {
+        return outOfOrderCount;
+    }
+
+    public double getJitterMs() {
+        return jitter * 1000 / clockRate;
+    }
+
+    public double getMaxInterArrivalMs() {
+        return maxInterArrivalNanos / 1e6;
+    }
+
+}
@@ -0,0 +1,270 @@
+package rtsp.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import rtsp.config.ConfigManager;
+import rtsp.module.netty.NettyChannelManager;
+import rtsp.module.netty.module.RtspRegisterNettyChannel;
+import rtsp.service.AppInstance;
+import rtsp.service.ServiceManager;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class RtspLoadGenerator
+ * @brief loopback 으로 RTSP 서버에 session 을 연결해서 전송 성능을 측정하는 부하 테스트 도구
+ * session 마다 RtspUnit 을 새로 등록하고(UDP register), OPTIONS > DESCRIBE > SETUP > PLAY 후 RTP 를 지정한 시간 동안 받는다.
+ * 전체 처리량(bps, packets/s), session 별 jitter, sequence gap, 첫 패킷까지 걸린 시간과 서버의 스레드/메모리/CPU 사용량을 JSON 으로 출력한다.
+ *
+ * 서버 주소, 포트, register 인증 정보는 서버의 config 파일에서 읽는다.
+ * server 가 embedded 이면 같은 프로세스에서 서버를 실행하고, 숫자이면 이미 실행 중인 서버의 pid 로 사용한다.
+ * RtspUnit 마다 설정된 같은 RTSP 포트를 열기 때문에 서버에서 동시에 열 수 있는 RTSP channel 은 한 개이다.
+ * 이 경우 concurrency 를 1 로 지정하면 session 을 순서대로 실행한다. (동시 실행 시 실패한 session 은 실패 단계와 함께 기록된다.)
+ *
+ * ex) java rtsp.bench.RtspLoadGenerator config_path uri [sessions=1] [concurrency=sessions] [durationMs=10000] [rampMs=100] [server=embedded] [output=load_result.json] [clientBasePort=20000]
+ */
+public class RtspLoadGenerator {
+
+    private static final String SERVER_EMBEDDED = "embedded";
+    private static final long TIMEOUT_MS = 5000;
+    private static final long SAMPLE_INTERVAL_MS = 200;
+    private static final long SERVER_START_TIMEOUT_MS = 10000;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Argument Error. (&0: config_path, &1: uri, [&2: sessions], [&3: concurrency], [&4: durationMs], [&5: rampMs], [&6: server=embedded|pid], [&7: output], [&8: clientBasePort])");
+            System.exit(1);
+        }
+
+        String configPath = args[0].trim();
+        String uri = args[1].trim();
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : sessions;
+        long durationMs = args.length > 4 ? Long.parseLong(args[4]) : 10000;
+        long rampMs = args.length > 5 ? Long.parseLong(args[5]) : 100;
+        String server = args.length > 6 ? args[6].trim() : SERVER_EMBEDDED;
+        String outputPath = args.length > 7 ? args[7].trim() : "load_result.json";
+        int clientBasePort = args.length > 8 ? Integer.parseInt(args[8]) : 20000;
+
+        // register listen port 는 short 로 전달된다.
+        if (clientBasePort <= 0 || clientBasePort + sessions * 2 > Short.MAX_VALUE) {
+            System.err.println("Client port range is wrong. (clientBasePort=" + clientBasePort + ", sessions=" + sessions + ")");
+            System.exit(1);
+        }
+
+        ConfigManager configManager = new ConfigManager(configPath);
+        LoadConfig loadConfig = new LoadConfig(configManager, uri, clientBasePort, durationMs, TIMEOUT_MS);
+
+        boolean isEmbedded = SERVER_EMBEDDED.equals(server);
+        if (isEmbedded && !startEmbeddedServer(configManager)) {
+            System.err.println("Fail to start the embedded server.");
+            System.exit(1);
+        }
+
+        long serverPid = isEmbedded ? ServerResourceSampler.getCurrentPid() : Long.parseLong(server);
+        ServerResourceSampler sampler = new ServerResourceSampler(serverPid, isEmbedded);
+
+        List<LoadSession> loadSessionList = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            loadSessionList.add(new LoadSession(i, "LOAD_" + UUID.randomUUID(), loadConfig));
+        }
+
+        ExecutorService sessionExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(concurrency, sessions)),
+                new BasicThreadFactory.Builder()
+                        .namingPattern("LoadSession-%d")
+                        .daemon(true)
+                        .build()
+        );
+
+        sampler.start(SAMPLE_INTERVAL_MS);
+        long startNanos = System.nanoTime();
+        try {
+            for (LoadSession loadSession : loadSessionList) {
+                sessionExecutor.execute(loadSession);
+                if (rampMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(rampMs);
+                }
+            }
+
+            sessionExecutor.shutdown();
+            long waitMs = ((long) Math.ceil((double) sessions / Math.max(1, concurrency))) * (durationMs + TIMEOUT_MS * 8);
+            if (!sessionExecutor.awaitTermination(waitMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("Some sessions are not finished. (waitMs=" + waitMs + ")");
+                sessionExecutor.shutdownNow();
+            }
+        } finally {
+            sampler.stop();
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        JsonObject result = new JsonObject();
+        result.add("config", toJson(loadConfig, sessions, concurrency, rampMs));
+        result.add("summary", summarize(loadSessionList));
+        result.add("server", sampler.toJson(elapsedSeconds));
+        JsonArray sessionArray = new JsonArray();
+        for (LoadSession loadSession : loadSessionList) {
+            sessionArray.add(loadSession.toJson());
+        }
+        result.add("sessions", sessionArray);
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create();
+        try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            gson.toJson(result, writer);
+        }
+        System.out.println(gson.toJson(result.get("summary")));
+        System.out.println("Result: " + Paths.get(outputPath).toAbsolutePath());
+
+        // embedded 서버는 ServiceManager 의 shutdown hook 에서 종료된다.
+        System.exit(0);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn private static boolean startEmbeddedServer(ConfigManager configManager)
+     * @brief 같은 프로세스에서 서버를 실행하고 register channel 이 열릴 때까지 대기하는 함수
+     */
+    private static boolean startEmbeddedServer(ConfigManager configManager) throws InterruptedException {
+        AppInstance.getInstance().setConfigManager(configManager);
+
+        new BasicThreadFactory.Builder()
+                .namingPattern("EmbeddedServer")
+                .daemon(true)
+                .build()
+                .newThread(() -> ServiceManager.getInstance().loop())
+                .start();
+
+        long deadline = System.currentTimeMillis() + SERVER_START_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            // register channel 객체는 bind 전에 등록되므로 channel 이 열렸는지 확인한다.
+            RtspRegisterNettyChannel registerChannel = NettyChannelManager.getInstance().getRegisterChannel();
+            if (registerChannel != null && registerChannel.getChannel() != null && registerChannel.getChannel().isActive()) {
+                return true;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return false;
+    }
+
+    private static JsonObject toJson(LoadConfig loadConfig, int sessions, int concurrency, long rampMs) {
+        JsonObject json = new JsonObject();
+        json.addProperty("uri", loadConfig.getUri());
+        json.addProperty("serverIp", loadConfig.getServerIp());
+        json.addProperty("registerPort", loadConfig.getRegisterPort());
+        json.addProperty("rtspPort", loadConfig.getRtspPort());
+        json.addProperty("sessions", sessions);
+        json.addProperty("concurrency", concurrency);
+        json.addProperty("durationMs", loadConfig.getDurationMs());
+        json.addProperty("rampMs", rampMs);
+        json.addProperty("javaVersion", System.getProperty("java.version"));
+        json.addProperty("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return json;
+    }
+
+    /**
+     * @fn private static JsonObject summarize(List<LoadSession> loadSessionList)
+     * @brief 전체 session 의 수신 결과를 합산하는 함수
+     * 처리량은 가장 먼저 받은 RTP 패킷부터 가장 나중에 받은 RTP 패킷까지의 시간으로 나눈다.
+     */
+    private static JsonObject summarize(List<LoadSession> loadSessionList) {
+        int successCount = 0;
+        long totalPackets = 0;
+        long totalBytes = 0;
+        long totalLost = 0;
+        long totalGaps = 0;
+        long firstArrivalNanos = Long.MAX_VALUE;
+        long lastArrivalNanos = Long.MIN_VALUE;
+
+        List<Long> firstPacketNanosList = new ArrayList<>();
+        List<Double> jitterMsList = new ArrayList<>();
+        for (LoadSession loadSession : loadSessionList) {
+            if (loadSession.isSuccess()) {
+                successCount++;
+            }
+
+            RtpReceiveStats rtpStats = loadSession.getRtpStats();
+            if (rtpStats.getPacketCount() == 0) {
+                continue;
+            }
+
+            totalPackets += rtpStats.getPacketCount();
+            totalBytes += rtpStats.getByteCount();
+            totalLost += rtpStats.getLostCount();
+            totalGaps += rtpStats.getGapCount();
+            firstArrivalNanos = Math.min(firstArrivalNanos, rtpStats.getFirstArrivalNanos());
+            lastArrivalNanos = Math.max(lastArrivalNanos, rtpStats.getLastArrivalNanos());
+            firstPacketNanosList.add(loadSession.getFirstPacketNanos());
+            jitterMsList.add(rtpStats.getJitterMs());
+        }
+
+        double receiveSeconds = totalPackets > 0 ? (lastArrivalNanos - firstArrivalNanos) / 1e9 : 0;
+
+        long[] firstPacketNanos = firstPacketNanosList.stream().mapToLong(Long::longValue).sorted().toArray();
+        double[] jitterMs = jitterMsList.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+
+        JsonObject json = new JsonObject();
+        json.addProperty("sessions", loadSessionList.size());
+        json.addProperty("successSessions", successCount);
+        json.addProperty("failedSessions", loadSessionList.size() - successCount);
+        json.addProperty("receivingSessions", firstPacketNanos.length);
+        json.addProperty("totalPackets", totalPackets);
+        json.addProperty("totalBytes", totalBytes);
+        json.addProperty("lostPackets", totalLost);
+        json.addProperty("sequenceGaps", totalGaps);
+        json.addProperty("receiveSeconds", receiveSeconds);
+        json.addProperty("throughputMbps", receiveSeconds > 0 ? totalBytes * 8 / receiveSeconds / 1e6 : 0);
+        json.addProperty("packetsPerSecond", receiveSeconds > 0 ? totalPackets / receiveSeconds : 0);
+        json.addProperty("timeToFirstPacketP50Ms", percentile(firstPacketNanos, 0.50) / 1e6);
+        json.addProperty("timeToFirstPacketP99Ms", percentile(firstPacketNanos, 0.99) / 1e6);
+        json.addProperty("timeToFirstPacketMaxMs", percentile(firstPacketNanos, 1.0) / 1e6);
+        json.addProperty("jitterP50Ms", percentile(jitterMs, 0.50));
+        json.addProperty("jitterP99Ms", percentile(jitterMs, 0.99));
+        json.addProperty("jitterMaxMs", percentile(jitterMs, 1.0));
+        json.add("failedStages", failedStages(loadSessionList));
+        return json;
+    }
+
+    /**
+     * @return 실패 단계 > 실패한 session 개수
+     */
+    private static JsonObject failedStages(List<LoadSession> loadSessionList) {
+        JsonObject json = new JsonObject();
+        for (LoadSession loadSession : loadSessionList) {
+            if (!loadSession.isSuccess()) {
+                String stage = loadSession.getFailedStage();
+                json.addProperty(stage, json.has(stage) ? json.get(stage).getAsInt() + 1 : 1);
+            }
+        }
+        return json;
+    }
+
+    private static double percentile(long[] sorted, double ratio) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * ratio))];
+    }
+
+    private static double percentile(double[] sorted, double ratio) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * ratio))];
+    }
+
+}
@@ -0,0 +1,163 @@
+package rtsp.bench;
+
+import com.google.gson.JsonObject;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class ServerResourceSampler
+ * @brief 부하 테스트 중 서버 프로세스의 스레드 개수, 메모리, CPU 사용 시간을 주기적으로 기록하는 클래스
+ * 스레드 개수, RSS, CPU 시간은 /proc/[pid] 에서 읽는다. (Linux)
+ * 서버를 같은 프로세스에서 실행한 경우(embedded)에는 heap 사용량도 기록한다. (이 경우 generator 의 스레드와 메모리도 포함된다.)
+ */
+public class ServerResourceSampler {
+
+    private static final long CLOCK_TICKS_PER_SECOND = 100; // USER_HZ
+
+    private final long pid;
+    private final boolean isEmbedded;
+    private final ScheduledExecutorService scheduler;
+
+    // scheduler 스레드 한 개에서만 갱신
+    private volatile int startThreads = -1;
+    private volatile int peakThreads = -1;
+    private volatile int endThreads = -1;
+    private volatile long startRssBytes = -1;
+    private volatile long peakRssBytes = -1;
+    private volatile long endRssBytes = -1;
+    private volatile long peakHeapUsedBytes = -1;
+    private volatile long endHeapUsedBytes = -1;
+    private volatile long startCpuTicks = -1;
+    private volatile long endCpuTicks = -1;
+    private volatile int sampleCount = 0;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public ServerResourceSampler(long pid, boolean isEmbedded)
+     * @brief ServerResourceSampler 생성자 함수
+     * @param pid 서버 프로세스 id
+     * @param isEmbedded 서버를 generator 와 같은 프로세스에서 실행했으면 true
+     */
+    public ServerResourceSampler(long pid, boolean isEmbedded) {
+        this.pid = pid;
+        this.isEmbedded = isEmbedded;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("ResourceSampler")
+                        .daemon(true)
+                        .build()
+        );
+    }
+
+    public static long getCurrentPid() {
+        // Java 8 호환 (pid@hostname)
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        return Long.parseLong(name.substring(0, name.indexOf('@')));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public void start(long intervalMs) {
+        sample();
+        scheduler.scheduleAtFixedRate(this::sample, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+    }
+
+    private void sample() {
+        int threads = -1;
+        long rssBytes = -1;
+        try {
+            List<String> statusLines = Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"), StandardCharsets.UTF_8);
+            for (String line : statusLines) {
+                if (line.startsWith("Threads:")) {
+                    threads = Integer.parseInt(line.substring("Threads:".length()).trim());
+                } else if (line.startsWith("VmRSS:")) {
+                    // VmRSS:   123456 kB
+                    rssBytes = Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (Exception e) {
+            // /proc 이 없거나 프로세스가 종료됨
+        }
+
+        long cpuTicks = readCpuTicks();
+
+        long heapUsedBytes = -1;
+        if (isEmbedded) {
+            heapUsedBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (threads < 0) {
+                threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            }
+        }
+
+        if (sampleCount == 0) {
+            startThreads = threads;
+            startRssBytes = rssBytes;
+            startCpuTicks = cpuTicks;
+        }
+        peakThreads = Math.max(peakThreads, threads);
+        peakRssBytes = Math.max(peakRssBytes, rssBytes);
+        peakHeapUsedBytes = Math.max(peakHeapUsedBytes, heapUsedBytes);
+        endThreads = threads;
+        endRssBytes = rssBytes;
+        endHeapUsedBytes = heapUsedBytes;
+        endCpuTicks = cpuTicks;
+        sampleCount++;
+    }
+
+    /**
+     * @return utime + stime (clock tick), 읽지 못하면 -1 반환
+     */
+    private long readCpuTicks() {
+        try {
+            String stat = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "stat")), StandardCharsets.UTF_8);
+            // comm 에 공백이 있을 수 있으므로 마지막 ')' 이후부터 분리 (state 가 첫 번째 항목)
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public JsonObject toJson(double elapsedSeconds) {
+        JsonObject json = new JsonObject();
+        json.addProperty("pid", pid);
+        json.addProperty("embedded", isEmbedded);
+        json.addProperty("samples", sampleCount);
+        json.addProperty("startThreads", startThreads);
+        json.addProperty("peakThreads", peakThreads);
+        json.addProperty("endThreads", endThreads);
+        json.addProperty("startRssBytes", startRssBytes);
+        json.addProperty("peakRssBytes", peakRssBytes);
+        json.addProperty("endRssBytes", endRssBytes);
+        json.addProperty("peakHeapUsedBytes", peakHeapUsedBytes);
+        json.addProperty("endHeapUsedBytes", endHeapUsedBytes);
+        if (startCpuTicks >= 0 && endCpuTicks >= 0) {
+            double cpuSeconds = (double) (endCpuTicks - startCpuTicks) / CLOCK_TICKS_PER_SECOND;
+            json.addProperty("cpuSeconds", cpuSeconds);
+            json.addProperty("cpuUsage", elapsedSeconds > 0 ? cpuSeconds / elapsedSeconds : 0);
+        }
+        return json;
+    }
+
+}
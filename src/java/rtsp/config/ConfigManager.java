@@ -4,9 +4,15 @@ import org.apache.commons.net.ntp.TimeStamp;
 import org.ini4j.Ini;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rtsp.module.egress.EgressBackpressurePolicy;
+import rtsp.module.egress.EgressFlushMode;
+import rtsp.module.netty.handler.PcrPacingMode;
 import rtsp.module.sdp.SdpParser;
+import rtsp.module.sdp.SdpTemplate;
 import rtsp.module.sdp.base.Sdp;
 import rtsp.service.ServiceManager;
+import rtsp.service.base.ExecutorBackend;
+import rtsp.service.scheduler.schedule.handler.JobSchedulingPolicy;
 
 import java.io.File;
 import java.io.IOException;
@@ -30,16 +36,32 @@ public class ConfigManager {
     public static final String SECTION_NETWORK = "NETWORK"; // NETWORK Section 이름
     public static final String SECTION_HLS = "HLS"; // HLS Section 이름
     public static final String SECTION_REGISTER = "REGISTER"; // REGISTER Section 이름
+    public static final String SECTION_PACKAGING = "PACKAGING"; // PACKAGING Section 이름
+    public static final String SECTION_METRICS = "METRICS"; // METRICS Section 이름
+    public static final String SECTION_HEALTH = "HEALTH"; // HEALTH Section 이름
     private static final String SECTION_SDP = "SDP"; // SDP Section 이름
 
+    // SDP template marker
+    private static final String SDP_TEMPLATE_ID = "SDP_TEMPLATE";
+    private static final String SDP_ADDRESS_MARKER = "255.255.255.254";
+    private static final int SDP_PORT_MARKER = 65533;
+    private static final String SDP_SESSION_ID_MARKER = "7038429156203847561";
+
     // Field String
     public static final String FIELD_SEND_BUF_SIZE = "SEND_BUF_SIZE";
     public static final String FIELD_RECV_BUF_SIZE = "RECV_BUF_SIZE";
     public static final String FIELD_EXTERNAL_CLIENT_ACCESS = "EXTERNAL_CLIENT_ACCESS";
     public static final String FIELD_LONG_SESSION_LIMIT_TIME = "LONG_SESSION_LIMIT_TIME";
+    public static final String FIELD_SESSION_IDLE_LIMIT_TIME = "SESSION_IDLE_LIMIT_TIME";
+    public static final String FIELD_TITLE_SCAN_PATH = "TITLE_SCAN_PATH";
 
     public static final String FIELD_FFMPEG_PATH = "FFMPEG_PATH";
     public static final String FIELD_FFPROBE_PATH = "FFPROBE_PATH";
+    public static final String FIELD_FFMPEG_MAX_CONCURRENCY = "FFMPEG_MAX_CONCURRENCY";
+    public static final String FIELD_FFMPEG_TIMEOUT = "FFMPEG_TIMEOUT";
+    public static final String FIELD_FFPROBE_MAX_CONCURRENCY = "FFPROBE_MAX_CONCURRENCY";
+    public static final String FIELD_FFPROBE_TIMEOUT = "FFPROBE_TIMEOUT";
+    public static final String FIELD_TOOL_MAX_QUEUE = "TOOL_MAX_QUEUE";
 
     public static final String FIELD_STREAM_THREAD_POOL_SIZE = "STREAM_THREAD_POOL_SIZE";
     public static final String FIELD_LOCAL_LISTEN_IP = "LOCAL_LISTEN_IP";
@@ -48,12 +70,63 @@ public class ConfigManager {
     public static final String FIELD_LOCAL_RTCP_LISTEN_PORT = "LOCAL_RTCP_LISTEN_PORT";
     public static final String FIELD_TARGET_RTP_PORT_MIN = "TARGET_RTP_PORT_MIN";
     public static final String FIELD_TARGET_RTP_PORT_MAX = "TARGET_RTP_PORT_MAX";
+    public static final String FIELD_RTP_PORT_PROBE_BIND = "RTP_PORT_PROBE_BIND";
+    public static final String FIELD_RTP_PORT_LEAK_TIME = "RTP_PORT_LEAK_TIME";
+    public static final String FIELD_JOB_SCHEDULING_POLICY = "JOB_SCHEDULING_POLICY";
+    public static final String FIELD_JOB_WORK_STEALING = "JOB_WORK_STEALING";
+    public static final String FIELD_EXECUTOR_BACKEND = "EXECUTOR_BACKEND";
+    public static final String FIELD_PLAY_PREPARE_POOL_SIZE = "PLAY_PREPARE_POOL_SIZE";
+    public static final String FIELD_PLAY_PREPARE_QUEUE_SIZE = "PLAY_PREPARE_QUEUE_SIZE";
+    public static final String FIELD_PLAY_PREPARE_RETRY_AFTER = "PLAY_PREPARE_RETRY_AFTER";
+    public static final String FIELD_PCR_PACING_MODE = "PCR_PACING_MODE";
+    public static final String FIELD_STREAM_TRACE_SIZE = "STREAM_TRACE_SIZE";
+    public static final String FIELD_STREAM_TRACE_SUMMARY_INTERVAL = "STREAM_TRACE_SUMMARY_INTERVAL";
+    public static final String FIELD_ADMISSION_MAX_SESSIONS = "ADMISSION_MAX_SESSIONS";
+    public static final String FIELD_ADMISSION_MAX_BITRATE = "ADMISSION_MAX_BITRATE";
+    public static final String FIELD_ADMISSION_DEFAULT_BITRATE = "ADMISSION_DEFAULT_BITRATE";
+    public static final String FIELD_ADMISSION_PACING_LATENESS_LIMIT = "ADMISSION_PACING_LATENESS_LIMIT";
+    public static final String FIELD_ADMISSION_LOAD_SHEDDING = "ADMISSION_LOAD_SHEDDING";
+    public static final String FIELD_ADMISSION_RETRY_AFTER = "ADMISSION_RETRY_AFTER";
+    public static final String FIELD_EGRESS_WRITE_BUFFER_LOW = "EGRESS_WRITE_BUFFER_LOW";
+    public static final String FIELD_EGRESS_WRITE_BUFFER_HIGH = "EGRESS_WRITE_BUFFER_HIGH";
+    public static final String FIELD_EGRESS_BACKPRESSURE_POLICY = "EGRESS_BACKPRESSURE_POLICY";
+    public static final String FIELD_EGRESS_SLOW_MAX_WAIT = "EGRESS_SLOW_MAX_WAIT";
+    public static final String FIELD_EGRESS_FLUSH_MODE = "EGRESS_FLUSH_MODE";
+    public static final String FIELD_EGRESS_MAX_BATCH_PACKETS = "EGRESS_MAX_BATCH_PACKETS";
 
     public static final String FIELD_DIRECT_PARSING = "DIRECT_CONVERTING";
     public static final String FIELD_HLS_LIST_SIZE = "HLS_LIST_SIZE";
     public static final String FIELD_HLS_TIME = "HLS_TIME";
     public static final String FIELD_DELETE_M3U8 = "DELETE_M3U8";
     public static final String FIELD_DELETE_TS = "DELETE_TS";
+    public static final String FIELD_PIPE_STREAMING = "PIPE_STREAMING";
+    public static final String FIELD_PIPE_CODEC = "PIPE_CODEC";
+    public static final String FIELD_PIPE_MAX_SESSIONS = "PIPE_MAX_SESSIONS";
+    public static final String FIELD_SEGMENT_CACHE_ENABLE = "SEGMENT_CACHE_ENABLE";
+    public static final String FIELD_SEGMENT_CACHE_SIZE = "SEGMENT_CACHE_SIZE";
+    public static final String FIELD_SEGMENT_PREFETCH_COUNT = "SEGMENT_PREFETCH_COUNT";
+    public static final String FIELD_SEGMENT_IO_POOL_SIZE = "SEGMENT_IO_POOL_SIZE";
+
+    // PACKAGING
+    public static final String FIELD_PACKAGING_ENABLE = "ENABLE";
+    public static final String FIELD_PACKAGING_ROOT_PATH = "ROOT_PATH";
+    public static final String FIELD_PACKAGING_POOL_SIZE = "POOL_SIZE";
+    public static final String FIELD_PACKAGING_BACKGROUND_LIMIT = "BACKGROUND_LIMIT";
+    public static final String FIELD_PACKAGING_FFMPEG_THREADS = "FFMPEG_THREADS";
+    public static final String FIELD_PACKAGING_SCAN_INTERVAL = "SCAN_INTERVAL";
+    public static final String FIELD_PACKAGING_STATE_FILE = "STATE_FILE";
+
+    // METRICS
+    public static final String FIELD_METRICS_ENABLE = "ENABLE";
+    public static final String FIELD_METRICS_LISTEN_IP = "LISTEN_IP";
+    public static final String FIELD_METRICS_LISTEN_PORT = "LISTEN_PORT";
+
+    // HEALTH
+    public static final String FIELD_HEALTH_WINDOW_SIZE = "WINDOW_SIZE";
+    public static final String FIELD_HEALTH_EVENT_LOOP_LAG_LIMIT = "EVENT_LOOP_LAG_LIMIT";
+    public static final String FIELD_HEALTH_CPU_LIMIT = "CPU_LIMIT";
+    public static final String FIELD_HEALTH_DIRECT_MEMORY_LIMIT = "DIRECT_MEMORY_LIMIT";
+    public static final String FIELD_HEALTH_EGRESS_LIMIT = "EGRESS_LIMIT";
 
     private static final String FIELD_REALM = "REALM";
     private static final String FIELD_MAGIC_COOKIE = "MAGIC_COOKIE";
@@ -64,10 +137,17 @@ public class ConfigManager {
     private int recvBufSize = 0;
     private boolean isExternalClientAccess = false;
     private long localSessionLimitTime = 0; // ms
+    private long localSessionIdleLimitTime = 0; // ms
+    private String titleScanPath = null; // 비어 있으면 PLAY 시점에 lazy 로드
 
     // FFMPEG
     private String ffmpegPath = null;
     private String ffprobePath = null;
+    private int ffmpegMaxConcurrency = 0;
+    private long ffmpegTimeout = 0; // ms
+    private int ffprobeMaxConcurrency = 0;
+    private long ffprobeTimeout = 0; // ms
+    private int toolMaxQueue = 0;
 
     // NETWORK
     private int streamThreadPoolSize = 1;
@@ -77,6 +157,29 @@ public class ConfigManager {
     private int localRtcpListenPort = 0;
     private int targetRtpPortMin = 0;
     private int targetRtpPortMax = 0;
+    private boolean isRtpPortProbeBind = false;
+    private long rtpPortLeakTime = 0; // ms
+    private JobSchedulingPolicy jobSchedulingPolicy = JobSchedulingPolicy.PRIORITY;
+    private boolean isJobWorkStealing = false;
+    private ExecutorBackend executorBackend = ExecutorBackend.PLATFORM;
+    private int playPreparePoolSize = 0;
+    private int playPrepareQueueSize = 0;
+    private int playPrepareRetryAfter = 0; // sec
+    private PcrPacingMode pcrPacingMode = PcrPacingMode.ANCHORED;
+    private int streamTraceSize = 0; // 0 이면 session 별 trace ring 을 사용하지 않음
+    private long streamTraceSummaryInterval = 0; // ms, 0 이면 요약 로그를 남기지 않음
+    private int admissionMaxSessions = 0; // 0 이면 제한하지 않음
+    private long admissionMaxBitRate = 0; // bps, 0 이면 제한하지 않음
+    private long admissionDefaultBitRate = 0; // bps, title metadata 로 bitrate 를 알 수 없을 때 사용
+    private long admissionPacingLatenessLimit = 0; // ms, 0 이면 사용하지 않음
+    private boolean isAdmissionLoadShedding = false; // HealthSampler 가 과부하로 판단하면 새 session 거절
+    private int admissionRetryAfter = 0; // sec
+    private int egressWriteBufferLow = 0; // bytes, 보내지 못한 크기가 이 값 아래로 내려가면 다시 writable
+    private int egressWriteBufferHigh = 0; // bytes, 보내지 못한 크기가 이 값을 넘으면 unwritable
+    private EgressBackpressurePolicy egressBackpressurePolicy = EgressBackpressurePolicy.SKIP_TO_KEYFRAME;
+    private long egressSlowMaxWait = 0; // ms, SLOW 정책에서 writable 이 될 때까지 기다리는 최대 시간
+    private EgressFlushMode egressFlushMode = EgressFlushMode.TICK;
+    private int egressMaxBatchPackets = 0; // TICK 모드에서 pacing 간격 안에 모아서 보내는 최대 패킷 개수
 
     // HLS
     private boolean isM3u8DirectConverting = false;
@@ -84,6 +187,34 @@ public class ConfigManager {
     private int hlsTime = 0;
     private boolean deleteM3u8 = true;
     private boolean deleteTs = true;
+    private boolean isPipeStreaming = false; // 미리 변환된 HLS 가 없으면 ffmpeg 출력(MPEG-TS)을 바로 RTP 로 전송
+    private String pipeCodec = null;
+    private int pipeMaxSessions = 0; // 동시에 실행할 수 있는 ffmpeg pipe 개수 (FFMPEG_MAX_CONCURRENCY 와 별도, 초과하면 PLAY 를 503 으로 거절)
+    private boolean isSegmentCacheEnabled = false; // TS 파일을 direct memory 에 올려서 session 끼리 공유
+    private long segmentCacheSize = 0; // bytes
+    private int segmentPrefetchCount = 0; // 현재 보내는 TS 파일 외에 미리 읽어둘 TS 파일 개수
+    private int segmentIoPoolSize = 0;
+
+    // PACKAGING
+    private boolean isPackagingEnabled = false;
+    private String packagingRootPath = null;
+    private int packagingPoolSize = 0;
+    private int packagingBackgroundLimit = 0;
+    private int packagingFfmpegThreads = 0; // 0 이면 ffmpeg 기본값
+    private long packagingScanInterval = 0; // ms
+    private String packagingStateFile = null;
+
+    // METRICS
+    private boolean isMetricsEnabled = false; // Prometheus scrape endpoint (GET /metrics)
+    private String metricsListenIp = null;
+    private int metricsListenPort = 0;
+
+    // HEALTH (부하 판단 기준, 각 항목이 limit 에 도달하면 load factor 가 1 이 된다.)
+    private int healthWindowSize = 0; // 최근 몇 번의 sample 로 부하를 판단할지 (HealthSampler 가 1 초마다 sample)
+    private long healthEventLoopLagLimit = 0; // ms
+    private int healthCpuLimit = 0; // %
+    private long healthDirectMemoryLimit = 0; // bytes, 0 이면 최대 direct memory
+    private long healthEgressLimit = 0; // bps, 0 이면 사용하지 않음
 
     // REGISTER
     private String realm;
@@ -100,6 +231,8 @@ public class ConfigManager {
     private String media;
     String[] mp2tAttributeList;
     String[] attributeList;
+    private volatile SdpTemplate localSdpTemplate = null;
+    private boolean isLocalSdpTemplateFailed = false;
 
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -123,6 +256,9 @@ public class ConfigManager {
             loadNetworkConfig();
             loadHlsConfig();
             loadRegisterConfig();
+            loadPackagingConfig();
+            loadMetricsConfig();
+            loadHealthConfig();
             loadSdpConfig();
 
             logger.info("Load config [{}]", configPath);
@@ -158,6 +294,14 @@ public class ConfigManager {
             System.exit(1);
         }
 
+        this.localSessionIdleLimitTime = Long.parseLong(getIniValue(SECTION_COMMON, FIELD_SESSION_IDLE_LIMIT_TIME));
+        if (this.localSessionIdleLimitTime < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_COMMON, FIELD_SESSION_IDLE_LIMIT_TIME, localSessionIdleLimitTime);
+            System.exit(1);
+        }
+
+        this.titleScanPath = getIniValue(SECTION_COMMON, FIELD_TITLE_SCAN_PATH);
+
         logger.debug("Load [{}] config...(OK)", SECTION_COMMON);
     }
 
@@ -178,6 +322,36 @@ public class ConfigManager {
             System.exit(1);
         }
 
+        this.ffmpegMaxConcurrency = Integer.parseInt(getIniValue(SECTION_FFMPEG, FIELD_FFMPEG_MAX_CONCURRENCY));
+        if (this.ffmpegMaxConcurrency <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_FFMPEG, FIELD_FFMPEG_MAX_CONCURRENCY, ffmpegMaxConcurrency);
+            System.exit(1);
+        }
+
+        this.ffmpegTimeout = Long.parseLong(getIniValue(SECTION_FFMPEG, FIELD_FFMPEG_TIMEOUT));
+        if (this.ffmpegTimeout <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_FFMPEG, FIELD_FFMPEG_TIMEOUT, ffmpegTimeout);
+            System.exit(1);
+        }
+
+        this.ffprobeMaxConcurrency = Integer.parseInt(getIniValue(SECTION_FFMPEG, FIELD_FFPROBE_MAX_CONCURRENCY));
+        if (this.ffprobeMaxConcurrency <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_FFMPEG, FIELD_FFPROBE_MAX_CONCURRENCY, ffprobeMaxConcurrency);
+            System.exit(1);
+        }
+
+        this.ffprobeTimeout = Long.parseLong(getIniValue(SECTION_FFMPEG, FIELD_FFPROBE_TIMEOUT));
+        if (this.ffprobeTimeout <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_FFMPEG, FIELD_FFPROBE_TIMEOUT, ffprobeTimeout);
+            System.exit(1);
+        }
+
+        this.toolMaxQueue = Integer.parseInt(getIniValue(SECTION_FFMPEG, FIELD_TOOL_MAX_QUEUE));
+        if (this.toolMaxQueue < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_FFMPEG, FIELD_TOOL_MAX_QUEUE, toolMaxQueue);
+            System.exit(1);
+        }
+
         logger.debug("Load [{}] config...(OK)", SECTION_FFMPEG);
     }
 
@@ -233,6 +407,132 @@ public class ConfigManager {
             System.exit(1);
         }
 
+        this.isRtpPortProbeBind = Boolean.parseBoolean(getIniValue(SECTION_NETWORK, FIELD_RTP_PORT_PROBE_BIND));
+
+        this.rtpPortLeakTime = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_RTP_PORT_LEAK_TIME));
+        if (this.rtpPortLeakTime < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_RTP_PORT_LEAK_TIME, rtpPortLeakTime);
+            System.exit(1);
+        }
+
+        String jobSchedulingPolicyStr = getIniValue(SECTION_NETWORK, FIELD_JOB_SCHEDULING_POLICY);
+        this.jobSchedulingPolicy = JobSchedulingPolicy.fromName(jobSchedulingPolicyStr);
+        if (!jobSchedulingPolicy.name().equalsIgnoreCase(jobSchedulingPolicyStr)) {
+            logger.warn("Unknown [{}-{}]. ({}) Use {} instead.", SECTION_NETWORK, FIELD_JOB_SCHEDULING_POLICY, jobSchedulingPolicyStr, jobSchedulingPolicy);
+        }
+
+        this.isJobWorkStealing = Boolean.parseBoolean(getIniValue(SECTION_NETWORK, FIELD_JOB_WORK_STEALING));
+
+        String executorBackendStr = getIniValue(SECTION_NETWORK, FIELD_EXECUTOR_BACKEND);
+        this.executorBackend = ExecutorBackend.fromName(executorBackendStr);
+        if (!executorBackend.name().equalsIgnoreCase(executorBackendStr)) {
+            logger.warn("Unknown [{}-{}]. ({}) Use {} instead.", SECTION_NETWORK, FIELD_EXECUTOR_BACKEND, executorBackendStr, executorBackend);
+        }
+
+        this.playPreparePoolSize = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_PLAY_PREPARE_POOL_SIZE));
+        if (this.playPreparePoolSize <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_PLAY_PREPARE_POOL_SIZE, playPreparePoolSize);
+            System.exit(1);
+        }
+
+        this.playPrepareQueueSize = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_PLAY_PREPARE_QUEUE_SIZE));
+        if (this.playPrepareQueueSize < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_PLAY_PREPARE_QUEUE_SIZE, playPrepareQueueSize);
+            System.exit(1);
+        }
+
+        this.playPrepareRetryAfter = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_PLAY_PREPARE_RETRY_AFTER));
+        if (this.playPrepareRetryAfter <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_PLAY_PREPARE_RETRY_AFTER, playPrepareRetryAfter);
+            System.exit(1);
+        }
+
+        String pcrPacingModeStr = getIniValue(SECTION_NETWORK, FIELD_PCR_PACING_MODE);
+        this.pcrPacingMode = PcrPacingMode.fromName(pcrPacingModeStr);
+        if (!pcrPacingMode.name().equalsIgnoreCase(pcrPacingModeStr)) {
+            logger.warn("Unknown [{}-{}]. ({}) Use {} instead.", SECTION_NETWORK, FIELD_PCR_PACING_MODE, pcrPacingModeStr, pcrPacingMode);
+        }
+
+        this.streamTraceSize = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_STREAM_TRACE_SIZE));
+        if (this.streamTraceSize < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_STREAM_TRACE_SIZE, streamTraceSize);
+            System.exit(1);
+        }
+
+        this.streamTraceSummaryInterval = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_STREAM_TRACE_SUMMARY_INTERVAL));
+        if (this.streamTraceSummaryInterval < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_STREAM_TRACE_SUMMARY_INTERVAL, streamTraceSummaryInterval);
+            System.exit(1);
+        }
+
+        this.admissionMaxSessions = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_MAX_SESSIONS));
+        if (this.admissionMaxSessions < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_ADMISSION_MAX_SESSIONS, admissionMaxSessions);
+            System.exit(1);
+        }
+
+        this.admissionMaxBitRate = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_MAX_BITRATE));
+        if (this.admissionMaxBitRate < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_ADMISSION_MAX_BITRATE, admissionMaxBitRate);
+            System.exit(1);
+        }
+
+        this.admissionDefaultBitRate = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_DEFAULT_BITRATE));
+        if (this.admissionDefaultBitRate <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_ADMISSION_DEFAULT_BITRATE, admissionDefaultBitRate);
+            System.exit(1);
+        }
+
+        this.admissionPacingLatenessLimit = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_PACING_LATENESS_LIMIT));
+        if (this.admissionPacingLatenessLimit < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_ADMISSION_PACING_LATENESS_LIMIT, admissionPacingLatenessLimit);
+            System.exit(1);
+        }
+
+        this.isAdmissionLoadShedding = Boolean.parseBoolean(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_LOAD_SHEDDING));
+
+        this.admissionRetryAfter = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_ADMISSION_RETRY_AFTER));
+        if (this.admissionRetryAfter <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_ADMISSION_RETRY_AFTER, admissionRetryAfter);
+            System.exit(1);
+        }
+
+        this.egressWriteBufferLow = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_EGRESS_WRITE_BUFFER_LOW));
+        if (this.egressWriteBufferLow <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_EGRESS_WRITE_BUFFER_LOW, egressWriteBufferLow);
+            System.exit(1);
+        }
+
+        this.egressWriteBufferHigh = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_EGRESS_WRITE_BUFFER_HIGH));
+        if (this.egressWriteBufferHigh < this.egressWriteBufferLow) {
+            logger.error("Fail to load [{}-{}]. ({}) It must be greater than or equal to {}. ({})", SECTION_NETWORK, FIELD_EGRESS_WRITE_BUFFER_HIGH, egressWriteBufferHigh, FIELD_EGRESS_WRITE_BUFFER_LOW, egressWriteBufferLow);
+            System.exit(1);
+        }
+
+        String egressBackpressurePolicyStr = getIniValue(SECTION_NETWORK, FIELD_EGRESS_BACKPRESSURE_POLICY);
+        this.egressBackpressurePolicy = EgressBackpressurePolicy.fromName(egressBackpressurePolicyStr);
+        if (!egressBackpressurePolicy.name().equalsIgnoreCase(egressBackpressurePolicyStr)) {
+            logger.warn("Unknown [{}-{}]. ({}) Use {} instead.", SECTION_NETWORK, FIELD_EGRESS_BACKPRESSURE_POLICY, egressBackpressurePolicyStr, egressBackpressurePolicy);
+        }
+
+        this.egressSlowMaxWait = Long.parseLong(getIniValue(SECTION_NETWORK, FIELD_EGRESS_SLOW_MAX_WAIT));
+        if (this.egressSlowMaxWait <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_EGRESS_SLOW_MAX_WAIT, egressSlowMaxWait);
+            System.exit(1);
+        }
+
+        String egressFlushModeStr = getIniValue(SECTION_NETWORK, FIELD_EGRESS_FLUSH_MODE);
+        this.egressFlushMode = EgressFlushMode.fromName(egressFlushModeStr);
+        if (!egressFlushMode.name().equalsIgnoreCase(egressFlushModeStr)) {
+            logger.warn("Unknown [{}-{}]. ({}) Use {} instead.", SECTION_NETWORK, FIELD_EGRESS_FLUSH_MODE, egressFlushModeStr, egressFlushMode);
+        }
+
+        this.egressMaxBatchPackets = Integer.parseInt(getIniValue(SECTION_NETWORK, FIELD_EGRESS_MAX_BATCH_PACKETS));
+        if (this.egressMaxBatchPackets <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_NETWORK, FIELD_EGRESS_MAX_BATCH_PACKETS, egressMaxBatchPackets);
+            System.exit(1);
+        }
+
         logger.debug("Load [{}] config...(OK)", SECTION_NETWORK);
     }
 
@@ -258,6 +558,40 @@ public class ConfigManager {
         this.deleteM3u8 = Boolean.parseBoolean(getIniValue(SECTION_HLS, FIELD_DELETE_M3U8));
         this.deleteTs = Boolean.parseBoolean(getIniValue(SECTION_HLS, FIELD_DELETE_TS));
 
+        this.isPipeStreaming = Boolean.parseBoolean(getIniValue(SECTION_HLS, FIELD_PIPE_STREAMING));
+
+        this.pipeCodec = getIniValue(SECTION_HLS, FIELD_PIPE_CODEC);
+        if (this.pipeCodec.isEmpty()) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HLS, FIELD_PIPE_CODEC, pipeCodec);
+            System.exit(1);
+        }
+
+        this.pipeMaxSessions = Integer.parseInt(getIniValue(SECTION_HLS, FIELD_PIPE_MAX_SESSIONS));
+        if (this.pipeMaxSessions <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HLS, FIELD_PIPE_MAX_SESSIONS, pipeMaxSessions);
+            System.exit(1);
+        }
+
+        this.isSegmentCacheEnabled = Boolean.parseBoolean(getIniValue(SECTION_HLS, FIELD_SEGMENT_CACHE_ENABLE));
+
+        this.segmentCacheSize = Long.parseLong(getIniValue(SECTION_HLS, FIELD_SEGMENT_CACHE_SIZE));
+        if (this.segmentCacheSize <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HLS, FIELD_SEGMENT_CACHE_SIZE, segmentCacheSize);
+            System.exit(1);
+        }
+
+        this.segmentPrefetchCount = Integer.parseInt(getIniValue(SECTION_HLS, FIELD_SEGMENT_PREFETCH_COUNT));
+        if (this.segmentPrefetchCount < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HLS, FIELD_SEGMENT_PREFETCH_COUNT, segmentPrefetchCount);
+            System.exit(1);
+        }
+
+        this.segmentIoPoolSize = Integer.parseInt(getIniValue(SECTION_HLS, FIELD_SEGMENT_IO_POOL_SIZE));
+        if (this.segmentIoPoolSize <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HLS, FIELD_SEGMENT_IO_POOL_SIZE, segmentIoPoolSize);
+            System.exit(1);
+        }
+
         logger.debug("Load [{}] config...(OK)", SECTION_HLS);
     }
 
@@ -273,6 +607,113 @@ public class ConfigManager {
         logger.debug("Load [{}] config...(OK)", SECTION_REGISTER);
     }
 
+    /**
+     * @fn private void loadPackagingConfig()
+     * @brief PACKAGING Section 을 로드하는 함수
+     */
+    private void loadPackagingConfig() {
+        this.isPackagingEnabled = Boolean.parseBoolean(getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_ENABLE));
+
+        this.packagingRootPath = getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_ROOT_PATH);
+        if (isPackagingEnabled && packagingRootPath.isEmpty()) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_PACKAGING, FIELD_PACKAGING_ROOT_PATH, packagingRootPath);
+            System.exit(1);
+        }
+
+        this.packagingPoolSize = Integer.parseInt(getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_POOL_SIZE));
+        if (this.packagingPoolSize <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_PACKAGING, FIELD_PACKAGING_POOL_SIZE, packagingPoolSize);
+            System.exit(1);
+        }
+
+        // on-demand 요청이 항상 실행될 수 있도록 background 작업은 pool 보다 적게 실행한다.
+        this.packagingBackgroundLimit = Integer.parseInt(getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_BACKGROUND_LIMIT));
+        if (this.packagingBackgroundLimit < 0 || (packagingPoolSize > 1 && packagingBackgroundLimit >= packagingPoolSize)) {
+            logger.error("Fail to load [{}-{}]. ({}) (poolSize={})", SECTION_PACKAGING, FIELD_PACKAGING_BACKGROUND_LIMIT, packagingBackgroundLimit, packagingPoolSize);
+            System.exit(1);
+        }
+
+        this.packagingFfmpegThreads = Integer.parseInt(getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_FFMPEG_THREADS));
+        if (this.packagingFfmpegThreads < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_PACKAGING, FIELD_PACKAGING_FFMPEG_THREADS, packagingFfmpegThreads);
+            System.exit(1);
+        }
+
+        this.packagingScanInterval = Long.parseLong(getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_SCAN_INTERVAL));
+        if (this.packagingScanInterval < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_PACKAGING, FIELD_PACKAGING_SCAN_INTERVAL, packagingScanInterval);
+            System.exit(1);
+        }
+
+        this.packagingStateFile = getIniValue(SECTION_PACKAGING, FIELD_PACKAGING_STATE_FILE);
+        if (isPackagingEnabled && packagingStateFile.isEmpty()) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_PACKAGING, FIELD_PACKAGING_STATE_FILE, packagingStateFile);
+            System.exit(1);
+        }
+
+        logger.debug("Load [{}] config...(OK)", SECTION_PACKAGING);
+    }
+
+    /**
+     * @fn private void loadMetricsConfig()
+     * @brief METRICS Section 을 로드하는 함수
+     */
+    private void loadMetricsConfig() {
+        this.isMetricsEnabled = Boolean.parseBoolean(getIniValue(SECTION_METRICS, FIELD_METRICS_ENABLE));
+
+        this.metricsListenIp = getIniValue(SECTION_METRICS, FIELD_METRICS_LISTEN_IP);
+        if (isMetricsEnabled && metricsListenIp.isEmpty()) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_METRICS, FIELD_METRICS_LISTEN_IP, metricsListenIp);
+            System.exit(1);
+        }
+
+        this.metricsListenPort = Integer.parseInt(getIniValue(SECTION_METRICS, FIELD_METRICS_LISTEN_PORT));
+        if (this.metricsListenPort <= 0 || this.metricsListenPort > 65535) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_METRICS, FIELD_METRICS_LISTEN_PORT, metricsListenPort);
+            System.exit(1);
+        }
+
+        logger.debug("Load [{}] config...(OK)", SECTION_METRICS);
+    }
+
+    /**
+     * @fn private void loadHealthConfig()
+     * @brief HEALTH Section 을 로드하는 함수
+     */
+    private void loadHealthConfig() {
+        this.healthWindowSize = Integer.parseInt(getIniValue(SECTION_HEALTH, FIELD_HEALTH_WINDOW_SIZE));
+        if (this.healthWindowSize <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HEALTH, FIELD_HEALTH_WINDOW_SIZE, healthWindowSize);
+            System.exit(1);
+        }
+
+        this.healthEventLoopLagLimit = Long.parseLong(getIniValue(SECTION_HEALTH, FIELD_HEALTH_EVENT_LOOP_LAG_LIMIT));
+        if (this.healthEventLoopLagLimit <= 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HEALTH, FIELD_HEALTH_EVENT_LOOP_LAG_LIMIT, healthEventLoopLagLimit);
+            System.exit(1);
+        }
+
+        this.healthCpuLimit = Integer.parseInt(getIniValue(SECTION_HEALTH, FIELD_HEALTH_CPU_LIMIT));
+        if (this.healthCpuLimit <= 0 || this.healthCpuLimit > 100) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HEALTH, FIELD_HEALTH_CPU_LIMIT, healthCpuLimit);
+            System.exit(1);
+        }
+
+        this.healthDirectMemoryLimit = Long.parseLong(getIniValue(SECTION_HEALTH, FIELD_HEALTH_DIRECT_MEMORY_LIMIT));
+        if (this.healthDirectMemoryLimit < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HEALTH, FIELD_HEALTH_DIRECT_MEMORY_LIMIT, healthDirectMemoryLimit);
+            System.exit(1);
+        }
+
+        this.healthEgressLimit = Long.parseLong(getIniValue(SECTION_HEALTH, FIELD_HEALTH_EGRESS_LIMIT));
+        if (this.healthEgressLimit < 0) {
+            logger.error("Fail to load [{}-{}]. ({})", SECTION_HEALTH, FIELD_HEALTH_EGRESS_LIMIT, healthEgressLimit);
+            System.exit(1);
+        }
+
+        logger.debug("Load [{}] config...(OK)", SECTION_HEALTH);
+    }
+
     private void loadSdpConfig() {
         version = getIniValue(SECTION_SDP, "VERSION");
         if (version == null) {
@@ -338,13 +779,6 @@ public class ConfigManager {
 
     public Sdp loadLocalSdpConfig(String id, int remotePort) {
         try {
-            StringBuilder sdpStr = new StringBuilder();
-
-            // 1) Session
-            // 1-1) Version
-            sdpStr.append(version);
-
-            // 1-2) Origin
             /*
                 - Using NTP Timestamp
                 [RFC 4566]
@@ -356,44 +790,11 @@ public class ConfigManager {
                   used to ensure uniqueness.
              */
             String originSessionId = String.valueOf(TimeStamp.getCurrentTime().getTime());
-            String curOrigin = String.format(this.origin, originSessionId, localListenIp);
-            curOrigin = "o=" + curOrigin + "\r\n";
-            sdpStr.append(curOrigin);
-
-            // 1-3) Session
-            sdpStr.append(session);
-
-            // 3) Media
-            // 3-1) Connection
-            String connection = String.format(this.connection, localListenIp);
-            connection = "c=" + connection + "\r\n";
-            sdpStr.append(connection);
-
-            // 2) Time
-            // 2-1) Time
-            sdpStr.append(time);
-
-            // 3) Media
-            // 3-2) Media
-            sdpStr.append("m=");
-            String media = String.format(this.media, remotePort, MP2T_TYPE);
-            sdpStr.append(media);
-            sdpStr.append("\r\n");
-
-            // 3-3) Attribute
-            sdpStr.append("a=");
-            sdpStr.append(String.format(mp2tAttributeList[0], MP2T_TYPE));
-            sdpStr.append("\r\n");
-
-            for (String attribute : attributeList) {
-                sdpStr.append("a=");
-                sdpStr.append(attribute);
-                sdpStr.append("\r\n");
-            }
+            String sdpStr = buildLocalSdpString(originSessionId, localListenIp, remotePort);
 
             Sdp localSdp = null;
             try {
-                localSdp = sdpParser.parseSdp(id, null, null, sdpStr.toString());
+                localSdp = sdpParser.parseSdp(id, null, null, sdpStr);
                 logger.debug("({}) Local SDP=\n{}", id, localSdp.getData(false));
             } catch (Exception e) {
                 logger.error("({}) Fail to parse the local sdp. ({})", id, sdpStr, e);
@@ -406,6 +807,130 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * @fn private String buildLocalSdpString(String originSessionId, String address, int remotePort)
+     * @brief [SDP] Section 값으로 local SDP 문자열을 만드는 함수
+     */
+    private String buildLocalSdpString(String originSessionId, String address, int remotePort) {
+        StringBuilder sdpStr = new StringBuilder();
+
+        // 1) Session
+        // 1-1) Version
+        sdpStr.append(version);
+
+        // 1-2) Origin
+        String curOrigin = String.format(this.origin, originSessionId, address);
+        curOrigin = "o=" + curOrigin + "\r\n";
+        sdpStr.append(curOrigin);
+
+        // 1-3) Session
+        sdpStr.append(session);
+
+        // 3) Media
+        // 3-1) Connection
+        String connection = String.format(this.connection, address);
+        connection = "c=" + connection + "\r\n";
+        sdpStr.append(connection);
+
+        // 2) Time
+        // 2-1) Time
+        sdpStr.append(time);
+
+        // 3) Media
+        // 3-2) Media
+        sdpStr.append("m=");
+        String media = String.format(this.media, remotePort, MP2T_TYPE);
+        sdpStr.append(media);
+        sdpStr.append("\r\n");
+
+        // 3-3) Attribute
+        sdpStr.append("a=");
+        sdpStr.append(String.format(mp2tAttributeList[0], MP2T_TYPE));
+        sdpStr.append("\r\n");
+
+        for (String attribute : attributeList) {
+            sdpStr.append("a=");
+            sdpStr.append(attribute);
+            sdpStr.append("\r\n");
+        }
+
+        return sdpStr.toString();
+    }
+
+    /**
+     * @fn public SdpTemplate getLocalSdpTemplate()
+     * @brief [SDP] Section 을 한 번만 직렬화한 template 을 반환하는 함수
+     * DESCRIBE 마다 Sdp 객체를 만들지 않고 address, port, session id 만 채워서 사용한다.
+     * [SDP] Section 이 변경되면 다시 만든다.
+     * @return 성공 시 SdpTemplate, 실패 시 null 반환 (loadLocalSdpConfig 사용)
+     */
+    public SdpTemplate getLocalSdpTemplate() {
+        SdpTemplate sdpTemplate = localSdpTemplate;
+        if (sdpTemplate != null) {
+            return sdpTemplate;
+        }
+
+        synchronized (this) {
+            if (localSdpTemplate == null && !isLocalSdpTemplateFailed) {
+                localSdpTemplate = compileLocalSdpTemplate();
+                isLocalSdpTemplateFailed = (localSdpTemplate == null);
+            }
+            return localSdpTemplate;
+        }
+    }
+
+    private SdpTemplate compileLocalSdpTemplate() {
+        try {
+            // marker 값으로 한 번 직렬화한 후, marker 위치를 patch point 로 사용
+            Sdp markerSdp = sdpParser.parseSdp(SDP_TEMPLATE_ID, null, null,
+                    buildLocalSdpString(SDP_SESSION_ID_MARKER, SDP_ADDRESS_MARKER, SDP_PORT_MARKER)
+            );
+            if (markerSdp == null) {
+                logger.warn("Fail to compile the local sdp template. Fail to parse the local sdp.");
+                return null;
+            }
+
+            SdpTemplate sdpTemplate = SdpTemplate.compile(
+                    markerSdp.getData(true),
+                    SDP_ADDRESS_MARKER, String.valueOf(SDP_PORT_MARKER), SDP_SESSION_ID_MARKER
+            );
+            if (sdpTemplate == null) {
+                logger.warn("Fail to compile the local sdp template. Patch point is not found.");
+                return null;
+            }
+
+            // 기존 방식(Sdp 객체 직렬화)과 결과가 같은지 확인
+            int checkPort = targetRtpPortMin;
+            long checkSessionId = TimeStamp.getCurrentTime().getTime();
+            Sdp checkSdp = sdpParser.parseSdp(SDP_TEMPLATE_ID, null, null,
+                    buildLocalSdpString(String.valueOf(checkSessionId), localListenIp, checkPort)
+            );
+            String expected = checkSdp.getData(true);
+            String actual = sdpTemplate.fillToString(localListenIp, checkPort, checkSessionId);
+            if (!expected.equals(actual)) {
+                logger.warn("Fail to compile the local sdp template. Result is unmatched.\n(expected)\n{}(actual)\n{}", expected, actual);
+                return null;
+            }
+
+            logger.debug("Local sdp template is compiled. (patchPoints={}, length={})", sdpTemplate.getPatchPointCount(), sdpTemplate.getMaxLength());
+            return sdpTemplate;
+        } catch (Exception e) {
+            logger.warn("Fail to compile the local sdp template.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @fn public void invalidateLocalSdpTemplate()
+     * @brief local sdp template 을 버리는 함수 (다음 DESCRIBE 에서 다시 만든다.)
+     */
+    public void invalidateLocalSdpTemplate() {
+        synchronized (this) {
+            localSdpTemplate = null;
+            isLocalSdpTemplateFailed = false;
+        }
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
 
     /**
@@ -441,6 +966,11 @@ public class ConfigManager {
             ini.put(section, key, value);
             ini.store();
 
+            if (SECTION_SDP.equals(section)) {
+                loadSdpConfig();
+                invalidateLocalSdpTemplate();
+            }
+
             logger.debug("\tSet Config [{}] > [{}] : [{}]", section, key, value);
         } catch (IOException e) {
             logger.warn("Fail to set the config. (section={}, field={}, value={})", section, key, value);
@@ -453,6 +983,14 @@ public class ConfigManager {
         return localSessionLimitTime;
     }
 
+    public long getLocalSessionIdleLimitTime() {
+        return localSessionIdleLimitTime;
+    }
+
+    public String getTitleScanPath() {
+        return titleScanPath;
+    }
+
     public boolean isExternalClientAccess() {
         return isExternalClientAccess;
     }
@@ -473,6 +1011,26 @@ public class ConfigManager {
         return ffprobePath;
     }
 
+    public int getFfmpegMaxConcurrency() {
+        return ffmpegMaxConcurrency;
+    }
+
+    public long getFfmpegTimeout() {
+        return ffmpegTimeout;
+    }
+
+    public int getFfprobeMaxConcurrency() {
+        return ffprobeMaxConcurrency;
+    }
+
+    public long getFfprobeTimeout() {
+        return ffprobeTimeout;
+    }
+
+    public int getToolMaxQueue() {
+        return toolMaxQueue;
+    }
+
     public int getStreamThreadPoolSize() {
         return streamThreadPoolSize;
     }
@@ -517,6 +1075,62 @@ public class ConfigManager {
         return deleteTs;
     }
 
+    public boolean isPipeStreaming() {
+        return isPipeStreaming;
+    }
+
+    public String getPipeCodec() {
+        return pipeCodec;
+    }
+
+    public int getPipeMaxSessions() {
+        return pipeMaxSessions;
+    }
+
+    public boolean isSegmentCacheEnabled() {
+        return isSegmentCacheEnabled;
+    }
+
+    public long getSegmentCacheSize() {
+        return segmentCacheSize;
+    }
+
+    public int getSegmentPrefetchCount() {
+        return segmentPrefetchCount;
+    }
+
+    public int getSegmentIoPoolSize() {
+        return segmentIoPoolSize;
+    }
+
+    public boolean isPackagingEnabled() {
+        return isPackagingEnabled;
+    }
+
+    public String getPackagingRootPath() {
+        return packagingRootPath;
+    }
+
+    public int getPackagingPoolSize() {
+        return packagingPoolSize;
+    }
+
+    public int getPackagingBackgroundLimit() {
+        return packagingBackgroundLimit;
+    }
+
+    public int getPackagingFfmpegThreads() {
+        return packagingFfmpegThreads;
+    }
+
+    public long getPackagingScanInterval() {
+        return packagingScanInterval;
+    }
+
+    public String getPackagingStateFile() {
+        return packagingStateFile;
+    }
+
     public String getRealm() {
         return realm;
     }
@@ -537,4 +1151,128 @@ public class ConfigManager {
         return targetRtpPortMax;
     }
 
+    public boolean isRtpPortProbeBind() {
+        return isRtpPortProbeBind;
+    }
+
+    public long getRtpPortLeakTime() {
+        return rtpPortLeakTime;
+    }
+
+    public JobSchedulingPolicy getJobSchedulingPolicy() {
+        return jobSchedulingPolicy;
+    }
+
+    public boolean isJobWorkStealing() {
+        return isJobWorkStealing;
+    }
+
+    public ExecutorBackend getExecutorBackend() {
+        return executorBackend;
+    }
+
+    public int getPlayPreparePoolSize() {
+        return playPreparePoolSize;
+    }
+
+    public int getPlayPrepareQueueSize() {
+        return playPrepareQueueSize;
+    }
+
+    public int getPlayPrepareRetryAfter() {
+        return playPrepareRetryAfter;
+    }
+
+    public PcrPacingMode getPcrPacingMode() {
+        return pcrPacingMode;
+    }
+
+    public int getStreamTraceSize() {
+        return streamTraceSize;
+    }
+
+    public long getStreamTraceSummaryInterval() {
+        return streamTraceSummaryInterval;
+    }
+
+    public int getAdmissionMaxSessions() {
+        return admissionMaxSessions;
+    }
+
+    public long getAdmissionMaxBitRate() {
+        return admissionMaxBitRate;
+    }
+
+    public long getAdmissionDefaultBitRate() {
+        return admissionDefaultBitRate;
+    }
+
+    public long getAdmissionPacingLatenessLimit() {
+        return admissionPacingLatenessLimit;
+    }
+
+    public boolean isAdmissionLoadShedding() {
+        return isAdmissionLoadShedding;
+    }
+
+    public int getAdmissionRetryAfter() {
+        return admissionRetryAfter;
+    }
+
+    public int getEgressWriteBufferLow() {
+        return egressWriteBufferLow;
+    }
+
+    public int getEgressWriteBufferHigh() {
+        return egressWriteBufferHigh;
+    }
+
+    public EgressBackpressurePolicy getEgressBackpressurePolicy() {
+        return egressBackpressurePolicy;
+    }
+
+    public long getEgressSlowMaxWait() {
+        return egressSlowMaxWait;
+    }
+
+    public EgressFlushMode getEgressFlushMode() {
+        return egressFlushMode;
+    }
+
+    public int getEgressMaxBatchPackets() {
+        return egressMaxBatchPackets;
+    }
+
+    public boolean isMetricsEnabled() {
+        return isMetricsEnabled;
+    }
+
+    public String getMetricsListenIp() {
+        return metricsListenIp;
+    }
+
+    public int getMetricsListenPort() {
+        return metricsListenPort;
+    }
+
+    public int getHealthWindowSize() {
+        return healthWindowSize;
+    }
+
+    public long getHealthEventLoopLagLimit() {
+        return healthEventLoopLagLimit;
+    }
+
+    public int getHealthCpuLimit() {
+        return healthCpuLimit;
+    }
+
+    public long getHealthDirectMemoryLimit() {
+        return healthDirectMemoryLimit;
+    }
+
+    public long getHealthEgressLimit() {
+        return healthEgressLimit;
+    }
+
 }
@@ -0,0 +1,512 @@
+package rtsp.ffmpeg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
+import rtsp.service.AppInstance;
+import rtsp.service.metrics.RtspMetrics;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class ExternalToolExecutor
+ * @brief 외부 프로세스(ffmpeg, ffprobe) 실행 클래스
+ * 1) tool 별로 동시에 실행할 수 있는 프로세스 개수를 제한한다. (*_MAX_CONCURRENCY)
+ * 2) 실행을 기다리는 요청은 INTERACTIVE(PLAY) 가 BACKGROUND 보다 먼저 실행되고,
+ *    대기 개수가 TOOL_MAX_QUEUE 를 넘으면 바로 거절한다.
+ * 3) 대기 + 실행 시간이 *_TIMEOUT 을 넘으면 프로세스를 강제로 종료한다. (호출한 스레드는 제한 시간 이상 대기하지 않는다.)
+ * 4) 실행이 끝난 프로세스는 항상 회수하고, 대기 시간과 실행 시간을 tool 별로 기록한다.
+ * 5) 전송이 끝날 때까지 실행되는 ffmpeg pipe 는 변환 실행 자리를 쓰지 않고 PIPE_MAX_SESSIONS 로 따로 제한한다.
+ *    > PLAY 응답 전에 reservePipe() 로 자리를 예약하고, 자리가 없으면 대기하지 않고 바로 거절한다.
+ */
+public class ExternalToolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalToolExecutor.class);
+
+    public enum Tool {
+        FFMPEG, FFPROBE
+    }
+
+    public enum Priority {
+        INTERACTIVE, // PLAY 요청이 기다리는 작업
+        BACKGROUND // 미리 변환하는 작업
+    }
+
+    private static final File NULL_FILE = new File(
+            System.getProperty("os.name").toLowerCase().startsWith("windows") ? "NUL" : "/dev/null"
+    );
+
+    private static ExternalToolExecutor externalToolExecutor = null;
+
+    private static final int OUTPUT_BUFFER_SIZE = 8192;
+    private static final long OUTPUT_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ToolGate[] toolGates = new ToolGate[Tool.values().length];
+    private final Set<Process> runningProcessSet = ConcurrentHashMap.newKeySet();
+
+    // ffmpeg pipe session 제한 (변환 실행 자리와 별도)
+    private final int pipeMaxSessions;
+    private final AtomicInteger pipeSessionCount = new AtomicInteger(0);
+    private final LongAdder pipeRejectedCount = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public ExternalToolExecutor(int ffmpegMaxConcurrency, long ffmpegTimeout,
+                                int ffprobeMaxConcurrency, long ffprobeTimeout,
+                                int maxQueue, int pipeMaxSessions) {
+        toolGates[Tool.FFMPEG.ordinal()] = new ToolGate(Tool.FFMPEG, ffmpegMaxConcurrency, maxQueue, ffmpegTimeout);
+        toolGates[Tool.FFPROBE.ordinal()] = new ToolGate(Tool.FFPROBE, ffprobeMaxConcurrency, maxQueue, ffprobeTimeout);
+        this.pipeMaxSessions = Math.max(pipeMaxSessions, 1);
+    }
+
+    public static synchronized ExternalToolExecutor getInstance() {
+        if (externalToolExecutor == null) {
+            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+            externalToolExecutor = new ExternalToolExecutor(
+                    configManager.getFfmpegMaxConcurrency(), configManager.getFfmpegTimeout(),
+                    configManager.getFfprobeMaxConcurrency(), configManager.getFfprobeTimeout(),
+                    configManager.getToolMaxQueue(),
+                    configManager.getPipeMaxSessions()
+            );
+        }
+
+        return externalToolExecutor;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public ExternalToolResult execute(Tool tool, Priority priority, List<String> command, boolean isOutputRequired) {
+        return execute(tool, priority, command, isOutputRequired, toolGates[tool.ordinal()].timeout);
+    }
+
+    /**
+     * @fn public ExternalToolResult execute(Tool tool, Priority priority, List<String> command, boolean isOutputRequired, long timeout)
+     * @brief 실행 가능한 자리가 날 때까지 대기한 후 프로세스를 실행하고 종료될 때까지 대기하는 함수
+     * @param tool 실행할 tool
+     * @param priority 대기 우선순위
+     * @param command 실행 파일 경로를 포함한 명령어 (호출할 때마다 새로 만든 목록)
+     * @param isOutputRequired 표준 출력을 line 단위로 반환할지 여부 (false 면 버림)
+     * @param timeout 대기 + 실행 제한 시간 (ms)
+     * @return 실행 결과 (null 을 반환하지 않는다.)
+     */
+    public ExternalToolResult execute(Tool tool, Priority priority, List<String> command, boolean isOutputRequired, long timeout) {
+        ToolGate toolGate = toolGates[tool.ordinal()];
+        toolGate.submittedCount.increment();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        long waitStartTime = System.nanoTime();
+        ExternalToolResult.Status admission = toolGate.acquire(priority, deadline);
+        long waitNanos = System.nanoTime() - waitStartTime;
+        if (admission != ExternalToolResult.Status.SUCCESS) {
+            if (admission == ExternalToolResult.Status.REJECTED) {
+                logger.warn("[{}] Fail to execute. Queue is full. ({})", tool, toolGate);
+            } else {
+                logger.warn("[{}] Fail to execute. Queue wait timeout. (wait={}ms, {})", tool, TimeUnit.NANOSECONDS.toMillis(waitNanos), toolGate);
+            }
+            return new ExternalToolResult(admission, -1, null, waitNanos, 0);
+        }
+
+        toolGate.recordWait(waitNanos);
+        long runStartTime = System.nanoTime();
+        try {
+            return run(toolGate, command, isOutputRequired, deadline, waitNanos, runStartTime);
+        } finally {
+            toolGate.recordRun(System.nanoTime() - runStartTime);
+            toolGate.release();
+        }
+    }
+
+    /**
+     * @fn public boolean reservePipe()
+     * @brief ffmpeg pipe session 자리를 예약하는 함수 (대기하지 않는다.)
+     * 예약한 자리는 startPipe() 로 시작한 프로세스를 close() 하거나, 시작하지 않으면 releasePipe() 로 반납한다.
+     * @return 예약한 경우 true, PIPE_MAX_SESSIONS 만큼 사용 중이면 false 반환
+     */
+    public boolean reservePipe() {
+        while (true) {
+            int count = pipeSessionCount.get();
+            if (count >= pipeMaxSessions) {
+                pipeRejectedCount.increment();
+                return false;
+            }
+            if (pipeSessionCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void releasePipe() {
+        pipeSessionCount.decrementAndGet();
+    }
+
+    /**
+     * @fn public ExternalToolProcess startPipe(Tool tool, List<String> command)
+     * @brief reservePipe() 로 예약한 자리에서 프로세스를 시작하고 바로 반환하는 함수
+     * 표준 출력을 계속 읽어야 하는 경우(ffmpeg pipe) 사용하며, 실행 시간은 제한하지 않는다.
+     * 변환 실행 자리(*_MAX_CONCURRENCY)는 사용하지 않고, 반환된 ExternalToolProcess 를 close() 하면 예약한 자리가 반납된다.
+     * (시작에 실패하면 여기서 반납한다.)
+     * @return 성공 시 ExternalToolProcess, 실패 시 null 반환
+     */
+    public ExternalToolProcess startPipe(Tool tool, List<String> command) {
+        ToolGate toolGate = toolGates[tool.ordinal()];
+        toolGate.submittedCount.increment();
+
+        Process process;
+        try {
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+                    .start();
+        } catch (Exception e) {
+            toolGate.failCount.increment();
+            releasePipe();
+            logger.warn("[{}] Fail to start the process. (cmd={})", tool, command, e);
+            return null;
+        }
+
+        runningProcessSet.add(process);
+        long runStartTime = System.nanoTime();
+        return new ExternalToolProcess(process, () -> {
+            runningProcessSet.remove(process);
+            toolGate.completedCount.increment();
+            toolGate.recordRun(System.nanoTime() - runStartTime);
+            releasePipe();
+        });
+    }
+
+    private ExternalToolResult run(ToolGate toolGate, List<String> command, boolean isOutputRequired,
+                                   long deadline, long waitNanos, long runStartTime) {
+        Process process = null;
+        List<String> outputLines = null;
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE));
+            if (!isOutputRequired) {
+                processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(NULL_FILE));
+            }
+
+            process = processBuilder.start();
+            runningProcessSet.add(process);
+
+            boolean isFinished;
+            if (isOutputRequired) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                isFinished = readOutput(process, output, deadline);
+                outputLines = toLines(output);
+            } else {
+                isFinished = process.waitFor(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            }
+
+            if (!isFinished) {
+                process.destroyForcibly();
+                process.waitFor(1, TimeUnit.SECONDS);
+                toolGate.timeoutCount.increment();
+                logger.warn("[{}] Process is killed. Timeout. (cmd={}, run={}ms)", toolGate.tool, command, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - runStartTime));
+                return new ExternalToolResult(ExternalToolResult.Status.TIMEOUT, -1, outputLines, waitNanos, System.nanoTime() - runStartTime);
+            }
+
+            int exitCode = process.exitValue();
+            if (exitCode != 0) {
+                toolGate.failCount.increment();
+                logger.warn("[{}] Process exit code is not 0. (cmd={}, exitCode={})", toolGate.tool, command, exitCode);
+                return new ExternalToolResult(ExternalToolResult.Status.FAIL, exitCode, outputLines, waitNanos, System.nanoTime() - runStartTime);
+            }
+
+            toolGate.completedCount.increment();
+            return new ExternalToolResult(ExternalToolResult.Status.SUCCESS, exitCode, outputLines, waitNanos, System.nanoTime() - runStartTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            toolGate.failCount.increment();
+            return new ExternalToolResult(ExternalToolResult.Status.ERROR, -1, outputLines, waitNanos, System.nanoTime() - runStartTime);
+        } catch (Exception e) {
+            toolGate.failCount.increment();
+            logger.warn("[{}] Fail to execute the process. (cmd={})", toolGate.tool, command, e);
+            return new ExternalToolResult(ExternalToolResult.Status.ERROR, -1, outputLines, waitNanos, System.nanoTime() - runStartTime);
+        } finally {
+            if (process != null) {
+                runningProcessSet.remove(process);
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * @fn private boolean readOutput(Process process, ByteArrayOutputStream output, long deadline)
+     * @brief 제한 시간까지 표준 출력을 읽는 함수
+     * 읽을 수 있는 만큼만 읽으므로 (자식 프로세스가 pipe 를 잡고 있어도) 제한 시간을 넘겨서 대기하지 않는다.
+     * @return 프로세스가 제한 시간 안에 종료되면 true, 아니면 false 반환
+     */
+    private boolean readOutput(Process process, ByteArrayOutputStream output, long deadline) throws IOException, InterruptedException {
+        InputStream inputStream = process.getInputStream();
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        while (true) {
+            int available = inputStream.available();
+            if (available > 0) {
+                int readSize = inputStream.read(buffer, 0, Math.min(available, buffer.length));
+                if (readSize > 0) {
+                    output.write(buffer, 0, readSize);
+                }
+                continue;
+            }
+
+            if (!process.isAlive()) {
+                // 종료 직전에 쓴 출력까지 읽는다.
+                while ((available = inputStream.available()) > 0) {
+                    int readSize = inputStream.read(buffer, 0, Math.min(available, buffer.length));
+                    if (readSize <= 0) {
+                        break;
+                    }
+                    output.write(buffer, 0, readSize);
+                }
+                return true;
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return false;
+            }
+            process.waitFor(Math.min(remainingNanos, OUTPUT_POLL_NANOS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static List<String> toLines(ByteArrayOutputStream output) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(output.toString(StandardCharsets.UTF_8.name())))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @fn public void stop()
+     * @brief 실행 중인 모든 프로세스를 강제로 종료하는 함수
+     */
+    public void stop() {
+        for (Process process : runningProcessSet) {
+            process.destroyForcibly();
+        }
+        runningProcessSet.clear();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getRunningCount(Tool tool) {
+        return toolGates[tool.ordinal()].getRunningCount();
+    }
+
+    public int getQueuedCount(Tool tool) {
+        return toolGates[tool.ordinal()].getQueuedCount();
+    }
+
+    public String getStats(Tool tool) {
+        return toolGates[tool.ordinal()].toString();
+    }
+
+    public int getPipeSessionCount() {
+        return pipeSessionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("ExternalToolExecutor{");
+        for (ToolGate toolGate : toolGates) {
+            stringBuilder.append(toolGate).append(' ');
+        }
+        stringBuilder.append("PIPE{sessions=").append(getPipeSessionCount()).append('/').append(pipeMaxSessions)
+                .append(", rejected=").append(pipeRejectedCount.sum()).append('}');
+        return stringBuilder.append('}').toString();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @class private static class ToolGate
+     * @brief tool 한 개의 동시 실행 개수 제한 + 우선순위 대기열 + 통계
+     */
+    private static class ToolGate {
+
+        private final Tool tool;
+        private final int maxConcurrency;
+        private final int maxQueue;
+        private final long timeout; // ms
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Waiter> waiterQueue = new PriorityQueue<>();
+        private long waiterSequence = 0;
+        private int runningCount = 0;
+
+        private final LongAdder submittedCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final LongAdder completedCount = new LongAdder();
+        private final LongAdder failCount = new LongAdder();
+        private final LongAdder timeoutCount = new LongAdder();
+        private final LongAdder waitCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong(0);
+        private final LongAdder runCount = new LongAdder();
+        private final LongAdder totalRunNanos = new LongAdder();
+        private final AtomicLong maxRunNanos = new AtomicLong(0);
+
+        private ToolGate(Tool tool, int maxConcurrency, int maxQueue, long timeout) {
+            this.tool = tool;
+            this.maxConcurrency = Math.max(maxConcurrency, 1);
+            this.maxQueue = Math.max(maxQueue, 0);
+            this.timeout = timeout;
+        }
+
+        private ExternalToolResult.Status acquire(Priority priority, long deadline) {
+            lock.lock();
+            try {
+                if (runningCount < maxConcurrency && waiterQueue.isEmpty()) {
+                    runningCount++;
+                    return ExternalToolResult.Status.SUCCESS;
+                }
+
+                if (waiterQueue.size() >= maxQueue) {
+                    rejectedCount.increment();
+                    return ExternalToolResult.Status.REJECTED;
+                }
+
+                Waiter waiter = new Waiter(priority, waiterSequence++, lock.newCondition());
+                waiterQueue.add(waiter);
+                try {
+                    while (!waiter.isGranted) {
+                        long remainingNanos = deadline - System.nanoTime();
+                        if (remainingNanos <= 0) {
+                            waiterQueue.remove(waiter);
+                            timeoutCount.increment();
+                            return ExternalToolResult.Status.TIMEOUT;
+                        }
+                        waiter.condition.awaitNanos(remainingNanos);
+                    }
+                    return ExternalToolResult.Status.SUCCESS;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (waiter.isGranted) {
+                        // 이미 자리를 받았으면 다음 대기자에게 넘긴다.
+                        releaseLocked();
+                    } else {
+                        waiterQueue.remove(waiter);
+                    }
+                    return ExternalToolResult.Status.ERROR;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+            lock.lock();
+            try {
+                releaseLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseLocked() {
+            Waiter next = waiterQueue.poll();
+            if (next != null) {
+                // 실행 개수는 그대로 두고 자리를 넘긴다.
+                next.isGranted = true;
+                next.condition.signal();
+            } else {
+                runningCount--;
+            }
+        }
+
+        private void recordWait(long waitNanos) {
+            RtspMetrics.recordToolWait(tool, waitNanos);
+            waitCount.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        private void recordRun(long runNanos) {
+            RtspMetrics.recordToolRun(tool, runNanos);
+            runCount.increment();
+            totalRunNanos.add(runNanos);
+            maxRunNanos.accumulateAndGet(runNanos, Math::max);
+        }
+
+        private int getRunningCount() {
+            lock.lock();
+            try {
+                return runningCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int getQueuedCount() {
+            lock.lock();
+            try {
+                return waiterQueue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            long waits = waitCount.sum();
+            long runs = runCount.sum();
+            return tool + "{" +
+                    "running=" + getRunningCount() + "/" + maxConcurrency +
+                    ", queued=" + getQueuedCount() + "/" + maxQueue +
+                    ", submitted=" + submittedCount.sum() +
+                    ", completed=" + completedCount.sum() +
+                    ", failed=" + failCount.sum() +
+                    ", timeout=" + timeoutCount.sum() +
+                    ", rejected=" + rejectedCount.sum() +
+                    ", wait(avg/max)=" + (waits > 0 ? totalWaitNanos.sum() / waits / 1000000 : 0) + "/" + maxWaitNanos.get() / 1000000 + "ms" +
+                    ", run(avg/max)=" + (runs > 0 ? totalRunNanos.sum() / runs / 1000000 : 0) + "/" + maxRunNanos.get() / 1000000 + "ms" +
+                    '}';
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+
+        private final Priority priority;
+        private final long seq;
+        private final Condition condition;
+        private boolean isGranted = false;
+
+        private Waiter(Priority priority, long seq, Condition condition) {
+            this.priority = priority;
+            this.seq = seq;
+            this.condition = condition;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            int result = priority.compareTo(o.priority);
+            if (result != 0) {
+                return result;
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+}
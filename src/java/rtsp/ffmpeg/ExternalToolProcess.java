@@ -0,0 +1,92 @@
+package rtsp.ffmpeg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @class public class ExternalToolProcess
+ * @brief ExternalToolExecutor.startPipe() 로 실행한 프로세스 (표준 출력을 계속 읽는 경우)
+ * close() 할 때까지 pipe session 자리를 차지하고, close() 하면 프로세스를 종료하고 자리를 반납한다.
+ */
+public class ExternalToolProcess implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalToolProcess.class);
+
+    private final Process process;
+    private final ReadableByteChannel outputChannel;
+    private final Runnable onClose;
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    private final long startTime = System.nanoTime();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    ExternalToolProcess(Process process, Runnable onClose) {
+        this.process = process;
+        this.outputChannel = Channels.newChannel(process.getInputStream());
+        this.onClose = onClose;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public ReadableByteChannel getOutputChannel()
+     * @brief 표준 출력 channel 을 반환하는 함수 (-1 을 읽으면 프로세스가 출력을 끝낸 것이다.)
+     */
+    public ReadableByteChannel getOutputChannel() {
+        return outputChannel;
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    public long getRunNanos() {
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * @fn public int waitFor(long timeout)
+     * @brief 프로세스가 종료될 때까지 대기하는 함수
+     * @return exit code, 제한 시간 안에 종료되지 않으면 -1 반환
+     */
+    public int waitFor(long timeout) {
+        try {
+            if (process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+                return process.exitValue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            outputChannel.close();
+        } catch (Exception e) {
+            logger.trace("Fail to close the output channel.", e);
+        }
+
+        if (process.isAlive()) {
+            process.destroyForcibly();
+            try {
+                process.waitFor(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        onClose.run();
+    }
+
+}
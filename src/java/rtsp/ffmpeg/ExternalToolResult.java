@@ -0,0 +1,77 @@
+package rtsp.ffmpeg;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @class public class ExternalToolResult
+ * @brief ExternalToolExecutor 로 실행한 외부 프로세스(ffmpeg, ffprobe)의 결과
+ */
+public class ExternalToolResult {
+
+    public enum Status {
+        SUCCESS, // exit code 0
+        FAIL, // exit code != 0
+        TIMEOUT, // 대기 또는 실행 시간 초과 (프로세스 강제 종료)
+        REJECTED, // 대기열이 가득 참
+        ERROR // 프로세스 실행 실패
+    }
+
+    private final Status status;
+    private final int exitCode;
+    private final List<String> outputLines;
+    private final long waitNanos; // 대기열에서 기다린 시간
+    private final long runNanos; // 프로세스 실행 시간
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public ExternalToolResult(Status status, int exitCode, List<String> outputLines, long waitNanos, long runNanos) {
+        this.status = status;
+        this.exitCode = exitCode;
+        this.outputLines = outputLines != null ? outputLines : Collections.emptyList();
+        this.waitNanos = waitNanos;
+        this.runNanos = runNanos;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public List<String> getOutputLines() {
+        return outputLines;
+    }
+
+    public String getFirstLine() {
+        return outputLines.isEmpty() ? null : outputLines.get(0);
+    }
+
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    public long getRunNanos() {
+        return runNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ExternalToolResult{" +
+                "status=" + status +
+                ", exitCode=" + exitCode +
+                ", lines=" + outputLines.size() +
+                ", wait=" + waitNanos / 1000000 + "ms" +
+                ", run=" + runNanos / 1000000 + "ms" +
+                '}';
+    }
+
+}
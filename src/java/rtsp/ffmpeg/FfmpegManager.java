@@ -4,12 +4,8 @@ import io.lindstrom.m3u8.model.MediaPlaylist;
 import io.lindstrom.m3u8.model.MediaSegment;
 import io.lindstrom.m3u8.parser.MediaPlaylistParser;
 import io.lindstrom.m3u8.parser.ParsingMode;
-import net.bramp.ffmpeg.FFmpeg;
-import net.bramp.ffmpeg.FFmpegExecutor;
-import net.bramp.ffmpeg.FFprobe;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import org.mp4parser.Container;
-import org.mp4parser.IsoFile;
 import org.mp4parser.muxer.FileDataSourceImpl;
 import org.mp4parser.muxer.Movie;
 import org.mp4parser.muxer.builder.DefaultMp4Builder;
@@ -19,13 +15,12 @@ import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
 import rtsp.service.AppInstance;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.InputStreamReader;
 import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -41,46 +36,16 @@ public class FfmpegManager {
     private final ConfigManager configManager = AppInstance.getInstance().getConfigManager();
 
     //public static final String FFMPEG_TAG = "ffmpeg";
-    private final String[] ffprobeFrameLineCmd = new String[] {
-            configManager.getFfprobePath(),
-            // -select_streams v -show_entries "frame=pkt_pts_time,pkt_size,pict_type" -of csv
-            "-select_streams", "v",
-            "-show_entries", "frame=pkt_size,pict_type",
-            "-of", "csv",
-            "-"
-    };
-
-    private final String[] ffprobeFrameStartTimeCmd = new String[] {
-            configManager.getFfprobePath(),
-            // -select_streams v -show_entries "format=start_time" -of csv
-            "-select_streams", "v",
-            "-show_entries", "format=start_time",
-            "-of", "csv",
-            "-"
-    };
-
-    private final String[] ffprobeFpsCmd = new String[] {
-            configManager.getFfprobePath(),
-            // -select_streams v -show_entries "stream=r_frame_rate" -of csv
-            "-select_streams", "v",
-            "-show_entries", "stream=r_frame_rate",
-            "-of", "csv",
-            "-"
-    };
 
+    // ffprobe -select_streams v -show_entries "frame=pkt_pts_time,pkt_size,pict_type" -of csv
+    private static final String FFPROBE_FRAME_LINE_ENTRIES = "frame=pkt_size,pict_type";
+    // ffprobe -select_streams v -show_entries "format=start_time" -of csv
+    private static final String FFPROBE_FRAME_START_TIME_ENTRIES = "format=start_time";
+    // ffprobe -select_streams v -show_entries "stream=r_frame_rate" -of csv
+    private static final String FFPROBE_FPS_ENTRIES = "stream=r_frame_rate";
     // tbn = the time base in AVStream that has come from the container > Sampling rate
-    private final String[] ffprobeTbnCmd = new String[] {
-            configManager.getFfprobePath(),
-            // -select_streams v -show_entries "stream=time_base" -of csv
-            "-select_streams", "v",
-            "-show_entries", "stream=time_base",
-            "-of", "csv",
-            "-"
-    };
-
-    private FFmpeg ffmpeg = null;
-    private FFprobe ffprobe = null;
-    private FFmpegExecutor executor = null;
+    // ffprobe -select_streams v -show_entries "stream=time_base" -of csv
+    private static final String FFPROBE_TBN_ENTRIES = "stream=time_base";
 
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -88,114 +53,112 @@ public class FfmpegManager {
         //Nothing
     }
 
-    public List<String> getFrameLineList(String srcFilePath) {
-        List<String> frameLineList = new ArrayList<>();
-
-        ffprobeFrameLineCmd[ffprobeFrameLineCmd.length - 1] = srcFilePath;
+    /**
+     * @fn private List<String> newFfprobeCommand(String showEntries, String srcFilePath)
+     * @brief ffprobe 명령어를 만드는 함수 (스레드 간에 공유하지 않도록 호출할 때마다 새로 만든다.)
+     */
+    private List<String> newFfprobeCommand(String showEntries, String srcFilePath) {
+        return Arrays.asList(
+                configManager.getFfprobePath(),
+                "-select_streams", "v",
+                "-show_entries", showEntries,
+                "-of", "csv",
+                srcFilePath
+        );
+    }
 
-        try {
-            Process process = new ProcessBuilder(ffprobeFrameLineCmd).start();
-            BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
+    private ExternalToolResult runFfprobe(String showEntries, String srcFilePath) {
+        return ExternalToolExecutor.getInstance().execute(
+                ExternalToolExecutor.Tool.FFPROBE,
+                ExternalToolExecutor.Priority.INTERACTIVE,
+                newFfprobeCommand(showEntries, srcFilePath),
+                true
+        );
+    }
 
-            String line;
-            while( (line = stdOut.readLine()) != null ) {
-                frameLineList.add(line);
-            }
-        } catch (Exception e) {
-            logger.warn("FfmpegManager.getFrameLineList.Exception", e);
+    public List<String> getFrameLineList(String srcFilePath) {
+        ExternalToolResult result = runFfprobe(FFPROBE_FRAME_LINE_ENTRIES, srcFilePath);
+        if (!result.isSuccess()) {
+            logger.warn("Fail to get the frame line list. (srcFilePath={}, result={})", srcFilePath, result);
             return Collections.emptyList();
         }
 
-        return frameLineList;
+        return result.getOutputLines();
     }
 
     public String getFrameStartTime(String srcFilePath) {
-        ffprobeFrameStartTimeCmd[ffprobeFrameStartTimeCmd.length - 1] = srcFilePath;
-
-        try {
-            Process process = new ProcessBuilder(ffprobeFrameStartTimeCmd).start();
-            BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            if ( (line = stdOut.readLine()) != null ) {
-                return line;
-            }
-        } catch (Exception e) {
-            logger.warn("FfmpegManager.getFrameStartTime.Exception", e);
+        ExternalToolResult result = runFfprobe(FFPROBE_FRAME_START_TIME_ENTRIES, srcFilePath);
+        if (!result.isSuccess()) {
+            logger.warn("Fail to get the frame start time. (srcFilePath={}, result={})", srcFilePath, result);
+            return null;
         }
 
-        return null;
+        return result.getFirstLine();
     }
 
     public String getFps(String srcFilePath) {
-        ffprobeFpsCmd[ffprobeFpsCmd.length - 1] = srcFilePath;
-
-        try {
-            Process process = new ProcessBuilder(ffprobeFpsCmd).start();
-            BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            if ( (line = stdOut.readLine()) != null ) {
-                return line;
-            }
-        } catch (Exception e) {
-            logger.warn("FfmpegManager.getFps.Exception", e);
+        ExternalToolResult result = runFfprobe(FFPROBE_FPS_ENTRIES, srcFilePath);
+        if (!result.isSuccess()) {
+            logger.warn("Fail to get the fps. (srcFilePath={}, result={})", srcFilePath, result);
+            return null;
         }
 
-        return null;
+        return result.getFirstLine();
     }
 
     public String getTbn(String srcFilePath) {
-        ffprobeTbnCmd[ffprobeTbnCmd.length - 1] = srcFilePath;
-
-        try {
-            Process process = new ProcessBuilder(ffprobeTbnCmd).start();
-            BufferedReader stdOut = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            if ( (line = stdOut.readLine()) != null ) {
-                return line;
-            }
-        } catch (Exception e) {
-            logger.warn("FfmpegManager.getTbn.Exception", e);
+        ExternalToolResult result = runFfprobe(FFPROBE_TBN_ENTRIES, srcFilePath);
+        if (!result.isSuccess()) {
+            logger.warn("Fail to get the tbn. (srcFilePath={}, result={})", srcFilePath, result);
+            return null;
         }
 
-        return null;
+        return result.getFirstLine();
     }
 
+    // 재생 시간, 크기는 TitleCatalog 에 cache 된 값을 사용한다. (파일이 바뀌면 다시 읽음)
     public double getFileTime(String srcFilePath) {
-        try {
-            IsoFile isoFile = new IsoFile(srcFilePath);
-            return (double) isoFile.getMovieBox().getMovieHeaderBox().getDuration() / isoFile.getMovieBox().getMovieHeaderBox().getTimescale();
-        } catch (Exception e) {
-            logger.warn("Fail to get the file time. (srcFilePath={})", srcFilePath, e);
+        TitleInfo titleInfo = TitleCatalog.getInstance().getTitleInfo(srcFilePath);
+        if (titleInfo == null) {
+            logger.warn("Fail to get the file time. (srcFilePath={})", srcFilePath);
             return 0;
         }
+        return titleInfo.getFileTime();
     }
 
     public long getDuration(String srcFilePath) {
-        try {
-            IsoFile isoFile = new IsoFile(srcFilePath);
-            return isoFile.getMovieBox().getMovieHeaderBox().getDuration();
-        } catch (Exception e) {
-            logger.warn("Fail to get the file duration. (srcFilePath={})", srcFilePath, e);
+        TitleInfo titleInfo = TitleCatalog.getInstance().getTitleInfo(srcFilePath);
+        if (titleInfo == null) {
+            logger.warn("Fail to get the file duration. (srcFilePath={})", srcFilePath);
             return 0;
         }
+        return titleInfo.getDuration();
     }
 
     public long getFileSize(String srcFilePath) {
-        try {
-            File file = new File(srcFilePath);
-            return file.length();
-        } catch (Exception e) {
-            logger.warn("Fail to get the file size. (srcFilePath={})", srcFilePath, e);
+        TitleInfo titleInfo = TitleCatalog.getInstance().getTitleInfo(srcFilePath);
+        if (titleInfo == null) {
+            logger.warn("Fail to get the file size. (srcFilePath={})", srcFilePath);
             return 0;
         }
+        return titleInfo.getFileSize();
     }
 
     ////////////////////////////////////////////////////////////////////////////////
 
-    public void convertMp4ToM3u8(String srcFilePath, String destTotalFilePath, long fileTime, long startTime, long endTime) {
+    public boolean convertMp4ToM3u8(String srcFilePath, String destTotalFilePath, long fileTime, long startTime, long endTime) {
+        return convertMp4ToM3u8(srcFilePath, destTotalFilePath, fileTime, startTime, endTime, 0, ExternalToolExecutor.Priority.INTERACTIVE);
+    }
+
+    /**
+     * @fn public boolean convertMp4ToM3u8(String srcFilePath, String destTotalFilePath, long fileTime, long startTime, long endTime, int threads, ExternalToolExecutor.Priority priority)
+     * @brief MP4 파일을 HLS(M3U8 + TS) 로 변환하는 함수
+     * @param threads ffmpeg 가 사용할 스레드 개수 (0 이면 ffmpeg 기본값)
+     * @param priority ffmpeg 실행 대기 우선순위
+     * @return 성공 시 true, 실패 시 false 반환
+     */
+    public boolean convertMp4ToM3u8(String srcFilePath, String destTotalFilePath, long fileTime, long startTime, long endTime,
+                                    int threads, ExternalToolExecutor.Priority priority) {
         String destFilePathOnly = destTotalFilePath.substring(
                 0,
                 destTotalFilePath.lastIndexOf("/")
@@ -208,15 +171,6 @@ public class FfmpegManager {
 
         //
         try {
-            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
-            if (ffmpeg == null) {
-                ffmpeg = new FFmpeg(configManager.getFfmpegPath());
-            }
-
-            if (ffprobe == null) {
-                ffprobe = new FFprobe(configManager.getFfprobePath());
-            }
-
             if (fileTime < 10) {
                 fileTime += 10;
             }
@@ -228,6 +182,7 @@ public class FfmpegManager {
                         .addExtraArgs("-hls_list_size", String.valueOf(0))
                         .addExtraArgs("-hls_time", String.valueOf(fileTime / 10))
                         .addExtraArgs("-hls_flags", "split_by_time")
+                        .addExtraArgs("-threads", String.valueOf(threads)) // 0 : auto
                         //.addExtraArgs("-hls_flags", "omit_endlist")
                         //.addExtraArgs("-start_number", String.valueOf())
                         //.addExtraArgs("-hls_flags", "discont_start")
@@ -239,6 +194,7 @@ public class FfmpegManager {
                         .addExtraArgs("-hls_list_size", String.valueOf(0))
                         .addExtraArgs("-hls_time", String.valueOf(fileTime / 10))
                         .addExtraArgs("-hls_flags", "split_by_time")
+                        .addExtraArgs("-threads", String.valueOf(threads)) // 0 : auto
                         //.addExtraArgs("-hls_flags", "omit_endlist")
                         //.addExtraArgs("-start_number", String.valueOf())
                         //.addExtraArgs("-hls_flags", "discont_start")
@@ -248,10 +204,17 @@ public class FfmpegManager {
             builder.setStartOffset(startTime, TimeUnit.SECONDS);
             //builder.readAtNativeFrameRate(); // > for live streaming... not useful to offline streaming
 
-            if (executor == null) {
-                executor = new FFmpegExecutor(ffmpeg, ffprobe);
+            List<String> command = new ArrayList<>();
+            command.add(configManager.getFfmpegPath());
+            command.addAll(builder.build());
+
+            ExternalToolResult result = ExternalToolExecutor.getInstance().execute(
+                    ExternalToolExecutor.Tool.FFMPEG, priority, command, false
+            );
+            if (!result.isSuccess()) {
+                logger.warn("Fail to convert the mp4 to m3u8. (srcFilePath={}, destFilePath={}, result={})", srcFilePath, destTotalFilePath, result);
+                return false;
             }
-            executor.createJob(builder).run();
 
             /*FFmpegJob job = executor.createJob(builder, new ProgressListener() {
 
@@ -276,7 +239,8 @@ public class FfmpegManager {
             });
             job.run();*/
         } catch (Exception e) {
-            // ignore
+            logger.warn("Fail to convert the mp4 to m3u8. (srcFilePath={}, destFilePath={})", srcFilePath, destTotalFilePath, e);
+            return false;
         }
         //
 
@@ -345,6 +309,37 @@ public class FfmpegManager {
             }
         }*/
         //
+
+        return true;
+    }
+
+    /**
+     * @fn public ExternalToolProcess openMp4ToMpegTsPipe(String srcFilePath, long startTime, long endTime)
+     * @brief MP4 파일을 MPEG-TS 로 변환해서 표준 출력(pipe:1)으로 내보내는 ffmpeg 를 시작하는 함수
+     * 중간 파일(M3U8, TS)을 만들지 않고, 전송 속도(PCR pacing)는 읽는 쪽에서 조절한다.
+     * 호출하기 전에 ExternalToolExecutor.reservePipe() 로 자리를 예약해야 한다. (성공, 실패와 관계없이 예약한 자리는 여기서 넘겨받는다.)
+     * @param startTime 시작 시간 (sec)
+     * @param endTime 재생 시간 (sec, 0 이면 끝까지)
+     * @return 성공 시 ExternalToolProcess (사용 후 close), 실패 시 null 반환
+     */
+    public ExternalToolProcess openMp4ToMpegTsPipe(String srcFilePath, long startTime, long endTime) {
+        List<String> command = new ArrayList<>();
+        command.add(configManager.getFfmpegPath());
+        command.addAll(Arrays.asList("-v", "error", "-nostdin"));
+        if (startTime > 0) {
+            command.addAll(Arrays.asList("-ss", String.valueOf(startTime)));
+        }
+        command.addAll(Arrays.asList("-i", srcFilePath));
+        if (endTime > 0) {
+            command.addAll(Arrays.asList("-t", String.valueOf(endTime)));
+        }
+        command.addAll(Arrays.asList(
+                "-c", configManager.getPipeCodec(),
+                "-f", "mpegts",
+                "pipe:1"
+        ));
+
+        return ExternalToolExecutor.getInstance().startPipe(ExternalToolExecutor.Tool.FFMPEG, command);
     }
 
     public static MediaPlaylist createPlayList() {
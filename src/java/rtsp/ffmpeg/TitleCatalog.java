@@ -0,0 +1,251 @@
+package rtsp.ffmpeg;
+
+import org.mp4parser.IsoFile;
+import org.mp4parser.boxes.iso14496.part12.HandlerBox;
+import org.mp4parser.boxes.iso14496.part12.MediaHeaderBox;
+import org.mp4parser.boxes.iso14496.part12.MovieBox;
+import org.mp4parser.boxes.iso14496.part12.MovieHeaderBox;
+import org.mp4parser.boxes.iso14496.part12.TrackBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * @class public class TitleCatalog
+ * @brief MP4 metadata(재생 시간, timescale, track, 파일 크기) cache
+ * 파일 경로 기준으로 저장하고, 조회할 때 수정 시각과 크기가 바뀌었으면 다시 읽는다.
+ * 같은 파일을 동시에 여러 번 읽지 않도록 경로 hash 로 나눈 lock 을 사용한다.
+ */
+public class TitleCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(TitleCatalog.class);
+
+    private static final int LOAD_LOCK_COUNT = 16;
+    private static final String MP4_EXTENSION = ".mp4";
+
+    // startup scan 스레드와 PLAY 처리 스레드가 동시에 접근하므로 미리 생성
+    private static final TitleCatalog titleCatalog = new TitleCatalog();
+
+    private final ConcurrentHashMap<String, TitleInfo> titleInfoMap = new ConcurrentHashMap<>();
+    private final ReentrantLock[] loadLocks = new ReentrantLock[LOAD_LOCK_COUNT];
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder evictCount = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public TitleCatalog() {
+        for (int i = 0; i < LOAD_LOCK_COUNT; i++) {
+            loadLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public static TitleCatalog getInstance() {
+        return titleCatalog;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public TitleInfo getTitleInfo(String srcFilePath)
+     * @brief 파일의 metadata 를 반환하는 함수
+     * cache 에 있고 파일이 바뀌지 않았으면 cache 값을, 아니면 파일을 다시 읽어서 반환한다.
+     * @param srcFilePath MP4 파일 경로
+     * @return 성공 시 TitleInfo, 실패 시 null 반환
+     */
+    public TitleInfo getTitleInfo(String srcFilePath) {
+        if (srcFilePath == null) { return null; }
+
+        File file = new File(srcFilePath);
+        long lastModified = file.lastModified();
+        long fileSize = file.length();
+        if (lastModified == 0 || !file.isFile()) {
+            // 파일이 삭제되었으면 cache 에서도 제거
+            if (titleInfoMap.remove(srcFilePath) != null) {
+                evictCount.increment();
+            }
+            logger.warn("Fail to get the title info. File is not found. (srcFilePath={})", srcFilePath);
+            return null;
+        }
+
+        TitleInfo titleInfo = titleInfoMap.get(srcFilePath);
+        if (titleInfo != null && titleInfo.isSameFile(lastModified, fileSize)) {
+            hitCount.increment();
+            return titleInfo;
+        }
+
+        ReentrantLock loadLock = loadLocks[(srcFilePath.hashCode() & 0x7fffffff) % LOAD_LOCK_COUNT];
+        loadLock.lock();
+        try {
+            // 다른 스레드가 먼저 읽었으면 그 값을 사용
+            titleInfo = titleInfoMap.get(srcFilePath);
+            if (titleInfo != null && titleInfo.isSameFile(lastModified, fileSize)) {
+                hitCount.increment();
+                return titleInfo;
+            }
+
+            if (titleInfo != null) {
+                evictCount.increment();
+                logger.debug("Title is changed. Reload the title info. (srcFilePath={})", srcFilePath);
+            }
+
+            titleInfo = loadTitleInfo(srcFilePath, lastModified, fileSize);
+            if (titleInfo == null) {
+                titleInfoMap.remove(srcFilePath);
+                return null;
+            }
+
+            titleInfoMap.put(srcFilePath, titleInfo);
+            loadCount.increment();
+            return titleInfo;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * @fn public TitleInfo peekTitleInfo(String srcFilePath)
+     * @brief cache 에 있는 metadata 만 반환하는 함수 (파일을 확인하거나 읽지 않으므로 Netty I/O 스레드에서 사용 가능)
+     * @param srcFilePath MP4 파일 경로
+     * @return cache 에 있으면 TitleInfo, 없으면 null 반환
+     */
+    public TitleInfo peekTitleInfo(String srcFilePath) {
+        if (srcFilePath == null) { return null; }
+        return titleInfoMap.get(srcFilePath);
+    }
+
+    private TitleInfo loadTitleInfo(String srcFilePath, long lastModified, long fileSize) {
+        try (IsoFile isoFile = new IsoFile(srcFilePath)) {
+            MovieBox movieBox = isoFile.getMovieBox();
+            if (movieBox == null || movieBox.getMovieHeaderBox() == null) {
+                logger.warn("Fail to load the title info. moov box is not found. (srcFilePath={})", srcFilePath);
+                return null;
+            }
+
+            MovieHeaderBox movieHeaderBox = movieBox.getMovieHeaderBox();
+
+            List<TitleInfo.TrackInfo> trackInfoList = new ArrayList<>();
+            for (TrackBox trackBox : movieBox.getBoxes(TrackBox.class)) {
+                String handlerType = null;
+                long timescale = 0;
+                long duration = 0;
+                if (trackBox.getMediaBox() != null) {
+                    HandlerBox handlerBox = trackBox.getMediaBox().getHandlerBox();
+                    if (handlerBox != null) {
+                        handlerType = handlerBox.getHandlerType();
+                    }
+
+                    MediaHeaderBox mediaHeaderBox = trackBox.getMediaBox().getMediaHeaderBox();
+                    if (mediaHeaderBox != null) {
+                        timescale = mediaHeaderBox.getTimescale();
+                        duration = mediaHeaderBox.getDuration();
+                    }
+                }
+
+                trackInfoList.add(new TitleInfo.TrackInfo(
+                        trackBox.getTrackHeaderBox() != null ? trackBox.getTrackHeaderBox().getTrackId() : 0,
+                        handlerType, timescale, duration
+                ));
+            }
+
+            TitleInfo titleInfo = new TitleInfo(
+                    srcFilePath, lastModified, fileSize,
+                    movieHeaderBox.getDuration(), movieHeaderBox.getTimescale(),
+                    trackInfoList
+            );
+            logger.debug("Title info is loaded. ({})", titleInfo);
+            return titleInfo;
+        } catch (Exception e) {
+            logger.warn("Fail to load the title info. (srcFilePath={})", srcFilePath, e);
+            return null;
+        }
+    }
+
+    /**
+     * @fn public int scan(String rootPath)
+     * @brief rootPath 아래의 모든 MP4 파일의 metadata 를 미리 읽는 함수
+     * @param rootPath Media root 경로
+     * @return 읽은 title 개수
+     */
+    public int scan(String rootPath) {
+        if (rootPath == null || rootPath.isEmpty()) { return 0; }
+
+        Path root = Paths.get(rootPath);
+        if (!Files.isDirectory(root)) {
+            logger.warn("Fail to scan the titles. Root path is not a directory. (rootPath={})", rootPath);
+            return 0;
+        }
+
+        int count = 0;
+        long startTime = System.currentTimeMillis();
+        try (Stream<Path> pathStream = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) pathStream::iterator) {
+                if (!Files.isRegularFile(path) || !path.toString().toLowerCase().endsWith(MP4_EXTENSION)) {
+                    continue;
+                }
+
+                if (getTitleInfo(path.toString()) != null) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Fail to scan the titles. (rootPath={})", rootPath, e);
+        }
+
+        logger.debug("Titles are scanned. (rootPath={}, count={}, elapsed={}ms)", rootPath, count, System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    public void remove(String srcFilePath) {
+        if (srcFilePath == null) { return; }
+
+        if (titleInfoMap.remove(srcFilePath) != null) {
+            evictCount.increment();
+        }
+    }
+
+    public void clear() {
+        titleInfoMap.clear();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getTitleCount() {
+        return titleInfoMap.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getEvictCount() {
+        return evictCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "TitleCatalog{" +
+                "titles=" + getTitleCount() +
+                ", hit=" + getHitCount() +
+                ", load=" + getLoadCount() +
+                ", evict=" + getEvictCount() +
+                '}';
+    }
+
+}
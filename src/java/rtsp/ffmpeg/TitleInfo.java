@@ -0,0 +1,153 @@
+package rtsp.ffmpeg;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @class public class TitleInfo
+ * @brief MP4 파일 한 개의 metadata (TitleCatalog 에 저장)
+ * 파일 경로 + 수정 시각 + 크기가 같으면 같은 파일로 본다.
+ */
+public class TitleInfo {
+
+    /**
+     * @class public static class TrackInfo
+     * @brief trak box 한 개의 정보
+     */
+    public static class TrackInfo {
+
+        private final long trackId;
+        private final String handlerType; // vide, soun, ...
+        private final long timescale;
+        private final long duration;
+
+        public TrackInfo(long trackId, String handlerType, long timescale, long duration) {
+            this.trackId = trackId;
+            this.handlerType = handlerType;
+            this.timescale = timescale;
+            this.duration = duration;
+        }
+
+        public long getTrackId() {
+            return trackId;
+        }
+
+        public String getHandlerType() {
+            return handlerType;
+        }
+
+        public long getTimescale() {
+            return timescale;
+        }
+
+        public long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return "TrackInfo{" +
+                    "trackId=" + trackId +
+                    ", handlerType='" + handlerType + '\'' +
+                    ", timescale=" + timescale +
+                    ", duration=" + duration +
+                    '}';
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private final String path;
+    private final long lastModified; // ms
+    private final long fileSize; // bytes
+    private final long duration; // mvhd duration (timescale 단위)
+    private final long timescale;
+    private final List<TrackInfo> trackInfoList;
+    private final long loadedTime = System.currentTimeMillis();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public TitleInfo(String path, long lastModified, long fileSize, long duration, long timescale, List<TrackInfo> trackInfoList) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+        this.duration = duration;
+        this.timescale = timescale;
+        this.trackInfoList = Collections.unmodifiableList(trackInfoList);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean isSameFile(long lastModified, long fileSize)
+     * @brief 현재 파일 상태가 metadata 를 읽었을 때와 같은지 확인하는 함수
+     */
+    public boolean isSameFile(long lastModified, long fileSize) {
+        return this.lastModified == lastModified && this.fileSize == fileSize;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getTimescale() {
+        return timescale;
+    }
+
+    /**
+     * @fn public double getFileTime()
+     * @brief 재생 시간(초)을 반환하는 함수
+     */
+    public double getFileTime() {
+        if (timescale <= 0) {
+            return 0;
+        }
+        return (double) duration / timescale;
+    }
+
+    /**
+     * @fn public long getBitRate()
+     * @brief 파일 크기와 재생 시간으로 계산한 평균 bitrate 를 반환하는 함수 (컨테이너 overhead 포함)
+     * @return bps, 재생 시간을 알 수 없으면 0
+     */
+    public long getBitRate() {
+        double fileTime = getFileTime();
+        if (fileTime <= 0) {
+            return 0;
+        }
+        return (long) (fileSize * 8 / fileTime);
+    }
+
+    public List<TrackInfo> getTrackInfoList() {
+        return trackInfoList;
+    }
+
+    public long getLoadedTime() {
+        return loadedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "TitleInfo{" +
+                "path='" + path + '\'' +
+                ", lastModified=" + lastModified +
+                ", fileSize=" + fileSize +
+                ", duration=" + duration +
+                ", timescale=" + timescale +
+                ", tracks=" + trackInfoList +
+                '}';
+    }
+
+}
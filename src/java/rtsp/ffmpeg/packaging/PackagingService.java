@@ -0,0 +1,487 @@
+package rtsp.ffmpeg.packaging;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
+import rtsp.ffmpeg.ExternalToolExecutor;
+import rtsp.ffmpeg.FfmpegManager;
+import rtsp.ffmpeg.TitleCatalog;
+import rtsp.ffmpeg.TitleInfo;
+import rtsp.service.AppInstance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * @class public class PackagingService
+ * @brief Media root 의 MP4 파일을 PLAY 요청 전에 미리 HLS(M3U8 + TS) 로 변환하는 클래스
+ * 1) SCAN_INTERVAL 마다 ROOT_PATH 를 scan 해서 새로 추가되거나 바뀐 MP4 파일을 BACKGROUND 작업으로 등록한다.
+ * 2) BACKGROUND 작업은 BACKGROUND_LIMIT 개까지만 동시에 실행하고, ffmpeg 스레드도 FFMPEG_THREADS 개로 제한한다.
+ *    > 나머지 worker 는 항상 ON_DEMAND(PLAY) 작업이 사용할 수 있다.
+ * 3) PLAY 요청한 title 이 BACKGROUND 대기 중이면 ON_DEMAND 로 올려서 바로 실행한다.
+ *    > 구간 PLAY 요청은 전체 구간 결과와 다른 경로(RANGE_DIRECTORY)에 변환하고 상태는 저장하지 않는다.
+ * 4) 변환이 끝난 title 은 STATE_FILE 에 저장해서 재시작 후에도 다시 변환하지 않는다.
+ */
+public class PackagingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackagingService.class);
+
+    private static final String MP4_EXTENSION = ".mp4";
+    private static final String M3U8_EXTENSION = ".m3u8";
+    private static final String RANGE_DIRECTORY = ".range"; // 구간 요청 결과를 저장하는 하위 디렉토리
+
+    private static final PackagingService packagingService = new PackagingService();
+
+    private final ReentrantLock taskLock = new ReentrantLock();
+    // Key : MP4 파일 경로, 대기 중이거나 실행 중인 작업
+    private final ConcurrentHashMap<String, PackagingTask> taskMap = new ConcurrentHashMap<>();
+    // 아직 worker pool 에 넣지 않은 BACKGROUND 작업 (taskLock 으로 보호)
+    private final LinkedHashMap<String, PackagingTask> backgroundQueue = new LinkedHashMap<>();
+    private int runningBackgroundCount = 0;
+
+    private FfmpegManager ffmpegManager = null;
+    private PackagingStateStore packagingStateStore = null;
+    private ThreadPoolExecutor workerPool = null;
+    private ScheduledExecutorService scanScheduler = null;
+
+    private String rootPath = null;
+    private int backgroundLimit = 0;
+    private int ffmpegThreads = 0;
+
+    private volatile boolean isStarted = false;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder packagedCount = new LongAdder();
+    private final LongAdder failCount = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public PackagingService() {
+        // Nothing
+    }
+
+    public static PackagingService getInstance() {
+        return packagingService;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean start()
+     * @brief [PACKAGING] 설정으로 worker pool 과 scan 을 시작하는 함수
+     * @return 시작한 경우 true, 설정이 꺼져 있으면 false 반환
+     */
+    public boolean start() {
+        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+        if (isStarted || !configManager.isPackagingEnabled()) {
+            return false;
+        }
+
+        rootPath = configManager.getPackagingRootPath();
+        backgroundLimit = configManager.getPackagingBackgroundLimit();
+        ffmpegThreads = configManager.getPackagingFfmpegThreads();
+        ffmpegManager = new FfmpegManager();
+
+        packagingStateStore = new PackagingStateStore(configManager.getPackagingStateFile());
+        int loadedCount = packagingStateStore.load();
+
+        int poolSize = configManager.getPackagingPoolSize();
+        workerPool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                new BasicThreadFactory.Builder()
+                        .namingPattern("Packaging-%d")
+                        .daemon(true)
+                        .priority(Thread.MIN_PRIORITY)
+                        .build()
+        );
+
+        scanScheduler = Executors.newSingleThreadScheduledExecutor(
+                new BasicThreadFactory.Builder()
+                        .namingPattern("PackagingScan")
+                        .daemon(true)
+                        .build()
+        );
+        long scanInterval = configManager.getPackagingScanInterval();
+        if (scanInterval > 0) {
+            scanScheduler.scheduleWithFixedDelay(this::scan, 0, scanInterval, TimeUnit.MILLISECONDS);
+        } else {
+            scanScheduler.execute(this::scan);
+        }
+
+        isStarted = true;
+        logger.debug("PackagingService is started. (rootPath={}, poolSize={}, backgroundLimit={}, ffmpegThreads={}, scanInterval={}, loaded={})",
+                rootPath, poolSize, backgroundLimit, ffmpegThreads, scanInterval, loadedCount
+        );
+        return true;
+    }
+
+    public void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+
+        scanScheduler.shutdownNow();
+        workerPool.shutdownNow();
+
+        taskLock.lock();
+        try {
+            backgroundQueue.clear();
+            for (PackagingTask task : taskMap.values()) {
+                task.getResult().complete(false);
+            }
+            taskMap.clear();
+        } finally {
+            taskLock.unlock();
+        }
+
+        packagingStateStore.save();
+        logger.debug("PackagingService is stopped. ({})", this);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public String packageOnDemand(String mp4FilePath, String m3u8FilePath, long fileTime, long startTime, long endTime)
+     * @brief PLAY 요청한 title 을 변환하고 끝날 때까지 대기하는 함수
+     * 이미 변환된 결과가 유효하면 바로 반환하고, 같은 작업이 대기/실행 중이면 그 결과를 기다린다.
+     * 구간 요청(startTime, endTime 이 0 이 아닌 경우)은 관리 중인 전체 구간 결과를 덮어쓰지 않도록 구간별 경로로 변환한다.
+     * (PLAY 준비 pool 에서 호출되므로 Netty I/O 스레드는 대기하지 않는다.)
+     * @param m3u8FilePath 전체 구간 결과 M3U8 파일 경로
+     * @return 성공 시 session 이 사용할 M3U8 파일 경로, 실패 시 null 반환
+     */
+    public String packageOnDemand(String mp4FilePath, String m3u8FilePath, long fileTime, long startTime, long endTime) {
+        if (!isStarted) {
+            return null;
+        }
+
+        boolean isFullTitle = startTime == 0 && endTime == 0;
+        if (isFullTitle && isPrePackaged(mp4FilePath)) {
+            hitCount.increment();
+            return m3u8FilePath;
+        }
+
+        String resultM3u8FilePath = isFullTitle ? m3u8FilePath : getRangeM3u8FilePath(m3u8FilePath, startTime, endTime);
+        PackagingTask task;
+        taskLock.lock();
+        try {
+            task = taskMap.get(isFullTitle ? mp4FilePath : resultM3u8FilePath);
+            if (task == null) {
+                // 확인 후 lock 을 잡기 전에 변환이 끝났으면 다시 변환하지 않는다. (finishTask 는 lock 안에서 호출된다.)
+                if (isFullTitle && isPrePackaged(mp4FilePath)) {
+                    hitCount.increment();
+                    return m3u8FilePath;
+                }
+
+                task = new PackagingTask(this, PackagingTask.Priority.ON_DEMAND, mp4FilePath, resultM3u8FilePath, fileTime, startTime, endTime);
+                taskMap.put(task.getTaskKey(), task);
+                if (!submit(task)) {
+                    return null;
+                }
+            } else if (backgroundQueue.remove(mp4FilePath, task)) {
+                // 대기 중인 BACKGROUND 작업을 ON_DEMAND 로 올려서 바로 실행
+                task.setPriority(PackagingTask.Priority.ON_DEMAND);
+                logger.debug("Packaging task is promoted. ({})", task);
+                if (!submit(task)) {
+                    return null;
+                }
+            }
+        } finally {
+            taskLock.unlock();
+        }
+
+        return await(task) ? resultM3u8FilePath : null;
+    }
+
+    /**
+     * @fn public boolean isPackaged(String mp4FilePath, long startTime, long endTime)
+     * @brief 요청한 구간으로 변환된 결과가 유효한지 확인하는 함수
+     */
+    public boolean isPackaged(String mp4FilePath, long startTime, long endTime) {
+        if (!isStarted || mp4FilePath == null) {
+            return false;
+        }
+
+        PackagingState packagingState = packagingStateStore.get(mp4FilePath);
+        return packagingState != null && packagingState.isValid(startTime, endTime);
+    }
+
+    /**
+     * @fn public boolean isPrePackaged(String mp4FilePath)
+     * @brief 전체 구간이 미리 변환되어 관리 중인 title 인지 확인하는 함수
+     * 관리 중인 title 의 M3U8, TS 파일은 session 이 끝나도 삭제하지 않는다.
+     */
+    public boolean isPrePackaged(String mp4FilePath) {
+        return isPackaged(mp4FilePath, 0, 0);
+    }
+
+    /**
+     * @fn public boolean isManagedOutput(String mp4FilePath, String m3u8FilePath)
+     * @brief M3U8 파일이 PackagingService 가 관리하는 전체 구간 결과 경로인지 확인하는 함수
+     * 변환 중이거나 변환이 끝난 결과를 다른 session 에서 사용하므로 session 이 끝나도 삭제하면 안 된다.
+     * (구간 요청 결과는 구간별 경로에 있으므로 false)
+     */
+    public boolean isManagedOutput(String mp4FilePath, String m3u8FilePath) {
+        if (!isStarted || mp4FilePath == null || m3u8FilePath == null) {
+            return false;
+        }
+
+        return Paths.get(m3u8FilePath).equals(Paths.get(getManagedM3u8FilePath(mp4FilePath)));
+    }
+
+    private static String getManagedM3u8FilePath(String mp4FilePath) {
+        if (mp4FilePath.toLowerCase().endsWith(MP4_EXTENSION)) {
+            return mp4FilePath.substring(0, mp4FilePath.length() - MP4_EXTENSION.length()) + M3U8_EXTENSION;
+        }
+        return mp4FilePath + M3U8_EXTENSION;
+    }
+
+    /**
+     * @fn static String getRangeM3u8FilePath(String m3u8FilePath, long startTime, long endTime)
+     * @brief 구간 요청 결과 M3U8 파일 경로를 반환하는 함수
+     * 전체 구간 결과 옆의 RANGE_DIRECTORY 에 구간별 이름으로 만든다. (ffmpeg 는 TS 파일 이름도 M3U8 파일 이름으로 만든다.)
+     * ex) /media/a/title.m3u8 (10~20 sec) > /media/a/.range/title_10_20.m3u8
+     */
+    static String getRangeM3u8FilePath(String m3u8FilePath, long startTime, long endTime) {
+        int nameIndex = m3u8FilePath.lastIndexOf('/') + 1;
+        String name = m3u8FilePath.substring(nameIndex);
+        if (name.toLowerCase().endsWith(M3U8_EXTENSION)) {
+            name = name.substring(0, name.length() - M3U8_EXTENSION.length());
+        }
+        return m3u8FilePath.substring(0, nameIndex) + RANGE_DIRECTORY + "/" + name + "_" + startTime + "_" + endTime + M3U8_EXTENSION;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public int scan()
+     * @brief ROOT_PATH 아래의 MP4 파일 중 변환되지 않았거나 바뀐 파일을 BACKGROUND 작업으로 등록하는 함수
+     * @return 새로 등록한 작업 개수
+     */
+    public int scan() {
+        if (!isStarted) {
+            return 0;
+        }
+
+        Path root = Paths.get(rootPath);
+        if (!Files.isDirectory(root)) {
+            logger.warn("Fail to scan the media root. Root path is not a directory. (rootPath={})", rootPath);
+            return 0;
+        }
+
+        int count = 0;
+        try (Stream<Path> pathStream = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) pathStream::iterator) {
+                String mp4FilePath = path.toString();
+                if (!Files.isRegularFile(path) || !mp4FilePath.toLowerCase().endsWith(MP4_EXTENSION)) {
+                    continue;
+                }
+
+                if (isPrePackaged(mp4FilePath) || taskMap.containsKey(mp4FilePath)) {
+                    continue;
+                }
+
+                TitleInfo titleInfo = TitleCatalog.getInstance().getTitleInfo(mp4FilePath);
+                if (titleInfo == null) {
+                    continue;
+                }
+
+                String m3u8FilePath = getManagedM3u8FilePath(mp4FilePath);
+                PackagingTask task = new PackagingTask(
+                        this, PackagingTask.Priority.BACKGROUND,
+                        mp4FilePath, m3u8FilePath,
+                        (long) titleInfo.getFileTime(), 0, 0
+                );
+                if (enqueueBackground(task)) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Fail to scan the media root. (rootPath={})", rootPath, e);
+        } catch (Exception e) {
+            // scheduleWithFixedDelay 는 예외가 발생하면 다음 scan 을 하지 않으므로 여기서 처리
+            logger.warn("PackagingService.scan.Exception", e);
+        }
+
+        if (count > 0) {
+            logger.debug("Packaging tasks are added. (rootPath={}, count={}, {})", rootPath, count, this);
+        }
+        return count;
+    }
+
+    private boolean enqueueBackground(PackagingTask task) {
+        taskLock.lock();
+        try {
+            if (taskMap.putIfAbsent(task.getTaskKey(), task) != null) {
+                return false;
+            }
+
+            backgroundQueue.put(task.getMp4FilePath(), task);
+            dispatchBackground();
+            return true;
+        } finally {
+            taskLock.unlock();
+        }
+    }
+
+    // taskLock 안에서 호출
+    private void dispatchBackground() {
+        Iterator<PackagingTask> iterator = backgroundQueue.values().iterator();
+        while (runningBackgroundCount < backgroundLimit && iterator.hasNext()) {
+            PackagingTask task = iterator.next();
+            iterator.remove();
+
+            task.setBackgroundSlot(true);
+            runningBackgroundCount++;
+            submit(task);
+        }
+    }
+
+    // taskLock 안에서 호출
+    private boolean submit(PackagingTask task) {
+        try {
+            workerPool.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Fail to submit the packaging task. ({})", task);
+            finishTask(task, false);
+            return false;
+        }
+    }
+
+    /**
+     * @fn void runTask(PackagingTask task)
+     * @brief worker 스레드에서 실제로 변환하는 함수
+     */
+    void runTask(PackagingTask task) {
+        boolean isSuccess = false;
+        try {
+            File mp4File = new File(task.getMp4FilePath());
+            long lastModified = mp4File.lastModified();
+            long fileSize = mp4File.length();
+
+            // 전체 구간 변환 중에는 결과 파일을 덮어쓰므로 이전 상태를 먼저 지운다.
+            // 구간 요청은 구간별 경로에 변환하므로 관리 중인 결과와 상태는 건드리지 않는다.
+            boolean isFullTitle = task.isFullTitle();
+            if (isFullTitle) {
+                packagingStateStore.remove(task.getMp4FilePath());
+            }
+
+            long startTime = System.currentTimeMillis();
+            boolean isBackground = task.getPriority() == PackagingTask.Priority.BACKGROUND;
+            isSuccess = ffmpegManager.convertMp4ToM3u8(
+                    task.getMp4FilePath(), task.getM3u8FilePath(),
+                    task.getFileTime(), task.getStartTime(), task.getEndTime(),
+                    isBackground ? ffmpegThreads : 0,
+                    isBackground ? ExternalToolExecutor.Priority.BACKGROUND : ExternalToolExecutor.Priority.INTERACTIVE
+            ) && new File(task.getM3u8FilePath()).isFile();
+
+            if (isSuccess) {
+                if (isFullTitle) {
+                    packagingStateStore.put(new PackagingState(
+                            task.getMp4FilePath(), task.getM3u8FilePath(),
+                            lastModified, fileSize,
+                            task.getStartTime(), task.getEndTime()
+                    ));
+                }
+                packagedCount.increment();
+                logger.debug("Success to package the title. ({}, elapsed={}ms)", task, System.currentTimeMillis() - startTime);
+            } else {
+                failCount.increment();
+                logger.warn("Fail to package the title. ({})", task);
+            }
+
+            if (isFullTitle) {
+                packagingStateStore.save();
+            }
+        } catch (Exception e) {
+            failCount.increment();
+            logger.warn("Fail to package the title. ({})", task, e);
+        } finally {
+            taskLock.lock();
+            try {
+                finishTask(task, isSuccess);
+            } finally {
+                taskLock.unlock();
+            }
+        }
+    }
+
+    // taskLock 안에서 호출
+    private void finishTask(PackagingTask task, boolean isSuccess) {
+        taskMap.remove(task.getTaskKey(), task);
+        if (task.isBackgroundSlot()) {
+            task.setBackgroundSlot(false);
+            runningBackgroundCount--;
+            if (isStarted) {
+                dispatchBackground();
+            }
+        }
+        task.getResult().complete(isSuccess);
+    }
+
+    private boolean await(PackagingTask task) {
+        try {
+            return task.getResult().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            logger.warn("Fail to wait the packaging task. ({})", task, e);
+            return false;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isStarted() {
+        return isStarted;
+    }
+
+    public int getPendingCount() {
+        return taskMap.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getPackagedCount() {
+        return packagedCount.sum();
+    }
+
+    public long getFailCount() {
+        return failCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "PackagingService{" +
+                "pending=" + getPendingCount() +
+                ", runningBackground=" + runningBackgroundCount + "/" + backgroundLimit +
+                ", packaged=" + getPackagedCount() +
+                ", failed=" + getFailCount() +
+                ", hit=" + getHitCount() +
+                ", titles=" + (packagingStateStore != null ? packagingStateStore.size() : 0) +
+                '}';
+    }
+
+}
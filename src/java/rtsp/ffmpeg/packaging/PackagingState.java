@@ -0,0 +1,100 @@
+package rtsp.ffmpeg.packaging;
+
+import java.io.File;
+
+/**
+ * @class public class PackagingState
+ * @brief 변환이 끝난 title 한 개의 상태 (STATE_FILE 에 JSON 으로 저장)
+ * MP4 파일의 수정 시각 + 크기가 같고 M3U8 파일이 남아 있으면 다시 변환하지 않는다.
+ */
+public class PackagingState {
+
+    private String mp4FilePath = null;
+    private String m3u8FilePath = null;
+    private long lastModified = 0; // ms
+    private long fileSize = 0; // bytes
+    private long startTime = 0; // sec
+    private long endTime = 0; // sec, 0 이면 끝까지
+    private long packagedTime = 0; // ms
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public PackagingState() {
+        // Nothing (for Gson)
+    }
+
+    public PackagingState(String mp4FilePath, String m3u8FilePath, long lastModified, long fileSize, long startTime, long endTime) {
+        this.mp4FilePath = mp4FilePath;
+        this.m3u8FilePath = m3u8FilePath;
+        this.lastModified = lastModified;
+        this.fileSize = fileSize;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.packagedTime = System.currentTimeMillis();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean isValid(long startTime, long endTime)
+     * @brief 요청한 구간으로 변환된 결과가 아직 유효한지 확인하는 함수
+     */
+    public boolean isValid(long startTime, long endTime) {
+        if (this.startTime != startTime || this.endTime != endTime) {
+            return false;
+        }
+
+        File mp4File = new File(mp4FilePath);
+        if (mp4File.lastModified() != lastModified || mp4File.length() != fileSize) {
+            return false;
+        }
+
+        return new File(m3u8FilePath).isFile();
+    }
+
+    public boolean isFullTitle() {
+        return startTime == 0 && endTime == 0;
+    }
+
+    public String getMp4FilePath() {
+        return mp4FilePath;
+    }
+
+    public String getM3u8FilePath() {
+        return m3u8FilePath;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public long getPackagedTime() {
+        return packagedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PackagingState{" +
+                "mp4FilePath='" + mp4FilePath + '\'' +
+                ", m3u8FilePath='" + m3u8FilePath + '\'' +
+                ", lastModified=" + lastModified +
+                ", fileSize=" + fileSize +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", packagedTime=" + packagedTime +
+                '}';
+    }
+
+}
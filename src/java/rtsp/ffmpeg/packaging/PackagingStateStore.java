@@ -0,0 +1,123 @@
+package rtsp.ffmpeg.packaging;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @class public class PackagingStateStore
+ * @brief 변환이 끝난 title 목록을 파일에 저장하고 읽는 클래스
+ * 서버를 재시작해도 이미 변환한 title 은 다시 변환하지 않도록 한다.
+ * 임시 파일에 쓴 후 교체하므로 저장 중에 종료되어도 이전 상태가 남는다.
+ */
+public class PackagingStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackagingStateStore.class);
+
+    private static final Type STATE_LIST_TYPE = new TypeToken<List<PackagingState>>() {}.getType();
+
+    private final Path stateFilePath;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    // Key : MP4 파일 경로
+    private final ConcurrentHashMap<String, PackagingState> packagingStateMap = new ConcurrentHashMap<>();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public PackagingStateStore(String stateFilePath) {
+        this.stateFilePath = Paths.get(stateFilePath);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public int load()
+     * @brief 저장된 상태를 읽는 함수
+     * @return 읽은 title 개수
+     */
+    public int load() {
+        packagingStateMap.clear();
+        if (!Files.isRegularFile(stateFilePath)) {
+            return 0;
+        }
+
+        try (Reader reader = Files.newBufferedReader(stateFilePath, StandardCharsets.UTF_8)) {
+            List<PackagingState> packagingStateList = gson.fromJson(reader, STATE_LIST_TYPE);
+            if (packagingStateList != null) {
+                for (PackagingState packagingState : packagingStateList) {
+                    if (packagingState.getMp4FilePath() != null && packagingState.getM3u8FilePath() != null) {
+                        packagingStateMap.put(packagingState.getMp4FilePath(), packagingState);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Fail to load the packaging state. (path={})", stateFilePath, e);
+        }
+
+        return packagingStateMap.size();
+    }
+
+    /**
+     * @fn public synchronized boolean save()
+     * @brief 현재 상태를 파일에 저장하는 함수
+     * @return 성공 시 true, 실패 시 false 반환
+     */
+    public synchronized boolean save() {
+        Path tmpFilePath = stateFilePath.resolveSibling(stateFilePath.getFileName() + ".tmp");
+        try {
+            File parent = stateFilePath.toAbsolutePath().getParent().toFile();
+            if (parent.mkdirs()) {
+                logger.debug("Success to make the directory. ({})", parent);
+            }
+
+            try (Writer writer = Files.newBufferedWriter(tmpFilePath, StandardCharsets.UTF_8)) {
+                gson.toJson(new ArrayList<>(packagingStateMap.values()), STATE_LIST_TYPE, writer);
+            }
+
+            try {
+                Files.move(tmpFilePath, stateFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFilePath, stateFilePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("Fail to save the packaging state. (path={})", stateFilePath, e);
+            return false;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public PackagingState get(String mp4FilePath) {
+        return packagingStateMap.get(mp4FilePath);
+    }
+
+    public void put(PackagingState packagingState) {
+        packagingStateMap.put(packagingState.getMp4FilePath(), packagingState);
+    }
+
+    public PackagingState remove(String mp4FilePath) {
+        return packagingStateMap.remove(mp4FilePath);
+    }
+
+    public int size() {
+        return packagingStateMap.size();
+    }
+
+}
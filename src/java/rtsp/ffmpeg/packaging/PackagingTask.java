@@ -0,0 +1,132 @@
+package rtsp.ffmpeg.packaging;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class PackagingTask
+ * @brief MP4 -> HLS 변환 작업 한 개
+ * worker pool 의 PriorityBlockingQueue 에서 ON_DEMAND 작업이 BACKGROUND 작업보다 먼저 실행된다.
+ * (같은 우선순위는 요청 순서대로)
+ */
+public class PackagingTask implements Runnable, Comparable<PackagingTask> {
+
+    public enum Priority {
+        ON_DEMAND, // PLAY 요청이 기다리는 작업
+        BACKGROUND // media root scan 으로 미리 변환하는 작업
+    }
+
+    private static final AtomicLong sequence = new AtomicLong(0);
+
+    private final PackagingService packagingService;
+    private final String mp4FilePath;
+    private final String m3u8FilePath;
+    private final long fileTime; // sec
+    private final long startTime; // sec
+    private final long endTime; // sec
+    private final long seq = sequence.incrementAndGet();
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    private volatile Priority priority;
+    private boolean isBackgroundSlot = false; // background 실행 개수에 포함되었는지 여부 (PackagingService lock 안에서만 접근)
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public PackagingTask(PackagingService packagingService, Priority priority,
+                         String mp4FilePath, String m3u8FilePath,
+                         long fileTime, long startTime, long endTime) {
+        this.packagingService = packagingService;
+        this.priority = priority;
+        this.mp4FilePath = mp4FilePath;
+        this.m3u8FilePath = m3u8FilePath;
+        this.fileTime = fileTime;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public void run() {
+        packagingService.runTask(this);
+    }
+
+    @Override
+    public int compareTo(PackagingTask o) {
+        int result = priority.compareTo(o.priority);
+        if (result != 0) {
+            return result;
+        }
+        return Long.compare(seq, o.seq);
+    }
+
+    /**
+     * @fn public boolean isFullTitle()
+     * @brief 전체 구간을 관리 경로로 변환하는 작업인지 확인하는 함수 (구간 요청은 구간별 경로로 변환한다.)
+     */
+    public boolean isFullTitle() {
+        return startTime == 0 && endTime == 0;
+    }
+
+    /**
+     * @fn public String getTaskKey()
+     * @brief 같은 결과를 만드는 작업을 구분하는 key 를 반환하는 함수 (전체 구간은 MP4 파일 경로, 구간 요청은 결과 M3U8 파일 경로)
+     */
+    public String getTaskKey() {
+        return isFullTitle() ? mp4FilePath : m3u8FilePath;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public String getMp4FilePath() {
+        return mp4FilePath;
+    }
+
+    public String getM3u8FilePath() {
+        return m3u8FilePath;
+    }
+
+    public long getFileTime() {
+        return fileTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    boolean isBackgroundSlot() {
+        return isBackgroundSlot;
+    }
+
+    void setBackgroundSlot(boolean isBackgroundSlot) {
+        this.isBackgroundSlot = isBackgroundSlot;
+    }
+
+    public CompletableFuture<Boolean> getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PackagingTask{" +
+                "mp4FilePath='" + mp4FilePath + '\'' +
+                ", priority=" + priority +
+                ", startTime=" + startTime +
+                ", endTime=" + endTime +
+                ", seq=" + seq +
+                '}';
+    }
+
+}
@@ -5,11 +5,14 @@ import org.slf4j.LoggerFactory;
 import rtsp.fsm.RtspState;
 import rtsp.module.base.RtspUnit;
 import rtsp.module.netty.NettyChannelManager;
+import rtsp.config.ConfigManager;
+import rtsp.service.AppInstance;
 import rtsp.service.ResourceManager;
+import rtsp.service.base.SessionExpiryWheel;
+import rtsp.service.base.SessionRegistry;
 
-import java.util.HashMap;
-import java.util.Objects;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * @class public class RtspManager
@@ -23,8 +26,10 @@ public class RtspManager {
 
     private static RtspManager rtspManager = null;
 
-    private final HashMap<String, RtspUnit> rtspUnitMap = new HashMap<>();
-    private final ReentrantLock rtspUnitMapLock = new ReentrantLock();
+    private static final long EXPIRY_TICK_TIME = 1000; // ms
+
+    private final SessionRegistry<String, RtspUnit> rtspUnitMap = new SessionRegistry<>();
+    private final SessionExpiryWheel<String> expiryWheel = new SessionExpiryWheel<>(EXPIRY_TICK_TIME, System.currentTimeMillis());
 
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -42,76 +47,125 @@ public class RtspManager {
 
     public void openRtspUnit(String rtspUnitId, String ip, int port) {
         try {
-            rtspUnitMapLock.lock();
-
-            RtspUnit rtspUnit = new RtspUnit(rtspUnitId, ip, port);
-            rtspUnit.getStateManager().addStateUnit(
-                    rtspUnit.getRtspStateUnitId(),
-                    rtspUnit.getStateManager().getStateHandler(RtspState.NAME).getName(),
-                    RtspState.IDLE,
-                    null
-            );
+            // 동시에 생성되어 등록하지 못한 RtspUnit 은 정리하지 않는다. (RTSP/RTCP channel 은 id 당 한 개만 등록되고 등록된 RtspUnit 을 닫을 때 id 로 삭제된다.)
+            RtspUnit rtspUnit = rtspUnitMap.createIfAbsent(rtspUnitId, id -> {
+                RtspUnit newRtspUnit = new RtspUnit(id, ip, port);
+                newRtspUnit.getStateManager().addStateUnit(
+                        newRtspUnit.getRtspStateUnitId(),
+                        newRtspUnit.getStateManager().getStateHandler(RtspState.NAME).getName(),
+                        RtspState.IDLE,
+                        null
+                );
+                return newRtspUnit;
+            });
+
+            if (rtspUnit == null) {
+                logger.trace("Rtsp unit is already opened. (id={})", rtspUnitId);
+                return;
+            }
 
-            rtspUnitMap.putIfAbsent(rtspUnitId, rtspUnit);
+            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+            long limitTime = configManager.getLocalSessionLimitTime();
+            expiryWheel.register(
+                    rtspUnitId,
+                    configManager.getLocalSessionIdleLimitTime(),
+                    limitTime > 0 ? rtspUnit.getInitiationTime() + limitTime : Long.MAX_VALUE,
+                    System.currentTimeMillis()
+            );
         } catch (Exception e) {
             logger.warn("Fail to open the rtsp unit. (id={}, ip={}, port={})", rtspUnitId, ip, port, e);
-        } finally {
-            rtspUnitMapLock.unlock();
         }
     }
 
     // Unregister 요청받거나 Register 요청 거부할 때 사용
     public void closeRtspUnit(String rtspUnitId) {
         try {
-            rtspUnitMapLock.lock();
-
-            RtspUnit rtspUnit = getRtspUnit(rtspUnitId);
-            NettyChannelManager.getInstance().deleteRtspChannel(rtspUnitId);
-            NettyChannelManager.getInstance().deleteRtcpChannel(rtspUnitId);
-
-            int port = rtspUnit.getClientRtpListenPort();
-            if (port > 0) {
-                ResourceManager.getInstance().restorePort(port);
+            // 먼저 registry 에서 원자적으로 제거한 스레드만 자원을 정리한다.
+            RtspUnit rtspUnit = rtspUnitMap.remove(rtspUnitId);
+            if (rtspUnit == null) {
+                return;
             }
 
-            rtspUnitMap.remove(rtspUnitId);
+            expiryWheel.unregister(rtspUnitId);
+            releaseRtspUnit(rtspUnit);
         } catch (Exception e) {
             logger.warn("Fail to close the rtsp unit. (id={})", rtspUnitId, e);
-        } finally {
-            rtspUnitMapLock.unlock();
         }
     }
 
-    public HashMap<String, RtspUnit> getCloneRtspMap( ) {
-        HashMap<String, RtspUnit> cloneMap;
+    private void releaseRtspUnit(RtspUnit rtspUnit) {
+        String rtspUnitId = rtspUnit.getRtspUnitId();
+        NettyChannelManager.getInstance().deleteRtspChannel(rtspUnitId);
+        NettyChannelManager.getInstance().deleteRtcpChannel(rtspUnitId);
 
-        try {
-            rtspUnitMapLock.lock();
-
-            cloneMap = (HashMap<String, RtspUnit>) rtspUnitMap.clone();
-        } catch (Exception e) {
-            logger.warn("Fail to clone the call map.", e);
-            cloneMap = rtspUnitMap;
-        } finally {
-            rtspUnitMapLock.unlock();
+        int port = rtspUnit.getClientRtpListenPort();
+        if (port > 0) {
+            ResourceManager.getInstance().restorePort(port);
         }
-
-        return cloneMap;
     }
 
     public void closeAllRtspUnits() {
         try {
-            rtspUnitMapLock.lock();
+            rtspUnitMap.removeAll((rtspUnitId, rtspUnit) -> {
+                expiryWheel.unregister(rtspUnitId);
+                releaseRtspUnit(rtspUnit);
+            });
             NettyChannelManager.getInstance().deleteAllRtcpChannels();
             NettyChannelManager.getInstance().deleteAllRtspChannels();
-            rtspUnitMap.entrySet().removeIf(Objects::nonNull);
         } catch (Exception e) {
             logger.warn("Fail to close all rtsp units.", e);
-        } finally {
-            rtspUnitMapLock.unlock();
         }
     }
 
+    /**
+     * @fn public void touchRtspUnit(String rtspUnitId)
+     * @brief Keep-alive (RTSP 요청, RTCP RR, 재등록, RTP 전송 중) 시 RtspUnit 의 idle 만료 시간을 연장하는 함수
+     * @param rtspUnitId RtspUnit ID
+     */
+    public void touchRtspUnit(String rtspUnitId) {
+        expiryWheel.touch(rtspUnitId, System.currentTimeMillis());
+    }
+
+    /**
+     * @fn public void disableIdleExpiry(String rtspUnitId)
+     * @brief RtspUnit 을 idle 만료 대상에서 제외하는 함수 (최대 유지 시간은 그대로 적용됨)
+     * @param rtspUnitId RtspUnit ID
+     */
+    public void disableIdleExpiry(String rtspUnitId) {
+        expiryWheel.setIdleTimeout(rtspUnitId, 0);
+    }
+
+    /**
+     * @fn public int expireRtspUnits(long curTime, BiConsumer<RtspUnit, SessionExpiryWheel.ExpireReason> expireHandler)
+     * @brief 만료 시간이 지난 RtspUnit 만 골라서 닫는 함수
+     * 전체 RtspUnit 을 순회하지 않고, 현재 tick 에 만료 시간이 걸린 RtspUnit 만 검사한다.
+     * @param curTime 현재 시각 (ms)
+     * @param expireHandler 닫힌 RtspUnit 별로 호출할 함수
+     * @return 닫힌 RtspUnit 개수
+     */
+    public int expireRtspUnits(long curTime, BiConsumer<RtspUnit, SessionExpiryWheel.ExpireReason> expireHandler) {
+        return expiryWheel.advance(curTime, (rtspUnitId, reason) -> {
+            RtspUnit rtspUnit = rtspUnitMap.remove(rtspUnitId);
+            if (rtspUnit == null) {
+                return;
+            }
+
+            releaseRtspUnit(rtspUnit);
+            if (expireHandler != null) {
+                expireHandler.accept(rtspUnit, reason);
+            }
+        });
+    }
+
+    /**
+     * @fn public void forEachRtspUnit(Consumer<RtspUnit> action)
+     * @brief 등록된 모든 RtspUnit 을 복사본 없이 순회하는 함수 (weakly consistent)
+     * @param action RtspUnit 별로 수행할 함수
+     */
+    public void forEachRtspUnit(Consumer<RtspUnit> action) {
+        rtspUnitMap.forEachValue(action);
+    }
+
     public RtspUnit getRtspUnit(String rtspUnitId) {
         return rtspUnitMap.get(rtspUnitId);
     }
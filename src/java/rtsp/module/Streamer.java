@@ -7,21 +7,29 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.DatagramPacket;
 import io.netty.channel.socket.nio.NioDatagramChannel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
+import rtsp.ffmpeg.packaging.PackagingService;
+import rtsp.module.cache.SegmentCache;
+import rtsp.module.egress.EgressFlowControl;
+import rtsp.module.egress.EgressFlushMode;
+import rtsp.module.egress.EgressWriter;
+import rtsp.module.netty.NettyChannelManager;
 import rtsp.module.netty.handler.StreamerChannelHandler;
+import rtsp.module.trace.StreamTrace;
+import rtsp.service.AdmissionController;
 import rtsp.service.AppInstance;
+import rtsp.service.metrics.PacingStats;
 
 import java.io.File;
 import java.net.InetAddress;
-import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @class public class Streamer
@@ -31,14 +39,16 @@ public class Streamer {
 
     private static final Logger logger = LoggerFactory.getLogger(Streamer.class);
 
+    // Gson 은 thread-safe 하므로 toString 마다 새로 만들지 않는다.
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
     private String clientUserAgent = null;
 
-    private NioEventLoopGroup group = null;
     private final Bootstrap b = new Bootstrap();
 
     private final String rtspUnitId; /* Rtsp Unit id */
     private final String sessionId; /* Streamer id */
-    private Channel channel; /* 메시지 송신용 채널 */
+    private volatile Channel channel; /* 메시지 송신용 채널 (전송 스레드와 PAUSE, TEARDOWN 처리 스레드에서 접근) */
 
     private final String listenIp;
     private final int listenPort;
@@ -59,6 +69,19 @@ public class Streamer {
     private String m3u8PathOnly = null;
 
     private final AtomicBoolean isPaused = new AtomicBoolean(false);
+    // PLAY 준비가 끝난 후 session 상태 확인부터 전송 시작까지와 PAUSE, TEARDOWN 이 섞이지 않도록 한다.
+    private final ReentrantLock playLock = new ReentrantLock();
+
+    // 전송 통계 (RtpSender 에서 갱신, metrics scrape 에서 조회)
+    private final AtomicLong sentPacketCount = new AtomicLong(0);
+    private final AtomicLong sentByteCount = new AtomicLong(0);
+    private volatile long playRequestTime = 0; // 첫 RTP 패킷을 보내기 전의 PLAY 요청 수신 시간 (System.nanoTime, 보낸 후 0)
+    private final transient PacingStats pacingStats = new PacingStats();
+    private final transient StreamTrace streamTrace; // 최근 전송 event (RtpSender 에서 기록, 오류 시 또는 요청 시 dump)
+    private final transient EgressFlowControl egressFlowControl; // channel 이 unwritable 일 때 패킷 처리 (drop, skip, slow)
+    private final transient EgressFlushMode egressFlushMode;
+    private final transient int egressMaxBatchPackets;
+    private transient volatile EgressWriter egressWriter = null; // channel 을 열 때마다 새로 생성
 
     /////////////////////////////////////////////////////////////////////
 
@@ -69,6 +92,12 @@ public class Streamer {
         this.listenIp = listenIp;
         this.listenPort = listenPort;
 
+        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+        this.streamTrace = new StreamTrace(sessionId, configManager.getStreamTraceSize(), configManager.getStreamTraceSummaryInterval());
+        this.egressFlowControl = new EgressFlowControl(configManager.getEgressBackpressurePolicy(), configManager.getEgressSlowMaxWait());
+        this.egressFlushMode = configManager.getEgressFlushMode();
+        this.egressMaxBatchPackets = configManager.getEgressMaxBatchPackets();
+
         ssrc = random.nextInt(Integer.MAX_VALUE);
         curSeqNum = random.nextInt(100);
 
@@ -92,14 +121,16 @@ public class Streamer {
 
     public Streamer init() {
         ConfigManager configManager = AppInstance.getInstance().getConfigManager();
-        group = new NioEventLoopGroup(configManager.getStreamThreadPoolSize());
-        b.group(group).channel(NioDatagramChannel.class)
+        // 모든 Streamer 가 event loop group 을 공유한다. (session 마다 thread 를 만들지 않고, 같은 event loop 의 session 들은 한 번에 flush)
+        b.group(NettyChannelManager.getInstance().getStreamerGroup()).channel(NioDatagramChannel.class)
                 .option(ChannelOption.SO_BROADCAST, false)
                 .option(ChannelOption.SO_SNDBUF, configManager.getSendBufSize())
                 .option(ChannelOption.SO_RCVBUF, configManager.getRecvBufSize())
                 .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .option(ChannelOption.SO_REUSEADDR, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        configManager.getEgressWriteBufferLow(), configManager.getEgressWriteBufferHigh()))
                 .handler(new ChannelInitializer<NioDatagramChannel>() {
                     @Override
                     public void initChannel (final NioDatagramChannel ch) {
@@ -107,7 +138,7 @@ public class Streamer {
                         pipeline.addLast(
                                 //new DefaultEventExecutorGroup(1),
                                 new StreamerChannelHandler(
-                                        rtspUnitId, sessionId
+                                        rtspUnitId, sessionId, egressFlowControl
                                 )
                         );
                     }
@@ -122,12 +153,16 @@ public class Streamer {
                 m3u8File = new File(destFilePath);
             }
 
+            // PAUSE 후 다시 PLAY 하는 경우 이전 channel 을 닫고 연다.
+            close();
+
             InetAddress address = InetAddress.getByName(destIp);
             ChannelFuture channelFuture = b.connect(address, destPort).sync();
             /*channelFuture.addListener(
                     (ChannelFutureListener) future -> logger.trace("({}) Success to connect with remote peer. (ip={}, port={})", sessionId, destIp, destPort)
             );*/
             channel = channelFuture.channel();
+            egressWriter = new EgressWriter(channel, egressFlushMode, egressMaxBatchPackets, egressFlowControl);
 
             if (isPaused.get()) {
                 isPaused.set(false);
@@ -146,6 +181,14 @@ public class Streamer {
         this.clientUserAgent = clientUserAgent;
     }
 
+    /**
+     * @fn public ReentrantLock getPlayLock()
+     * @brief PLAY 준비 후 전송을 시작할 때 잡는 lock 을 반환하는 함수 (pause, stop 과 같은 lock)
+     */
+    public ReentrantLock getPlayLock() {
+        return playLock;
+    }
+
     public boolean isPaused () {
         return isPaused.get();
     }
@@ -155,38 +198,68 @@ public class Streamer {
     }
 
     public void pause () {
-        if (channel == null) {
-            return;
-        }
+        playLock.lock();
+        try {
+            if (channel == null) {
+                return;
+            }
 
-        isPaused.set(true);
+            isPaused.set(true);
+        } finally {
+            playLock.unlock();
+        }
         logger.debug("({}) Streamer is paused. ({})", sessionId, this);
     }
 
     public void close () {
-        if (channel != null) {
-            channel.closeFuture();
-            channel.close();
+        // 전송 스레드가 모아두고 아직 보내지 않은 패킷을 release 한 후 channel 을 닫는다.
+        EgressWriter curWriter = egressWriter;
+        egressWriter = null;
+        if (curWriter != null) {
+            curWriter.close();
+        }
+
+        Channel curChannel = channel;
+        if (curChannel != null) {
             channel = null;
+            curChannel.closeFuture();
+            curChannel.close();
         }
     }
 
     public void stop () {
-        close();
-        isPaused.set(true);
+        playLock.lock();
+        try {
+            // 먼저 paused 로 바꿔서, 전송 스레드의 send() 가 닫은 channel 을 다시 열지 않도록 한다.
+            isPaused.set(true);
+            close();
+        } finally {
+            playLock.unlock();
+        }
+
+        // PackagingService 가 관리하는 전체 구간 결과는 다른 session 에서 다시 사용하므로 삭제하지 않는다.
+        // (구간 요청 결과는 구간별 경로에 변환되므로 설정에 따라 삭제한다.)
+        boolean isManagedOutput = video != null && PackagingService.getInstance().isManagedOutput(
+                video.getMp4FileName(),
+                m3u8File != null ? m3u8File.getPath() : video.getResultM3U8FilePath()
+        );
 
-        if (AppInstance.getInstance().getConfigManager().isDeleteM3u8()) {
+        if (AppInstance.getInstance().getConfigManager().isDeleteM3u8() && !isManagedOutput) {
             if (m3u8File != null) {
                 removeFile(m3u8File);
                 m3u8File = null;
             }
         }
 
-        if (AppInstance.getInstance().getConfigManager().isDeleteTs()) {
+        if (AppInstance.getInstance().getConfigManager().isDeleteTs() && !isManagedOutput) {
             if (mediaSegmentList != null && !mediaSegmentList.isEmpty()) {
+                boolean isSegmentCacheEnabled = AppInstance.getInstance().getConfigManager().isSegmentCacheEnabled();
                 for (MediaSegment mediaSegment : mediaSegmentList) {
                     String tsFileName = mediaSegment.uri();
                     tsFileName = m3u8PathOnly + File.separator + tsFileName;
+                    if (isSegmentCacheEnabled) {
+                        SegmentCache.getInstance().invalidate(tsFileName.trim());
+                    }
                     removeFile(new File(tsFileName.trim()));
                 }
             }
@@ -208,9 +281,7 @@ public class Streamer {
     public void finish () {
         stop();
 
-        if (group != null) {
-            group.shutdownGracefully();
-        }
+        AdmissionController.getInstance().release(sessionId);
 
         logger.debug("({}) Streamer is finished.", sessionId);
     }
@@ -287,6 +358,14 @@ public class Streamer {
         logger.debug("({}) Streamer m3u8PathOnly is set up. ({})", sessionId, m3u8PathOnly);
     }
 
+    /**
+     * @fn public void setM3u8FilePath(String m3u8FilePath)
+     * @brief session 이 전송하는 M3U8 파일 경로를 설정하는 함수 (구간 요청은 VideoStream 의 결과 경로와 다르다.)
+     */
+    public void setM3u8FilePath(String m3u8FilePath) {
+        this.m3u8File = new File(m3u8FilePath);
+    }
+
     public int getSsrc() {
         return ssrc;
     }
@@ -324,6 +403,39 @@ public class Streamer {
         return sessionId;
     }
 
+    public void addSentPacket(int bytes) {
+        sentPacketCount.incrementAndGet();
+        sentByteCount.addAndGet(bytes);
+    }
+
+    public long getSentPacketCount() {
+        return sentPacketCount.get();
+    }
+
+    public long getSentByteCount() {
+        return sentByteCount.get();
+    }
+
+    public PacingStats getPacingStats() {
+        return pacingStats;
+    }
+
+    public StreamTrace getStreamTrace() {
+        return streamTrace;
+    }
+
+    public EgressFlowControl getEgressFlowControl() {
+        return egressFlowControl;
+    }
+
+    public long getPlayRequestTime() {
+        return playRequestTime;
+    }
+
+    public void setPlayRequestTime(long playRequestTime) {
+        this.playRequestTime = playRequestTime;
+    }
+
     public VideoStream getVideo() {
         return video;
     }
@@ -342,37 +454,80 @@ public class Streamer {
     }
 
     /**
-     * @fn public void send(ByteBuf buf, String ip, int port)
+     * @fn public boolean send(ByteBuf buf, String ip, int port)
+     * @brief 연결된 채널로 지정한 데이터를 송신하는 함수 (key frame 여부와 상관없는 데이터, ex. M3U8)
+     */
+    public boolean send(ByteBuf buf, String ip, int port) {
+        return send(buf, ip, port, true);
+    }
+
+    /**
+     * @fn public boolean send(ByteBuf buf, String ip, int port, boolean isKeyFrame)
      * @brief 연결된 채널로 지정한 데이터를 송신하는 함수
+     * PLAY 에서 연 채널을 계속 사용하고, 채널이 unwritable 이면 EgressFlowControl 정책에 따라 버리거나 기다린다.
+     * EgressFlushMode.TICK 이면 flush() 를 호출할 때까지 모아둔다.
+     * 보내지 않은 buf 는 여기서 release 한다.
      * @param buf ByteBuf
      * @param ip Destination IP
      * @param port Destination Port
+     * @param isKeyFrame key frame 이 시작되는 패킷인지 여부 (SKIP_TO_KEYFRAME 정책에서 사용)
+     * @return 채널에 쓰면 true, 버리면 false
      */
-    public void send(ByteBuf buf, String ip, int port) {
-        close();
-        open();
-
-        if (!isActive()) {
-            logger.warn("({}) Fail to send the message. Channel is inactive. (ip={}, port={})", sessionId, ip, port);
-            close();
-            return;
-        }
-
-        try {
-            if (buf == null || ip == null || port <= 0) {
-                logger.warn("({}) Fail to send the message. (ip={}, port={})", sessionId, ip, port);
-                return;
+    public boolean send(ByteBuf buf, String ip, int port, boolean isKeyFrame) {
+        if (buf == null || ip == null || port <= 0) {
+            logger.warn("({}) Fail to send the message. (ip={}, port={})", sessionId, ip, port);
+            if (buf != null) {
+                buf.release();
             }
+            return false;
+        }
 
-            if (channel != null) {
-                InetSocketAddress addr = new InetSocketAddress(ip, port);
-                ChannelFuture channelFuture = channel.writeAndFlush(new DatagramPacket(buf, addr));
-                if (channelFuture == null) {
-                    logger.warn("({}) Fail to send the message. (ip={}, port={})", sessionId, ip, port);
+        Channel curChannel = channel;
+        if (curChannel == null || !curChannel.isActive()) {
+            // PAUSE, TEARDOWN 으로 닫은 채널은 다시 열지 않는다. (stop() 과 섞이지 않도록 play lock 안에서 확인 후 연다.)
+            playLock.lock();
+            try {
+                if (isPaused.get()) {
+                    buf.release();
+                    return false;
                 }
+
+                open();
+                curChannel = channel;
+            } finally {
+                playLock.unlock();
+            }
+            if (curChannel == null || !curChannel.isActive()) {
+                logger.warn("({}) Fail to send the message. Channel is inactive. (ip={}, port={})", sessionId, ip, port);
+                close();
+                buf.release();
+                return false;
             }
+        }
+
+        // 채널이 목적지와 연결되어 있으므로 DatagramPacket, InetSocketAddress 없이 바로 쓴다.
+        EgressWriter curWriter = egressWriter;
+        if (curWriter == null) {
+            buf.release();
+            return false;
+        }
+
+        try {
+            return curWriter.write(buf, isKeyFrame);
         } catch (Exception e) {
             logger.warn("({}) Streamer.send.Exception", sessionId, e);
+            return false;
+        }
+    }
+
+    /**
+     * @fn public void flush()
+     * @brief send() 로 모아둔 패킷을 한 번에 보내는 함수 (PCR pacing 대기 전, 전송이 끝날 때 RtpSender 에서 호출)
+     */
+    public void flush() {
+        EgressWriter curWriter = egressWriter;
+        if (curWriter != null) {
+            curWriter.flush();
         }
     }
 
@@ -380,7 +535,6 @@ public class Streamer {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return GSON.toJson(this);
     }
 }
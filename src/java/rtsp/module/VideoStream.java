@@ -17,6 +17,9 @@ public class VideoStream {
 
     private static final Logger logger = LoggerFactory.getLogger(VideoStream.class);
 
+    // Gson 은 thread-safe 하므로 toString 마다 새로 만들지 않는다.
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
     private final String mp4FileName;
     private final String resultM3U8FilePath;
 
@@ -64,7 +67,6 @@ public class VideoStream {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return GSON.toJson(this);
     }
 }
\ No newline at end of file
@@ -24,6 +24,9 @@ public class RtspUnit {
 
     private static final Logger logger = LoggerFactory.getLogger(RtspUnit.class);
 
+    // Gson 은 thread-safe 하므로 toString 마다 새로 만들지 않는다.
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
     private final String rtspUnitId; // ID of the RTSP session by client
     private long sessionId = 0; // ID of the session
     private final long initiationTime;
@@ -187,8 +190,12 @@ public class RtspUnit {
         }
 
         if (this.clientRtpListenPort != clientRtpListenPort) {
+            // 이전에 할당받은 port 가 있으면 반환하고, 새 port 는 RtspUnit 이 닫힐 때 반환된다.
+            int prevClientRtpListenPort = this.clientRtpListenPort;
             this.clientRtpListenPort = clientRtpListenPort;
-            ResourceManager.getInstance().restorePort(clientRtpListenPort);
+            if (prevClientRtpListenPort > 0) {
+                ResourceManager.getInstance().restorePort(prevClientRtpListenPort);
+            }
             logger.debug("({}) [RtspUnit] clientRtpListenPort is set up. ({})", rtspUnitId, clientRtpListenPort);
         }
     }
@@ -221,7 +228,6 @@ public class RtspUnit {
 
     @Override
     public String toString() {
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        return gson.toJson(this);
+        return GSON.toJson(this);
     }
 }
@@ -0,0 +1,92 @@
+package rtsp.module.cache;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @class public class CachedSegment
+ * @brief 메모리에 전부 읽어둔 TS 파일 한 개
+ * SegmentCache.acquire() 로 받은 segment 는 direct memory 에 있고 session 끼리 공유한다.
+ * 다 쓰면 반드시 close() 해야 한다. (참조 중인 segment 는 evict 되지 않음)
+ */
+public class CachedSegment implements AutoCloseable {
+
+    private final String path; // canonical path
+    private final long lastModified;
+    private final ByteBuffer buffer; // read-only
+    private final AtomicInteger refCount = new AtomicInteger(0);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    CachedSegment(String path, long lastModified, ByteBuffer buffer) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.buffer = buffer.asReadOnlyBuffer();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public ByteBuffer slice(int offset, int length)
+     * @brief 복사 없이 지정한 구간을 가리키는 read-only buffer 를 반환하는 함수 (position 0 부터 시작)
+     * @param offset 시작 위치
+     * @param length 길이
+     * @return 구간이 범위를 벗어나면 null 반환
+     */
+    public ByteBuffer slice(int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+            return null;
+        }
+
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(offset + length);
+        duplicate.position(offset);
+        return duplicate.slice();
+    }
+
+    public boolean isSameFile(long lastModified, long fileSize) {
+        return this.lastModified == lastModified && buffer.capacity() == fileSize;
+    }
+
+    void retain() {
+        refCount.incrementAndGet();
+    }
+
+    boolean isInUse() {
+        return refCount.get() > 0;
+    }
+
+    @Override
+    public void close() {
+        refCount.decrementAndGet();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public int getSize() {
+        return buffer.capacity();
+    }
+
+    public int getRefCount() {
+        return refCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "CachedSegment{" +
+                "path='" + path + '\'' +
+                ", lastModified=" + lastModified +
+                ", size=" + buffer.capacity() +
+                ", refCount=" + refCount.get() +
+                '}';
+    }
+
+}
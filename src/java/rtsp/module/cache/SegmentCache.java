@@ -0,0 +1,367 @@
+package rtsp.module.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
+import rtsp.service.AppInstance;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class SegmentCache
+ * @brief 여러 session 이 같은 TS 파일을 보낼 때 공유하는 process 전체 cache
+ * TS 파일 전체를 direct memory 에 올려두고 canonical path 와 수정 시각으로 구분한다.
+ * 최대 크기(byte)를 넘으면 오래 사용하지 않은 segment 부터 제거하고(LRU), 참조 중인 segment 는 제거하지 않는다.
+ * 참조 중인 segment 때문에 자리가 없으면 cache 에 넣지 않고 heap 으로 읽어서 요청한 session 만 사용한다. (bypass)
+ */
+public class SegmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentCache.class);
+
+    private static final int LOAD_LOCK_COUNT = 16;
+
+    private static SegmentCache segmentCache = null;
+
+    private final long maxSize; // bytes
+
+    // accessOrder = true > 조회할 때마다 뒤로 이동하므로 앞에서부터 제거하면 LRU
+    private final LinkedHashMap<String, CachedSegment> segmentMap = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final ReentrantLock[] loadLocks = new ReentrantLock[LOAD_LOCK_COUNT];
+    private long usedSize = 0; // cacheLock 안에서만 접근
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictCount = new LongAdder();
+    private final LongAdder bypassCount = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public SegmentCache(long maxSize) {
+        this.maxSize = maxSize;
+        for (int i = 0; i < LOAD_LOCK_COUNT; i++) {
+            loadLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public static synchronized SegmentCache getInstance() {
+        if (segmentCache == null) {
+            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+            segmentCache = new SegmentCache(configManager.getSegmentCacheSize());
+        }
+
+        return segmentCache;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public CachedSegment acquire(String tsFilePath)
+     * @brief TS 파일을 cache 에서 찾아서 반환하는 함수 (없거나 파일이 바뀌었으면 다시 읽는다.)
+     * 반환된 segment 는 참조 개수가 증가한 상태이므로 다 쓰면 close() 해야 한다.
+     * @param tsFilePath TS 파일 경로
+     * @return 성공 시 CachedSegment, 실패 시 null 반환
+     */
+    public CachedSegment acquire(String tsFilePath) {
+        if (tsFilePath == null) { return null; }
+
+        File file = new File(tsFilePath);
+        String path;
+        try {
+            path = file.getCanonicalPath();
+        } catch (IOException e) {
+            logger.warn("Fail to get the canonical path. (tsFilePath={})", tsFilePath, e);
+            return null;
+        }
+
+        long lastModified = file.lastModified();
+        long fileSize = file.length();
+        if (lastModified == 0 || !file.isFile()) {
+            invalidateCanonicalPath(path);
+            logger.warn("Fail to acquire the segment. File is not found. (path={})", path);
+            return null;
+        }
+
+        if (fileSize <= 0 || fileSize > Integer.MAX_VALUE) {
+            logger.warn("Fail to acquire the segment. File size is wrong. (path={}, fileSize={})", path, fileSize);
+            return null;
+        }
+
+        CachedSegment cachedSegment = lookup(path, lastModified, fileSize);
+        if (cachedSegment != null) {
+            return cachedSegment;
+        }
+
+        // 같은 segment 를 여러 session 이 동시에 읽지 않도록 경로 hash 로 나눈 lock 을 사용
+        ReentrantLock loadLock = loadLocks[(path.hashCode() & 0x7fffffff) % LOAD_LOCK_COUNT];
+        loadLock.lock();
+        try {
+            cachedSegment = lookup(path, lastModified, fileSize);
+            if (cachedSegment != null) {
+                return cachedSegment;
+            }
+
+            missCount.increment();
+
+            // direct memory 는 최대 크기 안에서만 사용하도록 읽기 전에 자리를 먼저 확보한다.
+            boolean isReserved = reserve(path, fileSize);
+            ByteBuffer buffer = load(path, (int) fileSize, isReserved);
+            if (buffer == null) {
+                if (isReserved) {
+                    release(fileSize);
+                }
+                return null;
+            }
+
+            cachedSegment = new CachedSegment(path, lastModified, buffer);
+            cachedSegment.retain();
+
+            if (isReserved) {
+                cacheLock.lock();
+                try {
+                    segmentMap.put(path, cachedSegment);
+                } finally {
+                    cacheLock.unlock();
+                }
+            }
+
+            return cachedSegment;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * @fn private boolean reserve(String path, long requiredSize)
+     * @brief segment 를 읽기 전에 cache 에 넣을 자리를 확보하는 함수 (확보한 크기는 usedSize 에 포함)
+     * 자리가 없으면 bypass 로 처리하고, 요청한 session 만 사용하도록 heap 으로 읽는다.
+     * @return 자리가 확보되면 true, 확보하지 못하면 false 반환
+     */
+    private boolean reserve(String path, long requiredSize) {
+        cacheLock.lock();
+        try {
+            if (requiredSize <= maxSize && evict(requiredSize)) {
+                usedSize += requiredSize;
+                return true;
+            }
+
+            bypassCount.increment();
+            logger.debug("Segment cache is full. Bypass the segment. (path={}, size={}, usedSize={}, maxSize={})", path, requiredSize, usedSize, maxSize);
+            return false;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private void release(long reservedSize) {
+        cacheLock.lock();
+        try {
+            usedSize -= reservedSize;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    private CachedSegment lookup(String path, long lastModified, long fileSize) {
+        cacheLock.lock();
+        try {
+            CachedSegment cachedSegment = segmentMap.get(path);
+            if (cachedSegment == null) {
+                return null;
+            }
+
+            if (!cachedSegment.isSameFile(lastModified, fileSize)) {
+                // 파일이 바뀌었으면 cache 에서 제거 (참조 중인 session 은 이전 buffer 를 끝까지 사용)
+                removeSegment(path, cachedSegment);
+                return null;
+            }
+
+            // 참조 개수는 cacheLock 안에서 증가시켜서 evict 와 겹치지 않게 한다.
+            cachedSegment.retain();
+            hitCount.increment();
+            return cachedSegment;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    /**
+     * @fn private boolean evict(long requiredSize)
+     * @brief 요청한 크기가 들어갈 때까지 참조 중이지 않은 segment 를 LRU 순서로 제거하는 함수 (cacheLock 안에서 호출)
+     * @return 자리가 확보되면 true, 참조 중인 segment 때문에 확보하지 못하면 false 반환
+     */
+    private boolean evict(long requiredSize) {
+        Iterator<Map.Entry<String, CachedSegment>> iterator = segmentMap.entrySet().iterator();
+        while (usedSize + requiredSize > maxSize && iterator.hasNext()) {
+            CachedSegment cachedSegment = iterator.next().getValue();
+            if (cachedSegment.isInUse()) {
+                continue;
+            }
+
+            iterator.remove();
+            usedSize -= cachedSegment.getSize();
+            evictCount.increment();
+        }
+
+        return usedSize + requiredSize <= maxSize;
+    }
+
+    private void removeSegment(String path, CachedSegment cachedSegment) {
+        if (segmentMap.remove(path, cachedSegment)) {
+            usedSize -= cachedSegment.getSize();
+            evictCount.increment();
+        }
+    }
+
+    /**
+     * @fn public static CachedSegment read(String tsFilePath)
+     * @brief cache 를 사용하지 않고 TS 파일 전체를 heap 으로 읽는 함수 (SegmentCache 비활성화 시 사용)
+     * @param tsFilePath TS 파일 경로
+     * @return 성공 시 CachedSegment (다른 session 과 공유하지 않음), 실패 시 null 반환
+     */
+    public static CachedSegment read(String tsFilePath) {
+        if (tsFilePath == null) { return null; }
+
+        File file = new File(tsFilePath);
+        long lastModified = file.lastModified();
+        long fileSize = file.length();
+        if (lastModified == 0 || !file.isFile() || fileSize <= 0 || fileSize > Integer.MAX_VALUE) {
+            logger.warn("Fail to read the segment. (path={}, fileSize={})", tsFilePath, fileSize);
+            return null;
+        }
+
+        ByteBuffer buffer = load(tsFilePath, (int) fileSize, false);
+        if (buffer == null) {
+            return null;
+        }
+
+        CachedSegment cachedSegment = new CachedSegment(tsFilePath, lastModified, buffer);
+        cachedSegment.retain();
+        return cachedSegment;
+    }
+
+    private static ByteBuffer load(String path, int fileSize, boolean isDirect) {
+        try (FileChannel fileChannel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer buffer = isDirect ? ByteBuffer.allocateDirect(fileSize) : ByteBuffer.allocate(fileSize);
+            while (buffer.hasRemaining()) {
+                if (fileChannel.read(buffer) < 0) {
+                    break;
+                }
+            }
+
+            if (buffer.hasRemaining()) {
+                logger.warn("Fail to load the segment. File is truncated. (path={}, fileSize={}, read={})", path, fileSize, buffer.position());
+                return null;
+            }
+
+            buffer.flip();
+            return buffer;
+        } catch (Exception e) {
+            logger.warn("Fail to load the segment. (path={})", path, e);
+            return null;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void invalidate(String tsFilePath)
+     * @brief 지정한 segment 를 cache 에서 제거하는 함수 (TS 파일을 삭제할 때 호출)
+     * @param tsFilePath TS 파일 경로
+     */
+    public void invalidate(String tsFilePath) {
+        if (tsFilePath == null) { return; }
+
+        try {
+            invalidateCanonicalPath(new File(tsFilePath).getCanonicalPath());
+        } catch (IOException e) {
+            logger.warn("Fail to get the canonical path. (tsFilePath={})", tsFilePath, e);
+        }
+    }
+
+    private void invalidateCanonicalPath(String path) {
+        cacheLock.lock();
+        try {
+            CachedSegment cachedSegment = segmentMap.get(path);
+            if (cachedSegment != null) {
+                removeSegment(path, cachedSegment);
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    public void clear() {
+        cacheLock.lock();
+        try {
+            segmentMap.clear();
+            usedSize = 0;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getUsedSize() {
+        cacheLock.lock();
+        try {
+            return usedSize;
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    public int getSegmentCount() {
+        cacheLock.lock();
+        try {
+            return segmentMap.size();
+        } finally {
+            cacheLock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictCount() {
+        return evictCount.sum();
+    }
+
+    public long getBypassCount() {
+        return bypassCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentCache{" +
+                "segments=" + getSegmentCount() +
+                ", usedSize=" + getUsedSize() +
+                ", maxSize=" + maxSize +
+                ", hit=" + hitCount.sum() +
+                ", miss=" + missCount.sum() +
+                ", evict=" + evictCount.sum() +
+                ", bypass=" + bypassCount.sum() +
+                '}';
+    }
+
+}
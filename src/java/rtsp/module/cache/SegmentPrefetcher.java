@@ -0,0 +1,134 @@
+package rtsp.module.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @class public class SegmentPrefetcher
+ * @brief session 한 개가 보낼 TS 파일을 순서대로 미리 읽어두는 클래스
+ * 현재 segment 를 보내는 동안 다음 segment 를 I/O 스레드에서 메모리로 읽어두고, 전부 읽힌 segment 를 넘겨준다.
+ * 파일은 읽는 동안에만 열기 때문에 session 당 file descriptor 는 미리 읽는 개수만큼만 사용한다.
+ */
+public class SegmentPrefetcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentPrefetcher.class);
+
+    private final List<String> tsFilePathList;
+    private final int prefetchCount;
+    private final Executor ioExecutor;
+    private final SegmentCache segmentCache; // null 이면 cache 를 사용하지 않음
+
+    private final ArrayDeque<CompletableFuture<CachedSegment>> pendingQueue = new ArrayDeque<>();
+    private int nextIndex = 0;
+    private boolean isClosed = false;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public SegmentPrefetcher(List<String> tsFilePathList, int prefetchCount, Executor ioExecutor, SegmentCache segmentCache)
+     * @brief SegmentPrefetcher 생성자 함수
+     * @param tsFilePathList 보낼 순서대로 정렬된 TS 파일 경로 목록
+     * @param prefetchCount 현재 segment 외에 미리 읽어둘 segment 개수 (0 이면 next() 호출 시 읽음)
+     * @param ioExecutor 파일을 읽을 I/O 스레드 (null 이면 호출한 스레드에서 읽음)
+     * @param segmentCache segment 를 공유할 cache (null 이면 session 에서만 사용)
+     */
+    public SegmentPrefetcher(List<String> tsFilePathList, int prefetchCount, Executor ioExecutor, SegmentCache segmentCache) {
+        this.tsFilePathList = tsFilePathList;
+        this.prefetchCount = prefetchCount;
+        this.ioExecutor = ioExecutor;
+        this.segmentCache = segmentCache;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public boolean hasNext() {
+        return !isClosed && (!pendingQueue.isEmpty() || nextIndex < tsFilePathList.size());
+    }
+
+    public String getNextPath() {
+        int index = nextIndex - pendingQueue.size();
+        return index < tsFilePathList.size() ? tsFilePathList.get(index) : null;
+    }
+
+    /**
+     * @fn public CachedSegment next()
+     * @brief 다음 segment 를 반환하는 함수 (다 읽힐 때까지 대기)
+     * 반환하기 전에 그 다음 segment 들을 미리 읽기 시작한다. 반환된 segment 는 다 쓰면 close() 해야 한다.
+     * @return 성공 시 CachedSegment, 읽기 실패 시 null 반환
+     */
+    public CachedSegment next() {
+        if (!hasNext()) {
+            return null;
+        }
+
+        if (pendingQueue.isEmpty()) {
+            submit();
+        }
+        CompletableFuture<CachedSegment> future = pendingQueue.poll();
+
+        // 현재 segment 를 보내는 동안 읽을 다음 segment 들
+        while (pendingQueue.size() < prefetchCount && nextIndex < tsFilePathList.size()) {
+            submit();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 읽기가 끝나면 바로 반납
+            future.thenAccept(SegmentPrefetcher::release);
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("Fail to prefetch the segment.", e.getCause());
+            return null;
+        }
+    }
+
+    private void submit() {
+        String tsFilePath = tsFilePathList.get(nextIndex++);
+        if (ioExecutor == null) {
+            pendingQueue.add(CompletableFuture.completedFuture(load(tsFilePath)));
+            return;
+        }
+
+        try {
+            pendingQueue.add(CompletableFuture.supplyAsync(() -> load(tsFilePath), ioExecutor));
+        } catch (RejectedExecutionException e) {
+            // I/O 스레드가 종료되었으면 직접 읽는다.
+            pendingQueue.add(CompletableFuture.completedFuture(load(tsFilePath)));
+        }
+    }
+
+    private CachedSegment load(String tsFilePath) {
+        return segmentCache != null ? segmentCache.acquire(tsFilePath) : SegmentCache.read(tsFilePath);
+    }
+
+    private static void release(CachedSegment cachedSegment) {
+        if (cachedSegment != null) {
+            cachedSegment.close();
+        }
+    }
+
+    /**
+     * @fn public void close()
+     * @brief 미리 읽은 segment 를 모두 반납하는 함수
+     * 아직 읽는 중인 segment 는 읽기가 끝나면 반납된다.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+
+        CompletableFuture<CachedSegment> future;
+        while ((future = pendingQueue.poll()) != null) {
+            future.thenAccept(SegmentPrefetcher::release);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package rtsp.module.egress;
+
+/**
+ * @enum public enum EgressBackpressurePolicy
+ * @brief session 의 channel 이 unwritable (보내지 못한 크기가 high water mark 초과) 일 때 RTP 패킷을 처리하는 방식
+ */
+public enum EgressBackpressurePolicy {
+
+    // writable 이 될 때까지 패킷을 버린다. (버린 패킷도 sequence number 는 사용하므로 client 는 손실로 인식)
+    DROP,
+
+    // unwritable 이 되면 다음 key frame (PCR + random access indicator) 까지 패킷을 버린다. (깨진 GOP 를 보내지 않음)
+    SKIP_TO_KEYFRAME,
+
+    // writable 이 될 때까지 전송 스레드가 기다린다. (PCR pacing 이 늦어지고, 최대 대기 시간을 넘으면 버림)
+    SLOW;
+
+    public static EgressBackpressurePolicy fromName(String name) {
+        if (name == null) {
+            return SKIP_TO_KEYFRAME;
+        }
+
+        for (EgressBackpressurePolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+        return SKIP_TO_KEYFRAME;
+    }
+
+}
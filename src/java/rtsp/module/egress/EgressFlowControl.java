@@ -0,0 +1,185 @@
+package rtsp.module.egress;
+
+import rtsp.service.metrics.RtspMetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class EgressFlowControl
+ * @brief session 한 개의 RTP 전송을 channel writability 에 맞춰 조절하는 클래스
+ * channel 의 보내지 못한 크기(outbound buffer + event loop 에 넣은 write task + EgressWriter 가 모아둔 패킷)가
+ * high water mark 를 넘으면 unwritable 이 되고,
+ * 그 동안 보내는 패킷은 EgressBackpressurePolicy 에 따라 버리거나 기다린다. (heap, direct memory 에 무한히 쌓이지 않음)
+ * acquire() 는 전송 스레드 한 개에서만 호출하고, signalWritable() 은 channel 의 event loop 에서 호출한다.
+ */
+public class EgressFlowControl {
+
+    private final EgressBackpressurePolicy policy;
+    private final long slowMaxWaitNanos;
+
+    private final ReentrantLock writableLock = new ReentrantLock();
+    private final Condition writableCondition = writableLock.newCondition();
+
+    // 전송 스레드에서만 접근
+    private boolean isSkipping = false; // SKIP_TO_KEYFRAME 에서 key frame 을 기다리는 중
+    private boolean wasWritable = true;
+
+    private final AtomicLong droppedPacketCount = new AtomicLong(0);
+    private final AtomicLong droppedByteCount = new AtomicLong(0);
+    private final AtomicLong unwritableCount = new AtomicLong(0);
+    private final AtomicLong slowWaitNanos = new AtomicLong(0);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public EgressFlowControl(EgressBackpressurePolicy policy, long slowMaxWaitMs)
+     * @brief EgressFlowControl 생성자 함수
+     * @param policy unwritable 일 때 처리 방식
+     * @param slowMaxWaitMs SLOW 정책에서 패킷 한 개당 기다리는 최대 시간
+     */
+    public EgressFlowControl(EgressBackpressurePolicy policy, long slowMaxWaitMs) {
+        this.policy = policy;
+        this.slowMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(slowMaxWaitMs);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean acquire(EgressWriter writer, boolean isKeyFrame, int size)
+     * @brief 패킷 한 개를 지금 channel 에 써도 되는지 판단하는 함수 (쓰지 않으면 버린 것으로 기록)
+     * @param writer 전송할 channel 의 EgressWriter
+     * @param isKeyFrame key frame 이 시작되는 패킷인지 여부 (SKIP_TO_KEYFRAME 에서 전송을 다시 시작하는 위치)
+     * @param size 패킷 크기
+     * @return 써도 되면 true, 버려야 하면 false
+     */
+    public boolean acquire(EgressWriter writer, boolean isKeyFrame, int size) {
+        boolean isWritable = writer.isWritable();
+        if (isWritable && !isSkipping) {
+            wasWritable = true;
+            return true;
+        }
+
+        if (!isWritable && wasWritable) {
+            unwritableCount.incrementAndGet();
+            RtspMetrics.EGRESS_UNWRITABLE.inc();
+        }
+        wasWritable = isWritable;
+
+        switch (policy) {
+            case SKIP_TO_KEYFRAME:
+                if (!isWritable) {
+                    isSkipping = true;
+                } else if (isKeyFrame) {
+                    isSkipping = false;
+                    return true;
+                }
+                break;
+            case SLOW:
+                if (awaitWritable(writer)) {
+                    wasWritable = true;
+                    return true;
+                }
+                break;
+            case DROP:
+            default:
+                break;
+        }
+
+        drop(size);
+        return false;
+    }
+
+    /**
+     * @fn public void signalWritable()
+     * @brief SLOW 정책으로 기다리는 전송 스레드를 깨우는 함수 (event loop 에서 호출)
+     * channel 이 다시 writable 이 되거나 EgressWriter 가 모아둔 패킷을 channel 에 쓴 후 호출하고,
+     * 깨어난 전송 스레드가 writability 를 다시 확인한다.
+     */
+    public void signalWritable() {
+        if (policy != EgressBackpressurePolicy.SLOW) {
+            return;
+        }
+
+        writableLock.lock();
+        try {
+            writableCondition.signalAll();
+        } finally {
+            writableLock.unlock();
+        }
+    }
+
+    private boolean awaitWritable(EgressWriter writer) {
+        // isWritable 은 전송 스레드가 모아두고 아직 넘기지 않은 패킷도 포함하므로,
+        // 먼저 event loop 로 넘겨야 channel 에 쓰인 후 signalWritable 로 깨어날 수 있다. (넘기지 않으면 최대 대기 시간까지 기다림)
+        writer.flush();
+        if (writer.isWritable()) {
+            return true;
+        }
+
+        long startTime = System.nanoTime();
+        long remainingNanos = slowMaxWaitNanos;
+        writableLock.lock();
+        try {
+            // channel 이 닫혀서 writability 가 바뀌지 않는 경우에도 최대 대기 시간을 넘지 않는다.
+            while (!writer.isWritable() && writer.isActive() && remainingNanos > 0) {
+                remainingNanos = writableCondition.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            writableLock.unlock();
+
+            long waitNanos = System.nanoTime() - startTime;
+            slowWaitNanos.addAndGet(waitNanos);
+            RtspMetrics.EGRESS_SLOW_WAIT.record(waitNanos / 1000);
+        }
+        return writer.isWritable();
+    }
+
+    private void drop(int size) {
+        droppedPacketCount.incrementAndGet();
+        droppedByteCount.addAndGet(size);
+        RtspMetrics.RTP_DROPPED_PACKETS.inc();
+        RtspMetrics.RTP_DROPPED_BYTES.add(size);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public EgressBackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    public long getDroppedPacketCount() {
+        return droppedPacketCount.get();
+    }
+
+    public long getDroppedByteCount() {
+        return droppedByteCount.get();
+    }
+
+    /**
+     * @return writable > unwritable 로 바뀐 횟수 (전송 스레드가 확인한 기준)
+     */
+    public long getUnwritableCount() {
+        return unwritableCount.get();
+    }
+
+    public long getSlowWaitNanos() {
+        return slowWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        return "EgressFlowControl{" +
+                "policy=" + policy +
+                ", droppedPackets=" + droppedPacketCount.get() +
+                ", droppedBytes=" + droppedByteCount.get() +
+                ", unwritable=" + unwritableCount.get() +
+                ", slowWaitMs=" + slowWaitNanos.get() / 1000000 +
+                '}';
+    }
+
+}
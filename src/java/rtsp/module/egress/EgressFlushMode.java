@@ -0,0 +1,29 @@
+package rtsp.module.egress;
+
+/**
+ * @enum public enum EgressFlushMode
+ * @brief RTP 패킷을 channel 에 쓰고 flush 하는 단위
+ */
+public enum EgressFlushMode {
+
+    // 패킷마다 writeAndFlush 한다. (패킷마다 event loop task 와 flush 가 한 번씩 발생)
+    PACKET,
+
+    // PCR pacing 간격 한 번에 보낼 패킷을 모아서 write 하고 flush 는 한 번만 한다.
+    // 같은 event loop 를 쓰는 session 들의 묶음은 event loop task 한 번에 처리한다.
+    TICK;
+
+    public static EgressFlushMode fromName(String name) {
+        if (name == null) {
+            return TICK;
+        }
+
+        for (EgressFlushMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        return TICK;
+    }
+
+}
@@ -0,0 +1,125 @@
+package rtsp.module.egress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
+import rtsp.service.metrics.RtspMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @class class EgressLoopBatcher implements Runnable
+ * @brief event loop 한 개에 EgressWriter 들이 넘긴 패킷 묶음을 모아서 task 한 번에 쓰는 클래스 (EgressFlushMode.TICK)
+ * 전송 스레드들은 pacing 간격마다 묶음을 queue 에 넣고, 실행 예약이 없을 때만 event loop 에 task 를 넣는다.
+ * task 는 queue 의 묶음을 모두 channel 에 write 한 후 channel 마다 flush 를 한 번씩 한다.
+ */
+class EgressLoopBatcher implements Runnable {
+
+    // task 한 번에 처리하는 최대 묶음 개수 (다른 I/O 가 밀리지 않도록 나머지는 다음 task 에서 처리)
+    private static final int MAX_BATCHES_PER_RUN = 1024;
+
+    private static final Map<EventLoop, EgressLoopBatcher> batcherMap = new ConcurrentHashMap<>();
+
+    private final EventLoop eventLoop;
+    private final Queue<Batch> batchQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+
+    // event loop 에서만 접근
+    private final List<EgressWriter> flushWriterList = new ArrayList<>();
+
+    private static final class Batch {
+        private final EgressWriter writer;
+        private final List<ByteBuf> packets;
+        private final long bytes;
+
+        private Batch(EgressWriter writer, List<ByteBuf> packets, long bytes) {
+            this.writer = writer;
+            this.packets = packets;
+            this.bytes = bytes;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private EgressLoopBatcher(EventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * @fn static EgressLoopBatcher of(EventLoop eventLoop)
+     * @brief event loop 의 EgressLoopBatcher 를 반환하는 함수 (없으면 생성, 종료된 event loop 의 batcher 는 이때 정리)
+     */
+    static EgressLoopBatcher of(EventLoop eventLoop) {
+        EgressLoopBatcher loopBatcher = batcherMap.get(eventLoop);
+        if (loopBatcher != null) {
+            return loopBatcher;
+        }
+
+        batcherMap.keySet().removeIf(EventLoop::isShuttingDown);
+        return batcherMap.computeIfAbsent(eventLoop, EgressLoopBatcher::new);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn void submit(EgressWriter writer, List<ByteBuf> packets, long bytes)
+     * @brief pacing 간격 한 번의 패킷 묶음을 넘기는 함수 (전송 스레드에서 호출)
+     */
+    void submit(EgressWriter writer, List<ByteBuf> packets, long bytes) {
+        batchQueue.offer(new Batch(writer, packets, bytes));
+        schedule();
+    }
+
+    private void schedule() {
+        if (!isScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            eventLoop.execute(this);
+        } catch (RejectedExecutionException e) {
+            // event loop 가 종료되면 남은 묶음을 버린다.
+            isScheduled.set(false);
+            Batch batch;
+            while ((batch = batchQueue.poll()) != null) {
+                batch.writer.releaseBatch(batch.packets);
+                batch.writer.removePendingBytes(batch.bytes);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        // queue 를 비우기 전에 예약을 해제해서, 이후에 들어오는 묶음은 다음 task 에서 처리되도록 한다.
+        isScheduled.set(false);
+
+        int batchCount = 0;
+        Batch batch;
+        while (batchCount < MAX_BATCHES_PER_RUN && (batch = batchQueue.poll()) != null) {
+            batch.writer.writeBatch(batch.packets, batch.bytes);
+            if (!batch.writer.isFlushScheduled) {
+                batch.writer.isFlushScheduled = true;
+                flushWriterList.add(batch.writer);
+            }
+            batchCount++;
+        }
+
+        for (EgressWriter writer : flushWriterList) {
+            writer.isFlushScheduled = false;
+            writer.flushChannel();
+        }
+        flushWriterList.clear();
+        RtspMetrics.EGRESS_BATCH_RUNS.inc();
+
+        if (!batchQueue.isEmpty()) {
+            schedule();
+        }
+    }
+
+}
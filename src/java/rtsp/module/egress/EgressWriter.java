@@ -0,0 +1,224 @@
+package rtsp.module.egress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import rtsp.service.metrics.RtspMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class EgressWriter
+ * @brief session 한 개의 연결된 UDP channel 로 RTP 패킷을 쓰는 클래스 (channel 을 열 때마다 새로 생성)
+ * PACKET 모드는 패킷마다 writeAndFlush 하고,
+ * TICK 모드는 PCR pacing 간격 한 번에 보낼 패킷을 모아두었다가 flush() 에서 EgressLoopBatcher 로 넘긴다.
+ * (event loop 에서 모아둔 패킷을 순서대로 write 하고 flush 는 한 번만 한다.)
+ * write(), flush() 는 전송 스레드 한 개에서만 호출한다.
+ * close() 는 PAUSE, TEARDOWN 을 처리하는 다른 스레드에서도 호출하므로 모아둔 패킷은 batchLock 으로 보호한다.
+ */
+public class EgressWriter {
+
+    private final Channel channel;
+    private final EgressFlushMode flushMode;
+    private final int maxBatchPackets;
+    private final EgressFlowControl flowControl; // null 이면 writability 를 확인하지 않음
+    private final EgressLoopBatcher loopBatcher; // TICK 모드에서만 사용
+
+    // EgressLoopBatcher 로 넘겼지만 아직 channel 에 쓰지 않은 크기 (channel 의 outbound buffer 에 포함되지 않으므로 따로 계산)
+    private final AtomicLong pendingBytes = new AtomicLong(0);
+
+    // 전송 스레드에서 쓰고, close() 에서 release (batchLock 으로 보호)
+    private final ReentrantLock batchLock = new ReentrantLock();
+    private List<ByteBuf> batch;
+    private long batchBytes = 0;
+    private boolean isClosed = false;
+
+    // event loop 에서만 접근
+    boolean isFlushScheduled = false;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public EgressWriter(Channel channel, EgressFlushMode flushMode, int maxBatchPackets, EgressFlowControl flowControl)
+     * @brief EgressWriter 생성자 함수
+     * @param channel 목적지와 연결된 channel (DatagramPacket 없이 ByteBuf 를 바로 쓴다.)
+     * @param flushMode flush 단위
+     * @param maxBatchPackets TICK 모드에서 flush 하지 않고 모아두는 최대 패킷 개수 (pacing 이 늦어져서 대기 없이 계속 보내는 경우의 상한)
+     * @param flowControl channel 이 unwritable 일 때 처리 방식
+     */
+    public EgressWriter(Channel channel, EgressFlushMode flushMode, int maxBatchPackets, EgressFlowControl flowControl) {
+        this.channel = channel;
+        this.flushMode = flushMode;
+        this.maxBatchPackets = maxBatchPackets;
+        this.flowControl = flowControl;
+        this.loopBatcher = flushMode == EgressFlushMode.TICK ? EgressLoopBatcher.of(channel.eventLoop()) : null;
+        this.batch = new ArrayList<>(maxBatchPackets);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean write(ByteBuf buf, boolean isKeyFrame)
+     * @brief 패킷 한 개를 channel 에 쓰는 함수 (TICK 모드는 flush() 할 때까지 모아둔다.)
+     * 쓰지 않은 buf 는 여기서 release 한다.
+     * @param buf RTP 패킷
+     * @param isKeyFrame key frame 이 시작되는 패킷인지 여부 (SKIP_TO_KEYFRAME 정책에서 사용)
+     * @return 쓰면 true, 버리면 false
+     */
+    public boolean write(ByteBuf buf, boolean isKeyFrame) {
+        int size = buf.readableBytes();
+        if (flowControl != null && !flowControl.acquire(this, isKeyFrame, size)) {
+            buf.release();
+            return false;
+        }
+
+        if (flushMode == EgressFlushMode.PACKET) {
+            channel.writeAndFlush(buf);
+            RtspMetrics.EGRESS_FLUSHES.inc();
+            return true;
+        }
+
+        batchLock.lock();
+        try {
+            if (isClosed) {
+                buf.release();
+                return false;
+            }
+
+            batch.add(buf);
+            batchBytes += size;
+            if (batch.size() >= maxBatchPackets) {
+                flushLocked();
+            }
+        } finally {
+            batchLock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @fn public void flush()
+     * @brief 모아둔 패킷을 event loop 로 넘기는 함수 (PCR pacing 대기 전, 전송이 끝날 때 호출, PACKET 모드는 무시)
+     */
+    public void flush() {
+        batchLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    // batchLock 안에서 호출
+    private void flushLocked() {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<ByteBuf> packets = batch;
+        long bytes = batchBytes;
+        batch = new ArrayList<>(maxBatchPackets);
+        batchBytes = 0;
+
+        pendingBytes.addAndGet(bytes);
+        loopBatcher.submit(this, packets, bytes);
+    }
+
+    /**
+     * @fn public void close()
+     * @brief 아직 event loop 로 넘기지 않은 패킷을 release 하고, 이후에 쓰는 패킷은 버리도록 하는 함수 (channel 을 닫기 전에 호출)
+     * event loop 로 이미 넘긴 패킷은 channel 이 닫혔으면 writeBatch 에서 release 된다.
+     */
+    public void close() {
+        batchLock.lock();
+        try {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+
+            releaseBatch(batch);
+            batch.clear();
+            batchBytes = 0;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    /**
+     * @fn public boolean isWritable()
+     * @brief channel 과 아직 쓰지 않은 패킷 크기를 모두 확인해서 더 써도 되는지 반환하는 함수
+     * channel 에 쓴 크기와 아직 쓰지 않은 크기의 합이 high water mark 를 넘지 않도록 한다. (unwritable 이면 bytesBeforeUnwritable 은 0)
+     * 모아둔 패킷(batchBytes)은 flush() 전까지 줄어들지 않으므로, 기다리기 전에는 flush() 를 먼저 호출해야 한다. (EgressFlowControl SLOW 정책)
+     */
+    public boolean isWritable() {
+        return pendingBytes.get() + batchBytes < channel.bytesBeforeUnwritable();
+    }
+
+    public boolean isActive() {
+        return channel.isActive();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn void writeBatch(List<ByteBuf> packets, long bytes)
+     * @brief 모아둔 패킷을 순서대로 channel 에 쓰는 함수 (event loop 에서 호출, flush 는 EgressLoopBatcher 에서 한 번만 한다.)
+     */
+    void writeBatch(List<ByteBuf> packets, long bytes) {
+        if (channel.isActive()) {
+            // 이전 writeAndFlush 와 같이 write 결과는 확인하지 않는다. (pipeline 의 handler 가 promise 를 사용할 수 있으므로 void promise 는 쓰지 않음)
+            for (ByteBuf packet : packets) {
+                channel.write(packet);
+            }
+        } else {
+            releaseBatch(packets);
+        }
+
+        pendingBytes.addAndGet(-bytes);
+        if (flowControl != null) {
+            flowControl.signalWritable();
+        }
+    }
+
+    /**
+     * @fn void releaseBatch(List<ByteBuf> packets)
+     * @brief 쓰지 못한 패킷을 release 하는 함수 (channel 이 닫혔거나 event loop 가 종료된 경우)
+     */
+    void releaseBatch(List<ByteBuf> packets) {
+        for (ByteBuf packet : packets) {
+            packet.release();
+        }
+    }
+
+    void flushChannel() {
+        if (channel.isActive()) {
+            channel.flush();
+            RtspMetrics.EGRESS_FLUSHES.inc();
+        }
+    }
+
+    void removePendingBytes(long bytes) {
+        pendingBytes.addAndGet(-bytes);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public EgressFlushMode getFlushMode() {
+        return flushMode;
+    }
+
+    /**
+     * @return event loop 로 넘겼지만 아직 channel 에 쓰지 않은 크기 + 모아두고 넘기지 않은 크기 (bytes)
+     */
+    public long getPendingBytes() {
+        return pendingBytes.get() + batchBytes;
+    }
+
+}
@@ -1,6 +1,7 @@
 package rtsp.module.netty;
 
 import io.netty.channel.Channel;
+import io.netty.channel.nio.NioEventLoopGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
@@ -9,10 +10,9 @@ import rtsp.module.netty.module.RtcpNettyChannel;
 import rtsp.module.netty.module.RtspNettyChannel;
 import rtsp.module.netty.module.RtspRegisterNettyChannel;
 import rtsp.service.AppInstance;
+import rtsp.service.HealthSampler;
+import rtsp.service.base.SessionRegistry;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -28,11 +28,11 @@ public class NettyChannelManager {
 
     private RtspRegisterNettyChannel rtspRegisterNettyChannel = null;
 
-    private final HashMap<String, RtspNettyChannel> rtspChannelMap = new HashMap<>();
-    private final ReentrantLock rtspChannelMapLock = new ReentrantLock();
+    private final SessionRegistry<String, RtspNettyChannel> rtspChannelMap = new SessionRegistry<>();
+    private final SessionRegistry<String, RtcpNettyChannel> rtcpChannelMap = new SessionRegistry<>();
 
-    private final HashMap<String, RtcpNettyChannel> rtcpChannelMap = new HashMap<>();
-    private final ReentrantLock rtcpChannelMapLock = new ReentrantLock();
+    private final ReentrantLock streamerGroupLock = new ReentrantLock();
+    private NioEventLoopGroup streamerGroup = null;
 
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -60,6 +60,36 @@ public class NettyChannelManager {
     public void stop() {
         deleteAllRtspChannels();
         deleteAllRtcpChannels();
+
+        streamerGroupLock.lock();
+        try {
+            if (streamerGroup != null) {
+                streamerGroup.shutdownGracefully();
+                streamerGroup = null;
+            }
+        } finally {
+            streamerGroupLock.unlock();
+        }
+    }
+
+    /**
+     * @fn public NioEventLoopGroup getStreamerGroup()
+     * @brief 모든 Streamer 가 공유하는 RTP 전송용 event loop group 을 반환하는 함수 (처음 호출할 때 생성)
+     * session 마다 group 을 만들지 않고 공유해야 같은 event loop 를 쓰는 session 들의 패킷을 task 한 번에 쓸 수 있다. (EgressFlushMode.TICK)
+     * @return Streamer event loop group
+     */
+    public NioEventLoopGroup getStreamerGroup() {
+        streamerGroupLock.lock();
+        try {
+            if (streamerGroup == null) {
+                ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+                streamerGroup = new NioEventLoopGroup(configManager.getStreamThreadPoolSize());
+                HealthSampler.getInstance().addEventLoopGroup("streamer", streamerGroup);
+            }
+            return streamerGroup;
+        } finally {
+            streamerGroupLock.unlock();
+        }
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -99,196 +129,152 @@ public class NettyChannelManager {
 
     public RtspNettyChannel openRtspChannel(String rtspUnitId, String ip, int port) {
         try {
-            rtspChannelMapLock.lock();
-
-            if (rtspChannelMap.get(rtspUnitId) != null) {
-                logger.trace("| ({}) Fail to add the channel. Key is duplicated.", rtspUnitId);
-                return null;
-            }
-
-            /*int port = ResourceManager.getInstance().takePort();
-            if (port == -1) {
-                logger.warn("| Fail to add the channel. Port is full. (key={})", key);
-                return false;
-            }*/
-
-            RtspNettyChannel rtspNettyChannel = new RtspNettyChannel(rtspUnitId, ip, port);
-            rtspNettyChannel.run(ip, port);
+            RtspNettyChannel rtspNettyChannel = rtspChannelMap.createIfAbsent(rtspUnitId, id -> {
+                /*int port = ResourceManager.getInstance().takePort();
+                if (port == -1) {
+                    logger.warn("| Fail to add the channel. Port is full. (key={})", key);
+                    return false;
+                }*/
+
+                RtspNettyChannel newRtspNettyChannel = new RtspNettyChannel(id, ip, port);
+                newRtspNettyChannel.run(ip, port);
+
+                // 메시지 수신용 채널 open
+                Channel channel = newRtspNettyChannel.openChannel(
+                        ip,
+                        port
+                );
+
+                if (channel == null) {
+                    newRtspNettyChannel.closeChannel();
+                    newRtspNettyChannel.stop();
+                    logger.warn("| ({}) Fail to add the channel.", id);
+                    return null;
+                }
 
-            // 메시지 수신용 채널 open
-            Channel channel = rtspNettyChannel.openChannel(
-                    ip,
-                    port
-            );
+                return newRtspNettyChannel;
+            }, loser -> {
+                // 동시에 생성되어 등록하지 못한 channel 은 닫는다.
+                loser.closeChannel();
+                loser.stop();
+            });
 
-            if (channel == null) {
-                rtspNettyChannel.closeChannel();
-                rtspNettyChannel.stop();
-                logger.warn("| ({}) Fail to add the channel.", rtspUnitId);
+            if (rtspNettyChannel == null) {
+                logger.trace("| ({}) Fail to add the channel. Key is duplicated or the channel is not opened.", rtspUnitId);
                 return null;
             }
 
-            rtspChannelMap.putIfAbsent(rtspUnitId, rtspNettyChannel);
             logger.debug("| ({}) Success to add channel.", rtspUnitId);
             return rtspNettyChannel;
         } catch (Exception e) {
             logger.warn("| ({}) Fail to add channel (ip={}, port={}).", rtspUnitId, ip, port, e);
             return null;
-        } finally {
-            rtspChannelMapLock.unlock();
         }
     }
 
     public void deleteRtspChannel(String rtspUnitId) {
         try {
-            rtspChannelMapLock.lock();
-
-            if (!rtspChannelMap.isEmpty()) {
-                RtspNettyChannel rtspNettyChannel = rtspChannelMap.get(rtspUnitId);
-                if (rtspNettyChannel == null) {
-                    return;
-                }
-
-                rtspNettyChannel.closeChannel();
-                rtspNettyChannel.stop();
-                rtspChannelMap.remove(rtspUnitId);
-
-                logger.debug("| ({}) Success to close the channel.", rtspUnitId);
+            RtspNettyChannel rtspNettyChannel = rtspChannelMap.remove(rtspUnitId);
+            if (rtspNettyChannel == null) {
+                return;
             }
+
+            rtspNettyChannel.closeChannel();
+            rtspNettyChannel.stop();
+            logger.debug("| ({}) Success to close the channel.", rtspUnitId);
         } catch (Exception e) {
             logger.warn("| ({}) Fail to close the channel.", rtspUnitId, e);
-        } finally {
-            rtspChannelMapLock.unlock();
         }
     }
 
     public void deleteAllRtspChannels () {
         try {
-            rtspChannelMapLock.lock();
-
-            if (!rtspChannelMap.isEmpty()) {
-                for (Map.Entry<String, RtspNettyChannel> entry : rtspChannelMap.entrySet()) {
-                    RtspNettyChannel rtspNettyChannel = entry.getValue();
-                    if (rtspNettyChannel == null) {
-                        continue;
-                    }
-
-                    rtspNettyChannel.closeChannel();
-                    rtspNettyChannel.stop();
-                    rtspChannelMap.remove(entry.getKey());
-                }
+            rtspChannelMap.removeAll((rtspUnitId, rtspNettyChannel) -> {
+                rtspNettyChannel.closeChannel();
+                rtspNettyChannel.stop();
+            });
 
-                logger.debug("| Success to close all channel(s).");
-            }
+            logger.debug("| Success to close all channel(s).");
         } catch (Exception e) {
             logger.warn("| Fail to close all channel(s).", e);
-        } finally {
-            rtspChannelMapLock.unlock();
         }
     }
 
     public RtspNettyChannel getRtspChannel(String rtspUnitId) {
-        try {
-            rtspChannelMapLock.lock();
-
-            return rtspChannelMap.get(rtspUnitId);
-        } catch (Exception e) {
-            return null;
-        } finally {
-            rtspChannelMapLock.unlock();
-        }
+        return rtspChannelMap.get(rtspUnitId);
     }
 
     ////////////////////////////////////////////////////////////////////////////////
 
     public RtcpNettyChannel openRtcpChannel(String rtspUnitId, String ip, int port) {
         try {
-            rtcpChannelMapLock.lock();
-
-            if (rtcpChannelMap.get(rtspUnitId) != null) {
-                logger.trace("| ({}) Fail to add the rtcp channel. Key is duplicated.", rtspUnitId);
-                return null;
-            }
-
-            /*int port = ResourceManager.getInstance().takePort();
-            if (port == -1) {
-                logger.warn("| Fail to add the channel. Port is full. (key={})", key);
-                return false;
-            }*/
-
-            RtcpNettyChannel rtcpNettyChannel = new RtcpNettyChannel(rtspUnitId, ip, port);
-            rtcpNettyChannel.run(ip, port);
+            RtcpNettyChannel rtcpNettyChannel = rtcpChannelMap.createIfAbsent(rtspUnitId, id -> {
+                RtcpNettyChannel newRtcpNettyChannel = new RtcpNettyChannel(id, ip, port);
+                newRtcpNettyChannel.run(ip, port);
+
+                // 메시지 수신용 채널 open
+                Channel channel = newRtcpNettyChannel.openChannel(
+                        ip,
+                        port
+                );
+
+                if (channel == null) {
+                    newRtcpNettyChannel.closeChannel();
+                    newRtcpNettyChannel.stop();
+                    logger.warn("| ({}) Fail to add the rtcp channel.", id);
+                    return null;
+                }
 
-            // 메시지 수신용 채널 open
-            Channel channel = rtcpNettyChannel.openChannel(
-                    ip,
-                    port
-            );
+                return newRtcpNettyChannel;
+            }, loser -> {
+                // 동시에 생성되어 등록하지 못한 channel 은 닫는다.
+                loser.closeChannel();
+                loser.stop();
+            });
 
-            if (channel == null) {
-                rtcpNettyChannel.closeChannel();
-                rtcpNettyChannel.stop();
-                logger.warn("| ({}) Fail to add the rtcp channel.", rtspUnitId);
+            if (rtcpNettyChannel == null) {
+                logger.trace("| ({}) Fail to add the rtcp channel. Key is duplicated or the channel is not opened.", rtspUnitId);
                 return null;
             }
 
-            rtcpChannelMap.putIfAbsent(rtspUnitId, rtcpNettyChannel);
             logger.debug("| ({}) Success to add rtcp channel.", rtspUnitId);
             return rtcpNettyChannel;
         } catch (Exception e) {
             logger.warn("| ({}) Fail to add rtcp channel (ip={}, port={}).", rtspUnitId, ip, port, e);
             return null;
-        } finally {
-            rtcpChannelMapLock.unlock();
         }
     }
 
     public void deleteRtcpChannel(String rtspUnitId) {
         try {
-            rtcpChannelMapLock.lock();
-
-            if (!rtcpChannelMap.isEmpty()) {
-                RtcpNettyChannel rtcpNettyChannel = rtcpChannelMap.get(rtspUnitId);
-                if (rtcpNettyChannel == null) {
-                    return;
-                }
-
-                rtcpNettyChannel.closeChannel();
-                rtcpNettyChannel.stop();
-                rtcpChannelMap.remove(rtspUnitId);
-
-                logger.debug("| ({}) Success to close the rtcp channel.", rtspUnitId);
+            RtcpNettyChannel rtcpNettyChannel = rtcpChannelMap.remove(rtspUnitId);
+            if (rtcpNettyChannel == null) {
+                return;
             }
+
+            rtcpNettyChannel.closeChannel();
+            rtcpNettyChannel.stop();
+            logger.debug("| ({}) Success to close the rtcp channel.", rtspUnitId);
         } catch (Exception e) {
             logger.warn("| ({}) Fail to close the rtcp channel.", rtspUnitId, e);
-        } finally {
-            rtcpChannelMapLock.unlock();
         }
     }
 
     public void deleteAllRtcpChannels () {
         try {
-            rtcpChannelMapLock.lock();
-            rtcpChannelMap.entrySet().removeIf(Objects::nonNull);
+            rtcpChannelMap.removeAll((rtspUnitId, rtcpNettyChannel) -> {
+                rtcpNettyChannel.closeChannel();
+                rtcpNettyChannel.stop();
+            });
 
             logger.debug("| Success to close all rtcp channel(s).");
         } catch (Exception e) {
             logger.warn("| Fail to close all rtcp channel(s).", e);
-        } finally {
-            rtcpChannelMapLock.unlock();
         }
     }
 
     public RtcpNettyChannel getRtcpChannel(String rtspUnitId) {
-        try {
-            rtcpChannelMapLock.lock();
-
-            return rtcpChannelMap.get(rtspUnitId);
-        } catch (Exception e) {
-            return null;
-        } finally {
-            rtcpChannelMapLock.unlock();
-        }
+        return rtcpChannelMap.get(rtspUnitId);
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -333,14 +319,14 @@ public class NettyChannelManager {
         rtspNettyChannel.startStreaming(sessionId);
     }
 
-    public void pauseStreaming(String rtspUnitId, String sessionId, String listenIp, int listenPort) {
+    public boolean pauseStreaming(String rtspUnitId, String sessionId, String listenIp, int listenPort) {
         RtspNettyChannel rtspNettyChannel = getRtspChannel(rtspUnitId);
         if (rtspNettyChannel == null) {
             logger.warn("({}) Fail to pause to stream media. Not found the netty channel. (listenIp={}, listenPort={})", rtspUnitId, listenIp, listenPort);
-            return;
+            return false;
         }
 
-        rtspNettyChannel.pauseStreaming(sessionId);
+        return rtspNettyChannel.pauseStreaming(sessionId);
     }
 
     public void stopStreaming(String rtspUnitId, String sessionId, String listenIp, int listenPort) {
@@ -0,0 +1,28 @@
+package rtsp.module.netty.handler;
+
+/**
+ * @enum public enum PcrPacingMode
+ * @brief RtpSender 의 PCR 기반 전송 간격 계산 방식
+ */
+public enum PcrPacingMode {
+
+    // 직전 PCR 과의 차이만큼 대기, TS 파일마다 다시 계산 (기존 방식, 오차가 누적될 수 있다.)
+    PREVIOUS,
+
+    // 첫 PCR 과 그때의 시간을 기준으로 각 PCR 의 전송 시간을 계산 (sleepNanosOrig), 늦어진 만큼 다음 대기에서 보정
+    ANCHORED;
+
+    public static PcrPacingMode fromName(String name) {
+        if (name == null) {
+            return ANCHORED;
+        }
+
+        for (PcrPacingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        return ANCHORED;
+    }
+
+}
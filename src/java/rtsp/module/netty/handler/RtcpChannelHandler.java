@@ -15,6 +15,8 @@ import rtsp.protocol.rtcp.packet.RtcpPacket;
 import rtsp.protocol.rtcp.type.regular.RtcpReceiverReport;
 import rtsp.protocol.rtcp.type.regular.base.RtcpHeader;
 import rtsp.protocol.rtcp.type.regular.base.report.RtcpReportBlock;
+import rtsp.service.jfr.JfrEvents;
+import rtsp.service.metrics.RtspMetrics;
 
 /**
  * @class public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPacket>
@@ -72,6 +74,9 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
                 int packetType = rtcpPacket.getRtcpHeader().getPacketType();
                 switch (packetType) {
                     case RtcpType.RECEIVER_REPORT:
+                        // RR 수신은 session keep-alive 로 취급한다.
+                        RtspManager.getInstance().touchRtspUnit(rtspUnitId);
+
                         Streamer streamer = rtspUnit.getStreamer();
                         if (streamer == null) { return; }
 
@@ -79,6 +84,18 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
                         RtcpReceiverReport rtcpReceiverReport = (RtcpReceiverReport) rtcpPacket.getRtcpFormat();
                         RtcpReportBlock rtcpReportBlock = rtcpReceiverReport.getReportBlockBySsrc(ssrc);
                         if (rtcpReportBlock != null) {
+                            RtspMetrics.RTCP_RECEIVER_REPORTS.inc();
+                            RtspMetrics.RTCP_FRACTION_LOST.record(rtcpReportBlock.getFraction());
+                            RtspMetrics.RTCP_JITTER.record(rtcpReportBlock.getIaj());
+                            long rttMicros = getRttMicros(rtcpReportBlock.getLsr(), rtcpReportBlock.getDlsr());
+                            if (rttMicros >= 0) {
+                                RtspMetrics.RTCP_RTT.record(rttMicros);
+                            }
+                            JfrEvents.rtcpFeedback(
+                                    rtspUnitId, ssrc, rtcpReportBlock.getFraction(), rtcpReportBlock.getCnpl(),
+                                    rtcpReportBlock.getEhsn(), rtcpReportBlock.getIaj(), rttMicros
+                            );
+
                             float fractionLost = (float) (rtcpReportBlock.getFraction() / 100);
                             if (fractionLost >= 0 && fractionLost <= 0.01) {
                                 rtspUnit.setCongestionLevel(0);
@@ -102,6 +119,30 @@ public class RtcpChannelHandler extends SimpleChannelInboundHandler<DatagramPack
         }
     }
 
+    /**
+     * @fn private static long getRttMicros(long lsr, long dlsr)
+     * @brief RR 의 LSR, DLSR 로 RTT 를 계산하는 함수 (RFC 3550 6.4.1, RTT = A - LSR - DLSR)
+     * LSR, DLSR, A 는 NTP timestamp 의 가운데 32 bits (1/65536 초 단위) 이다.
+     * @return RTT (us), LSR 이 0 이면 (SR 을 받지 못한 client) -1 반환
+     */
+    private static long getRttMicros(long lsr, long dlsr) {
+        if (lsr == 0) {
+            return -1;
+        }
+
+        long curTime = System.currentTimeMillis();
+        long ntpSeconds = curTime / 1000 + 2208988800L; // 1900-01-01 기준
+        long ntpFraction = (curTime % 1000) * 65536 / 1000;
+        long arrivalTime = ((ntpSeconds & 0xFFFF) << 16) | ntpFraction;
+
+        long rtt = (arrivalTime - lsr - dlsr) & 0xFFFFFFFFL;
+        if (rtt > 0x7FFFFFFFL) {
+            // 시계가 맞지 않아서 음수가 된 경우
+            return -1;
+        }
+        return rtt * 1000000 / 65536;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
 
     public String getName() {
@@ -10,26 +10,38 @@ import io.netty.buffer.Unpooled;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
+import rtsp.ffmpeg.ExternalToolExecutor;
+import rtsp.ffmpeg.ExternalToolProcess;
 import rtsp.ffmpeg.FfmpegManager;
+import rtsp.ffmpeg.packaging.PackagingService;
 import rtsp.fsm.RtspEvent;
+import rtsp.module.RtspManager;
 import rtsp.module.Streamer;
 import rtsp.module.VideoStream;
 import rtsp.module.base.RtspUnit;
+import rtsp.module.cache.CachedSegment;
+import rtsp.module.cache.SegmentCache;
+import rtsp.module.cache.SegmentPrefetcher;
 import rtsp.module.mpegts.content.MpegTsPacket;
 import rtsp.module.mpegts.content.PATSection;
 import rtsp.module.mpegts.content.PMTSection;
+import rtsp.module.trace.StreamTrace;
 import rtsp.protocol.RtpPacket;
 import rtsp.service.AppInstance;
+import rtsp.service.ServiceManager;
+import rtsp.service.jfr.JfrEvents;
+import rtsp.service.metrics.PacingStats;
+import rtsp.service.metrics.RtspMetrics;
 import rtsp.service.scheduler.job.Job;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
@@ -39,6 +51,12 @@ public class RtpSender extends Job {
 
     ///////////////////////////////////////////////////////////////////////////
     public static final int TS_PACKET_SIZE = 188;
+    private static final byte TS_SYNC_BYTE = 0x47;
+    private static final int MPEG_TS_TIME_BASE = 90000; // MPEG-TS PTS/DTS 는 항상 90kHz
+    private static final int PIPE_READ_PACKET_COUNT = 64; // pipe 에서 한 번에 읽는 TS 패킷 개수
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+    private static final long MAX_PCR_SLEEP_NANOS = 100000000L; // 100ms
+    private static final long KEEP_ALIVE_INTERVAL_NANOS = 1000000000L; // 1s, 전송 중 RtspUnit idle 만료 시간 연장 간격
 
     private final RtpPacket rtpPacket = new RtpPacket();
 
@@ -51,6 +69,14 @@ public class RtpSender extends Job {
     private final RtspUnit rtspUnit;
     private final Streamer streamer;
     private final int destPort;
+
+    private final PcrPacingMode pcrPacingMode = AppInstance.getInstance().getConfigManager().getPcrPacingMode();
+
+    private volatile boolean isPrepared = false;
+    private boolean isPipeMode = false;
+    private boolean isPipeReserved = false; // ExternalToolExecutor 의 pipe session 자리를 예약했는지 여부 (ffmpeg 를 시작하면 넘긴다.)
+    private boolean isPipeRejected = false; // pipe session 자리가 없어서 준비에 실패했는지 여부
+    private byte[] m3u8ByteData = null;
     ///////////////////////////////////////////////////////////////////////////
 
     ///////////////////////////////////////////////////////////////////////////
@@ -99,46 +125,91 @@ public class RtpSender extends Job {
     }
 
     /**
-     * @fn private void sendData()
-     * @brief 미리 생성된 M3U8 파일에 명시된 TS 파일을 로컬에서 읽어서 지정한 Destination 으로 RTP 패킷으로 패킹하여 보내는 함수
+     * @fn public boolean prepare()
+     * @brief 전송 전에 필요한 blocking 작업(M3U8 변환, M3U8 읽기, media segment 목록 조회)을 처리하는 함수
+     * PLAY 응답 전에 preparation pool 에서 호출된다. 호출하지 않으면 run() 에서 처리한다.
+     * @return 성공 시 true, 실패 시 false 반환
      */
-    private void sendData() {
+    public boolean prepare() {
+        if (isPrepared) {
+            return true;
+        }
+
         try {
+            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+
+            ///////////////////////////////////////////////////////////////////////////
+            // PIPE MODE IF ENABLED (미리 변환된 HLS 가 없으면 중간 파일 없이 ffmpeg 출력을 바로 전송)
+            if (configManager.isPipeStreaming()
+                    && !PackagingService.getInstance().isPackaged(video.getMp4FileName(), (long) npt1, (long) npt2)) {
+                if (!new File(video.getMp4FileName()).isFile()) {
+                    logger.warn("({}) ({}) MP4 File is wrong. Fail to open the pipe. (mp4FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getMp4FileName());
+                    return false;
+                }
+
+                // PLAY 응답 전에 pipe 자리를 예약해서, 응답 후에 ffmpeg 실행을 기다리지 않도록 한다.
+                if (!ExternalToolExecutor.getInstance().reservePipe()) {
+                    logger.warn("({}) ({}) Fail to open the pipe. Pipe sessions are full. ({})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), ExternalToolExecutor.getInstance());
+                    isPipeRejected = true;
+                    return false;
+                }
+
+                isPipeReserved = true;
+                isPipeMode = true;
+                isPrepared = true;
+                return true;
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
             ///////////////////////////////////////////////////////////////////////////
             // DIRECT PARSING IF ENABLED
-            ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+            String m3u8FilePath = video.getResultM3U8FilePath();
             if (configManager.isM3u8DirectConverting()) {
-                ffmpegManager.convertMp4ToM3u8(
-                        video.getMp4FileName(),
-                        video.getResultM3U8FilePath(),
-                        (long) fileTime,
-                        (long) npt1,
-                        (long) npt2
-                );
+                PackagingService packagingService = PackagingService.getInstance();
+                if (packagingService.isStarted()) {
+                    // 미리 변환된 결과가 있으면 바로 사용하고, 없으면 background 작업보다 먼저 변환
+                    // (구간 요청은 미리 변환된 결과를 덮어쓰지 않도록 구간별 경로에 변환된다.)
+                    m3u8FilePath = packagingService.packageOnDemand(
+                            video.getMp4FileName(),
+                            video.getResultM3U8FilePath(),
+                            (long) fileTime,
+                            (long) npt1,
+                            (long) npt2
+                    );
+                    if (m3u8FilePath == null) {
+                        logger.warn("({}) ({}) Fail to package the title. (mp4FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getMp4FileName());
+                        return false;
+                    }
+                } else {
+                    ffmpegManager.convertMp4ToM3u8(
+                            video.getMp4FileName(),
+                            m3u8FilePath,
+                            (long) fileTime,
+                            (long) npt1,
+                            (long) npt2
+                    );
+                }
             }
+            streamer.setM3u8FilePath(m3u8FilePath);
             ///////////////////////////////////////////////////////////////////////////
 
             ///////////////////////////////////////////////////////////////////////////
             // CHECK M3U8 FILE
-            File m3u8File = new File(video.getResultM3U8FilePath());
+            File m3u8File = new File(m3u8FilePath);
             if (!m3u8File.exists() || !m3u8File.isFile()) {
-                logger.warn("({}) ({}) M3U8 File is wrong.Fail to get the m3u8 data. (m3u8FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getResultM3U8FilePath());
-                return;
+                logger.warn("({}) ({}) M3U8 File is wrong.Fail to get the m3u8 data. (m3u8FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), m3u8FilePath);
+                return false;
             }
 
-            byte[] m3u8ByteData = Files.readAllBytes(
+            m3u8ByteData = Files.readAllBytes(
                     Paths.get(
-                            video.getResultM3U8FilePath()
+                            m3u8FilePath
                     )
             );
 
             if (m3u8ByteData.length == 0) {
                 logger.warn("({}) ({}) Fail to process the PLAY request. Fail to get the m3u8 data. (rtspUnit={}, destPort={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), rtspUnit, destPort);
-                rtspStateHandler.fire(
-                        RtspEvent.PLAY_FAIL,
-                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
-                );
-                return;
+                return false;
             }
             ///////////////////////////////////////////////////////////////////////////
 
@@ -146,9 +217,9 @@ public class RtpSender extends Job {
             // GET MEDIA SEGMENT LIST
             List<MediaSegment> mediaSegmentList;
             MediaPlaylistParser parser = new MediaPlaylistParser();
-            MediaPlaylist playlist = parser.readPlaylist(Paths.get(video.getResultM3U8FilePath()));
+            MediaPlaylist playlist = parser.readPlaylist(Paths.get(m3u8FilePath));
             if (playlist != null) {
-                String m3u8PathOnly = video.getResultM3U8FilePath();
+                String m3u8PathOnly = m3u8FilePath;
                 m3u8PathOnly = m3u8PathOnly.substring(
                         0,
                         m3u8PathOnly.lastIndexOf("/")
@@ -160,21 +231,43 @@ public class RtpSender extends Job {
                 logger.debug("({}) ({}) MediaPlaylist: {}", rtspUnit.getRtspUnitId(), streamer.getSessionId(), playlist);
             } else {
                 logger.warn("({}) ({}) Fail to stream the media. (rtpDestPort={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), destPort);
-                rtspStateHandler.fire(
-                        RtspEvent.PLAY_FAIL,
-                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
-                );
-                return;
+                return false;
             }
 
             if (mediaSegmentList == null || mediaSegmentList.isEmpty()) {
                 logger.warn("({}) ({}) Media segment list is empty.", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+                return false;
+            }
+            ///////////////////////////////////////////////////////////////////////////
+        } catch (Exception e) {
+            logger.warn("({}) ({}) Fail to prepare the media. (rtpDestPort={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), destPort, e);
+            return false;
+        }
+
+        isPrepared = true;
+        return true;
+    }
+
+    /**
+     * @fn private void sendData()
+     * @brief 미리 생성된 M3U8 파일에 명시된 TS 파일을 로컬에서 읽어서 지정한 Destination 으로 RTP 패킷으로 패킹하여 보내는 함수
+     */
+    private void sendData() {
+        try {
+            ///////////////////////////////////////////////////////////////////////////
+            // PREPARE IF NOT PREPARED
+            if (!prepare()) {
                 rtspStateHandler.fire(
                         RtspEvent.PLAY_FAIL,
                         rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
                 );
                 return;
             }
+
+            if (isPipeMode) {
+                sendPipeData();
+                return;
+            }
             ///////////////////////////////////////////////////////////////////////////
 
             ///////////////////////////////////////////////////////////////////////////
@@ -185,6 +278,7 @@ public class RtpSender extends Job {
                     streamer.getDestIp(),
                     streamer.getDestPort()
             );
+            streamer.flush();
 
             logger.debug("({}) ({}) << Send M3U8 (destIp={}, destPort={})\n{}(size={})",
                     rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestIp(), streamer.getDestPort(),
@@ -194,296 +288,435 @@ public class RtpSender extends Job {
 
             ///////////////////////////////////////////////////////////////////////////
             // SEND TS FILES
-            mediaSegmentList = streamer.getMediaSegmentList();
-            String m3u8PathOnly = streamer.getM3u8PathOnly();
+            sendSegments(streamer.getMediaSegmentList(), streamer.getM3u8PathOnly());
+            ///////////////////////////////////////////////////////////////////////////
+        } catch (Exception e) {
+            logger.warn("RtspChannelHandler.sendData.Exception", e);
+            streamer.getStreamTrace().dumpToLog("sendData exception");
+        } finally {
+            // 마지막 pacing 간격에 모아둔 패킷 (PAUSE, 종료, 예외)
+            streamer.flush();
+            releasePreparation();
+        }
+    }
+
+    /**
+     * @fn public void releasePreparation()
+     * @brief prepare() 에서 예약한 자원(pipe session 자리)을 반납하는 함수
+     * 준비 후 전송을 시작하지 않는 경우 호출한다. (이미 ffmpeg 에 넘긴 자리는 반납하지 않는다.)
+     */
+    public void releasePreparation() {
+        if (isPipeReserved) {
+            isPipeReserved = false;
+            ExternalToolExecutor.getInstance().releasePipe();
+        }
+    }
 
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    /**
+     * @fn public boolean isPipeRejected()
+     * @return pipe session 자리가 없어서 prepare() 가 실패했으면 true (PLAY 를 503 으로 거절)
+     */
+    public boolean isPipeRejected() {
+        return isPipeRejected;
+    }
 
-            // TS Packet Total byte : 188 (4(header) + 184(body))
-            // > 이 하나의 패킷 안에 하나의 이미지(프레임)에 대한 모든 정보가 들어있는게 아니다.
-            byte[] buffer = new byte[TS_PACKET_SIZE];
+    /**
+     * @fn private void sendSegments(List<MediaSegment> mediaSegmentList, String m3u8PathOnly)
+     * @brief M3U8 에 명시된 TS 파일을 순서대로 188 byte 단위 slice 로 보내는 함수
+     * 현재 TS 파일을 보내는 동안 다음 TS 파일을 SegmentPrefetcher 가 I/O 스레드에서 미리 읽어둔다.
+     * SegmentCache 가 활성화되어 있으면 같은 TS 파일을 보내는 session 끼리 buffer 를 공유한다.
+     */
+    private void sendSegments(List<MediaSegment> mediaSegmentList, String m3u8PathOnly) {
+        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
 
-            int tbn = 0;
-            int fps = 0;
-            int gop;
+        List<String> tsFilePathList = new ArrayList<>();
+        for (MediaSegment mediaSegment : mediaSegmentList) {
+            if (mediaSegment != null) {
+                tsFilePathList.add(m3u8PathOnly + File.separator + mediaSegment.uri());
+            }
+        }
+        if (tsFilePathList.isEmpty()) {
+            logger.warn("({}) ({}) TS file is not exist.", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+            return;
+        }
 
-            long additionalTimestampIncrement = 1;
-            long frameCount = 0;
-            long packetCount = 0;
-            long totalSleepTime = 0; // ms
-            int totalSendByteSize = 0;
-            boolean isEndOfFrame;
+        ///////////////////////////////////////////////////////////////////////////
+        // GET FPS, GOP, TBN (첫 번째 TS 파일 기준)
+        String firstTsFilePath = tsFilePathList.get(0);
+        String fps = getFps(firstTsFilePath);
+        String tbn = getTbn(firstTsFilePath);
+        if (fps == null || tbn == null) {
+            logger.warn("({}) ({}) Fail to get the fps or tbn. (tsFileName={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), firstTsFilePath);
+            return;
+        }
 
-            List<InputStream> inputStreamList = new ArrayList<>();
+        TsPacingContext context = new TsPacingContext(Integer.parseInt(fps), Integer.parseInt(tbn));
+        logger.debug("({}) ({}) FPS=[{}], GOP=[{}], TBN=[{}]",
+                rtspUnit.getRtspUnitId(), streamer.getSessionId(),
+                context.fps, getGop(firstTsFilePath), context.tbn
+        );
+        ///////////////////////////////////////////////////////////////////////////
 
-            try {
-                ///////////////////////////////////////////////////////////////////////////
-                // GET TS FILE NAME & STREAM LIST
-                for (MediaSegment mediaSegment : mediaSegmentList) {
-                    if (mediaSegment == null) {
+        long totalSendByteSize = 0;
+        SegmentCache segmentCache = configManager.isSegmentCacheEnabled() ? SegmentCache.getInstance() : null;
+        try (SegmentPrefetcher segmentPrefetcher = new SegmentPrefetcher(
+                tsFilePathList, configManager.getSegmentPrefetchCount(),
+                ServiceManager.getInstance().getSegmentIoExecutor(), segmentCache)) {
+            ///////////////////////////////////////////////////////////////////////////
+            // START TO STREAM
+            int segmentIndex = 0;
+            while (segmentPrefetcher.hasNext()) {
+                String tsFileName = segmentPrefetcher.getNextPath();
+                try (CachedSegment cachedSegment = segmentPrefetcher.next()) {
+                    if (cachedSegment == null) {
+                        logger.warn("({}) ({}) Fail to read the ts file. (tsFileName={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), tsFileName);
                         continue;
                     }
 
+                    // PREVIOUS : PCR 은 TS 파일마다 다시 계산
+                    // ANCHORED : TS 파일이 바뀌어도 PCR 이 이어지면 첫 PCR 기준을 유지 (끊기면 discontinuity 로 다시 계산)
+                    if (pcrPacingMode == PcrPacingMode.PREVIOUS) {
+                        context.hasLastPcr = false;
+                    }
+                    context.pcrCount = 0;
+                    long segmentStartTime = System.nanoTime();
+                    streamer.getStreamTrace().recordSegment(segmentIndex, cachedSegment.getSize());
+
                     ///////////////////////////////////////////////////////////////////////////
-                    // GET TS FILE NAME & STREAM
-                    String tsFileName = mediaSegment.uri();
-                    tsFileName = m3u8PathOnly + File.separator + tsFileName;
-                    InputStream inputStream = new FileInputStream(tsFileName);
-
-                    if (fps == 0) {
-                        fps = Integer.parseInt(Objects.requireNonNull(getFps(tsFileName))); // fps
-                        gop = getGop(tsFileName); // gop
-                        tbn = Integer.parseInt(Objects.requireNonNull(getTbn(tsFileName)));
-                        logger.debug("({}) ({}) FPS=[{}], GOP=[{}], TBN=[{}]",
-                                rtspUnit.getRtspUnitId(), streamer.getSessionId(),
-                                fps, gop, tbn
-                        );
+                    // [RTP] 188 bytes (4(header) + 184(body)), 복사 없이 slice 로 전송
+                    int offset = 0;
+                    int fileSize = cachedSegment.getSize();
+                    while (offset + TS_PACKET_SIZE <= fileSize) {
+                        if (streamer.isPaused()) { break; }
+
+                        sendTsPacket(context, cachedSegment.slice(offset, TS_PACKET_SIZE));
+                        offset += TS_PACKET_SIZE; // TS 파일 누적 크기 계산 (Ts 파일 구분)
                     }
                     ///////////////////////////////////////////////////////////////////////////
 
                     ///////////////////////////////////////////////////////////////////////////
-                    // CHECK FILE SIZE
-                    int fileSize = inputStream.available();
-                    if (fileSize <= 0) {
-                        logger.warn("({}) ({}) Fail to read the ts file. FileSize=[{}]",
-                                rtspUnit.getRtspUnitId(), streamer.getSessionId(), fileSize
-                        );
+                    // FINISH
+                    totalSendByteSize += offset;
+                    JfrEvents.segment(streamer.getSessionId(), segmentIndex, tsFileName, fileSize, offset, context.pcrCount, System.nanoTime() - segmentStartTime);
+                    segmentIndex++;
+                    logger.debug("({}) ({}) [SEND TS BYTES: {}({}), [PCR: {},  PACKET: {}]",
+                            rtspUnit.getRtspUnitId(), streamer.getSessionId(),
+                            offset, fileSize, context.pcrCount, context.packetCount
+                    );
+                    ///////////////////////////////////////////////////////////////////////////
+                }
+
+                if (streamer.isPaused()) {
+                    logger.warn("({}) ({}) [FINISHED BY PAUSE]", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+                    break;
+                }
+            }
+            ///////////////////////////////////////////////////////////////////////////
+        } finally {
+            logger.debug("({}) ({}) [SEND TOTAL BYTES: {}, PACKET COUNT: {}]",
+                    rtspUnit.getRtspUnitId(), streamer.getSessionId(),
+                    totalSendByteSize, context.packetCount
+            );
+            if (segmentCache != null) {
+                logger.debug("({}) ({}) {}", rtspUnit.getRtspUnitId(), streamer.getSessionId(), segmentCache);
+            }
+        }
+    }
+
+    /**
+     * @fn private void sendPipeData()
+     * @brief ffmpeg 가 표준 출력으로 내보내는 MPEG-TS 를 188 byte 단위로 읽어서 바로 RTP 패킷으로 보내는 함수
+     * M3U8, TS 파일을 만들지 않으므로 삭제할 파일도 없고, ffmpeg 의 첫 출력부터 바로 전송한다.
+     * (ffmpeg 는 -re 없이 실행하고, 전송 속도는 파일 전송과 같은 PCR pacing 으로 조절한다. > pipe 가 차면 ffmpeg 가 대기)
+     */
+    private void sendPipeData() {
+        long startTime = System.currentTimeMillis();
+        // 예약한 pipe 자리는 openMp4ToMpegTsPipe 로 넘긴다. (close() 할 때 반납)
+        isPipeReserved = false;
+        try (ExternalToolProcess pipe = ffmpegManager.openMp4ToMpegTsPipe(video.getMp4FileName(), (long) npt1, (long) npt2)) {
+            if (pipe == null) {
+                logger.warn("({}) ({}) Fail to open the ffmpeg pipe. (mp4FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getMp4FileName());
+                rtspStateHandler.fire(
+                        RtspEvent.PLAY_FAIL,
+                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                );
+                return;
+            }
+
+            String fpsString = getFps(video.getMp4FileName());
+            if (fpsString == null) {
+                logger.warn("({}) ({}) Fail to get the fps. (mp4FilePath={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getMp4FileName());
+                rtspStateHandler.fire(
+                        RtspEvent.PLAY_FAIL,
+                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                );
+                return;
+            }
+
+            TsPacingContext context = new TsPacingContext(Integer.parseInt(fpsString), MPEG_TS_TIME_BASE);
+            logger.debug("({}) ({}) [PIPE] FPS=[{}], TBN=[{}]", rtspUnit.getRtspUnitId(), streamer.getSessionId(), context.fps, context.tbn);
+
+            ReadableByteChannel channel = pipe.getOutputChannel();
+            ByteBuffer readBuffer = ByteBuffer.allocate(TS_PACKET_SIZE * PIPE_READ_PACKET_COUNT);
+            long totalSendByteSize = 0;
+            long skippedByteSize = 0;
+            long firstOutputTime = 0;
+
+            while (!streamer.isPaused()) {
+                if (channel.read(readBuffer) < 0) {
+                    break;
+                }
+
+                readBuffer.flip();
+                if (firstOutputTime == 0 && readBuffer.hasRemaining()) {
+                    firstOutputTime = System.currentTimeMillis();
+                    logger.debug("({}) ({}) [PIPE] First output. (startup={}ms)", rtspUnit.getRtspUnitId(), streamer.getSessionId(), firstOutputTime - startTime);
+                }
+
+                while (readBuffer.remaining() >= TS_PACKET_SIZE && !streamer.isPaused()) {
+                    // sync byte 로 188 byte 경계를 맞춘다.
+                    if (readBuffer.get(readBuffer.position()) != TS_SYNC_BYTE) {
+                        readBuffer.get();
+                        skippedByteSize++;
                         continue;
-                    } else {
-                        logger.debug("({}) ({}) MPEG TS({}) FileSize=[{}]",
-                                rtspUnit.getRtspUnitId(), streamer.getSessionId(),
-                                tsFileName, fileSize
-                        );
                     }
 
-                    inputStreamList.add(inputStream);
+                    // 전송이 비동기이므로 패킷마다 새 배열을 사용한다.
+                    byte[] packet = new byte[TS_PACKET_SIZE];
+                    readBuffer.get(packet);
+                    sendTsPacket(context, ByteBuffer.wrap(packet));
+                    totalSendByteSize += TS_PACKET_SIZE;
                 }
-                ///////////////////////////////////////////////////////////////////////////
+                readBuffer.compact();
+            }
 
-                ///////////////////////////////////////////////////////////////////////////
-                // START TO STREAM
-                for (InputStream inputStream : inputStreamList) {
-                    if (inputStream == null) { continue; }
+            if (streamer.isPaused()) {
+                logger.warn("({}) ({}) [PIPE] [FINISHED BY PAUSE]", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+            } else {
+                int exitCode = pipe.waitFor(1000);
+                if (exitCode != 0) {
+                    logger.warn("({}) ({}) [PIPE] ffmpeg exit code is not 0. (exitCode={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), exitCode);
+                }
+            }
 
-                    int fileSize = inputStream.available();
-                    int read;
-                    int curTsTotalByteSize = 0;
+            logger.debug("({}) ({}) [PIPE] [SEND TOTAL BYTES: {}, PACKET COUNT: {}, SKIPPED BYTES: {}, ELAPSED: {}ms]",
+                    rtspUnit.getRtspUnitId(), streamer.getSessionId(),
+                    totalSendByteSize, context.packetCount, skippedByteSize, System.currentTimeMillis() - startTime
+            );
+        } catch (Exception e) {
+            logger.warn("({}) ({}) RtpSender.sendPipeData.Exception", rtspUnit.getRtspUnitId(), streamer.getSessionId(), e);
+            streamer.getStreamTrace().dumpToLog("sendPipeData exception");
+        }
+    }
 
-                    boolean resetState = false;
-                    long pcrCount = 0;
-                    Long firstPcrValue = null;
-                    //Long firstPcrTime = null;
-                    Long lastPcrValue = null;
-                    Long lastPcrTime = null;
+    /**
+     * @fn private void sendTsPacket(TsPacingContext context, ByteBuffer tsPacket)
+     * @brief TS 패킷 한 개의 PCR 로 전송 간격을 맞추고 RTP 패킷으로 보내는 함수 (파일, pipe, cache 공용)
+     * @param tsPacket 188 byte TS 패킷 (position 0 부터 시작, 전송이 끝날 때까지 내용이 바뀌면 안 된다.)
+     */
+    private void sendTsPacket(TsPacingContext context, ByteBuffer tsPacket) {
+        ///////////////////////////////////////////////////////////////////////////
+        // TS PACKET DECODING (PAT, PMT, PSI)
+        MpegTsPacket mpegTsPacket = new MpegTsPacket(tsPacket.duplicate());
+        //logger.debug("({}) ({}) MpegTsPacket: \n[{}]", rtspUnit.getRtspUnitId(), streamer.getSessionId(), mpegTsPacket);
+        ///////////////////////////////////////////////////////////////////////////
+
+        ///////////////////////////////////////////////////////////////////////////
+        long sleepNanos = 0;
+        int pid = mpegTsPacket.getPid();
+        PATSection patSection = null;
+        TreeMap<Integer, PMTSection> pmtSection = Maps.newTreeMap();
+
+        ///////////////////////////////////////////////////////////////////////////
+        // CHECK PMT
+        if (pid == 0 && mpegTsPacket.isPayloadUnitStartIndicator()) {
+            ByteBuffer payload = mpegTsPacket.getPayload();
+            payload.rewind();
+            int pointer = payload.get() & 0xff;
+            payload.position(payload.position() + pointer);
+            patSection = PATSection.parse(payload);
+            if (patSection != null) {
+                for (Integer pmtPid : pmtSection.keySet()) {
+                    if (!patSection.getPrograms().containsValue(pmtPid)) {
+                        pmtSection.remove(pmtPid);
+                    }
+                }
+            }
+        }
+        ///////////////////////////////////////////////////////////////////////////
+
+        ///////////////////////////////////////////////////////////////////////////
+        // CHECK PAT
+        if (pid != 0 && patSection != null) {
+            if (patSection.getPrograms().containsValue(pid)) {
+                if (mpegTsPacket.isPayloadUnitStartIndicator()) {
+                    ByteBuffer payload = mpegTsPacket.getPayload();
+                    payload.rewind();
+                    int pointer = payload.get() & 0xff;
+                    payload.position(payload.position() + pointer);
+                    pmtSection.put(pid, PMTSection.parse(payload));
+                }
+            }
+        }
+        ///////////////////////////////////////////////////////////////////////////
+
+        ///////////////////////////////////////////////////////////////////////////
+        // CHECK PCR
+        // ts-container has fixed time-scale (90kHZ for PTS/DTS and 27MHz for PCR)
+        long idealSendTime = 0; // 첫 PCR 기준으로 계산한 이 패킷의 전송 시간 (PCR 이 없으면 0)
+        long tracePcrValue = -1; // trace 에 기록할 PCR (없으면 -1)
+        boolean isPcrPaced = false; // 이전 PCR 기준으로 전송 간격을 맞춘 PCR 패킷이면 true
+        MpegTsPacket.AdaptationField adaptationField = mpegTsPacket.getAdaptationField();
+        if (adaptationField != null) {
+            if (adaptationField.getPcr() != null) {
+                if (!adaptationField.isDiscontinuityIndicator()) {
+                    // Get PCR and current nano time
+                    long pcrValue = adaptationField.getPcr().getValue();
+                    long pcrTime = System.nanoTime();
+                    tracePcrValue = pcrValue;
+                    context.pcrCount++;
+
+                    // 전송 중에는 RTCP RR, GET_PARAMETER 를 받지 못해도 idle 만료되지 않도록 한다.
+                    if (pcrTime - context.lastKeepAliveTime >= KEEP_ALIVE_INTERVAL_NANOS) {
+                        context.lastKeepAliveTime = pcrTime;
+                        RtspManager.getInstance().touchRtspUnit(rtspUnit.getRtspUnitId());
+                    }
 
-                    ///////////////////////////////////////////////////////////////////////////
-                    // [RTP]
-                    while ((read = inputStream.read(buffer)) != -1) {
-                        if (streamer.isPaused()) { break; }
+                    if (context.isAnchored && pcrValue <= context.lastPcrValue) {
+                        logger.warn("({}) ({}) PCR discontinuity ! (pid={}, pcrValue={}, lastPcrValue={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), pid, pcrValue, context.lastPcrValue);
+                        resetPacing(context, PacingStats.ResetReason.DISCONTINUITY);
+                    }
 
-                        ///////////////////////////////////////////////////////////////////////////
-                        // [RTCP]
-                        //curTimeInterval = timeInterval * (rtspUnit.getCongestionLevel() + 1);
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // GET DATA (188 bytes, static)
-                        byteArrayOutputStream.reset();
-                        byteArrayOutputStream.write(buffer, 0, read);
-                        byte[] curData = byteArrayOutputStream.toByteArray();
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // TS PACKET DECODING (PAT, PMT, PSI)
-                        ByteBuffer byteBuffer = ByteBuffer.wrap(curData);
-                        MpegTsPacket mpegTsPacket = new MpegTsPacket(byteBuffer);
-                        //logger.debug("({}) ({}) MpegTsPacket: \n[{}]", rtspUnit.getRtspUnitId(), streamer.getSessionId(), mpegTsPacket);
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        if (resetState) {
-                            pcrCount = 0;
-                            firstPcrValue = null;
-                            //firstPcrTime = null;
-                            lastPcrValue = null;
-                            lastPcrTime = null;
-                            resetState = false;
+                    if (!context.isAnchored) {
+                        context.anchor(pcrValue, pcrTime);
+                    } else {
+                        if (pcrPacingMode == PcrPacingMode.ANCHORED) {
+                            // Compute sleepNanosOrig : 첫 PCR 기준이므로 늦어진 시간은 다음 대기에서 보정된다.
+                            sleepNanos = context.getIdealTime(pcrValue) - pcrTime;
+                            isPcrPaced = true;
+                        } else if (context.hasLastPcr) {
+                            // Compute sleepNanosPrevious
+                            sleepNanos = ((pcrValue - context.lastPcrValue) / 27 * 1000) - (pcrTime - context.lastPcrTime);
+                            isPcrPaced = true;
                         }
 
-                        long sleepNanos = 0;
-                        int pid = mpegTsPacket.getPid();
-                        PATSection patSection = null;
-                        TreeMap<Integer, PMTSection> pmtSection = Maps.newTreeMap();
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // CHECK PMT
-                        if (pid == 0 && mpegTsPacket.isPayloadUnitStartIndicator()) {
-                            ByteBuffer payload = mpegTsPacket.getPayload();
-                            payload.rewind();
-                            int pointer = payload.get() & 0xff;
-                            payload.position(payload.position() + pointer);
-                            patSection = PATSection.parse(payload);
-                            if (patSection != null) {
-                                for (Integer pmtPid : pmtSection.keySet()) {
-                                    if (!patSection.getPrograms().containsValue(pmtPid)) {
-                                        pmtSection.remove(pmtPid);
-                                    }
-                                }
-                            }
-                        }
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // CHECK PAT
-                        if (pid != 0 && patSection != null) {
-                            if (patSection.getPrograms().containsValue(pid)) {
-                                if (mpegTsPacket.isPayloadUnitStartIndicator()) {
-                                    ByteBuffer payload = mpegTsPacket.getPayload();
-                                    payload.rewind();
-                                    int pointer = payload.get() & 0xff;
-                                    payload.position(payload.position() + pointer);
-                                    pmtSection.put(pid, PMTSection.parse(payload));
-                                }
-                            }
-                        }
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // CHECK PCR
-                        MpegTsPacket.AdaptationField adaptationField = mpegTsPacket.getAdaptationField();
-                        if (adaptationField != null) {
-                            if (adaptationField.getPcr() != null) {
-                                if (!adaptationField.isDiscontinuityIndicator()) {
-                                    // Get PCR and current nano time
-                                    long pcrValue = adaptationField.getPcr().getValue();
-                                    long pcrTime = System.nanoTime();
-                                    pcrCount++;
-
-                                    // Compute sleepNanosOrig
-                                    //Long sleepNanosOrig = null;
-                                    if (firstPcrValue == null) {
-                                        firstPcrValue = pcrValue;
-                                        //firstPcrTime = pcrTime;
-                                    } /*else if (pcrValue > firstPcrValue) {
-                                        // ts-container has fixed time-scale (90kHZ for PTS/DTS and 27MHz for PCR)
-                                        sleepNanosOrig = ((pcrValue - firstPcrValue) / 27 * 1000) - (pcrTime - firstPcrTime);
-                                    }*/
-
-                                    // Compute sleepNanosPrevious
-                                    Long sleepNanosPrevious = null;
-                                    if (lastPcrValue != null && lastPcrTime != null) {
-                                        if (pcrValue <= lastPcrValue) {
-                                            logger.warn("({}) ({}) PCR discontinuity ! (pid={}, pcrValue={}, lastPcrValue={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), mpegTsPacket.getPid(), pcrValue, lastPcrValue);
-                                            resetState = true;
-                                        } else {
-                                            // ts-container has fixed time-scale (90kHZ for PTS/DTS and 27MHz for PCR)
-                                            sleepNanosPrevious = ((pcrValue - lastPcrValue) / 27 * 1000) - (pcrTime - lastPcrTime);
-                                        }
-                                    }
-
-                                    // Set sleep time based on PCR if possible
-                                    if (sleepNanosPrevious != null) {
-                                        // Safety : We should never have to wait more than 100ms
-                                        if (sleepNanosPrevious > 100000000) {
-                                            logger.warn("({}) ({}) PCR sleep ignored, too high! (pid={}, sleepNanosPrevious={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), mpegTsPacket.getPid(), sleepNanosPrevious);
-                                            resetState = true;
-                                        } else {
-                                            sleepNanos = sleepNanosPrevious;
-                                        }
-                                    }
-
-                                    // Set lastPcrValue/lastPcrTime
-                                    lastPcrValue = pcrValue;
-                                    lastPcrTime = pcrTime + sleepNanos;
-                                } else {
-                                    logger.warn("({}) ({}) Skipped PCR - Discontinuity indicator", rtspUnit.getRtspUnitId(), streamer.getSessionId());
-                                }
-                            }
+                        // Safety : We should never have to wait more than 100ms
+                        if (sleepNanos > MAX_PCR_SLEEP_NANOS) {
+                            logger.warn("({}) ({}) PCR sleep ignored, too high! (pid={}, sleepNanos={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), pid, sleepNanos);
+                            resetPacing(context, PacingStats.ResetReason.JUMP);
+                            context.anchor(pcrValue, pcrTime);
+                            sleepNanos = 0;
+                            isPcrPaced = false;
+                        } else if (pcrPacingMode == PcrPacingMode.ANCHORED && sleepNanos < -MAX_PCR_SLEEP_NANOS) {
+                            // 너무 늦어진 경우 한 번에 따라잡지 않고 기준을 다시 잡는다.
+                            logger.warn("({}) ({}) PCR pacing is too late. (pid={}, lateNanos={})", rtspUnit.getRtspUnitId(), streamer.getSessionId(), pid, -sleepNanos);
+                            resetPacing(context, PacingStats.ResetReason.LATE);
+                            context.anchor(pcrValue, pcrTime);
+                            sleepNanos = 0;
+                            isPcrPaced = false;
                         }
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // Sleep if needed
-                        if (sleepNanos > 0) {
-                            try {
-                                Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
-                            } catch (InterruptedException e) {
-                                logger.warn("({}) ({}) Streaming sleep interrupted!", rtspUnit.getRtspUnitId(), streamer.getSessionId());
-                            }
-
-                            if (adaptationField.isRandomAccessIndicator()) { // KEY FRAME
-                                additionalTimestampIncrement = (frameCount + 1); // I-FRAME INTERVAL FOR TIMESTAMP
-                                frameCount = 0;
-                            } else {
-                                additionalTimestampIncrement = 1;
-                                frameCount++;
-                            }
-                            logger.debug("frameCount: {}, additionalTimestampIncrement: {}", frameCount, additionalTimestampIncrement);
-
-                            isEndOfFrame = true;
-                        } else {
-                            isEndOfFrame = false;
-                        }
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // SEND RTP PACKET
-                        sendRtpPacket(streamer, curData, fps, tbn, isEndOfFrame, additionalTimestampIncrement);
-                        curTsTotalByteSize += curData.length; // TS 파일 누적 크기 계산 (Ts 파일 구분)
-                        packetCount++;
-                        ///////////////////////////////////////////////////////////////////////////
                     }
-                    ///////////////////////////////////////////////////////////////////////////
 
-                    ///////////////////////////////////////////////////////////////////////////
-                    // FINISH
-                    totalSendByteSize += curTsTotalByteSize;
-                    logger.debug("({}) ({}) [SEND TS BYTES: {}({}), [PCR: {},  PACKET: {}]",
-                            rtspUnit.getRtspUnitId(), streamer.getSessionId(),
-                            curTsTotalByteSize, fileSize, pcrCount, packetCount
-                    );
-                    inputStream.close();
-                    if (streamer.isPaused()) {
-                        logger.warn("({}) ({}) [FINISHED BY PAUSE]", rtspUnit.getRtspUnitId(), streamer.getSessionId());
-                        break;
-                    }
-                    ///////////////////////////////////////////////////////////////////////////
+                    idealSendTime = context.getIdealTime(pcrValue);
+
+                    // Set lastPcrValue/lastPcrTime
+                    context.lastPcrValue = pcrValue;
+                    context.lastPcrTime = pcrTime + sleepNanos;
+                    context.hasLastPcr = true;
+                } else {
+                    // 시간 기준이 바뀌므로 다음 PCR 부터 다시 계산한다.
+                    logger.warn("({}) ({}) Skipped PCR - Discontinuity indicator", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+                    resetPacing(context, PacingStats.ResetReason.INDICATOR);
                 }
-            } finally {
-                logger.debug("({}) ({}) [SEND TOTAL BYTES: {}, PACKET COUNT: {}, SLEEP TIME: {}]", rtspUnit.getRtspUnitId(), streamer.getSessionId(), totalSendByteSize, packetCount, totalSleepTime);
-
-                try { byteArrayOutputStream.close(); } catch (IOException e) { logger.warn("", e); }
-                try {
-                    for (InputStream inputStream : inputStreamList) {
-                        if (inputStream != null) {
-                            inputStream.close();
-                        }
-                    }
-                } catch (IOException e) { logger.warn("", e); }
             }
-            ///////////////////////////////////////////////////////////////////////////
-        } catch (Exception e) {
-            logger.warn("RtspChannelHandler.sendData.Exception", e);
         }
+        ///////////////////////////////////////////////////////////////////////////
+
+        ///////////////////////////////////////////////////////////////////////////
+        // Sleep if needed
+        if (sleepNanos > 0) {
+            // 이번 pacing 간격에 모아둔 패킷을 대기 전에 한 번에 보낸다. (EgressFlushMode.TICK)
+            streamer.flush();
+            try {
+                long sleepStartTime = System.nanoTime();
+                Thread.sleep(sleepNanos / 1000000, (int) (sleepNanos % 1000000));
+                JfrEvents.pacingSleep(streamer.getSessionId(), sleepNanos, System.nanoTime() - sleepStartTime - sleepNanos);
+            } catch (InterruptedException e) {
+                logger.warn("({}) ({}) Streaming sleep interrupted!", rtspUnit.getRtspUnitId(), streamer.getSessionId());
+            }
+        }
+
+        // 전송 시간이 늦어져도 frame 경계는 PCR 로 판단한다. (늦어진 경우 RTP timestamp 가 밀리지 않도록)
+        boolean isEndOfFrame = isPcrPaced;
+        // channel 이 unwritable 이라서 건너뛸 때 다시 보내기 시작하는 위치 (PCR + random access indicator)
+        boolean isKeyFrame = adaptationField != null && adaptationField.getPcr() != null && adaptationField.isRandomAccessIndicator();
+        if (isEndOfFrame) {
+            if (adaptationField.isRandomAccessIndicator()) { // KEY FRAME
+                context.additionalTimestampIncrement = (context.frameCount + 1); // I-FRAME INTERVAL FOR TIMESTAMP
+                context.frameCount = 0;
+            } else {
+                context.additionalTimestampIncrement = 1;
+                context.frameCount++;
+            }
+        }
+
+        if (idealSendTime != 0) {
+            streamer.getPacingStats().recordError(System.nanoTime() - idealSendTime);
+        }
+        ///////////////////////////////////////////////////////////////////////////
+
+        ///////////////////////////////////////////////////////////////////////////
+        // SEND RTP PACKET
+        int seqNum = streamer.getCurSeqNum();
+        int payloadSize = tsPacket.remaining();
+        if (sendRtpPacket(streamer, tsPacket, context.fps, context.tbn, isEndOfFrame, isKeyFrame, context.additionalTimestampIncrement)) {
+            context.packetCount++;
+            streamer.getStreamTrace().recordPacket(seqNum, payloadSize, tracePcrValue, sleepNanos);
+        } else {
+            streamer.getStreamTrace().recordDrop(seqNum, payloadSize);
+        }
+        ///////////////////////////////////////////////////////////////////////////
     }
 
-    private void sendRtpPacket(Streamer streamer, byte[] data, int fps, int tbn, boolean isEndOfFrame, long additionalTimestampIncrement) {
+    /**
+     * @fn private boolean sendRtpPacket(Streamer streamer, ByteBuffer payload, int fps, int tbn, boolean isEndOfFrame, boolean isKeyFrame, long additionalTimestampIncrement)
+     * @brief TS 패킷 한 개를 RTP 패킷으로 보내는 함수
+     * channel 이 unwritable 이라서 버린 패킷도 sequence number 와 timestamp 는 증가시킨다. (client 는 손실로 인식하고 timeline 은 유지)
+     * @return 보냈으면 true, 버렸으면 false
+     */
+    private boolean sendRtpPacket(Streamer streamer, ByteBuffer payload, int fps, int tbn, boolean isEndOfFrame, boolean isKeyFrame, long additionalTimestampIncrement) {
         int curSeqNum = streamer.getCurSeqNum();
         long curTimeStamp = streamer.getCurTimeStamp();
 
+        // RTP header 만 만들고 payload 는 복사하지 않고 뒤에 붙인다. (cache 의 segment 를 그대로 전송)
         rtpPacket.setValue(
                 2, 0, 0, 0, 0, ConfigManager.MP2T_TYPE,
-                curSeqNum, curTimeStamp, streamer.getSsrc(), data, data.length
+                curSeqNum, curTimeStamp, streamer.getSsrc(), EMPTY_PAYLOAD, 0
         );
 
-        byte[] totalRtpData = rtpPacket.getData();
-        ByteBuf buf = Unpooled.copiedBuffer(totalRtpData);
-        streamer.send(
+        byte[] rtpHeader = rtpPacket.getData();
+        int rtpPacketSize = rtpHeader.length + payload.remaining();
+        ByteBuf buf = Unpooled.wrappedBuffer(ByteBuffer.wrap(rtpHeader), payload);
+        boolean isSent = streamer.send(
                 buf,
                 streamer.getDestIp(),
-                streamer.getDestPort()
+                streamer.getDestPort(),
+                isKeyFrame
         );
 
+        if (isSent) {
+            streamer.addSentPacket(rtpPacketSize);
+            RtspMetrics.RTP_SENT_PACKETS.inc();
+            RtspMetrics.RTP_SENT_BYTES.add(rtpPacketSize);
+            long playRequestTime = streamer.getPlayRequestTime();
+            if (playRequestTime != 0) {
+                streamer.setPlayRequestTime(0);
+                long firstPacketNanos = System.nanoTime() - playRequestTime;
+                RtspMetrics.PLAY_FIRST_PACKET.record(firstPacketNanos / 1000);
+                JfrEvents.playPhase(JfrEvents.PLAY_PHASE_FIRST_PACKET, rtspUnit.getRtspUnitId(), streamer.getSessionId(), firstPacketNanos);
+            }
+        }
+
         if (curSeqNum == 65535) {
             streamer.resetSeqNumber();
             curSeqNum = streamer.getCurSeqNum();
@@ -507,6 +740,8 @@ public class RtpSender extends Job {
         if (isEndOfFrame) {
             streamer.setCurTimeStamp(curTimeStamp + ((tbn / fps) * additionalTimestampIncrement));
         }
+
+        return isSent;
     }
 
     private List<String[]> getTsFileFrameSizeList(String tsFileName) {
@@ -585,4 +820,74 @@ public class RtpSender extends Job {
         return null;
     }
 
+    /**
+     * @fn private void resetPacing(TsPacingContext context, PacingStats.ResetReason reason)
+     * @brief PCR 기준을 버리고 다음 PCR 부터 다시 계산하도록 하는 함수 (원인 별로 기록)
+     * 전송 시간이 크게 어긋난 경우(JUMP, LATE)에는 직전 전송 기록을 로그로 남긴다.
+     */
+    private void resetPacing(TsPacingContext context, PacingStats.ResetReason reason) {
+        context.resetPcr();
+        streamer.getPacingStats().recordReset(reason);
+
+        StreamTrace streamTrace = streamer.getStreamTrace();
+        streamTrace.recordReset(reason);
+        if (reason == PacingStats.ResetReason.JUMP || reason == PacingStats.ResetReason.LATE) {
+            streamTrace.dumpToLog("pacing reset (" + reason + ")");
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @class private static class TsPacingContext
+     * @brief TS 패킷 전송 중의 PCR pacing, RTP timestamp 계산 상태
+     */
+    private static class TsPacingContext {
+
+        private final int fps;
+        private final int tbn;
+
+        private long additionalTimestampIncrement = 1;
+        private long frameCount = 0;
+        private long packetCount = 0;
+
+        // 첫 PCR 과 그때의 시간 (PCR 기준 전송 시간 계산, 오차 측정)
+        private boolean isAnchored = false;
+        private long anchorPcrValue = 0;
+        private long anchorPcrTime = 0;
+        // 직전 PCR 과 전송 시간
+        private boolean hasLastPcr = false;
+        private long lastPcrValue = 0;
+        private long lastPcrTime = 0;
+        private long pcrCount = 0;
+        // 마지막으로 RtspUnit 의 idle 만료 시간을 연장한 시간 (System.nanoTime)
+        private long lastKeepAliveTime;
+
+        private TsPacingContext(int fps, int tbn) {
+            this.fps = fps;
+            this.tbn = tbn;
+            this.lastKeepAliveTime = System.nanoTime() - KEEP_ALIVE_INTERVAL_NANOS;
+        }
+
+        private void anchor(long pcrValue, long pcrTime) {
+            isAnchored = true;
+            anchorPcrValue = pcrValue;
+            anchorPcrTime = pcrTime;
+        }
+
+        /**
+         * @return 첫 PCR 기준으로 계산한 PCR 의 전송 시간 (System.nanoTime)
+         */
+        private long getIdealTime(long pcrValue) {
+            // 27MHz > ns (PCR 최대값 2^33 * 300 이므로 overflow 없음)
+            return anchorPcrTime + (pcrValue - anchorPcrValue) * 1000 / 27;
+        }
+
+        private void resetPcr() {
+            pcrCount = 0;
+            isAnchored = false;
+            hasLastPcr = false;
+        }
+    }
+
 }
@@ -2,17 +2,20 @@ package rtsp.module.netty.handler;
 
 import com.fsm.module.StateHandler;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.rtsp.*;
 import org.slf4j.Logger;
+import org.apache.commons.net.ntp.TimeStamp;
 import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
 import rtsp.ffmpeg.FfmpegManager;
 import rtsp.fsm.RtspEvent;
 import rtsp.fsm.RtspState;
@@ -21,16 +24,22 @@ import rtsp.module.Streamer;
 import rtsp.module.VideoStream;
 import rtsp.module.base.RtspUnit;
 import rtsp.module.netty.NettyChannelManager;
+import rtsp.module.sdp.SdpTemplate;
 import rtsp.module.sdp.base.Sdp;
+import rtsp.service.AdmissionController;
 import rtsp.service.AppInstance;
 import rtsp.service.ResourceManager;
 import rtsp.service.ServiceManager;
+import rtsp.service.base.BoundedTaskExecutor;
+import rtsp.service.jfr.JfrEvents;
+import rtsp.service.metrics.RtspMetrics;
 import rtsp.service.scheduler.schedule.ScheduleManager;
 
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @class public class RtspChannelHandler extends ChannelInboundHandlerAdapter
@@ -72,11 +81,15 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
 
     @Override
     public void channelRead (ChannelHandlerContext ctx, Object msg) {
+        long requestTime = System.nanoTime();
+        HttpMethod requestMethod = null;
+        boolean isPlayPreparing = false; // PLAY 처리 시간은 preparePlay 에서 기록
         try {
             if (msg instanceof DefaultHttpRequest) {
                 ///////////////////////////////////////////////////////////////////////////
                 // HTTP REQUEST PARSING
                 DefaultHttpRequest req = (DefaultHttpRequest) msg;
+                requestMethod = req.method();
                 DefaultFullHttpResponse res = new DefaultFullHttpResponse(RtspVersions.RTSP_1_0,  RtspResponseStatuses.NOT_FOUND);
                 if (req.decoderResult().isFailure()) {
                     logger.warn("({}) Fail to process the request. Bad request is detected.", name);
@@ -96,6 +109,9 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 StateHandler rtspStateHandler = rtspUnit.getStateManager().getStateHandler(RtspState.NAME);
                 String curState = rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId()).getCurState();
                 logger.debug("({}) ({}) () Request: {}", name, rtspUnit.getRtspUnitId(), req);
+
+                // 모든 RTSP 요청은 session keep-alive 로 취급한다.
+                RtspManager.getInstance().touchRtspUnit(rtspUnitId);
                 ///////////////////////////////////////////////////////////////////////////
 
                 ///////////////////////////////////////////////////////////////////////////
@@ -128,7 +144,8 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                                         RtspMethods.SETUP + ", " +
                                         RtspMethods.PLAY + ", " +
                                         RtspMethods.PAUSE + ", " +
-                                        RtspMethods.TEARDOWN
+                                        RtspMethods.TEARDOWN + ", " +
+                                        RtspMethods.GET_PARAMETER
                         );
                         sendResponse(name, rtspUnit, null, ctx, req, res);
                     }
@@ -162,28 +179,42 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         }
                         rtspUnit.setClientRtpListenPort(clientRtpListenPort);
 
-                        Sdp localSdp = AppInstance.getInstance().getConfigManager().loadLocalSdpConfig(rtspUnitId, clientRtpListenPort);
-                        rtspUnit.setSdp(localSdp);
+                        // 미리 직렬화된 SDP template 에 address, port, session id 만 채워서 pooled buffer 에 쓴다.
+                        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+                        SdpTemplate localSdpTemplate = configManager.getLocalSdpTemplate();
+                        ByteBuf buf;
+                        if (localSdpTemplate != null) {
+                            buf = localSdpTemplate.fill(
+                                    ctx.alloc(),
+                                    configManager.getLocalListenIp(),
+                                    clientRtpListenPort,
+                                    TimeStamp.getCurrentTime().getTime()
+                            );
+                        } else {
+                            Sdp localSdp = configManager.loadLocalSdpConfig(rtspUnitId, clientRtpListenPort);
+                            rtspUnit.setSdp(localSdp);
+                            buf = ctx.alloc().buffer();
+                            buf.writeCharSequence(localSdp.getData(true), StandardCharsets.UTF_8);
+                        }
 
-                        res.setStatus(RtspResponseStatuses.OK);
-                        res.headers().add(
+                        FullHttpResponse describeRes = res.replace(buf);
+                        describeRes.setStatus(RtspResponseStatuses.OK);
+                        describeRes.headers().add(
                                 RtspHeaderNames.CONTENT_TYPE,
                                 "application/sdp"
                         );
-
-                        ByteBuf buf = Unpooled.copiedBuffer(localSdp.getData(true), StandardCharsets.UTF_8);
-                        res.headers().add(
+                        describeRes.headers().add(
                                 RtspHeaderNames.CONTENT_LENGTH,
-                                buf.writerIndex()
+                                buf.readableBytes()
                         );
+                        res.release();
 
-                        res.content().writeBytes(buf);
                         rtspStateHandler.fire(
                                 RtspEvent.DESCRIBE_OK,
                                 rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
                         );
 
-                        sendResponse(name, rtspUnit, null, ctx, req, res);
+                        sendResponse(name, rtspUnit, null, ctx, req, describeRes);
                     }
                 }
                 ///////////////////////////////////////////////////////////////////////////
@@ -200,7 +231,7 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         );
 
                         String transportHeaderContent = req.headers().get(RtspHeaderNames.TRANSPORT);
-                        String clientPortString = transportHeaderContent.substring(
+                        String clientPortString = transportHeaderContent == null ? "" : transportHeaderContent.substring(
                                 transportHeaderContent.lastIndexOf(";") + 1
                         );
 
@@ -209,7 +240,68 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         logger.debug("({}) ({}) () Current sessionId is [{}]. (listenIp={}, listenPort={})", name, rtspUnit.getRtspUnitId(), curSessionId, listenIp, listenRtspPort);
                         //
 
+                        ///////////////////////////////////////////////////////////////////////////
+                        // CHECK TRANSPORT
+                        // Streamer 생성과 admission 예약 전에 확인해서, 실패해도 반납할 자원이 없도록 한다.
+                        if (clientPortString.startsWith(String.valueOf(RtspHeaderValues.INTERLEAVED))) {
+                            logger.debug("({}) ({}) () < Interleaved {}, clientPortString={}", name, rtspUnit.getRtspUnitId(), req.method(), clientPortString);
+                            logger.debug("({}) ({}) ({}) Fail to setup to stream the media. TCP RTP Connection is detected. Unsupported...", name, rtspUnit.getRtspUnitId(), curSessionId);
+                            rtspStateHandler.fire(
+                                    RtspEvent.SETUP_FAIL,
+                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            );
+                            sendFailResponse(name, rtspUnit, null, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
+                            return;
+                        } else if (!clientPortString.startsWith(String.valueOf(RtspHeaderValues.CLIENT_PORT))) {
+                            logger.warn("({}) ({}) () Unknown transport header content. ({})", name, rtspUnit.getRtspUnitId(), clientPortString);
+                            rtspStateHandler.fire(
+                                    RtspEvent.SETUP_FAIL,
+                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            );
+                            sendFailResponse(name, rtspUnit, null, ctx, req, res, curSessionId, RtspResponseStatuses.UNSUPPORTED_TRANSPORT);
+                            return;
+                        }
+
+                        String rtpDesPortString = clientPortString.substring(
+                                clientPortString.lastIndexOf("=") + 1
+                        );
+
+                        int rtcpDestPort = 0;
+                        if (rtpDesPortString.contains("-")) {
+                            String rtcpDesPortString = rtpDesPortString.substring(
+                                    rtpDesPortString.lastIndexOf("-") + 1
+                            );
+                            rtcpDestPort = parsePort(rtcpDesPortString);
+                            if (rtcpDestPort <= 0) {
+                                logger.warn("({}) ({}) () Fail to parse rtcp destination port. (transportHeaderContent={})", name, rtspUnit.getRtspUnitId(), transportHeaderContent);
+                                rtspStateHandler.fire(
+                                        RtspEvent.SETUP_FAIL,
+                                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                                );
+                                sendFailResponse(name, rtspUnit, null, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
+                                return;
+                            }
+
+                            rtpDesPortString = rtpDesPortString.substring(
+                                    0,
+                                    rtpDesPortString.lastIndexOf("-")
+                            );
+                        }
+
+                        int rtpDestPort = parsePort(rtpDesPortString);
+                        if (rtpDestPort <= 0) {
+                            logger.warn("({}) ({}) () Fail to parse rtp destination port. (transportHeaderContent={})", name, rtspUnit.getRtspUnitId(), transportHeaderContent);
+                            rtspStateHandler.fire(
+                                    RtspEvent.SETUP_FAIL,
+                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            );
+                            sendFailResponse(name, rtspUnit, null, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
+                            return;
+                        }
+                        ///////////////////////////////////////////////////////////////////////////
+
                         //
+                        boolean isNewStreamer = false;
                         Streamer streamer = NettyChannelManager.getInstance().getStreamer(rtspUnitId, curSessionId, listenIp, listenRtspPort);
                         if (streamer == null) {
                             streamer = rtspUnit.getStreamer();
@@ -232,6 +324,7 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                                 }
 
                                 rtspUnit.setStreamer(streamer);
+                                isNewStreamer = true;
                             }
                         }
                         //
@@ -242,7 +335,31 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                             uri = uri.replaceAll("[*]", " ");
                         }
                         streamer.setUri(uri);
+                        //
+
+                        //
+                        VideoStream videoStream = streamer.getVideo();
+                        AdmissionController.Decision admissionDecision = AdmissionController.getInstance().admitSession(
+                                streamer.getSessionId(),
+                                videoStream == null ? null : videoStream.getMp4FileName()
+                        );
+                        if (!admissionDecision.isAdmitted()) {
+                            logger.warn("({}) ({}) ({}) Fail to process the SETUP request. Admission is rejected. ({})", name, rtspUnit.getRtspUnitId(), curSessionId, admissionDecision);
+                            // 이번 요청에서 만든 Streamer 는 남기지 않는다. (다시 SETUP 한 경우 기존 Streamer 와 예약은 유지)
+                            if (isNewStreamer) {
+                                NettyChannelManager.getInstance().deleteStreamer(rtspUnitId, streamer.getSessionId(), listenIp, listenRtspPort);
+                                rtspUnit.setStreamer(null);
+                            }
+                            rtspStateHandler.fire(
+                                    RtspEvent.SETUP_FAIL,
+                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            );
+                            sendAdmissionFailResponse(rtspUnit, isNewStreamer ? null : streamer, ctx, req, res, curSessionId, admissionDecision);
+                            return;
+                        }
+                        //
 
+                        //
                         String userAgent = req.headers().get(RtspHeaderNames.USER_AGENT);
                         streamer.setClientUserAgent(userAgent);
 
@@ -252,104 +369,42 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         logger.warn("({}) ({}) ({}) Destination ip is [{}].", name, rtspUnit.getRtspUnitId(), curSessionId, remoteIpAddress);
                         //
 
-                        String sessionId = streamer.getSessionId();
-                        int rtcpDestPort = 0;
+                        //
+                        streamer.setDestPort(rtpDestPort);
+                        if (rtcpDestPort > 0) {
+                            streamer.setRtcpDestPort(rtcpDestPort);
+                        }
+                        //
 
+                        String sessionId = streamer.getSessionId();
+                        int destPort = streamer.getDestPort();
                         res.headers().add(
                                 RtspHeaderNames.SESSION,
                                 sessionId
                         );
 
-                        if (clientPortString.startsWith(String.valueOf(RtspHeaderValues.INTERLEAVED))) {
-                            logger.debug("({}) ({}) () < Interleaved {}, clientPortString={}", name, rtspUnit.getRtspUnitId(), req.method(), clientPortString);
-                            logger.debug("({}) ({}) ({}) Fail to setup to stream the media. TCP RTP Connection is detected. Unsupported... (rtpDestIp={}, rtpDestPort={}, rtcpDestPort={})",
-                                    name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestIp(), streamer.getDestPort(), streamer.getRtcpDestPort()
-                            );
-                            sendFailResponse(name, rtspUnit, null, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
-                        } else if (clientPortString.startsWith(String.valueOf(RtspHeaderValues.CLIENT_PORT))) {
-                            //
-                            String rtpDesPortString = clientPortString.substring(
-                                    clientPortString.lastIndexOf("=") + 1
+                        if (streamer.getRtcpDestPort() > 0) {
+                            res.headers().add(
+                                    RtspHeaderNames.TRANSPORT,
+                                    "RTP/AVP;unicast;client_port=" + destPort + "-" + streamer.getRtcpDestPort()
+                                            + ";server_port=" + listenRtspPort + "-" + listenRtcpPort
+                                            + ";ssrc=" + streamer.getSsrc()
                             );
-
-                            if (rtpDesPortString.contains("-")) {
-                                String rtcpDesPortString = rtpDesPortString.substring(
-                                        rtpDesPortString.lastIndexOf("-") + 1
-                                );
-                                rtcpDestPort = Integer.parseInt(rtcpDesPortString);
-                                if (rtcpDestPort <= 0) {
-                                    logger.warn("({}) ({}) () Fail to parse rtcp destination port. (transportHeaderContent={})", name, rtspUnit.getRtspUnitId(), transportHeaderContent);
-                                    rtspStateHandler.fire(
-                                            RtspEvent.SETUP_FAIL,
-                                            rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
-                                    );
-                                    sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
-                                    return;
-                                }
-
-                                rtpDesPortString = rtpDesPortString.substring(
-                                        0,
-                                        rtpDesPortString.lastIndexOf("-")
-                                );
-                            }
-
-                            int rtpDestPort = Integer.parseInt(rtpDesPortString);
-                            if (rtpDestPort <= 0) {
-                                logger.warn("({}) ({}) () Fail to parse rtp destination port. (transportHeaderContent={})", name, rtspUnit.getRtspUnitId(), transportHeaderContent);
-                                rtspStateHandler.fire(
-                                        RtspEvent.SETUP_FAIL,
-                                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
-                                );
-                                sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
-                                return;
-                            }
-                            //
-
-                            //
-                            streamer.setDestPort(rtpDestPort);
-                            if (rtcpDestPort > 0) {
-                                streamer.setRtcpDestPort(rtcpDestPort);
-                            }
-                            //
-
-                            int destPort = streamer.getDestPort();
-                            if (destPort > 0 && sessionId != null) {
-                                if (streamer.getRtcpDestPort() > 0) {
-                                    res.headers().add(
-                                            RtspHeaderNames.TRANSPORT,
-                                            "RTP/AVP;unicast;client_port=" + destPort + "-" + streamer.getRtcpDestPort()
-                                                    + ";server_port=" + listenRtspPort + "-" + listenRtcpPort
-                                                    + ";ssrc=" + streamer.getSsrc()
-                                    );
-                                } else {
-                                    res.headers().add(
-                                            RtspHeaderNames.TRANSPORT, 
-                                            "RTP/AVP;unicast;client_port=" + destPort
-                                                    + ";server_port=" + listenRtspPort + "-" + listenRtcpPort
-                                                    + ";ssrc=" + streamer.getSsrc()
-                                    );
-                                }
-
-                                res.setStatus(RtspResponseStatuses.OK);
-                                sendResponse(name, rtspUnit, streamer, ctx, req, res);
-
-                                logger.debug("({}) ({}) ({}) Setup to stream the media. (rtpDestIp={}, rtpDestPort={}, rtcpDestPort={})",
-                                        name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestIp(), streamer.getDestPort(), streamer.getRtcpDestPort()
-                                );
-                            } else {
-                                logger.warn("({}) ({}) ({}) Fail to send the response for SETUP. (rtpDestPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestPort());
-                                rtspStateHandler.fire(
-                                        RtspEvent.SETUP_FAIL,
-                                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
-                                );
-                            }
                         } else {
-                            logger.warn("({}) ({}) () Unknown transport header content. ({})", name, rtspUnit.getRtspUnitId(), clientPortString);
-                            rtspStateHandler.fire(
-                                    RtspEvent.SETUP_FAIL,
-                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            res.headers().add(
+                                    RtspHeaderNames.TRANSPORT, 
+                                    "RTP/AVP;unicast;client_port=" + destPort
+                                            + ";server_port=" + listenRtspPort + "-" + listenRtcpPort
+                                            + ";ssrc=" + streamer.getSsrc()
                             );
                         }
+
+                        res.setStatus(RtspResponseStatuses.OK);
+                        sendResponse(name, rtspUnit, streamer, ctx, req, res);
+
+                        logger.debug("({}) ({}) ({}) Setup to stream the media. (rtpDestIp={}, rtpDestPort={}, rtcpDestPort={})",
+                                name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestIp(), streamer.getDestPort(), streamer.getRtcpDestPort()
+                        );
                     }
                 }
                 ///////////////////////////////////////////////////////////////////////////
@@ -404,6 +459,23 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         }
                         ///////////////////////////////////////////////////////////////////////////
 
+                        ///////////////////////////////////////////////////////////////////////////
+                        // CHECK ADMISSION (PAUSE 후 다시 재생하는 경우는 거절하지 않음)
+                        AdmissionController.Decision admissionDecision = AdmissionController.getInstance().admitPlay(
+                                curSessionId,
+                                curState.equals(RtspState.PAUSE)
+                        );
+                        if (!admissionDecision.isAdmitted()) {
+                            logger.warn("({}) ({}) ({}) Fail to process the PLAY request. Admission is rejected. ({})", name, rtspUnit.getRtspUnitId(), curSessionId, admissionDecision);
+                            rtspStateHandler.fire(
+                                    RtspEvent.PLAY_FAIL,
+                                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                            );
+                            sendAdmissionFailResponse(rtspUnit, streamer, ctx, req, res, curSessionId, admissionDecision);
+                            return;
+                        }
+                        ///////////////////////////////////////////////////////////////////////////
+
                         ///////////////////////////////////////////////////////////////////////////
                         // NPT PARSING
                         double npt1 = 0;
@@ -445,79 +517,36 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                         ///////////////////////////////////////////////////////////////////////////
 
                         ///////////////////////////////////////////////////////////////////////////
-                        // CHECK RTSP DESTINATION IP
-                        logger.debug("({}) ({}) ({}) Start to stream the media. (rtpDestPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), destPort);
-                        NettyChannelManager.getInstance().startStreaming(
-                                rtspUnitId,
-                                streamer.getSessionId(),
-                                listenIp,
-                                listenRtspPort
-                        );
-
-                        VideoStream video = streamer.getVideo();
-                        logger.debug("({}) ({}) ({}) resultM3U8FilePath: {}", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getResultM3U8FilePath());
-
-                        FfmpegManager ffmpegManager = new FfmpegManager();
-
-                        double fileTime = ffmpegManager.getFileTime(video.getMp4FileName());
-                        rtspUnit.setFileTime(fileTime);
-                        String fileTimeString = String.format("%.3f", fileTime);
-
-                        if (npt2 > fileTime || npt2 < 0) {
-                            logger.warn("({}) ({}) ({}) Wrong end time is detected. (listenIp={}, listenPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), listenIp, listenRtspPort);
+                        // PREPARE PLAY (BLOCKING)
+                        // 재생 시간 조회, M3U8 변환, segment 조회는 blocking 이므로 Netty I/O 스레드에서 실행하지 않는다.
+                        // 응답과 전송 시작(channel open)은 준비가 끝난 후 preparation pool 스레드에서 한다.
+                        logger.debug("({}) ({}) ({}) Start to prepare the media. (rtpDestPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), destPort);
+                        streamer.setPlayRequestTime(requestTime);
+                        double startNpt = npt1;
+                        double endNpt = npt2;
+                        BoundedTaskExecutor playPreparationExecutor = ServiceManager.getInstance().getPlayPreparationExecutor();
+                        if (playPreparationExecutor == null) {
+                            isPlayPreparing = true;
+                            preparePlay(ctx, req, res, rtspUnit, rtspStateHandler, streamer, curSessionId, startNpt, endNpt, destPort, requestTime);
+                        } else if (playPreparationExecutor.execute(() -> {
+                            preparePlay(ctx, req, res, rtspUnit, rtspStateHandler, streamer, curSessionId, startNpt, endNpt, destPort, requestTime);
+                            // channelReadComplete 이후에 응답하므로 직접 flush 한다.
+                            ctx.flush();
+                        })) {
+                            isPlayPreparing = true;
+                        } else {
+                            logger.warn("({}) ({}) ({}) Fail to prepare the PLAY request. Preparation pool is full. ({})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), playPreparationExecutor);
+                            streamer.setPlayRequestTime(0);
                             rtspStateHandler.fire(
                                     RtspEvent.PLAY_FAIL,
                                     rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
                             );
-                            sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
-                            return;
-                        }
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // SUCCESS RESPONSE
-                        res.setStatus(RtspResponseStatuses.OK);
-                        String npt1TempString = String.format("%.3f", npt1);
-                        if (npt2 == 0) {
-                            res.headers().add(
-                                    RtspHeaderNames.RANGE,
-                                    "npt=" + npt1TempString + "-" + fileTimeString
-                            );
-                        } else {
-                            String npt2TempString = String.format("%.3f", npt2);
                             res.headers().add(
-                                    RtspHeaderNames.RANGE,
-                                    "npt=" + npt1TempString + "-" + npt2TempString
+                                    HttpHeaderNames.RETRY_AFTER,
+                                    AppInstance.getInstance().getConfigManager().getPlayPrepareRetryAfter()
                             );
+                            sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.SERVICE_UNAVAILABLE);
                         }
-
-                        res.headers().add(
-                                RtspHeaderNames.SERVER,
-                                "URTSP Server"
-                        );
-                        res.headers().add(
-                                RtspManager.RTSP_RES_SESSION,
-                                curSessionId
-                        );
-                        res.headers().add(
-                                RtspHeaderNames.RTP_INFO,
-                                "url=" + streamer.getUri() + ";seq=" + streamer.getCurSeqNum() + ";rtptime=" + streamer.getCurTimeStamp()
-                        );
-                        RtspChannelHandler.sendResponse(name, rtspUnit, streamer, ctx, req, res);
-                        ///////////////////////////////////////////////////////////////////////////
-
-                        ///////////////////////////////////////////////////////////////////////////
-                        // RTP SENDER THREAD
-                        streamer.setPaused(false);
-                        RtpSender rtpSender = new RtpSender(
-                                rtspUnitId,
-                                0, 0, TimeUnit.MILLISECONDS,
-                                1, 1, false,
-                                ffmpegManager, video,
-                                fileTime, npt1, npt2,
-                                rtspStateHandler, rtspUnit, streamer, destPort
-                        );
-                        ServiceManager.getInstance().getScheduleManager().startJob(ServiceManager.MAIN_SCHEDULE_JOB, rtpSender);
                         ///////////////////////////////////////////////////////////////////////////
                     }
                 }
@@ -610,14 +639,12 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                             return;
                         }
 
-                        if (NettyChannelManager.getInstance().getStreamer(rtspUnitId, streamer.getSessionId(), listenIp, listenRtspPort) != null) {
+                        if (NettyChannelManager.getInstance().pauseStreaming(
+                                rtspUnitId,
+                                streamer.getSessionId(),
+                                listenIp,
+                                listenRtspPort)) {
                             logger.debug("({}) ({}) ({}) Pause the streaming. (rtpDestPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), streamer.getDestPort());
-                            NettyChannelManager.getInstance().pauseStreaming(
-                                    rtspUnitId,
-                                    streamer.getSessionId(),
-                                    listenIp,
-                                    listenRtspPort
-                            );
                         }
 
                         streamer.resetSeqAndTime();
@@ -634,7 +661,24 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
                 ///////////////////////////////////////////////////////////////////////////
 
                 ///////////////////////////////////////////////////////////////////////////
-                // 7) UNKNOWN
+                // 7) GET_PARAMETER (Keep-alive)
+                else if (req.method() == RtspMethods.GET_PARAMETER) {
+                    logger.debug("({}) ({}) () < GET_PARAMETER (curState={})", name, rtspUnit.getRtspUnitId(), curState);
+
+                    res.setStatus(RtspResponseStatuses.OK);
+                    String curSessionId = req.headers().get(RtspHeaderNames.SESSION);
+                    if (curSessionId != null) {
+                        res.headers().add(
+                                RtspHeaderNames.SESSION,
+                                curSessionId
+                        );
+                    }
+                    sendResponse(name, rtspUnit, null, ctx, req, res);
+                }
+                ///////////////////////////////////////////////////////////////////////////
+
+                ///////////////////////////////////////////////////////////////////////////
+                // 8) UNKNOWN
                 else {
                     logger.warn("({}) ({}) () < Unknown method: {}", name, rtspUnit.getRtspUnitId(), req.method());
                     sendFailResponse(name, rtspUnit, null, ctx, req, res, null, RtspResponseStatuses.METHOD_NOT_ALLOWED);
@@ -644,6 +688,190 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
             }
         } catch (Exception e) {
             logger.warn("({}) ({}) Fail to handle UDP Packet.", name, rtspUnitId, e);
+        } finally {
+            if (requestMethod != null && !isPlayPreparing) {
+                long latencyNanos = System.nanoTime() - requestTime;
+                RtspMetrics.recordRtspRequest(requestMethod, latencyNanos);
+                JfrEvents.rtspRequest(requestMethod.name(), rtspUnitId, latencyNanos);
+            }
+        }
+    }
+
+    /**
+     * @fn private void preparePlay(...)
+     * @brief PLAY 요청의 blocking 작업(재생 시간 조회, M3U8 변환, segment 조회)을 처리하고 응답 후 RtpSender 를 시작하는 함수
+     * ServiceManager 의 PLAY preparation pool 에서 실행된다.
+     * @param requestTime PLAY 요청을 받은 시간 (System.nanoTime, 처리 시간 기록용)
+     */
+    private void preparePlay(ChannelHandlerContext ctx, DefaultHttpRequest req, DefaultFullHttpResponse res,
+                             RtspUnit rtspUnit, StateHandler rtspStateHandler, Streamer streamer,
+                             String curSessionId, double npt1, double npt2, int destPort, long requestTime) {
+        long phaseStartTime = System.nanoTime();
+        JfrEvents.playPhase(JfrEvents.PLAY_PHASE_QUEUE, rtspUnitId, curSessionId, phaseStartTime - requestTime);
+        RtpSender rtpSender = null;
+        boolean isSenderStarted = false;
+        try {
+            ///////////////////////////////////////////////////////////////////////////
+            // CHECK FILE TIME
+            VideoStream video = streamer.getVideo();
+            logger.debug("({}) ({}) ({}) resultM3U8FilePath: {}", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), video.getResultM3U8FilePath());
+
+            FfmpegManager ffmpegManager = new FfmpegManager();
+
+            double fileTime = ffmpegManager.getFileTime(video.getMp4FileName());
+            long phaseEndTime = System.nanoTime();
+            JfrEvents.playPhase(JfrEvents.PLAY_PHASE_PROBE, rtspUnitId, curSessionId, phaseEndTime - phaseStartTime);
+            phaseStartTime = phaseEndTime;
+            rtspUnit.setFileTime(fileTime);
+            String fileTimeString = String.format("%.3f", fileTime);
+
+            if (npt2 > fileTime || npt2 < 0) {
+                logger.warn("({}) ({}) ({}) Wrong end time is detected. (listenIp={}, listenPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), listenIp, listenRtspPort);
+                rtspStateHandler.fire(
+                        RtspEvent.PLAY_FAIL,
+                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                );
+                sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ACCEPTABLE);
+                return;
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // PREPARE MEDIA (PACKAGING & SEGMENT LOOKUP)
+            rtpSender = new RtpSender(
+                    rtspUnitId,
+                    0, 0, TimeUnit.MILLISECONDS,
+                    1, 1, false,
+                    ffmpegManager, video,
+                    fileTime, npt1, npt2,
+                    rtspStateHandler, rtspUnit, streamer, destPort
+            );
+            boolean isPrepared = rtpSender.prepare();
+            JfrEvents.playPhase(JfrEvents.PLAY_PHASE_CONVERT, rtspUnitId, curSessionId, System.nanoTime() - phaseStartTime);
+            if (!isPrepared) {
+                logger.warn("({}) ({}) ({}) Fail to prepare the media. (listenIp={}, listenPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), listenIp, listenRtspPort);
+                rtspStateHandler.fire(
+                        RtspEvent.PLAY_FAIL,
+                        rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+                );
+                if (rtpSender.isPipeRejected()) {
+                    // ffmpeg pipe 자리가 없으면 전송을 시작해도 대기만 하므로 바로 거절한다.
+                    res.headers().add(
+                            HttpHeaderNames.RETRY_AFTER,
+                            AppInstance.getInstance().getConfigManager().getPlayPrepareRetryAfter()
+                    );
+                    sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.SERVICE_UNAVAILABLE);
+                } else {
+                    sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.INTERNAL_SERVER_ERROR);
+                }
+                return;
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // CHECK SESSION
+            // 준비하는 동안 PAUSE, TEARDOWN 을 받았으면 응답(200 OK)과 전송을 시작하지 않는다.
+            // 확인부터 RtpSender 시작까지 Streamer 의 play lock 을 잡아서, 이후에 받은 PAUSE, TEARDOWN 이 시작된 전송을 멈추도록 한다.
+            ReentrantLock playLock = streamer.getPlayLock();
+            playLock.lock();
+            try {
+                if (NettyChannelManager.getInstance().getStreamer(rtspUnitId, curSessionId, listenIp, listenRtspPort) != streamer) {
+                    logger.warn("({}) ({}) ({}) Streamer is deleted while preparing the PLAY request. Skip to stream the media.", name, rtspUnit.getRtspUnitId(), curSessionId);
+                    streamer.setPlayRequestTime(0);
+                    sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.SESSION_NOT_FOUND);
+                    return;
+                }
+
+                String curState = rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId()).getCurState();
+                if (!RtspState.PLAY.equals(curState)) {
+                    logger.warn("({}) ({}) ({}) State is changed while preparing the PLAY request. Skip to stream the media. (curState={})", name, rtspUnit.getRtspUnitId(), curSessionId, curState);
+                    streamer.setPlayRequestTime(0);
+                    sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.METHOD_NOT_VALID);
+                    return;
+                }
+                ///////////////////////////////////////////////////////////////////////////
+
+                ///////////////////////////////////////////////////////////////////////////
+                // OPEN RTP CHANNEL
+                logger.debug("({}) ({}) ({}) Start to stream the media. (rtpDestPort={})", name, rtspUnit.getRtspUnitId(), streamer.getSessionId(), destPort);
+                NettyChannelManager.getInstance().startStreaming(
+                        rtspUnitId,
+                        streamer.getSessionId(),
+                        listenIp,
+                        listenRtspPort
+                );
+                ///////////////////////////////////////////////////////////////////////////
+
+                ///////////////////////////////////////////////////////////////////////////
+                // SUCCESS RESPONSE
+                res.setStatus(RtspResponseStatuses.OK);
+                String npt1TempString = String.format("%.3f", npt1);
+                if (npt2 == 0) {
+                    res.headers().add(
+                            RtspHeaderNames.RANGE,
+                            "npt=" + npt1TempString + "-" + fileTimeString
+                    );
+                } else {
+                    String npt2TempString = String.format("%.3f", npt2);
+                    res.headers().add(
+                            RtspHeaderNames.RANGE,
+                            "npt=" + npt1TempString + "-" + npt2TempString
+                    );
+                }
+
+                res.headers().add(
+                        RtspHeaderNames.SERVER,
+                        "URTSP Server"
+                );
+                res.headers().add(
+                        RtspManager.RTSP_RES_SESSION,
+                        curSessionId
+                );
+                res.headers().add(
+                        RtspHeaderNames.RTP_INFO,
+                        "url=" + streamer.getUri() + ";seq=" + streamer.getCurSeqNum() + ";rtptime=" + streamer.getCurTimeStamp()
+                );
+                RtspChannelHandler.sendResponse(name, rtspUnit, streamer, ctx, req, res);
+                ///////////////////////////////////////////////////////////////////////////
+
+                ///////////////////////////////////////////////////////////////////////////
+                // RTP SENDER THREAD
+                streamer.setPaused(false);
+                ServiceManager.getInstance().getScheduleManager().startJob(ServiceManager.MAIN_SCHEDULE_JOB, rtpSender);
+                isSenderStarted = true;
+            } finally {
+                playLock.unlock();
+            }
+            ///////////////////////////////////////////////////////////////////////////
+        } catch (Exception e) {
+            logger.warn("({}) ({}) ({}) Fail to prepare the PLAY request.", name, rtspUnitId, curSessionId, e);
+            rtspStateHandler.fire(
+                    RtspEvent.PLAY_FAIL,
+                    rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId())
+            );
+            sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.INTERNAL_SERVER_ERROR);
+        } finally {
+            // 준비 후 전송을 시작하지 않았으면 예약한 자원(pipe session 자리)을 반납한다.
+            if (rtpSender != null && !isSenderStarted) {
+                rtpSender.releasePreparation();
+            }
+
+            long latencyNanos = System.nanoTime() - requestTime;
+            RtspMetrics.recordRtspRequest(req.method(), latencyNanos);
+            JfrEvents.rtspRequest(req.method().name(), rtspUnitId, latencyNanos);
+        }
+    }
+
+    /**
+     * @fn private static int parsePort(String portString)
+     * @brief Transport header 의 client_port 값을 정수로 바꾸는 함수
+     * @return 성공 시 port, 숫자가 아니면 -1 반환
+     */
+    private static int parsePort(String portString) {
+        try {
+            return Integer.parseInt(portString.trim());
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
@@ -681,6 +909,24 @@ public class RtspChannelHandler extends ChannelInboundHandlerAdapter {
         sendResponse(name, rtspUnit, streamer, ctx, req, res);
     }
 
+    /**
+     * @fn private void sendAdmissionFailResponse(RtspUnit rtspUnit, Streamer streamer, ChannelHandlerContext ctx, DefaultHttpRequest req, FullHttpResponse res, String curSessionId, AdmissionController.Decision decision)
+     * @brief AdmissionController 가 거절한 요청에 응답하는 함수
+     * 예약할 bitrate 가 부족하면 453 (Not Enough Bandwidth), 그 외(session 수, pacing 지연, 과부하)는 Retry-After 와 함께 503 으로 응답한다.
+     */
+    private void sendAdmissionFailResponse(RtspUnit rtspUnit, Streamer streamer, ChannelHandlerContext ctx, DefaultHttpRequest req, FullHttpResponse res, String curSessionId, AdmissionController.Decision decision) {
+        if (decision == AdmissionController.Decision.BANDWIDTH_LIMIT) {
+            sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.NOT_ENOUGH_BANDWIDTH);
+            return;
+        }
+
+        res.headers().add(
+                HttpHeaderNames.RETRY_AFTER,
+                AdmissionController.getInstance().getRetryAfter()
+        );
+        sendFailResponse(name, rtspUnit, streamer, ctx, req, res, curSessionId, RtspResponseStatuses.SERVICE_UNAVAILABLE);
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         logger.warn("({}) RtspChannelHandler is inactive.", name);
@@ -96,6 +96,9 @@ public class RtspRegisterChannelHandler extends SimpleChannelInboundHandler<Data
 
                     rtspRegisterNettyChannel.sendResponse(datagramPacket.sender().getAddress().getHostAddress(), registerRtspUnitReq.getListenPort(), registerRtspUnitRes);
                 } else {
+                    // 다시 등록하는 경우도 keep-alive 로 본다.
+                    RtspManager.getInstance().touchRtspUnit(rtspUnitId);
+
                     RegisterRtspUnitRes registerRtspUnitRes;
                     StateHandler rtspStateHandler = rtspUnit.getStateManager().getStateHandler(RtspState.NAME);
                     String curState = rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId()).getCurState();
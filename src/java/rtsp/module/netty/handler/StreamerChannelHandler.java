@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import rtsp.module.RtspManager;
 import rtsp.module.Streamer;
 import rtsp.module.base.RtspUnit;
+import rtsp.module.egress.EgressFlowControl;
 import rtsp.module.netty.NettyChannelManager;
 
 /**
@@ -19,12 +20,14 @@ public class StreamerChannelHandler extends ChannelInboundHandlerAdapter {
 
     private final String rtspUnitId;
     private final String sessionId;
+    private final EgressFlowControl egressFlowControl;
 
     ////////////////////////////////////////////////////////////////////////////////
 
-    public StreamerChannelHandler(String rtspUnitId, String sessionId) {
+    public StreamerChannelHandler(String rtspUnitId, String sessionId, EgressFlowControl egressFlowControl) {
         this.rtspUnitId = rtspUnitId;
         this.sessionId = sessionId;
+        this.egressFlowControl = egressFlowControl;
     }
 
     ////////////////////////////////////////////////////////////////////////////////
@@ -34,6 +37,14 @@ public class StreamerChannelHandler extends ChannelInboundHandlerAdapter {
         // Nothing
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            egressFlowControl.signalWritable();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
         //logger.warn("({}) StreamerChannelHandler is inactive.", id);
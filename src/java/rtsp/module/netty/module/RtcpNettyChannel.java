@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
 import rtsp.module.netty.handler.RtcpChannelHandler;
 import rtsp.service.AppInstance;
+import rtsp.service.HealthSampler;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -48,6 +49,7 @@ public class RtcpNettyChannel { // > UDP
         int recvBufSize = configManager.getRecvBufSize();
 
         group = new NioEventLoopGroup(nioThreadCount);
+        HealthSampler.getInstance().addEventLoopGroup("rtcp", group);
         b = new Bootstrap();
         b.group(group).channel(NioDatagramChannel.class)
                 .option(ChannelOption.SO_BROADCAST, false)
@@ -14,12 +14,11 @@ import rtsp.config.ConfigManager;
 import rtsp.module.Streamer;
 import rtsp.module.netty.handler.RtspChannelHandler;
 import rtsp.service.AppInstance;
+import rtsp.service.HealthSampler;
+import rtsp.service.base.SessionRegistry;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @class public class NettyChannel
@@ -43,8 +42,7 @@ public class RtspNettyChannel { // > TCP
 
     /* Streamer Map */
     /* Key: To MDN, value: Streamer */
-    private final HashMap<String, Streamer> messageSenderMap = new HashMap<>();
-    private final ReentrantLock messageSenderLock = new ReentrantLock();
+    private final SessionRegistry<String, Streamer> messageSenderMap = new SessionRegistry<>();
 
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -62,6 +60,7 @@ public class RtspNettyChannel { // > TCP
         int recvBufSize = configManager.getRecvBufSize();
 
         bossGroup = new NioEventLoopGroup();
+        HealthSampler.getInstance().addEventLoopGroup("rtsp", workerGroup);
         b = new ServerBootstrap();
         b.group(bossGroup, workerGroup);
         b.channel(NioServerSocketChannel.class)
@@ -160,97 +159,52 @@ public class RtspNettyChannel { // > TCP
 
     public Streamer addStreamer (String sessionId) {
         try {
-            messageSenderLock.lock();
-
-            if (messageSenderMap.get(sessionId) != null) {
-                logger.warn("Streamer is already exist. (key={})", sessionId);
-                return null;
-            }
-
-            Streamer streamer = new Streamer(
-                    rtspUnitId, sessionId,
-                    listenIp, listenPort
-            ).init();
+            Streamer streamer = messageSenderMap.createIfAbsent(
+                    sessionId,
+                    key -> new Streamer(
+                            rtspUnitId, key,
+                            listenIp, listenPort
+                    ).init(),
+                    Streamer::close
+            );
 
             if (streamer == null) {
-                logger.warn("Fail to create Streamer. (key={})", sessionId);
+                logger.warn("Streamer is already exist. (key={})", sessionId);
                 return null;
             }
 
-            messageSenderMap.putIfAbsent(
-                    sessionId,
-                    streamer
-            );
-
-            return messageSenderMap.get(sessionId);
+            return streamer;
         } catch (Exception e) {
-            Thread.currentThread().interrupt();
+            logger.warn("Fail to create Streamer. (key={})", sessionId, e);
             return null;
-        } finally {
-            messageSenderLock.unlock();
         }
     }
 
     public void deleteStreamer (String key) {
         try {
-            messageSenderLock.lock();
-
-            Streamer streamer = messageSenderMap.get(key);
+            Streamer streamer = messageSenderMap.remove(key);
             if (streamer == null) {
                 logger.warn("Streamer is null. Fail to delete the Streamer. (key={})", key);
                 return;
             }
 
             streamer.finish();
-            messageSenderMap.remove(key);
             logger.debug("Streamer is deleted. (key={})", key);
         } catch (Exception e) {
             logger.warn("Fail to delete the Streamer. (key={})", key, e);
-        } finally {
-            messageSenderLock.unlock();
         }
     }
 
     public void deleteAllStreamers () {
         try {
-            messageSenderLock.lock();
-
-            for (Map.Entry<String, Streamer> entry : getCloneStreamerMap().entrySet()) {
-                String key = entry.getKey();
-                if (key == null) {
-                    continue;
-                }
-
-                Streamer streamer = entry.getValue();
-                if (streamer == null) {
-                    continue;
-                }
-
-                streamer.finish();
-                messageSenderMap.remove(key);
-            }
+            messageSenderMap.removeAll((key, streamer) -> streamer.finish());
         } catch (Exception e) {
             logger.warn("Fail to delete all the Streamers.", e);
-        } finally {
-            messageSenderLock.unlock();
         }
     }
 
-    public Map<String, Streamer> getCloneStreamerMap() {
-        HashMap<String, Streamer> cloneMap;
-
-        try {
-            messageSenderLock.lock();
-
-            cloneMap = (HashMap<String, Streamer>) messageSenderMap.clone();
-        } catch (Exception e) {
-            logger.warn("Fail to clone the message sender map.");
-            cloneMap = messageSenderMap;
-        } finally {
-            messageSenderLock.unlock();
-        }
-
-        return cloneMap;
+    public int getStreamerCount() {
+        return messageSenderMap.size();
     }
 
     /**
@@ -272,13 +226,18 @@ public class RtspNettyChannel { // > TCP
         streamer.open();
     }
 
-    public void pauseStreaming(String key) {
-        Streamer streamer = getStreamer(key);
-        if (streamer == null) {
-            return;
-        }
-
-        streamer.pause();
+    /**
+     * @fn public boolean pauseStreaming(String key)
+     * @brief 등록된 Streamer 를 pause 하는 함수
+     * 조회와 pause 를 computeIfPresent 로 한 번에 처리해서, 동시에 삭제(TEARDOWN 등)된 Streamer 는 pause 하지 않는다.
+     * @param key Streamer key
+     * @return pause 했으면 true, 등록된 Streamer 가 없으면 false 반환
+     */
+    public boolean pauseStreaming(String key) {
+        return messageSenderMap.computeIfPresent(key, (k, streamer) -> {
+            streamer.pause();
+            return streamer;
+        }) != null;
     }
 
     public void stopStreaming(String key) {
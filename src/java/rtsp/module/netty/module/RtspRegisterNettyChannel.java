@@ -13,6 +13,7 @@ import rtsp.config.ConfigManager;
 import rtsp.module.netty.handler.RtspRegisterChannelHandler;
 import rtsp.protocol.register.base.URtspMessage;
 import rtsp.service.AppInstance;
+import rtsp.service.HealthSampler;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -41,6 +42,7 @@ public class RtspRegisterNettyChannel {
         bootstrap = new Bootstrap();
         ConfigManager configManager = AppInstance.getInstance().getConfigManager();
         EventLoopGroup eventLoopGroup = new NioEventLoopGroup(configManager.getStreamThreadPoolSize());
+        HealthSampler.getInstance().addEventLoopGroup("register", eventLoopGroup);
 
         bootstrap.group(eventLoopGroup)
                 .channel(NioDatagramChannel.class)
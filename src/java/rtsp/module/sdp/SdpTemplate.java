@@ -0,0 +1,199 @@
+package rtsp.module.sdp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @class public class SdpTemplate
+ * @brief 미리 직렬화된 SDP byte template 클래스
+ * 고정된 byte 조각과 patch point(address, port, session id)로 구성되며,
+ * DESCRIBE 마다 Sdp 객체를 만들지 않고 patch point 만 채워서 buffer 에 바로 쓴다.
+ */
+public class SdpTemplate {
+
+    public enum PatchPoint {
+        ADDRESS, PORT, SESSION_ID
+    }
+
+    // 최대 자릿수 (long 19 + 부호 1)
+    private static final int MAX_NUMBER_LENGTH = 20;
+    // IPv6 주소 최대 길이
+    private static final int MAX_ADDRESS_LENGTH = 45;
+
+    private final byte[][] segments; // patchPoints.length + 1 개
+    private final PatchPoint[] patchPoints;
+    private final int fixedLength;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private SdpTemplate(byte[][] segments, PatchPoint[] patchPoints) {
+        this.segments = segments;
+        this.patchPoints = patchPoints;
+
+        int length = 0;
+        for (byte[] segment : segments) {
+            length += segment.length;
+        }
+        this.fixedLength = length;
+    }
+
+    /**
+     * @fn public static SdpTemplate compile(String renderedSdp, String addressMarker, String portMarker, String sessionIdMarker)
+     * @brief marker 값으로 직렬화한 SDP 문자열을 template 으로 변환하는 함수
+     * @param renderedSdp marker 값으로 직렬화한 SDP
+     * @param addressMarker address 자리에 넣은 값
+     * @param portMarker port 자리에 넣은 값
+     * @param sessionIdMarker session id 자리에 넣은 값
+     * @return 성공 시 SdpTemplate, port 나 session id 자리를 찾지 못하면 null 반환
+     */
+    public static SdpTemplate compile(String renderedSdp, String addressMarker, String portMarker, String sessionIdMarker) {
+        if (renderedSdp == null) {
+            return null;
+        }
+
+        String[] markers = { addressMarker, portMarker, sessionIdMarker };
+        PatchPoint[] markerPatchPoints = { PatchPoint.ADDRESS, PatchPoint.PORT, PatchPoint.SESSION_ID };
+
+        List<byte[]> segmentList = new ArrayList<>();
+        List<PatchPoint> patchPointList = new ArrayList<>();
+        int portCount = 0;
+        int sessionIdCount = 0;
+
+        int offset = 0;
+        while (true) {
+            // 가장 앞에 있는 marker 를 찾는다.
+            int foundIndex = -1;
+            int foundMarker = -1;
+            for (int i = 0; i < markers.length; i++) {
+                int index = renderedSdp.indexOf(markers[i], offset);
+                if (index >= 0 && (foundIndex < 0 || index < foundIndex)) {
+                    foundIndex = index;
+                    foundMarker = i;
+                }
+            }
+
+            if (foundIndex < 0) {
+                segmentList.add(renderedSdp.substring(offset).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+
+            segmentList.add(renderedSdp.substring(offset, foundIndex).getBytes(StandardCharsets.UTF_8));
+            patchPointList.add(markerPatchPoints[foundMarker]);
+            if (markerPatchPoints[foundMarker] == PatchPoint.PORT) {
+                portCount++;
+            } else if (markerPatchPoints[foundMarker] == PatchPoint.SESSION_ID) {
+                sessionIdCount++;
+            }
+            offset = foundIndex + markers[foundMarker].length();
+        }
+
+        // m= 의 port 와 o= 의 session id 는 정확히 한 번씩만 있어야 한다.
+        if (portCount != 1 || sessionIdCount != 1) {
+            return null;
+        }
+
+        return new SdpTemplate(
+                segmentList.toArray(new byte[0][]),
+                patchPointList.toArray(new PatchPoint[0])
+        );
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public ByteBuf fill(ByteBufAllocator allocator, String address, int port, long sessionId)
+     * @brief patch point 를 채운 SDP 를 allocator 의 buffer 에 쓰는 함수 (release 는 호출한 쪽 책임)
+     */
+    public ByteBuf fill(ByteBufAllocator allocator, String address, int port, long sessionId) {
+        ByteBuf buf = allocator.buffer(getMaxLength());
+        write(buf, address, port, sessionId);
+        return buf;
+    }
+
+    public void write(ByteBuf buf, String address, int port, long sessionId) {
+        buf.writeBytes(segments[0]);
+        for (int i = 0; i < patchPoints.length; i++) {
+            switch (patchPoints[i]) {
+                case ADDRESS:
+                    buf.writeCharSequence(address, StandardCharsets.US_ASCII);
+                    break;
+                case PORT:
+                    writeDecimal(buf, port);
+                    break;
+                case SESSION_ID:
+                    writeDecimal(buf, sessionId);
+                    break;
+                default:
+                    break;
+            }
+            buf.writeBytes(segments[i + 1]);
+        }
+    }
+
+    public String fillToString(String address, int port, long sessionId) {
+        StringBuilder stringBuilder = new StringBuilder(getMaxLength());
+        stringBuilder.append(new String(segments[0], StandardCharsets.UTF_8));
+        for (int i = 0; i < patchPoints.length; i++) {
+            switch (patchPoints[i]) {
+                case ADDRESS:
+                    stringBuilder.append(address);
+                    break;
+                case PORT:
+                    stringBuilder.append(port);
+                    break;
+                case SESSION_ID:
+                    stringBuilder.append(sessionId);
+                    break;
+                default:
+                    break;
+            }
+            stringBuilder.append(new String(segments[i + 1], StandardCharsets.UTF_8));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static void writeDecimal(ByteBuf buf, long value) {
+        if (value == 0) {
+            buf.writeByte('0');
+            return;
+        }
+
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                buf.writeCharSequence(Long.toString(value), StandardCharsets.US_ASCII);
+                return;
+            }
+            buf.writeByte('-');
+            value = -value;
+        }
+
+        // 자릿수만큼 앞에서부터 쓴다.
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buf.writeByte((int) ('0' + (value / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getMaxLength() {
+        int maxLength = fixedLength;
+        for (PatchPoint patchPoint : patchPoints) {
+            maxLength += (patchPoint == PatchPoint.ADDRESS) ? MAX_ADDRESS_LENGTH : MAX_NUMBER_LENGTH;
+        }
+        return maxLength;
+    }
+
+    public int getPatchPointCount() {
+        return patchPoints.length;
+    }
+
+}
@@ -0,0 +1,283 @@
+package rtsp.module.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.service.metrics.PacingStats;
+
+/**
+ * @class public class StreamTrace
+ * @brief session 한 개의 최근 전송 event 를 고정 크기 long 배열(ring)에 기록하는 클래스
+ * event 한 개는 long 4 개 (시간, type/seq/size, PCR, sleep) 로 저장하므로 기록할 때 객체를 만들지 않는다.
+ * 기록은 전송 스레드 한 개에서만 하고, dump 는 다른 스레드(ex. HTTP, 예외 처리)에서 해도 된다.
+ * (dump 중에 덮어써진 event 는 출력하지 않는다.)
+ * 설정한 주기마다 구간 요약(패킷 수, byte, PCR 수, 최대 sleep, reset 수, drop 수)을 한 줄로 debug 로그에 남긴다. (기본값은 사용 안함)
+ */
+public class StreamTrace {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamTrace.class);
+
+    public enum EventType {
+        PACKET, // TS 패킷 한 개 전송 (seq, size, pcr, sleep)
+        SEGMENT, // TS 파일 전송 시작 (size = 파일 index, sleep 자리 = 파일 크기)
+        RESET, // PCR 기준 reset (size = 원인)
+        DROP // channel 이 unwritable 이라서 버린 TS 패킷 (seq, size)
+    }
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final PacingStats.ResetReason[] RESET_REASONS = PacingStats.ResetReason.values();
+    private static final int ENTRY_LONGS = 4;
+    private static final long NO_PCR = -1;
+    private static final long DUMP_MIN_INTERVAL_NANOS = 1000000000L; // 오류로 인한 dump 는 1 초에 한 번만
+
+    private final String sessionId;
+    private final long[] entries; // 크기가 0 이면 ring 을 사용하지 않음
+    private final int mask;
+    private final long summaryIntervalNanos; // 0 이면 요약 로그를 남기지 않음
+
+    // 기록한 event 개수 (전송 스레드에서만 증가, 값을 쓴 후 증가시키므로 dump 에서 어디까지 유효한지 판단할 수 있다.)
+    private volatile long writeCount = 0;
+
+    // 요약 구간 (전송 스레드에서만 접근)
+    private long windowStartTime = 0;
+    private long windowPackets = 0;
+    private long windowBytes = 0;
+    private long windowPcrs = 0;
+    private long windowMaxSleepNanos = 0;
+    private long windowResets = 0;
+    private long windowDrops = 0;
+
+    private volatile long lastDumpTime = 0;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public StreamTrace(String sessionId, int size, long summaryIntervalMs)
+     * @brief StreamTrace 생성자 함수
+     * @param sessionId 로그에 출력할 session id
+     * @param size 보관할 event 개수 (2 의 거듭제곱으로 올림, 0 이면 ring 을 사용하지 않음)
+     * @param summaryIntervalMs 요약 로그 주기 (0 이면 남기지 않음, debug 로그로 출력)
+     */
+    public StreamTrace(String sessionId, int size, long summaryIntervalMs) {
+        this.sessionId = sessionId;
+
+        int capacity = 0;
+        if (size > 0) {
+            capacity = Integer.highestOneBit(size);
+            if (capacity < size) {
+                capacity <<= 1;
+            }
+        }
+        this.entries = new long[capacity * ENTRY_LONGS];
+        this.mask = capacity - 1;
+        this.summaryIntervalNanos = summaryIntervalMs * 1000000L;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void recordPacket(int seqNum, int size, long pcr, long sleepNanos)
+     * @brief TS 패킷 한 개를 보낸 것을 기록하는 함수 (전송 스레드에서 패킷마다 호출)
+     * @param seqNum RTP sequence number
+     * @param size RTP payload 크기
+     * @param pcr PCR 값 (27MHz, 없으면 -1)
+     * @param sleepNanos PCR pacing 으로 계산한 대기 시간 (음수면 늦음)
+     */
+    public void recordPacket(int seqNum, int size, long pcr, long sleepNanos) {
+        long now = System.nanoTime();
+        put(now, EventType.PACKET, seqNum, size, pcr, sleepNanos);
+
+        if (summaryIntervalNanos <= 0) {
+            return;
+        }
+
+        windowPackets++;
+        windowBytes += size;
+        if (pcr != NO_PCR) {
+            windowPcrs++;
+        }
+        if (sleepNanos > windowMaxSleepNanos) {
+            windowMaxSleepNanos = sleepNanos;
+        }
+
+        if (windowStartTime == 0) {
+            windowStartTime = now;
+        } else if (now - windowStartTime >= summaryIntervalNanos) {
+            logSummary(now);
+        }
+    }
+
+    /**
+     * @fn public void recordSegment(int index, long fileSize)
+     * @brief TS 파일 한 개의 전송을 시작한 것을 기록하는 함수
+     */
+    public void recordSegment(int index, long fileSize) {
+        put(System.nanoTime(), EventType.SEGMENT, 0, index, NO_PCR, fileSize);
+    }
+
+    /**
+     * @fn public void recordReset(PacingStats.ResetReason reason)
+     * @brief PCR 기준을 다시 잡은 것을 기록하는 함수
+     */
+    public void recordReset(PacingStats.ResetReason reason) {
+        put(System.nanoTime(), EventType.RESET, 0, reason.ordinal(), NO_PCR, 0);
+        windowResets++;
+    }
+
+    /**
+     * @fn public void recordDrop(int seqNum, int size)
+     * @brief channel 이 unwritable 이라서 TS 패킷 한 개를 버린 것을 기록하는 함수
+     */
+    public void recordDrop(int seqNum, int size) {
+        put(System.nanoTime(), EventType.DROP, seqNum, size, NO_PCR, 0);
+        windowDrops++;
+    }
+
+    private void put(long time, EventType type, int seqNum, int value, long pcr, long extra) {
+        if (entries.length == 0) {
+            return;
+        }
+
+        long index = writeCount;
+        int offset = (int) (index & mask) * ENTRY_LONGS;
+        entries[offset] = time;
+        entries[offset + 1] = ((long) type.ordinal() << 48) | ((long) (seqNum & 0xffff) << 32) | (value & 0xffffffffL);
+        entries[offset + 2] = pcr;
+        entries[offset + 3] = extra;
+        writeCount = index + 1;
+    }
+
+    private void logSummary(long now) {
+        long elapsedNanos = now - windowStartTime;
+        logger.debug("({}) [TRACE] packets={}, bytes={}, bps={}, pcrs={}, maxSleepUs={}, resets={}, drops={}, elapsedMs={}",
+                sessionId, windowPackets, windowBytes, windowBytes * 8 * 1000000000L / elapsedNanos,
+                windowPcrs, windowMaxSleepNanos / 1000, windowResets, windowDrops, elapsedNanos / 1000000
+        );
+
+        windowStartTime = now;
+        windowPackets = 0;
+        windowBytes = 0;
+        windowPcrs = 0;
+        windowMaxSleepNanos = 0;
+        windowResets = 0;
+        windowDrops = 0;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void dumpToLog(String reason)
+     * @brief 최근 event 를 warn 로그로 남기는 함수 (오류가 발생했을 때 호출, 1 초에 한 번만 출력)
+     * @param reason dump 원인
+     */
+    public void dumpToLog(String reason) {
+        if (entries.length == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long prevDumpTime = lastDumpTime;
+        if (prevDumpTime != 0 && now - prevDumpTime < DUMP_MIN_INTERVAL_NANOS) {
+            return;
+        }
+        lastDumpTime = now;
+
+        StringBuilder builder = new StringBuilder();
+        dump(builder);
+        logger.warn("({}) [TRACE] Dump by {}\n{}", sessionId, reason, builder);
+    }
+
+    /**
+     * @fn public void dump(StringBuilder builder)
+     * @brief 최근 event 를 오래된 순서로 한 줄씩 출력하는 함수
+     * 시간은 마지막 event 기준 상대 시간(us)으로 출력한다.
+     */
+    public void dump(StringBuilder builder) {
+        int capacity = entries.length / ENTRY_LONGS;
+        long endCount = writeCount;
+        long startCount = Math.max(0, endCount - capacity);
+        int count = (int) (endCount - startCount);
+        if (count == 0) {
+            builder.append("(empty)\n");
+            return;
+        }
+
+        long[] snapshot = new long[count * ENTRY_LONGS];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(entries, (int) ((startCount + i) & mask) * ENTRY_LONGS, snapshot, i * ENTRY_LONGS, ENTRY_LONGS);
+        }
+
+        // 복사하는 동안 전송 스레드가 덮어쓴 event 는 버린다. (쓰는 중인 칸 포함)
+        long validCount = Math.max(startCount, writeCount - capacity + 1);
+        int skip = (int) Math.min(count, validCount - startCount);
+        if (skip >= count) {
+            builder.append("(overwritten)\n");
+            return;
+        }
+
+        long lastTime = snapshot[(count - 1) * ENTRY_LONGS];
+        for (int i = skip; i < count; i++) {
+            int offset = i * ENTRY_LONGS;
+            long packed = snapshot[offset + 1];
+            int typeIndex = (int) (packed >>> 48);
+            int seqNum = (int) (packed >>> 32) & 0xffff;
+            int value = (int) packed;
+            long pcr = snapshot[offset + 2];
+            long extra = snapshot[offset + 3];
+
+            builder.append(String.format("%+10dus ", (snapshot[offset] - lastTime) / 1000));
+            if (typeIndex >= EVENT_TYPES.length) {
+                builder.append("?\n");
+                continue;
+            }
+
+            EventType type = EVENT_TYPES[typeIndex];
+            builder.append(type);
+            switch (type) {
+                case PACKET:
+                    builder.append(" seq=").append(seqNum).append(" size=").append(value);
+                    if (pcr != NO_PCR) {
+                        builder.append(" pcr=").append(pcr).append(" sleepUs=").append(extra / 1000);
+                    }
+                    break;
+                case SEGMENT:
+                    builder.append(" index=").append(value).append(" size=").append(extra);
+                    break;
+                case DROP:
+                    builder.append(" seq=").append(seqNum).append(" size=").append(value);
+                    break;
+                case RESET:
+                    builder.append(" reason=").append(value >= 0 && value < RESET_REASONS.length ? RESET_REASONS[value].name() : String.valueOf(value));
+                    break;
+                default:
+                    break;
+            }
+            builder.append('\n');
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public int getCapacity() {
+        return entries.length / ENTRY_LONGS;
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("StreamTrace{sessionId=").append(sessionId)
+                .append(", capacity=").append(getCapacity())
+                .append(", writeCount=").append(writeCount)
+                .append("}\n");
+        dump(builder);
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,210 @@
+package rtsp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
+import rtsp.ffmpeg.TitleCatalog;
+import rtsp.ffmpeg.TitleInfo;
+import rtsp.service.metrics.RtspMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class AdmissionController
+ * @brief 새 session 을 받아도 되는지 판단하는 클래스 (RtspChannelHandler 의 SETUP, PLAY 에서 호출)
+ * SETUP 에서 title metadata 로 계산한 bitrate 를 session 마다 예약하고, Streamer 가 종료될 때 반환한다.
+ * - session 수, 예약한 bitrate 합이 [NETWORK] 의 limit 을 넘으면 거절한다. (bitrate 는 453, session 수는 503)
+ * - 최근 PCR pacing 평균 지연이 limit 을 넘거나 HealthSampler 가 과부하로 판단하면 새 session 과 새 재생을 거절한다. (503)
+ * 이미 재생 중인 session 의 품질을 지키기 위해 PAUSE 후 다시 PLAY 하는 경우는 거절하지 않는다.
+ */
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    public enum Decision {
+        ADMITTED, SESSION_LIMIT, BANDWIDTH_LIMIT, PACING_LATENESS, OVERLOAD;
+
+        public boolean isAdmitted() {
+            return this == ADMITTED;
+        }
+    }
+
+    // MP4 > MPEG-TS 변환(PES, TS header, PSI) 과 RTP/UDP/IP header 로 늘어나는 비율 (추정치)
+    private static final double TRANSPORT_OVERHEAD = 1.1;
+
+    private static final AdmissionController admissionController = new AdmissionController();
+
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    private final Map<String, Long> reservationMap = new HashMap<>(); // key: session id, value: 예약한 bitrate (bps)
+    private long committedBitRate = 0; // bps, admissionLock 안에서만 변경
+
+    private final int maxSessions;
+    private final long maxBitRate;
+    private final long defaultBitRate;
+    private final long pacingLatenessLimitNanos;
+    private final boolean isLoadShedding;
+    private final int retryAfter;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private AdmissionController() {
+        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+        this.maxSessions = configManager.getAdmissionMaxSessions();
+        this.maxBitRate = configManager.getAdmissionMaxBitRate();
+        this.defaultBitRate = configManager.getAdmissionDefaultBitRate();
+        this.pacingLatenessLimitNanos = configManager.getAdmissionPacingLatenessLimit() * 1000000L;
+        this.isLoadShedding = configManager.isAdmissionLoadShedding();
+        this.retryAfter = configManager.getAdmissionRetryAfter();
+    }
+
+    public static AdmissionController getInstance() {
+        return admissionController;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public Decision admitSession(String sessionId, String mp4FilePath)
+     * @brief SETUP 요청을 받을지 판단하고, 받으면 title 의 bitrate 를 예약하는 함수
+     * 같은 session 이 다시 SETUP 하면 예약한 bitrate 를 새 title 기준으로 바꾼다.
+     * @param sessionId Streamer session id
+     * @param mp4FilePath 재생할 MP4 파일 경로 (metadata 가 cache 에 없으면 기본 bitrate 사용)
+     * @return 판단 결과
+     */
+    public Decision admitSession(String sessionId, String mp4FilePath) {
+        long bitRate = getSessionBitRate(mp4FilePath);
+
+        admissionLock.lock();
+        try {
+            Long prevBitRate = reservationMap.get(sessionId);
+            if (prevBitRate == null) {
+                if (maxSessions > 0 && reservationMap.size() >= maxSessions) {
+                    return reject(sessionId, Decision.SESSION_LIMIT);
+                }
+
+                Decision loadDecision = checkLoad();
+                if (!loadDecision.isAdmitted()) {
+                    return reject(sessionId, loadDecision);
+                }
+            }
+
+            long otherBitRate = committedBitRate - (prevBitRate == null ? 0 : prevBitRate);
+            if (maxBitRate > 0 && otherBitRate + bitRate > maxBitRate) {
+                return reject(sessionId, Decision.BANDWIDTH_LIMIT);
+            }
+
+            reservationMap.put(sessionId, bitRate);
+            committedBitRate = otherBitRate + bitRate;
+            logger.debug("({}) Session is admitted. (bitRate={}, committedBitRate={}, sessions={})", sessionId, bitRate, committedBitRate, reservationMap.size());
+            return Decision.ADMITTED;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * @fn public Decision admitPlay(String sessionId, boolean isResume)
+     * @brief PLAY 요청을 받을지 판단하는 함수 (bitrate 는 SETUP 에서 이미 예약함)
+     * @param isResume PAUSE 상태에서 다시 재생하는지 여부 (true 면 항상 받음)
+     * @return 판단 결과
+     */
+    public Decision admitPlay(String sessionId, boolean isResume) {
+        if (isResume) {
+            return Decision.ADMITTED;
+        }
+
+        Decision loadDecision = checkLoad();
+        if (!loadDecision.isAdmitted()) {
+            return reject(sessionId, loadDecision);
+        }
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * @fn public void release(String sessionId)
+     * @brief session 이 예약한 bitrate 를 반환하는 함수 (Streamer 가 종료될 때 호출, 예약이 없으면 무시)
+     */
+    public void release(String sessionId) {
+        admissionLock.lock();
+        try {
+            Long bitRate = reservationMap.remove(sessionId);
+            if (bitRate != null) {
+                committedBitRate -= bitRate;
+                logger.debug("({}) Session admission is released. (bitRate={}, committedBitRate={}, sessions={})", sessionId, bitRate, committedBitRate, reservationMap.size());
+            }
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private Decision checkLoad() {
+        HealthSampler healthSampler = HealthSampler.getInstance();
+        if (pacingLatenessLimitNanos > 0 && healthSampler.getPacingLatenessNanos() > pacingLatenessLimitNanos) {
+            return Decision.PACING_LATENESS;
+        }
+        if (isLoadShedding && healthSampler.isOverloaded()) {
+            return Decision.OVERLOAD;
+        }
+        return Decision.ADMITTED;
+    }
+
+    private Decision reject(String sessionId, Decision decision) {
+        HealthSampler healthSampler = HealthSampler.getInstance();
+        logger.warn("({}) Session is rejected. (reason={}, committedBitRate={}, sessions={}, pacingLatenessMs={}, loadFactor={}({}))",
+                sessionId, decision, committedBitRate, reservationMap.size(),
+                healthSampler.getPacingLatenessNanos() / 1000000,
+                String.format("%.2f", healthSampler.getLoadFactor()), healthSampler.getLoadReason()
+        );
+        RtspMetrics.recordAdmissionReject(decision);
+        return decision;
+    }
+
+    /**
+     * @fn private long getSessionBitRate(String mp4FilePath)
+     * @brief title metadata 의 평균 bitrate 에 전송 overhead 를 더한 값을 반환하는 함수
+     * Netty I/O 스레드에서 호출되므로 파일을 읽지 않고 TitleCatalog cache 만 확인한다.
+     */
+    private long getSessionBitRate(String mp4FilePath) {
+        TitleInfo titleInfo = TitleCatalog.getInstance().peekTitleInfo(mp4FilePath);
+        long bitRate = titleInfo == null ? 0 : titleInfo.getBitRate();
+        if (bitRate <= 0) {
+            return defaultBitRate;
+        }
+        return (long) (bitRate * TRANSPORT_OVERHEAD);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return 예약된 bitrate 합 (bps)
+     */
+    public long getCommittedBitRate() {
+        admissionLock.lock();
+        try {
+            return committedBitRate;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    public int getSessionCount() {
+        admissionLock.lock();
+        try {
+            return reservationMap.size();
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * @return 503 응답의 Retry-After 값 (sec)
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+}
@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import rtsp.module.RtspManager;
 import rtsp.module.netty.NettyChannelManager;
 import rtsp.service.scheduler.job.Job;
+import rtsp.service.scheduler.schedule.unit.ScheduleUnit;
 import rtsp.system.SystemManager;
 
 import java.util.concurrent.TimeUnit;
@@ -35,10 +36,26 @@ public class HaHandler extends Job {
         String cpuUsageStr = systemManager.getCpuUsage();
         String memoryUsageStr = systemManager.getHeapMemoryUsage();
 
-        logger.debug("| cpu=[{}], mem=[{}], thread=[{}] | RtspUnitCount=[{}]",
+        ResourceManager resourceManager = ResourceManager.getInstance();
+        resourceManager.checkLeakedPorts(System.currentTimeMillis());
+
+        logger.debug("| cpu=[{}], mem=[{}], thread=[{}] | RtspUnitCount=[{}] | RtpPort=[{}/{}]",
                 cpuUsageStr, memoryUsageStr, Thread.activeCount(),
-                RtspManager.getInstance().getRtspUnitMapSize()
+                RtspManager.getInstance().getRtspUnitMapSize(),
+                resourceManager.getUsedPortCount(), resourceManager.getUsedPortCount() + resourceManager.getFreePortCount()
         );
+
+        // HealthSampler 전용 스레드가 마지막으로 측정한 값 (sample 은 MAIN ScheduleUnit 에서 하지 않는다.)
+        HealthSampler healthSampler = HealthSampler.getInstance();
+        HealthSample healthSample = healthSampler.getLastSample();
+        if (healthSample != null && logger.isDebugEnabled()) {
+            logger.debug("| {} | load=[{}({})]", healthSample, String.format("%.2f", healthSampler.getLoadFactor()), healthSampler.getLoadReason());
+        }
+
+        ScheduleUnit scheduleUnit = ServiceManager.getInstance().getScheduleManager().getScheduleUnit(ServiceManager.MAIN_SCHEDULE_JOB);
+        if (scheduleUnit != null && scheduleUnit.getJobScheduler().getLatenessStats().getTotalMissCount() > 0) {
+            logger.debug("| JobLateness({}) {}", scheduleUnit.getJobScheduler().getPolicy(), scheduleUnit.getJobScheduler().getLatenessStats());
+        }
     }
 
 }
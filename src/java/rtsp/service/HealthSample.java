@@ -0,0 +1,112 @@
+package rtsp.service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @class public class HealthSample
+ * @brief HealthSampler 가 한 번 측정한 서버 상태 (생성 후 바뀌지 않음)
+ */
+public class HealthSample {
+
+    private final long sampleTime; // System.nanoTime
+    private final double processCpuLoad; // 0 ~ 1, 알 수 없으면 음수
+    private final long heapUsedBytes;
+    private final int threadCount;
+    private final long eventLoopLagNanos; // 모든 event loop 중 최대 지연
+    private final Map<String, Long> eventLoopLagNanosMap; // key: event loop group 이름, value: 그룹 내 최대 지연
+    private final long directMemoryUsedBytes; // pooled allocator
+    private final long gcPauseNanos; // 이전 sample 이후 GC 수행 시간
+    private final long gcCount; // 이전 sample 이후 GC 횟수
+    private final long openFileDescriptorCount; // 알 수 없으면 -1
+    private final long egressBitsPerSecond; // 이전 sample 이후 RTP 전송량
+    private final long pacingLatenessNanos; // 이전 sample 이후 PCR pacing 평균 지연 (일찍 보낸 경우는 0)
+    private final Map<String, Integer> sessionCountMap; // key: RtspState, value: session 개수
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public HealthSample(long sampleTime, double processCpuLoad, long heapUsedBytes, int threadCount,
+                        long eventLoopLagNanos, Map<String, Long> eventLoopLagNanosMap,
+                        long directMemoryUsedBytes, long gcPauseNanos, long gcCount,
+                        long openFileDescriptorCount, long egressBitsPerSecond, long pacingLatenessNanos,
+                        Map<String, Integer> sessionCountMap) {
+        this.sampleTime = sampleTime;
+        this.processCpuLoad = processCpuLoad;
+        this.heapUsedBytes = heapUsedBytes;
+        this.threadCount = threadCount;
+        this.eventLoopLagNanos = eventLoopLagNanos;
+        this.eventLoopLagNanosMap = Collections.unmodifiableMap(eventLoopLagNanosMap);
+        this.directMemoryUsedBytes = directMemoryUsedBytes;
+        this.gcPauseNanos = gcPauseNanos;
+        this.gcCount = gcCount;
+        this.openFileDescriptorCount = openFileDescriptorCount;
+        this.egressBitsPerSecond = egressBitsPerSecond;
+        this.pacingLatenessNanos = pacingLatenessNanos;
+        this.sessionCountMap = Collections.unmodifiableMap(sessionCountMap);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public long getSampleTime() {
+        return sampleTime;
+    }
+
+    public double getProcessCpuLoad() {
+        return processCpuLoad;
+    }
+
+    public long getHeapUsedBytes() {
+        return heapUsedBytes;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public long getEventLoopLagNanos() {
+        return eventLoopLagNanos;
+    }
+
+    public Map<String, Long> getEventLoopLagNanosMap() {
+        return eventLoopLagNanosMap;
+    }
+
+    public long getDirectMemoryUsedBytes() {
+        return directMemoryUsedBytes;
+    }
+
+    public long getGcPauseNanos() {
+        return gcPauseNanos;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getOpenFileDescriptorCount() {
+        return openFileDescriptorCount;
+    }
+
+    public long getEgressBitsPerSecond() {
+        return egressBitsPerSecond;
+    }
+
+    public long getPacingLatenessNanos() {
+        return pacingLatenessNanos;
+    }
+
+    public Map<String, Integer> getSessionCountMap() {
+        return sessionCountMap;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cpu=[%.2f], heap=[%.2fMB], thread=[%d], lag=[%.2fms], direct=[%.2fMB], gc=[%dms/%d], fd=[%d], egress=[%.2fMbps], pacing=[%.2fms], sessions=%s",
+                processCpuLoad * 100, (double) heapUsedBytes / 1024 / 1024, threadCount,
+                (double) eventLoopLagNanos / 1000000, (double) directMemoryUsedBytes / 1024 / 1024,
+                gcPauseNanos / 1000000, gcCount, openFileDescriptorCount,
+                (double) egressBitsPerSecond / 1000000, (double) pacingLatenessNanos / 1000000, sessionCountMap
+        );
+    }
+
+}
@@ -0,0 +1,407 @@
+package rtsp.service;
+
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rtsp.config.ConfigManager;
+import rtsp.module.RtspManager;
+import rtsp.service.metrics.RtspMetrics;
+import rtsp.system.SystemManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class HealthSampler
+ * @brief 서버 상태를 주기적으로 측정하고 최근 sample 들로 부하 정도(load factor)를 계산하는 클래스
+ * start() 로 시작한 전용 스레드에서 주기마다 sample() 을 호출한다.
+ * (MAIN ScheduleUnit 의 executor 는 전송 중인 RtpSender 가 계속 점유할 수 있으므로, 부하가 높을 때도 sample 이 밀리지 않도록 따로 실행한다.)
+ * event loop 지연은 등록된 event loop 마다 probe task 를 넣고, 실행될 때까지 걸린 시간으로 측정한다.
+ * (probe 는 loop 마다 한 개씩 재사용하고, 이전 probe 가 아직 실행되지 않았으면 대기 중인 시간을 지연으로 본다.)
+ * 등록된 channel 이 없는 loop 는 probe 하지 않는다. (아직 시작하지 않은 loop 의 스레드를 시작시키지 않기 위함)
+ * load factor 는 각 항목을 [HEALTH] 의 limit 으로 나눈 값 중 가장 큰 값이고, 1 이상이면 과부하로 판단한다.
+ */
+public class HealthSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthSampler.class);
+
+    public enum LoadReason {
+        NONE, CPU, EVENT_LOOP_LAG, DIRECT_MEMORY, FILE_DESCRIPTOR, EGRESS
+    }
+
+    private static final HealthSampler healthSampler = new HealthSampler();
+
+    private final SystemManager systemManager = SystemManager.getInstance();
+
+    // key: event loop, value: 지연 측정용 probe (loop 가 종료되면 sample 할 때 제거)
+    private final Map<EventExecutor, LagProbe> lagProbeMap = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sampleScheduler = null;
+
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private final HealthSample[] window;
+    private int windowIndex = 0;
+    private int windowCount = 0;
+
+    private final long eventLoopLagLimitNanos;
+    private final double cpuLimit;
+    private final long directMemoryLimit;
+    private final long egressLimit;
+
+    // 이전 sample 의 누적 값 (sampleLock 안에서만 접근)
+    private long prevSampleTime = 0;
+    private long prevGcTimeMillis = 0;
+    private long prevGcCount = 0;
+    private long prevSentBytes = 0;
+    private long prevPacingErrorSum = 0;
+    private long prevPacingErrorCount = 0;
+
+    private volatile HealthSample lastSample = null;
+    private volatile double loadFactor = 0;
+    private volatile LoadReason loadReason = LoadReason.NONE;
+    private volatile long pacingLatenessNanos = 0;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private HealthSampler() {
+        ConfigManager configManager = AppInstance.getInstance().getConfigManager();
+        this.window = new HealthSample[configManager.getHealthWindowSize()];
+        this.eventLoopLagLimitNanos = configManager.getHealthEventLoopLagLimit() * 1000000L;
+        this.cpuLimit = configManager.getHealthCpuLimit() / 100.0;
+        this.directMemoryLimit = configManager.getHealthDirectMemoryLimit() > 0 ?
+                configManager.getHealthDirectMemoryLimit() : systemManager.getMaxDirectMemory();
+        this.egressLimit = configManager.getHealthEgressLimit();
+    }
+
+    public static HealthSampler getInstance() {
+        return healthSampler;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void addEventLoopGroup(String name, EventExecutorGroup group)
+     * @brief 지연을 측정할 event loop group 을 등록하는 함수 (group 이 종료되면 자동으로 제외된다.)
+     * @param name metric, log 에 사용할 group 이름 (ex. rtsp, rtcp, streamer)
+     */
+    public void addEventLoopGroup(String name, EventExecutorGroup group) {
+        for (EventExecutor eventExecutor : group) {
+            lagProbeMap.putIfAbsent(eventExecutor, new LagProbe(name, eventExecutor));
+        }
+    }
+
+    public int getEventLoopCount() {
+        return lagProbeMap.size();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void start(long interval)
+     * @brief 전용 스레드에서 주기적으로 sample 을 시작하는 함수
+     * @param interval sample 간격 (ms)
+     */
+    public void start(long interval) {
+        sampleLock.lock();
+        try {
+            if (sampleScheduler != null) {
+                return;
+            }
+
+            sampleScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new BasicThreadFactory.Builder()
+                            .namingPattern("HealthSampler")
+                            .daemon(true)
+                            .build()
+            );
+            // sample() 은 예외를 밖으로 던지지 않으므로 다음 sample 이 취소되지 않는다.
+            sampleScheduler.scheduleAtFixedRate(this::sample, 0, interval, TimeUnit.MILLISECONDS);
+            logger.debug("HealthSampler is started. (interval={}ms, windowSize={})", interval, window.length);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    public void stop() {
+        sampleLock.lock();
+        try {
+            if (sampleScheduler == null) {
+                return;
+            }
+
+            sampleScheduler.shutdownNow();
+            sampleScheduler = null;
+            logger.debug("HealthSampler is stopped.");
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public HealthSample sample()
+     * @brief 서버 상태를 측정해서 window 에 추가하고 load factor 를 다시 계산하는 함수
+     * @return 측정한 sample
+     */
+    public HealthSample sample() {
+        sampleLock.lock();
+        try {
+            long now = System.nanoTime();
+
+            ///////////////////////////////////////////////////////////////////////////
+            // EVENT LOOP LAG
+            long maxLagNanos = 0;
+            Map<String, Long> lagNanosMap = new TreeMap<>();
+            Iterator<LagProbe> iterator = lagProbeMap.values().iterator();
+            while (iterator.hasNext()) {
+                LagProbe lagProbe = iterator.next();
+                if (lagProbe.eventExecutor.isShuttingDown()) {
+                    iterator.remove();
+                    continue;
+                }
+                if (lagProbe.isIdle()) {
+                    continue;
+                }
+
+                long lagNanos = lagProbe.probe(now);
+                if (lagNanos < 0) {
+                    iterator.remove();
+                    continue;
+                }
+                maxLagNanos = Math.max(maxLagNanos, lagNanos);
+                lagNanosMap.merge(lagProbe.groupName, lagNanos, Math::max);
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // GC, EGRESS, PACING (이전 sample 이후 변화량)
+            long gcTimeMillis = systemManager.getGcTimeMillis();
+            long gcCount = systemManager.getGcCount();
+            long sentBytes = RtspMetrics.RTP_SENT_BYTES.get();
+            long egressBitsPerSecond = 0;
+            if (prevSampleTime != 0 && now > prevSampleTime) {
+                egressBitsPerSecond = (sentBytes - prevSentBytes) * 8 * 1000000000L / (now - prevSampleTime);
+            }
+            long gcPauseNanos = prevSampleTime == 0 ? 0 : (gcTimeMillis - prevGcTimeMillis) * 1000000L;
+            long gcCountDelta = prevSampleTime == 0 ? 0 : gcCount - prevGcCount;
+            long pacingErrorSum = RtspMetrics.PACING_ERROR.getSum();
+            long pacingErrorCount = RtspMetrics.PACING_ERROR.getCount();
+            long pacingLatenessNanos = 0;
+            if (prevSampleTime != 0 && pacingErrorCount > prevPacingErrorCount) {
+                pacingLatenessNanos = (pacingErrorSum - prevPacingErrorSum) * 1000 / (pacingErrorCount - prevPacingErrorCount);
+            }
+            prevSampleTime = now;
+            prevGcTimeMillis = gcTimeMillis;
+            prevGcCount = gcCount;
+            prevSentBytes = sentBytes;
+            prevPacingErrorSum = pacingErrorSum;
+            prevPacingErrorCount = pacingErrorCount;
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // SESSIONS PER STATE
+            Map<String, Integer> sessionCountMap = new HashMap<>();
+            RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                String curState = rtspUnit.getStateManager().getStateUnit(rtspUnit.getRtspStateUnitId()).getCurState();
+                sessionCountMap.merge(curState, 1, Integer::sum);
+            });
+            ///////////////////////////////////////////////////////////////////////////
+
+            HealthSample healthSample = new HealthSample(
+                    now, systemManager.getProcessCpuLoad(), systemManager.getHeapUsedBytes(), systemManager.getThreadCount(),
+                    maxLagNanos, lagNanosMap,
+                    systemManager.getPooledDirectMemoryUsed(), gcPauseNanos, gcCountDelta,
+                    systemManager.getOpenFileDescriptorCount(), egressBitsPerSecond, pacingLatenessNanos, sessionCountMap
+            );
+
+            window[windowIndex] = healthSample;
+            windowIndex = (windowIndex + 1) % window.length;
+            if (windowCount < window.length) {
+                windowCount++;
+            }
+            lastSample = healthSample;
+
+            updateLoad(healthSample);
+            return healthSample;
+        } catch (Exception e) {
+            logger.warn("Fail to sample the server health.", e);
+            return null;
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /**
+     * @fn private void updateLoad(HealthSample healthSample)
+     * @brief window 평균(CPU, event loop 지연, egress)과 현재 값(direct memory, fd)으로 load factor 를 계산하는 함수
+     */
+    private void updateLoad(HealthSample healthSample) {
+        double cpuSum = 0;
+        int cpuCount = 0;
+        long lagSum = 0;
+        long egressSum = 0;
+        long pacingLatenessSum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            HealthSample sample = window[i];
+            if (sample.getProcessCpuLoad() >= 0) {
+                cpuSum += sample.getProcessCpuLoad();
+                cpuCount++;
+            }
+            lagSum += sample.getEventLoopLagNanos();
+            egressSum += sample.getEgressBitsPerSecond();
+            pacingLatenessSum += sample.getPacingLatenessNanos();
+        }
+        pacingLatenessNanos = pacingLatenessSum / windowCount;
+
+        double curLoadFactor = 0;
+        LoadReason curLoadReason = LoadReason.NONE;
+
+        double cpuRatio = cpuCount == 0 ? 0 : (cpuSum / cpuCount) / cpuLimit;
+        if (cpuRatio > curLoadFactor) {
+            curLoadFactor = cpuRatio;
+            curLoadReason = LoadReason.CPU;
+        }
+
+        double lagRatio = (double) (lagSum / windowCount) / eventLoopLagLimitNanos;
+        if (lagRatio > curLoadFactor) {
+            curLoadFactor = lagRatio;
+            curLoadReason = LoadReason.EVENT_LOOP_LAG;
+        }
+
+        if (directMemoryLimit > 0) {
+            double directMemoryRatio = (double) healthSample.getDirectMemoryUsedBytes() / directMemoryLimit;
+            if (directMemoryRatio > curLoadFactor) {
+                curLoadFactor = directMemoryRatio;
+                curLoadReason = LoadReason.DIRECT_MEMORY;
+            }
+        }
+
+        long maxFileDescriptorCount = systemManager.getMaxFileDescriptorCount();
+        if (healthSample.getOpenFileDescriptorCount() >= 0 && maxFileDescriptorCount > 0) {
+            double fdRatio = (double) healthSample.getOpenFileDescriptorCount() / maxFileDescriptorCount;
+            if (fdRatio > curLoadFactor) {
+                curLoadFactor = fdRatio;
+                curLoadReason = LoadReason.FILE_DESCRIPTOR;
+            }
+        }
+
+        if (egressLimit > 0) {
+            double egressRatio = (double) (egressSum / windowCount) / egressLimit;
+            if (egressRatio > curLoadFactor) {
+                curLoadFactor = egressRatio;
+                curLoadReason = LoadReason.EGRESS;
+            }
+        }
+
+        if (curLoadFactor >= 1 && loadFactor < 1) {
+            logger.warn("Server is overloaded. (loadFactor={}, reason={}, sample={})", String.format("%.2f", curLoadFactor), curLoadReason, healthSample);
+        } else if (curLoadFactor < 1 && loadFactor >= 1) {
+            logger.warn("Server is recovered from overload. (loadFactor={})", String.format("%.2f", curLoadFactor));
+        }
+
+        loadReason = curLoadReason;
+        loadFactor = curLoadFactor;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return 최근 window 기준 부하 정도 (0 이상, 1 이상이면 과부하)
+     */
+    public double getLoadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * @return load factor 를 결정한 항목
+     */
+    public LoadReason getLoadReason() {
+        return loadReason;
+    }
+
+    /**
+     * @return 최근 window 의 PCR pacing 평균 지연 (ns, load factor 에는 포함하지 않고 AdmissionController 가 사용)
+     */
+    public long getPacingLatenessNanos() {
+        return pacingLatenessNanos;
+    }
+
+    public boolean isOverloaded() {
+        return loadFactor >= 1;
+    }
+
+    /**
+     * @return 마지막 sample (아직 측정하지 않았으면 null)
+     */
+    public HealthSample getLastSample() {
+        return lastSample;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @class private static class LagProbe implements Runnable
+     * @brief event loop 한 개의 scheduling 지연을 측정하는 task (loop 마다 한 개를 재사용)
+     */
+    private static class LagProbe implements Runnable {
+
+        private final String groupName;
+        private final EventExecutor eventExecutor;
+
+        private volatile long submitTime = 0;
+        private volatile boolean isPending = false;
+        private volatile long lastLagNanos = 0;
+
+        private LagProbe(String groupName, EventExecutor eventExecutor) {
+            this.groupName = groupName;
+            this.eventExecutor = eventExecutor;
+        }
+
+        private boolean isIdle() {
+            return !isPending
+                    && eventExecutor instanceof SingleThreadEventLoop
+                    && ((SingleThreadEventLoop) eventExecutor).registeredChannels() == 0;
+        }
+
+        @Override
+        public void run() {
+            lastLagNanos = System.nanoTime() - submitTime;
+            isPending = false;
+        }
+
+        /**
+         * @fn private long probe(long now)
+         * @brief 이전 probe 의 지연을 반환하고 새 probe 를 넣는 함수
+         * @return 지연 (ns, 이전 probe 가 아직 실행되지 않았으면 대기 중인 시간), loop 가 종료되었으면 -1
+         */
+        private long probe(long now) {
+            if (isPending) {
+                return now - submitTime;
+            }
+
+            long lagNanos = lastLagNanos;
+            submitTime = now;
+            isPending = true;
+            try {
+                eventExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                return -1;
+            }
+            return lagNanos;
+        }
+
+    }
+
+}
@@ -3,46 +3,34 @@ package rtsp.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rtsp.module.RtspManager;
-import rtsp.module.base.RtspUnit;
+import rtsp.service.base.SessionExpiryWheel;
 import rtsp.service.scheduler.job.Job;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class LongSessionRemover extends Job {
 
     private static final Logger logger = LoggerFactory.getLogger(LongSessionRemover.class);
     
-    private final long limitTime;
-
     public LongSessionRemover(String name, int initialDelay, int interval, TimeUnit timeUnit, int priority, int totalRunCount, boolean isLasted) {
         super(name, initialDelay, interval, timeUnit, priority, totalRunCount, isLasted);
-
-        limitTime = AppInstance.getInstance().getConfigManager().getLocalSessionLimitTime();
     }
 
+    /**
+     * @fn public void run()
+     * @brief 만료 시간이 지난 RtspUnit 만 닫는 함수
+     * Idle 만료 시간은 keep-alive(OPTIONS, GET_PARAMETER, RTCP RR, 재등록) 수신 시와 RTP 전송 중에 연장되고,
+     * 최대 유지 시간(LONG_SESSION_LIMIT_TIME)은 생성 시각 기준으로 고정된다.
+     */
     @Override
     public void run() {
-        HashMap<String, RtspUnit> rtspUnitMap = RtspManager.getInstance().getCloneRtspMap();
-        if (!rtspUnitMap.isEmpty()) {
-            for (Map.Entry<String, RtspUnit> entry : rtspUnitMap.entrySet()) {
-                if (entry == null) {
-                    continue;
-                }
-
-                RtspUnit rtspUnit = entry.getValue();
-                if (rtspUnit == null) {
-                    continue;
-                }
-
-                long curTime = System.currentTimeMillis();
-                if ((curTime - rtspUnit.getInitiationTime()) >= limitTime) {
-                    RtspManager.getInstance().closeRtspUnit(rtspUnit.getRtspUnitId());
-                    logger.warn("({}) REMOVED LONG SESSION(RtspUnit=\n{})", getName(), rtspUnit);
-                }
+        RtspManager.getInstance().expireRtspUnits(System.currentTimeMillis(), (rtspUnit, reason) -> {
+            if (reason == SessionExpiryWheel.ExpireReason.LIMIT) {
+                logger.warn("({}) REMOVED LONG SESSION(RtspUnit=\n{})", getName(), rtspUnit);
+            } else {
+                logger.warn("({}) REMOVED IDLE SESSION(RtspUnit=\n{})", getName(), rtspUnit);
             }
-        }
+        });
     }
     
 }
@@ -3,28 +3,35 @@ package rtsp.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rtsp.config.ConfigManager;
+import rtsp.service.base.PortAllocator;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
 
 /**
  * @class public class ResourceManager
  * @brief ResourceManager class
+ * RTP port 는 PortAllocator 에서 짝수(RTP)/홀수(RTCP) pair 단위로 관리한다.
  */
 public class ResourceManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ResourceManager.class);
 
+    private static final long LEAK_CHECK_INTERVAL = 60000; // ms
+
     private static ResourceManager resourceManager = null;
-    private final ConcurrentLinkedQueue<Integer> channelQueues;
+    private PortAllocator portAllocator = null;
 
     private int targetRtpPortMin = 0;
     private int targetRtpPortMax = 0;
     private final int portGap = 2;
 
+    private long portLeakTime = 0; // ms, 0 이면 검사 안함
+    private long lastLeakCheckTime = 0;
+
     ////////////////////////////////////////////////////////////////////////////////
 
     public ResourceManager( ) {
-        channelQueues = new ConcurrentLinkedQueue<>();
+        // Nothing
     }
 
     public static ResourceManager getInstance ( ) {
@@ -41,64 +48,124 @@ public class ResourceManager {
         ConfigManager configManager = AppInstance.getInstance().getConfigManager();
         targetRtpPortMin = configManager.getTargetRtpPortMin();
         targetRtpPortMax = configManager.getTargetRtpPortMax();
+        portLeakTime = configManager.getRtpPortLeakTime();
 
-        for (int idx = targetRtpPortMin; idx <= targetRtpPortMax; idx += portGap) {
-            try {
-                channelQueues.add(idx);
-            } catch (Exception e) {
-                logger.error("Exception to RTP port resource in Queue", e);
-                return;
-            }
-        }
+        portAllocator = new PortAllocator(
+                targetRtpPortMin,
+                targetRtpPortMax,
+                configManager.getLocalListenIp(),
+                configManager.isRtpPortProbeBind()
+        );
 
-        logger.info("Ready to RTP port resource in Queue. (port range: {} - {}, gap={})",
-                targetRtpPortMin, targetRtpPortMax, portGap
+        logger.info("Ready to RTP port resource. (port range: {} - {}, gap={}, pairs={}, probeBind={})",
+                targetRtpPortMin, targetRtpPortMax, portGap, portAllocator.getPairCount(), configManager.isRtpPortProbeBind()
         );
     }
 
     public void releaseResource () {
-        channelQueues.clear();
-        logger.info("Release RTP port resource in Queue. (port range: {} - {}, gap={})",
+        if (portAllocator != null && portAllocator.getUsedCount() > 0) {
+            logger.warn("Release RTP port resource with {} port(s) still in use.", portAllocator.getUsedCount());
+        }
+
+        portAllocator = null;
+        logger.info("Release RTP port resource. (port range: {} - {}, gap={})",
                 targetRtpPortMin, targetRtpPortMax, portGap
         );
     }
 
+    /**
+     * @fn public int takePort ()
+     * @brief RTP port 를 할당하는 함수 (RTCP port 는 RTP port + 1)
+     * @return 성공 시 RTP port, 실패 시 -1 반환
+     */
     public int takePort () {
-        if (channelQueues.isEmpty()) {
-            logger.warn("RTP port resource in Queue is empty.");
+        PortAllocator allocator = portAllocator;
+        if (allocator == null) {
+            logger.warn("RTP port resource is not initiated.");
             return -1;
         }
 
-        int port = -1;
-        try {
-            Integer value = channelQueues.poll();
-            if (value != null) {
-                port = value;
-            }
-        } catch (Exception e) {
-            logger.warn("Exception to get RTP port resource in Queue.", e);
+        int port = allocator.allocate();
+        if (port == PortAllocator.FAIL) {
+            logger.warn("RTP port resource is empty. (used={}, blocked={})", allocator.getUsedCount(), allocator.getBlockedCount());
+            return -1;
         }
 
-        logger.debug("Success to get RTP port(={}) resource in Queue.", port);
+        logger.debug("Success to get RTP port(={}) resource.", port);
         return port;
     }
 
+    /**
+     * @fn public void restorePort (int port)
+     * @brief 할당된 RTP port 를 반환하는 함수
+     * 이미 반환된 port 를 다시 반환하면 (double-free) 경고를 남기고 무시한다.
+     * @param port RTP port
+     */
     public void restorePort (int port) {
-        if (!channelQueues.contains(port)) {
-            try {
-                channelQueues.offer(port);
-            } catch (Exception e) {
-                logger.warn("Exception to restore RTP port(={}) resource in Queue.", port, e);
-            }
+        PortAllocator allocator = portAllocator;
+        if (allocator == null) {
+            return;
+        }
+
+        if (!allocator.release(port)) {
+            logger.warn("Fail to restore RTP port(={}) resource. Port is not allocated or out of range. (double-free?)", port);
         }
     }
 
+    /**
+     * @fn public void removePort (int port)
+     * @brief 특정 RTP port 를 할당 대상에서 제외하는 함수
+     * @param port RTP port
+     */
     public void removePort (int port) {
-        try {
-            channelQueues.remove(port);
-        } catch (Exception e) {
-            logger.warn("Exception to remove to RTP port(={}) resource in Queue.", port, e);
+        PortAllocator allocator = portAllocator;
+        if (allocator == null) {
+            return;
         }
+
+        if (!allocator.reserve(port)) {
+            logger.warn("Fail to remove RTP port(={}) resource. Port is in use or out of range.", port);
+        }
+    }
+
+    /**
+     * @fn public void checkLeakedPorts (long curTime)
+     * @brief RTP_PORT_LEAK_TIME 이상 반환되지 않은 RTP port 를 보고하는 함수
+     * 주기적으로 호출되며, 실제 검사는 LEAK_CHECK_INTERVAL 마다 한 번만 수행된다.
+     * @param curTime 현재 시각 (ms)
+     */
+    public void checkLeakedPorts (long curTime) {
+        PortAllocator allocator = portAllocator;
+        if (allocator == null || portLeakTime <= 0 || (curTime - lastLeakCheckTime) < LEAK_CHECK_INTERVAL) {
+            return;
+        }
+        lastLeakCheckTime = curTime;
+
+        List<Integer> leakedPorts = allocator.getLeakedPorts(curTime, portLeakTime);
+        if (!leakedPorts.isEmpty()) {
+            logger.warn("Detected {} RTP port(s) not restored for more than {} ms. (ports={})", leakedPorts.size(), portLeakTime, leakedPorts);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getUsedPortCount () {
+        PortAllocator allocator = portAllocator;
+        return (allocator == null) ? 0 : allocator.getUsedCount();
+    }
+
+    public int getFreePortCount () {
+        PortAllocator allocator = portAllocator;
+        return (allocator == null) ? 0 : allocator.getFreeCount();
+    }
+
+    /**
+     * @fn public double getPortUtilization ()
+     * @return RTP port pair 사용률 (0.0 ~ 1.0)
+     */
+    public double getPortUtilization () {
+        PortAllocator allocator = portAllocator;
+        return (allocator == null) ? 0 : allocator.getUtilization();
     }
 
 }
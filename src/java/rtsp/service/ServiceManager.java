@@ -3,12 +3,23 @@ package rtsp.service;
 import com.fsm.module.StateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import rtsp.config.ConfigManager;
+import rtsp.ffmpeg.ExternalToolExecutor;
+import rtsp.ffmpeg.TitleCatalog;
+import rtsp.ffmpeg.packaging.PackagingService;
 import rtsp.fsm.RtspEvent;
 import rtsp.fsm.RtspState;
 import rtsp.module.RtspManager;
+import rtsp.module.Streamer;
 import rtsp.module.base.RtspUnit;
 import rtsp.module.netty.NettyChannelManager;
+import rtsp.module.trace.StreamTrace;
+import rtsp.service.base.BoundedTaskExecutor;
+import rtsp.service.base.ExecutorBackend;
+import rtsp.service.metrics.MetricsHttpServer;
+import rtsp.service.metrics.MetricsRegistry;
+import rtsp.service.metrics.RtspMetrics;
 import rtsp.service.scheduler.job.Job;
 import rtsp.service.scheduler.schedule.ScheduleManager;
 
@@ -17,8 +28,13 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.nio.file.StandardOpenOption.*;
 
@@ -31,6 +47,7 @@ public class ServiceManager {
     private static final Logger logger = LoggerFactory.getLogger(ServiceManager.class);
 
     public static final String MAIN_SCHEDULE_JOB = "MAIN";
+    private static final String STREAM_TRACE_PATH = "/trace";
 
     private final String tmpdir = System.getProperty("java.io.tmpdir");
     private final File lockFile = new File(tmpdir, System.getProperty("lock_file", "urtsp_server.lock"));
@@ -40,6 +57,15 @@ public class ServiceManager {
     private static ServiceManager serviceManager = null;
     private final ScheduleManager scheduleManager = new ScheduleManager();
 
+    // PLAY 준비 작업(재생 시간 조회, M3U8 변환, segment 조회)을 Netty I/O 스레드 대신 실행
+    private BoundedTaskExecutor playPreparationExecutor = null;
+
+    // 전송 중인 session 의 다음 TS 파일을 미리 읽는 I/O 스레드
+    private ExecutorService segmentIoExecutor = null;
+
+    // Prometheus scrape endpoint ([METRICS] ENABLE=true 인 경우)
+    private MetricsHttpServer metricsHttpServer = null;
+
     private String externalClientRtspUnitId = null;
 
     private static final int DELAY = 1000;
@@ -68,7 +94,9 @@ public class ServiceManager {
         systemLock();
 
         ConfigManager configManager = rtsp.service.AppInstance.getInstance().getConfigManager();
-        if (scheduleManager.initJob(MAIN_SCHEDULE_JOB, configManager.getStreamThreadPoolSize(), configManager.getStreamThreadPoolSize() * 2)) {
+        if (scheduleManager.initJob(MAIN_SCHEDULE_JOB,
+                configManager.getStreamThreadPoolSize(), configManager.getStreamThreadPoolSize() * 2,
+                configManager.getJobSchedulingPolicy(), configManager.isJobWorkStealing(), configManager.getExecutorBackend())) {
             scheduleManager.startJob(MAIN_SCHEDULE_JOB,
                     new rtsp.service.HaHandler(rtsp.service.HaHandler.class.getSimpleName(),
                             0, DELAY, TimeUnit.MILLISECONDS,
@@ -84,6 +112,42 @@ public class ServiceManager {
             );
         }
 
+        // 서버 상태 측정은 MAIN ScheduleUnit 의 executor 가 모두 전송 중이어도 밀리지 않도록 전용 스레드에서 실행
+        HealthSampler.getInstance().start(DELAY);
+
+        playPreparationExecutor = new BoundedTaskExecutor(
+                "PlayPreparation", configManager.getExecutorBackend(),
+                configManager.getPlayPreparePoolSize(), configManager.getPlayPrepareQueueSize()
+        );
+        logger.debug("| ExecutorBackend=[{}] (virtualThreadSupported={})", configManager.getExecutorBackend().resolve(), ExecutorBackend.isVirtualThreadSupported());
+
+        segmentIoExecutor = Executors.newFixedThreadPool(
+                configManager.getSegmentIoPoolSize(),
+                new BasicThreadFactory.Builder()
+                        .namingPattern("SegmentIo-%d")
+                        .daemon(true)
+                        .build()
+        );
+
+        // Media root 의 MP4 metadata 를 미리 읽어둔다. (서비스 시작을 지연시키지 않도록 별도 스레드에서 실행)
+        String titleScanPath = configManager.getTitleScanPath();
+        if (titleScanPath != null && !titleScanPath.isEmpty()) {
+            new BasicThreadFactory.Builder()
+                    .namingPattern("TitleScan")
+                    .daemon(true)
+                    .build()
+                    .newThread(() -> {
+                        int titleCount = TitleCatalog.getInstance().scan(titleScanPath);
+                        logger.debug("| Title scan is finished. (path={}, count={})", titleScanPath, titleCount);
+                    })
+                    .start();
+        }
+
+        // Media root 의 MP4 파일을 미리 HLS 로 변환 ([PACKAGING] ENABLE=true 인 경우)
+        if (PackagingService.getInstance().start()) {
+            logger.debug("| PackagingService is started.");
+        }
+
         if (configManager.isExternalClientAccess()) {
             externalClientRtspUnitId = UUID.randomUUID().toString();
             RtspManager.getInstance().openRtspUnit(
@@ -98,6 +162,9 @@ public class ServiceManager {
                 return false;
             }
 
+            // 외부 client 접속용 RtspUnit 은 client 가 없어도 유지되어야 한다.
+            RtspManager.getInstance().disableIdleExpiry(externalClientRtspUnitId);
+
             StateHandler rtspStateHandler = rtspUnit.getStateManager().getStateHandler(RtspState.NAME);
             rtspStateHandler.fire(
                     RtspEvent.REGISTER,
@@ -108,12 +175,74 @@ public class ServiceManager {
         rtsp.service.ResourceManager.getInstance().initResource();
         NettyChannelManager.getInstance().addRegisterChannel();
 
+        if (configManager.isMetricsEnabled()) {
+            RtspMetrics.registerGauges();
+            metricsHttpServer = new MetricsHttpServer(
+                    configManager.getMetricsListenIp(),
+                    configManager.getMetricsListenPort(),
+                    MetricsRegistry.getInstance()
+            );
+            metricsHttpServer.addPath(STREAM_TRACE_PATH, this::getStreamTraceDump);
+            if (!metricsHttpServer.start()) {
+                logger.warn("Fail to start the metrics http server. Metrics are not exposed.");
+                metricsHttpServer = null;
+            }
+        }
+
         logger.debug("| All services are opened.");
         return true;
     }
 
+    /**
+     * @fn private String getStreamTraceDump(Map<String, List<String>> parameters)
+     * @brief GET /trace 요청을 처리하는 함수
+     * session parameter 가 있으면 해당 session 의 최근 전송 event 를, 없으면 session 목록을 반환한다.
+     * @return 응답 body, session 이 없으면 null 반환
+     */
+    private String getStreamTraceDump(Map<String, List<String>> parameters) {
+        List<String> sessionIdList = parameters.get("session");
+        String sessionId = (sessionIdList == null || sessionIdList.isEmpty()) ? null : sessionIdList.get(0);
+
+        StringBuilder builder = new StringBuilder();
+        AtomicBoolean isFound = new AtomicBoolean(false);
+        RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+            Streamer streamer = rtspUnit.getStreamer();
+            if (streamer == null) {
+                return;
+            }
+
+            StreamTrace streamTrace = streamer.getStreamTrace();
+            if (sessionId == null) {
+                builder.append(streamer.getSessionId())
+                        .append(" rtspUnitId=").append(rtspUnit.getRtspUnitId())
+                        .append(" events=").append(streamTrace.getWriteCount())
+                        .append('\n');
+            } else if (sessionId.equals(streamer.getSessionId()) && isFound.compareAndSet(false, true)) {
+                builder.append(streamTrace);
+            }
+        });
+
+        if (sessionId != null && !isFound.get()) {
+            return null;
+        }
+        return builder.toString();
+    }
+
     public void stop () {
-        scheduleManager.stopAll(MAIN_SCHEDULE_JOB);
+        if (metricsHttpServer != null) {
+            metricsHttpServer.stop();
+            metricsHttpServer = null;
+        }
+        scheduleManager.finish();
+        HealthSampler.getInstance().stop();
+        if (playPreparationExecutor != null) {
+            playPreparationExecutor.stop();
+        }
+        if (segmentIoExecutor != null) {
+            segmentIoExecutor.shutdownNow();
+        }
+        PackagingService.getInstance().stop();
+        ExternalToolExecutor.getInstance().stop();
 
         NettyChannelManager.getInstance().removeRegisterChannel();
         NettyChannelManager.getInstance().stop();
@@ -161,6 +290,14 @@ public class ServiceManager {
         return scheduleManager;
     }
 
+    public BoundedTaskExecutor getPlayPreparationExecutor() {
+        return playPreparationExecutor;
+    }
+
+    public ExecutorService getSegmentIoExecutor() {
+        return segmentIoExecutor;
+    }
+
     private void systemLock () {
         try {
             fileChannel = FileChannel.open(lockFile.toPath(), CREATE, READ, WRITE);
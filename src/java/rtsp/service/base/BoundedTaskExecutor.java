@@ -0,0 +1,145 @@
+package rtsp.service.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @class public class BoundedTaskExecutor
+ * @brief 동시 실행 개수와 대기 개수가 제한된 작업 실행 클래스
+ * poolSize 개까지 동시에 실행하고, queueSize 개까지 대기시킨다.
+ * 그 이상은 바로 거절하므로 호출한 쪽(Netty I/O 스레드)은 절대 대기하지 않는다.
+ */
+public class BoundedTaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedTaskExecutor.class);
+
+    private final String name;
+    private final int poolSize;
+    private final int queueSize;
+
+    private final ExecutorService executorService;
+    private final Semaphore admission; // 실행 중 + 대기 중인 작업 개수 제한
+    private final Semaphore concurrency; // VIRTUAL 은 작업마다 스레드를 만들므로 동시 실행 개수를 따로 제한
+
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public BoundedTaskExecutor(String name, ExecutorBackend backend, int poolSize, int queueSize) {
+        this.name = name;
+        this.poolSize = Math.max(poolSize, 1);
+        this.queueSize = Math.max(queueSize, 0);
+
+        ExecutorBackend resolvedBackend = backend.resolve();
+        this.executorService = resolvedBackend.newTaskExecutor(name, this.poolSize);
+        this.admission = new Semaphore(this.poolSize + this.queueSize);
+        this.concurrency = (resolvedBackend == ExecutorBackend.VIRTUAL) ? new Semaphore(this.poolSize) : null;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean execute(Runnable task)
+     * @brief 작업을 실행하거나 대기열에 넣는 함수
+     * @param task 실행할 작업
+     * @return 성공 시 true, 대기열이 가득 찼거나 종료된 경우 false 반환
+     */
+    public boolean execute(Runnable task) {
+        if (task == null) { return false; }
+
+        if (!admission.tryAcquire()) {
+            rejectedCount.increment();
+            return false;
+        }
+
+        try {
+            executorService.execute(() -> run(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejectedCount.increment();
+            return false;
+        }
+    }
+
+    private void run(Runnable task) {
+        boolean isAcquired = false;
+        try {
+            if (concurrency != null) {
+                concurrency.acquire();
+                isAcquired = true;
+            }
+
+            activeCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeCount.decrementAndGet();
+                completedCount.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("[BoundedTaskExecutor({})] Fail to run the task.", name, e);
+        } finally {
+            if (isAcquired) {
+                concurrency.release();
+            }
+            admission.release();
+        }
+    }
+
+    public void stop() {
+        executorService.shutdownNow();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getPendingCount() {
+        return Math.max(poolSize + queueSize - admission.availablePermits() - activeCount.get(), 0);
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedTaskExecutor{" +
+                "name='" + name + '\'' +
+                ", active=" + getActiveCount() + "/" + poolSize +
+                ", pending=" + getPendingCount() + "/" + queueSize +
+                ", completed=" + getCompletedCount() +
+                ", rejected=" + getRejectedCount() +
+                '}';
+    }
+
+}
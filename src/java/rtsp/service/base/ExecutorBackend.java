@@ -0,0 +1,140 @@
+package rtsp.service.base;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @enum public enum ExecutorBackend
+ * @brief Job 및 blocking 작업을 실행할 스레드 종류
+ * 기본 빌드는 Java 8 이므로 virtual thread API 는 reflection 으로만 접근한다.
+ * Java 21 이상에서 실행할 때만 VIRTUAL 을 사용할 수 있고, 그 외에는 PLATFORM 으로 동작한다.
+ */
+public enum ExecutorBackend {
+
+    // 고정 개수의 platform thread (기존 방식)
+    PLATFORM,
+
+    // 작업마다 virtual thread 하나 (blocking 중에는 carrier thread 를 점유하지 않는다.)
+    VIRTUAL;
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorBackend.class);
+
+    private static final Method OF_VIRTUAL_METHOD;
+    private static final Method BUILDER_NAME_METHOD;
+    private static final Method BUILDER_FACTORY_METHOD;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR_METHOD;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+            // Java 19/20 의 preview 상태에서는 호출 시 예외가 발생하므로 미리 확인
+            ofVirtual.invoke(null);
+        } catch (Throwable e) {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL_METHOD = ofVirtual;
+        BUILDER_NAME_METHOD = builderName;
+        BUILDER_FACTORY_METHOD = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR_METHOD = newThreadPerTaskExecutor;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static ExecutorBackend fromName(String name) {
+        if (name == null) {
+            return PLATFORM;
+        }
+
+        for (ExecutorBackend backend : values()) {
+            if (backend.name().equalsIgnoreCase(name.trim())) {
+                return backend;
+            }
+        }
+        return PLATFORM;
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL_METHOD != null;
+    }
+
+    /**
+     * @fn public ExecutorBackend resolve()
+     * @brief 현재 JVM 에서 사용할 수 있는 backend 를 반환하는 함수 (VIRTUAL 미지원 시 PLATFORM)
+     */
+    public ExecutorBackend resolve() {
+        if (this == VIRTUAL && !isVirtualThreadSupported()) {
+            logger.warn("Virtual thread is not supported in this JVM. ({}) Use {} instead.", System.getProperty("java.version"), PLATFORM);
+            return PLATFORM;
+        }
+        return this;
+    }
+
+    /**
+     * @fn public ThreadFactory newThreadFactory(String namePrefix)
+     * @brief backend 에 맞는 ThreadFactory 를 생성하는 함수
+     * @param namePrefix 스레드 이름 (뒤에 번호가 붙는다.)
+     * @return 성공 시 ThreadFactory, VIRTUAL 생성 실패 시 PLATFORM ThreadFactory 반환
+     */
+    public ThreadFactory newThreadFactory(String namePrefix) {
+        if (resolve() == VIRTUAL) {
+            try {
+                Object builder = OF_VIRTUAL_METHOD.invoke(null);
+                builder = BUILDER_NAME_METHOD.invoke(builder, namePrefix + "-", 0L);
+                return (ThreadFactory) BUILDER_FACTORY_METHOD.invoke(builder);
+            } catch (Exception e) {
+                logger.warn("Fail to create the virtual thread factory. ({})", namePrefix, e);
+            }
+        }
+
+        return new BasicThreadFactory.Builder()
+                .namingPattern(namePrefix + "-%d")
+                .daemon(true)
+                .build();
+    }
+
+    /**
+     * @fn public ExecutorService newTaskExecutor(String namePrefix, int poolSize)
+     * @brief blocking 작업을 실행할 ExecutorService 를 생성하는 함수
+     * PLATFORM 은 poolSize 개의 스레드를 사용하고, VIRTUAL 은 작업마다 virtual thread 를 새로 만든다. (poolSize 무시)
+     * @param namePrefix 스레드 이름
+     * @param poolSize PLATFORM 스레드 개수
+     * @return ExecutorService
+     */
+    public ExecutorService newTaskExecutor(String namePrefix, int poolSize) {
+        if (resolve() == VIRTUAL) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR_METHOD.invoke(null, newThreadFactory(namePrefix));
+            } catch (Exception e) {
+                logger.warn("Fail to create the virtual thread executor. ({})", namePrefix, e);
+            }
+        }
+
+        int threadCount = Math.max(poolSize, 1);
+        return new ThreadPoolExecutor(
+                threadCount, threadCount,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                PLATFORM.newThreadFactory(namePrefix)
+        );
+    }
+
+}
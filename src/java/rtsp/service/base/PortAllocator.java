@@ -0,0 +1,320 @@
+package rtsp.service.base;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @class public class PortAllocator
+ * @brief Atomic bitset 기반 RTP/RTCP port pair 할당 클래스
+ * RTP port 는 항상 짝수이고, RTCP port 는 RTP port + 1 이다.
+ * Pair 하나당 bit 하나를 사용하며 (1 = 사용 중), 할당/반환은 CAS 로 처리되므로 lock 이 없다.
+ * 할당은 마지막으로 할당한 위치부터 word(64 pair) 단위로 빈 bit 를 찾는다.
+ * Probe bind 에 실패한 pair 는 probeRetryInterval 동안 차단했다가 다음 할당 시 다시 할당 대상으로 돌려놓는다.
+ */
+public class PortAllocator {
+
+    public static final int FAIL = -1;
+
+    public static final long DEFAULT_PROBE_RETRY_INTERVAL = 10000; // ms
+
+    private static final int WORD_BITS = 64;
+    private static final long BLOCKED = -1; // reserve 로 제외한 port 의 할당 시각 값
+    // Probe bind 에 실패한 port 의 할당 시각 값은 -(다시 할당 대상으로 돌려놓을 시각) 이다. (BLOCKED 보다 작음)
+
+    private final int basePort;
+    private final int pairCount;
+    private final AtomicLongArray usedBits;
+    private final AtomicLongArray allocTimes; // pair 별 할당 시각 (ms), 0 = 미할당
+    private final AtomicInteger nextWordIndex = new AtomicInteger(0);
+    private final AtomicInteger usedCount = new AtomicInteger(0);
+    private final AtomicInteger blockedCount = new AtomicInteger(0);
+    private final AtomicLong nextProbeRetryTime = new AtomicLong(Long.MAX_VALUE);
+
+    private final String probeIp;
+    private final boolean isProbeBind;
+    private final long probeRetryInterval;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public PortAllocator(int minPort, int maxPort, String probeIp, boolean isProbeBind)
+     * @brief PortAllocator 생성자 함수
+     * @param minPort 최소 port (홀수면 다음 짝수부터 사용)
+     * @param maxPort 최대 RTP port
+     * @param probeIp Probe bind 에 사용할 IP (null 이면 wildcard)
+     * @param isProbeBind 할당 전에 RTP/RTCP port 를 bind 해서 다른 프로세스의 사용 여부를 확인할지 여부
+     */
+    public PortAllocator(int minPort, int maxPort, String probeIp, boolean isProbeBind) {
+        this(minPort, maxPort, probeIp, isProbeBind, DEFAULT_PROBE_RETRY_INTERVAL);
+    }
+
+    /**
+     * @fn public PortAllocator(int minPort, int maxPort, String probeIp, boolean isProbeBind, long probeRetryInterval)
+     * @brief PortAllocator 생성자 함수
+     * @param probeRetryInterval Probe bind 에 실패한 pair 를 다시 할당 대상으로 돌려놓을 때까지의 시간 (ms)
+     */
+    public PortAllocator(int minPort, int maxPort, String probeIp, boolean isProbeBind, long probeRetryInterval) {
+        this.probeRetryInterval = Math.max(probeRetryInterval, 0);
+        this.basePort = (minPort % 2 == 0) ? minPort : minPort + 1;
+        this.pairCount = (maxPort >= basePort) ? ((maxPort - basePort) / 2 + 1) : 0;
+        this.probeIp = probeIp;
+        this.isProbeBind = isProbeBind;
+
+        int wordCount = Math.max(1, (pairCount + WORD_BITS - 1) / WORD_BITS);
+        this.usedBits = new AtomicLongArray(wordCount);
+        this.allocTimes = new AtomicLongArray(Math.max(pairCount, 1));
+
+        // 마지막 word 의 범위 밖 bit 는 항상 사용 중으로 표시한다.
+        int tailBits = pairCount % WORD_BITS;
+        if (pairCount == 0) {
+            usedBits.set(0, -1L);
+        } else if (tailBits != 0) {
+            usedBits.set(wordCount - 1, -1L << tailBits);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public int allocate()
+     * @brief 사용 가능한 RTP port 를 할당하는 함수 (RTCP port 는 반환값 + 1)
+     * @return 성공 시 RTP port, 실패 시 FAIL(-1) 반환
+     */
+    public int allocate() {
+        if (isProbeBind) {
+            retryProbeFailedPairs(System.currentTimeMillis());
+        }
+
+        int wordCount = usedBits.length();
+        int startWordIndex = Math.floorMod(nextWordIndex.get(), wordCount);
+
+        for (int i = 0; i < wordCount; i++) {
+            int wordIndex = (startWordIndex + i) % wordCount;
+            while (true) {
+                long word = usedBits.get(wordIndex);
+                if (word == -1L) {
+                    break;
+                }
+
+                long freeBit = Long.lowestOneBit(~word);
+                if (!usedBits.compareAndSet(wordIndex, word, word | freeBit)) {
+                    continue;
+                }
+
+                int index = wordIndex * WORD_BITS + Long.numberOfTrailingZeros(freeBit);
+                int port = basePort + index * 2;
+                if (isProbeBind && !probe(port)) {
+                    // 다른 프로세스가 사용 중이면 bit 를 반환하지 않고 probeRetryInterval 동안 차단 상태로 둔다.
+                    long retryTime = System.currentTimeMillis() + probeRetryInterval;
+                    allocTimes.set(index, -retryTime);
+                    blockedCount.incrementAndGet();
+                    nextProbeRetryTime.accumulateAndGet(retryTime, Math::min);
+                    continue;
+                }
+
+                allocTimes.set(index, System.currentTimeMillis());
+                usedCount.incrementAndGet();
+                nextWordIndex.set(wordIndex);
+                return port;
+            }
+        }
+
+        return FAIL;
+    }
+
+    /**
+     * @fn public boolean release(int port)
+     * @brief 할당된 RTP port 를 반환하는 함수
+     * @param port RTP port
+     * @return 성공 시 true, 범위 밖이거나 이미 반환된 port (double-free) 면 false 반환
+     */
+    public boolean release(int port) {
+        int index = indexOf(port);
+        if (index < 0) {
+            return false;
+        }
+
+        int wordIndex = index / WORD_BITS;
+        long bit = 1L << (index % WORD_BITS);
+        if (allocTimes.get(index) <= BLOCKED) {
+            return false;
+        }
+
+        if ((usedBits.get(wordIndex) & bit) == 0) {
+            return false;
+        }
+
+        // bit 를 비우기 전에 할당 시각을 지워야 재할당된 시각을 덮어쓰지 않는다.
+        allocTimes.set(index, 0);
+        if (!clearBit(wordIndex, bit)) {
+            return false;
+        }
+
+        usedCount.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * @fn public boolean reserve(int port)
+     * @brief 특정 RTP port 를 할당 대상에서 제외하는 함수
+     * @return 성공 시 true, 이미 사용 중이거나 범위 밖이면 false 반환
+     */
+    public boolean reserve(int port) {
+        int index = indexOf(port);
+        if (index < 0) {
+            return false;
+        }
+
+        int wordIndex = index / WORD_BITS;
+        long bit = 1L << (index % WORD_BITS);
+        while (true) {
+            long word = usedBits.get(wordIndex);
+            if ((word & bit) != 0) {
+                return false;
+            }
+
+            if (usedBits.compareAndSet(wordIndex, word, word | bit)) {
+                allocTimes.set(index, BLOCKED);
+                blockedCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @fn public List<Integer> getLeakedPorts(long curTime, long ttl)
+     * @brief 할당된 지 ttl 이상 지난 RTP port 목록을 반환하는 함수
+     */
+    public List<Integer> getLeakedPorts(long curTime, long ttl) {
+        List<Integer> leakedPorts = new ArrayList<>();
+        for (int index = 0; index < pairCount; index++) {
+            long allocTime = allocTimes.get(index);
+            if (allocTime > 0 && (curTime - allocTime) >= ttl) {
+                leakedPorts.add(basePort + index * 2);
+            }
+        }
+        return leakedPorts;
+    }
+
+    public boolean isAllocated(int port) {
+        int index = indexOf(port);
+        if (index < 0) {
+            return false;
+        }
+
+        return (usedBits.get(index / WORD_BITS) & (1L << (index % WORD_BITS))) != 0;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn private void retryProbeFailedPairs(long curTime)
+     * @brief Probe bind 에 실패한 후 probeRetryInterval 이 지난 pair 를 다시 할당 대상으로 돌려놓는 함수
+     * 돌려놓을 pair 가 있을 때만 전체 pair 를 검사하고, 동시에 호출되면 한 스레드만 검사한다.
+     */
+    private void retryProbeFailedPairs(long curTime) {
+        long retryTime = nextProbeRetryTime.get();
+        if (curTime < retryTime || !nextProbeRetryTime.compareAndSet(retryTime, Long.MAX_VALUE)) {
+            return;
+        }
+
+        long nextRetryTime = Long.MAX_VALUE;
+        for (int index = 0; index < pairCount; index++) {
+            long allocTime = allocTimes.get(index);
+            if (allocTime >= BLOCKED) {
+                continue;
+            }
+
+            long pairRetryTime = -allocTime;
+            if (pairRetryTime > curTime) {
+                nextRetryTime = Math.min(nextRetryTime, pairRetryTime);
+                continue;
+            }
+
+            if (allocTimes.compareAndSet(index, allocTime, 0)
+                    && clearBit(index / WORD_BITS, 1L << (index % WORD_BITS))) {
+                blockedCount.decrementAndGet();
+            }
+        }
+
+        if (nextRetryTime != Long.MAX_VALUE) {
+            nextProbeRetryTime.accumulateAndGet(nextRetryTime, Math::min);
+        }
+    }
+
+    private boolean clearBit(int wordIndex, long bit) {
+        while (true) {
+            long word = usedBits.get(wordIndex);
+            if ((word & bit) == 0) {
+                return false;
+            }
+
+            if (usedBits.compareAndSet(wordIndex, word, word & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    private int indexOf(int port) {
+        int offset = port - basePort;
+        if (offset < 0 || (offset % 2) != 0) {
+            return -1;
+        }
+
+        int index = offset / 2;
+        return (index < pairCount) ? index : -1;
+    }
+
+    private boolean probe(int port) {
+        try (DatagramSocket rtpSocket = new DatagramSocket(probeAddress(port));
+             DatagramSocket rtcpSocket = new DatagramSocket(probeAddress(port + 1))) {
+            return rtpSocket.isBound() && rtcpSocket.isBound();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private InetSocketAddress probeAddress(int port) {
+        return (probeIp == null) ? new InetSocketAddress(port) : new InetSocketAddress(probeIp, port);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getBasePort() {
+        return basePort;
+    }
+
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    public int getUsedCount() {
+        return usedCount.get();
+    }
+
+    public int getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    public int getFreeCount() {
+        return pairCount - usedCount.get() - blockedCount.get();
+    }
+
+    /**
+     * @fn public double getUtilization()
+     * @brief 할당 가능한 pair 중 사용 중인 비율 (0.0 ~ 1.0) 을 반환하는 함수
+     */
+    public double getUtilization() {
+        int available = pairCount - blockedCount.get();
+        if (available <= 0) {
+            return 1.0;
+        }
+        return (double) usedCount.get() / available;
+    }
+
+}
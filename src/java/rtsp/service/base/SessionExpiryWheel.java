@@ -0,0 +1,244 @@
+package rtsp.service.base;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * @class public class SessionExpiryWheel<K>
+ * @brief Hashed timing wheel 기반 session 만료 관리 클래스
+ * 각 key 는 idle deadline (keep-alive 로 갱신) 과 hard deadline (최대 유지 시간) 을 가진다.
+ * touch 는 deadline 값만 갱신하고 bucket 은 옮기지 않는다. (lock 없음)
+ * advance 에서 현재 tick 의 bucket 만 검사하고, deadline 이 연장된 항목은 새 bucket 으로 다시 넣는다.
+ * 따라서 주기마다 검사하는 항목 수는 전체 session 수가 아니라 해당 tick 에 걸린 항목 수에 비례한다.
+ */
+public class SessionExpiryWheel<K> {
+
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    public enum ExpireReason {
+        IDLE,
+        LIMIT
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long limitDeadline; // ms, Long.MAX_VALUE 이면 무제한
+        private volatile long idleTimeout; // ms, 0 이면 idle 만료 사용 안함
+        private volatile long idleDeadline; // ms, Long.MAX_VALUE 이면 idle 만료 사용 안함
+        private volatile boolean isCancelled = false;
+
+        private Entry(K key, long idleTimeout, long limitDeadline, long curTime) {
+            this.key = key;
+            this.idleTimeout = idleTimeout;
+            this.limitDeadline = limitDeadline;
+            this.idleDeadline = idleTimeout > 0 ? curTime + idleTimeout : Long.MAX_VALUE;
+        }
+
+        private long getDeadline() {
+            return Math.min(idleDeadline, limitDeadline);
+        }
+    }
+
+    private final long tickTime; // ms
+    private final int wheelMask;
+    private final ArrayDeque<Entry<K>>[] buckets;
+    private final ReentrantLock bucketLock = new ReentrantLock();
+    private final SessionRegistry<K, Entry<K>> entryMap = new SessionRegistry<>();
+
+    private long lastTick; // bucketLock 안에서만 변경됨
+    private final List<Entry<K>> drainList = new ArrayList<>();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public SessionExpiryWheel(long tickTime, long startTime) {
+        this(tickTime, DEFAULT_WHEEL_SIZE, startTime);
+    }
+
+    /**
+     * @fn public SessionExpiryWheel(long tickTime, int wheelSize, long startTime)
+     * @brief SessionExpiryWheel 생성자 함수
+     * @param tickTime Bucket 하나가 담당하는 시간 (ms)
+     * @param wheelSize Bucket 개수 (2 의 거듭제곱으로 올림)
+     * @param startTime 기준 시간 (ms)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SessionExpiryWheel(long tickTime, int wheelSize, long startTime) {
+        if (tickTime <= 0) {
+            throw new IllegalArgumentException("tickTime must be positive. (" + tickTime + ")");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.tickTime = tickTime;
+        this.wheelMask = size - 1;
+        this.buckets = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.lastTick = startTime / tickTime;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean register(K key, long idleTimeout, long limitDeadline, long curTime)
+     * @brief 만료 대상 key 를 등록하는 함수
+     * 등록 시각부터 idle 만료 시간을 적용하므로, keep-alive 를 한 번도 보내지 않는 key 도 idle 만료된다.
+     * @param key Key
+     * @param idleTimeout Idle 만료 시간 (ms), 0 이하면 사용 안함
+     * @param limitDeadline 절대 만료 시각 (ms), Long.MAX_VALUE 이면 사용 안함
+     * @param curTime 현재 시각 (ms)
+     * @return 성공 시 true, 이미 등록된 key 면 false 반환
+     */
+    public boolean register(K key, long idleTimeout, long limitDeadline, long curTime) {
+        Entry<K> entry = new Entry<>(key, Math.max(idleTimeout, 0), limitDeadline, curTime);
+        if (entryMap.putIfAbsent(key, entry) != null) {
+            return false;
+        }
+
+        schedule(entry);
+        return true;
+    }
+
+    /**
+     * @fn public void touch(K key, long curTime)
+     * @brief Keep-alive 수신 시 idle deadline 을 갱신하는 함수
+     * Bucket 은 옮기지 않으므로 lock 을 잡지 않는다. (idle deadline 이 없던 경우만 bucket 에 등록)
+     */
+    public void touch(K key, long curTime) {
+        Entry<K> entry = entryMap.get(key);
+        if (entry == null || entry.idleTimeout <= 0) {
+            return;
+        }
+
+        boolean hadIdleDeadline = entry.idleDeadline != Long.MAX_VALUE;
+        long prevDeadline = entry.getDeadline();
+        entry.idleDeadline = curTime + entry.idleTimeout;
+
+        // setIdleTimeout 으로 idle 만료를 다시 사용해서 deadline 이 앞당겨진 경우에만 bucket 에 다시 등록
+        if (!hadIdleDeadline && entry.getDeadline() < prevDeadline) {
+            schedule(entry);
+        }
+    }
+
+    /**
+     * @fn public void setIdleTimeout(K key, long idleTimeout)
+     * @brief Key 의 idle 만료 시간을 변경하는 함수 (0 이면 idle 만료 사용 안함, 다시 사용하면 다음 touch 부터 적용)
+     */
+    public void setIdleTimeout(K key, long idleTimeout) {
+        Entry<K> entry = entryMap.get(key);
+        if (entry == null) {
+            return;
+        }
+
+        entry.idleTimeout = Math.max(idleTimeout, 0);
+        if (entry.idleTimeout == 0) {
+            entry.idleDeadline = Long.MAX_VALUE;
+        }
+    }
+
+    public void unregister(K key) {
+        Entry<K> entry = entryMap.remove(key);
+        if (entry != null) {
+            // Bucket 에서는 해당 tick 이 돌아올 때 제거된다.
+            entry.isCancelled = true;
+        }
+    }
+
+    /**
+     * @fn public int advance(long curTime, BiConsumer<K, ExpireReason> expireHandler)
+     * @brief 현재 시각까지 지나간 tick 의 bucket 만 검사하여 만료된 key 를 처리하는 함수
+     * 단일 스레드에서 주기적으로 호출해야 한다.
+     * @param curTime 현재 시각 (ms)
+     * @param expireHandler 만료된 key 처리 함수 (등록 해제 후 호출됨)
+     * @return 만료된 key 개수
+     */
+    public int advance(long curTime, BiConsumer<K, ExpireReason> expireHandler) {
+        long curTick = curTime / tickTime;
+        if (curTick <= lastTick) {
+            return 0;
+        }
+
+        // 한 바퀴 이상 밀린 경우 모든 bucket 을 한 번씩만 검사하면 된다.
+        long fromTick = Math.max(lastTick + 1, curTick - wheelMask);
+
+        int expiredCount = 0;
+        for (long tick = fromTick; tick <= curTick; tick++) {
+            drainList.clear();
+            bucketLock.lock();
+            try {
+                lastTick = tick;
+                ArrayDeque<Entry<K>> bucket = buckets[(int) (tick & wheelMask)];
+                drainList.addAll(bucket);
+                bucket.clear();
+            } finally {
+                bucketLock.unlock();
+            }
+
+            for (Entry<K> entry : drainList) {
+                if (entry.isCancelled) {
+                    continue;
+                }
+
+                long deadline = entry.getDeadline();
+                if (deadline > curTime) {
+                    // Keep-alive 로 연장되었거나 다음 바퀴의 항목
+                    schedule(entry);
+                    continue;
+                }
+
+                if (entryMap.remove(entry.key, entry)) {
+                    entry.isCancelled = true;
+                    expiredCount++;
+                    if (expireHandler != null) {
+                        expireHandler.accept(
+                                entry.key,
+                                deadline == entry.limitDeadline ? ExpireReason.LIMIT : ExpireReason.IDLE
+                        );
+                    }
+                }
+            }
+        }
+        drainList.clear();
+
+        return expiredCount;
+    }
+
+    private void schedule(Entry<K> entry) {
+        long deadline = entry.getDeadline();
+        if (deadline == Long.MAX_VALUE) {
+            // 만료 조건 없음 (idle 만료를 다시 사용하면 touch 시 다시 등록됨)
+            return;
+        }
+
+        bucketLock.lock();
+        try {
+            // 이미 지나간 tick 이면 다음 tick 에서 검사
+            long tick = Math.max(deadline / tickTime, lastTick + 1);
+            buckets[(int) (tick & wheelMask)].add(entry);
+        } finally {
+            bucketLock.unlock();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public boolean isRegistered(K key) {
+        return entryMap.containsKey(key);
+    }
+
+    public int size() {
+        return entryMap.size();
+    }
+
+    public long getTickTime() {
+        return tickTime;
+    }
+
+}
@@ -0,0 +1,185 @@
+package rtsp.service.base;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * @class public class SessionRegistry<K, V>
+ * @brief Sharded concurrent session registry class
+ * Key hash 로 선택한 shard(ConcurrentHashMap) 에 value 를 저장한다.
+ * 조회는 lock 없이 수행되고, 생성은 putIfAbsent, 삭제/상태 전이는 remove/compute 계열 함수로 원자적으로 처리된다.
+ * 순회(forEach, values)는 weakly consistent 하므로 전체 복사본을 만들지 않는다.
+ */
+public class SessionRegistry<K, V> {
+
+    public static final int DEFAULT_SHARD_COUNT = 16;
+
+    private final ConcurrentHashMap<K, V>[] shards;
+    private final int shardMask;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public SessionRegistry() {
+        this(DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * @fn public SessionRegistry(int shardCount)
+     * @brief SessionRegistry 생성자 함수
+     * @param shardCount Shard 개수 (2 의 거듭제곱으로 올림)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SessionRegistry(int shardCount) {
+        int count = 1;
+        while (count < shardCount) {
+            count <<= 1;
+        }
+
+        shards = new ConcurrentHashMap[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        shardMask = count - 1;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private ConcurrentHashMap<K, V> shard(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return shards[h & shardMask];
+    }
+
+    public V get(K key) {
+        if (key == null) { return null; }
+        return shard(key).get(key);
+    }
+
+    public boolean containsKey(K key) {
+        if (key == null) { return false; }
+        return shard(key).containsKey(key);
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return shard(key).putIfAbsent(key, value);
+    }
+
+    /**
+     * @fn public V createIfAbsent(K key, Function<? super K, ? extends V> factory)
+     * @brief key 가 없을 때만 factory 로 value 를 생성하여 등록하는 함수 (버려지는 value 를 정리할 필요가 없는 경우)
+     * @return 새로 생성된 value, 이미 존재하거나 factory 가 null 을 반환하면 null 반환
+     */
+    public V createIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        return createIfAbsent(key, factory, null);
+    }
+
+    /**
+     * @fn public V createIfAbsent(K key, Function<? super K, ? extends V> factory, Consumer<? super V> discard)
+     * @brief key 가 없을 때만 factory 로 value 를 생성하여 등록하는 함수
+     * factory 는 map 밖에서 호출하고 (socket bind, thread 생성 등이 shard 의 bin lock 을 잡지 않도록) putIfAbsent 로 등록한다.
+     * 같은 key 로 동시에 생성하면 factory 가 여러 번 호출될 수 있으며, 등록하지 못한 value 는 discard 로 정리한다.
+     * @param discard 등록하지 못한 value 를 정리하는 함수 (null 이면 무시)
+     * @return 새로 생성된 value, 이미 존재하거나 factory 가 null 을 반환하면 null 반환
+     */
+    public V createIfAbsent(K key, Function<? super K, ? extends V> factory, Consumer<? super V> discard) {
+        if (key == null) { return null; }
+
+        ConcurrentHashMap<K, V> shard = shard(key);
+        if (shard.get(key) != null) {
+            return null;
+        }
+
+        V value = factory.apply(key);
+        if (value == null) {
+            return null;
+        }
+
+        if (shard.putIfAbsent(key, value) != null) {
+            if (discard != null) {
+                discard.accept(value);
+            }
+            return null;
+        }
+
+        return value;
+    }
+
+    /**
+     * @fn public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> transition)
+     * @brief 등록된 value 에 대한 상태 전이를 원자적으로 수행하는 함수
+     * transition 이 null 을 반환하면 해당 key 는 삭제된다.
+     * transition 은 shard 의 bin lock 을 잡은 채로 호출되므로 channel 연결, 파일 삭제 등 오래 걸리는 작업은 하지 않는다.
+     */
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> transition) {
+        if (key == null) { return null; }
+        return shard(key).computeIfPresent(key, transition);
+    }
+
+    public V remove(K key) {
+        if (key == null) { return null; }
+        return shard(key).remove(key);
+    }
+
+    public boolean remove(K key, V value) {
+        if (key == null || value == null) { return false; }
+        return shard(key).remove(key, value);
+    }
+
+    /**
+     * @fn public void removeAll(BiConsumer<? super K, ? super V> onRemoved)
+     * @brief 모든 value 를 하나씩 원자적으로 제거하고, 실제로 제거한 항목에 대해서만 onRemoved 를 호출하는 함수
+     */
+    public void removeAll(BiConsumer<? super K, ? super V> onRemoved) {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            for (K key : shard.keySet()) {
+                V value = shard.remove(key);
+                if (value != null && onRemoved != null) {
+                    onRemoved.accept(key, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @fn public void forEach(BiConsumer<? super K, ? super V> action)
+     * @brief Weakly consistent 순회 함수 (복사본을 만들지 않음)
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            for (V value : shard.values()) {
+                action.accept(value);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+}
@@ -0,0 +1,93 @@
+package rtsp.service.jfr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @class public class JfrEvents
+ * @brief Java Flight Recorder custom event 를 기록하는 함수 모음
+ * 기록 중이 아니면 event 를 만들고 isEnabled() 만 확인하므로 (JIT 이 할당을 제거) 비용이 거의 없다.
+ * 재시작 없이 jcmd <pid> JFR.start 로 기록을 시작할 수 있다. (rtsp.PacingSleep 은 기본 설정에서 꺼져 있음)
+ * jdk.jfr 이 없는 JVM (8u262 이전) 에서는 event class 를 load 하지 않고 아무 것도 하지 않는다.
+ */
+public class JfrEvents {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrEvents.class);
+
+    public static final String PLAY_PHASE_QUEUE = "QUEUE"; // PLAY 요청 수신 ~ 준비 작업 시작 (preparation pool 대기)
+    public static final String PLAY_PHASE_PROBE = "PROBE"; // 재생 시간 조회 (ffprobe)
+    public static final String PLAY_PHASE_CONVERT = "CONVERT"; // M3U8 변환, segment 조회
+    public static final String PLAY_PHASE_FIRST_PACKET = "FIRST_PACKET"; // PLAY 요청 수신 ~ 첫 RTP 패킷 전송
+
+    public static final long OVERSLEEP_THRESHOLD_NANOS = 1000000L; // 1ms 이상 늦게 깨어나면 PacingOversleep 기록
+
+    private static final boolean IS_AVAILABLE = isJfrAvailable();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private JfrEvents() {
+        // static 함수만 사용
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            logger.debug("JFR is not available. Custom JFR events are disabled.");
+            return false;
+        }
+    }
+
+    public static boolean isAvailable() {
+        return IS_AVAILABLE;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void rtspRequest(String method, String rtspUnitId, long latencyNanos) {
+        if (IS_AVAILABLE) {
+            RtspRequestEvent.emit(method, rtspUnitId, latencyNanos);
+        }
+    }
+
+    public static void playPhase(String phase, String rtspUnitId, String sessionId, long elapsedNanos) {
+        if (IS_AVAILABLE) {
+            PlayPhaseEvent.emit(phase, rtspUnitId, sessionId, elapsedNanos);
+        }
+    }
+
+    public static void segment(String sessionId, int index, String path, long size, long sentSize, long pcrCount, long sendTimeNanos) {
+        if (IS_AVAILABLE) {
+            SegmentEvent.emit(sessionId, index, path, size, sentSize, pcrCount, sendTimeNanos);
+        }
+    }
+
+    /**
+     * @fn public static void pacingSleep(String sessionId, long requestedNanos, long oversleepNanos)
+     * @brief PCR pacing 대기를 기록하는 함수 (늦게 깨어난 시간이 OVERSLEEP_THRESHOLD_NANOS 이상이면 PacingOversleep 도 기록)
+     * @param requestedNanos 요청한 대기 시간
+     * @param oversleepNanos 실제 대기 시간 - 요청한 대기 시간
+     */
+    public static void pacingSleep(String sessionId, long requestedNanos, long oversleepNanos) {
+        if (IS_AVAILABLE) {
+            PacingSleepEvent.emit(sessionId, requestedNanos, oversleepNanos);
+            if (oversleepNanos >= OVERSLEEP_THRESHOLD_NANOS) {
+                PacingOversleepEvent.emit(sessionId, requestedNanos, oversleepNanos);
+            }
+        }
+    }
+
+    public static void rtcpFeedback(String rtspUnitId, long ssrc, int fractionLost, int cumulativeLost, long highestSeqNum, long jitter, long rttMicros) {
+        if (IS_AVAILABLE) {
+            RtcpFeedbackEvent.emit(rtspUnitId, ssrc, fractionLost, cumulativeLost, highestSeqNum, jitter, rttMicros);
+        }
+    }
+
+    public static void schedulerJob(String scheduleUnitKey, int executorIndex, String jobName, String jobClass, long queueWaitNanos, long latenessNanos, long runTimeNanos, boolean isSuccess) {
+        if (IS_AVAILABLE) {
+            SchedulerJobEvent.emit(scheduleUnitKey, executorIndex, jobName, jobClass, queueWaitNanos, latenessNanos, runTimeNanos, isSuccess);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class PacingOversleepEvent extends Event
+ * @brief PCR pacing 대기가 요청한 시간보다 길어진 경우 (JfrEvents.OVERSLEEP_THRESHOLD_NANOS 이상)
+ */
+@Name("rtsp.PacingOversleep")
+@Label("Pacing Oversleep")
+@Category({"RTSP", "Streaming"})
+@Description("PCR pacing sleep that woke up later than requested")
+@StackTrace(false)
+class PacingOversleepEvent extends Event {
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Requested")
+    @Timespan(Timespan.NANOSECONDS)
+    long requested;
+
+    @Label("Oversleep")
+    @Timespan(Timespan.NANOSECONDS)
+    long oversleep;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String sessionId, long requestedNanos, long oversleepNanos) {
+        PacingOversleepEvent event = new PacingOversleepEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.sessionId = sessionId;
+        event.requested = requestedNanos;
+        event.oversleep = oversleepNanos;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,42 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class PacingSleepEvent extends Event
+ * @brief PCR pacing 으로 인한 대기 한 번 (PCR 패킷마다 발생하므로 기본으로 기록하지 않는다.)
+ */
+@Name("rtsp.PacingSleep")
+@Label("Pacing Sleep")
+@Category({"RTSP", "Streaming"})
+@Description("Sleep requested by PCR pacing and the time actually slept")
+@StackTrace(false)
+@Enabled(false)
+class PacingSleepEvent extends Event {
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Requested")
+    @Timespan(Timespan.NANOSECONDS)
+    long requested;
+
+    @Label("Oversleep")
+    @Timespan(Timespan.NANOSECONDS)
+    long oversleep;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String sessionId, long requestedNanos, long oversleepNanos) {
+        PacingSleepEvent event = new PacingSleepEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.sessionId = sessionId;
+        event.requested = requestedNanos;
+        event.oversleep = oversleepNanos;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,44 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class PlayPhaseEvent extends Event
+ * @brief PLAY 준비 단계 한 개의 소요 시간 (QUEUE, PROBE, CONVERT, FIRST_PACKET)
+ */
+@Name("rtsp.PlayPhase")
+@Label("PLAY Phase")
+@Category({"RTSP", "Play"})
+@Description("Duration of one PLAY preparation phase")
+@StackTrace(false)
+class PlayPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("RTSP Unit Id")
+    String rtspUnitId;
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String phase, String rtspUnitId, String sessionId, long elapsedNanos) {
+        PlayPhaseEvent event = new PlayPhaseEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.phase = phase;
+        event.rtspUnitId = rtspUnitId;
+        event.sessionId = sessionId;
+        event.elapsed = elapsedNanos;
+        event.commit();
+    }
+
+}
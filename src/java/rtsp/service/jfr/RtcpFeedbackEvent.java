@@ -0,0 +1,58 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class RtcpFeedbackEvent extends Event
+ * @brief 수신한 RTCP Receiver Report 의 report block (전송 중인 SSRC 기준)
+ */
+@Name("rtsp.RtcpFeedback")
+@Label("RTCP Feedback")
+@Category({"RTSP", "RTCP"})
+@Description("RTCP receiver report block received for a streaming session")
+@StackTrace(false)
+class RtcpFeedbackEvent extends Event {
+
+    @Label("RTSP Unit Id")
+    String rtspUnitId;
+
+    @Label("SSRC")
+    long ssrc;
+
+    @Label("Fraction Lost")
+    @Description("Fraction lost since the previous report (x/256)")
+    int fractionLost;
+
+    @Label("Cumulative Lost")
+    int cumulativeLost;
+
+    @Label("Extended Highest Sequence Number")
+    long highestSeqNum;
+
+    @Label("Jitter")
+    @Description("Interarrival jitter in RTP timestamp units")
+    long jitter;
+
+    @Label("Round Trip Time")
+    @Timespan(Timespan.MICROSECONDS)
+    long rtt;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String rtspUnitId, long ssrc, int fractionLost, int cumulativeLost, long highestSeqNum, long jitter, long rttMicros) {
+        RtcpFeedbackEvent event = new RtcpFeedbackEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.rtspUnitId = rtspUnitId;
+        event.ssrc = ssrc;
+        event.fractionLost = fractionLost;
+        event.cumulativeLost = cumulativeLost;
+        event.highestSeqNum = highestSeqNum;
+        event.jitter = jitter;
+        event.rtt = rttMicros;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,40 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class RtspRequestEvent extends Event
+ * @brief RTSP 요청 한 개의 처리 시간 (PLAY 는 준비 작업이 끝나고 응답할 때까지)
+ */
+@Name("rtsp.RtspRequest")
+@Label("RTSP Request")
+@Category({"RTSP", "Request"})
+@Description("RTSP request handled by RtspChannelHandler")
+@StackTrace(false)
+class RtspRequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("RTSP Unit Id")
+    String rtspUnitId;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String method, String rtspUnitId, long latencyNanos) {
+        RtspRequestEvent event = new RtspRequestEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.method = method;
+        event.rtspUnitId = rtspUnitId;
+        event.latency = latencyNanos;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,63 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class SchedulerJobEvent extends Event
+ * @brief JobExecutor 가 Job 한 개를 실행한 기록 (대기 시간, deadline 대비 지연, 실행 시간)
+ */
+@Name("rtsp.SchedulerJob")
+@Label("Scheduler Job")
+@Category({"RTSP", "Scheduler"})
+@Description("Job executed by a JobExecutor")
+@StackTrace(false)
+class SchedulerJobEvent extends Event {
+
+    @Label("Schedule Unit")
+    String scheduleUnitKey;
+
+    @Label("Executor Index")
+    int executorIndex;
+
+    @Label("Job Name")
+    String jobName;
+
+    @Label("Job Class")
+    String jobClass;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueWait;
+
+    @Label("Lateness")
+    @Description("Start time minus absolute deadline (negative if started before the deadline)")
+    @Timespan(Timespan.NANOSECONDS)
+    long lateness;
+
+    @Label("Run Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long runTime;
+
+    @Label("Success")
+    boolean isSuccess;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String scheduleUnitKey, int executorIndex, String jobName, String jobClass, long queueWaitNanos, long latenessNanos, long runTimeNanos, boolean isSuccess) {
+        SchedulerJobEvent event = new SchedulerJobEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.scheduleUnitKey = scheduleUnitKey;
+        event.executorIndex = executorIndex;
+        event.jobName = jobName;
+        event.jobClass = jobClass;
+        event.queueWait = queueWaitNanos;
+        event.lateness = latenessNanos;
+        event.runTime = runTimeNanos;
+        event.isSuccess = isSuccess;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,58 @@
+package rtsp.service.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * @class class SegmentEvent extends Event
+ * @brief TS 파일 한 개의 전송 (전송이 끝났을 때 기록)
+ */
+@Name("rtsp.Segment")
+@Label("TS Segment")
+@Category({"RTSP", "Streaming"})
+@Description("One TS segment sent by RtpSender")
+@StackTrace(false)
+class SegmentEvent extends Event {
+
+    @Label("Session Id")
+    String sessionId;
+
+    @Label("Index")
+    int index;
+
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Sent Size")
+    @DataAmount
+    long sentSize;
+
+    @Label("PCR Count")
+    long pcrCount;
+
+    @Label("Send Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long sendTime;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    static void emit(String sessionId, int index, String path, long size, long sentSize, long pcrCount, long sendTimeNanos) {
+        SegmentEvent event = new SegmentEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.sessionId = sessionId;
+        event.index = index;
+        event.path = path;
+        event.size = size;
+        event.sentSize = sentSize;
+        event.pcrCount = pcrCount;
+        event.sendTime = sendTimeNanos;
+        event.commit();
+    }
+
+}
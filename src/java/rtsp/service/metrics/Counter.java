@@ -0,0 +1,33 @@
+package rtsp.service.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @class public class Counter
+ * @brief 단조 증가하는 counter (여러 스레드에서 동시에 증가시켜도 lock 을 사용하지 않는다.)
+ */
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    Counter() {
+        // MetricsRegistry 에서만 생성
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public void inc() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+}
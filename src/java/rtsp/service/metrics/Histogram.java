@@ -0,0 +1,140 @@
+package rtsp.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @class public class Histogram
+ * @brief HdrHistogram 과 같은 log-linear bucket 을 사용하는 histogram
+ * 2 의 거듭제곱 구간마다 8 개의 bucket 으로 나누므로 기록된 값의 상대 오차는 12.5% 이하이다.
+ * bucket 배열을 미리 만들어두고 기록할 때는 index 계산과 atomic 증가만 하므로 메모리를 할당하지 않는다.
+ * 값은 정수 단위(us, byte 등)로 기록하고, 출력할 때 scale 을 곱한다. (ex. us > seconds = 1e-6)
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; // 8
+    private static final int MAX_EXPONENT = 40; // 2^40 us = 약 12 일, 이보다 큰 값은 마지막 bucket 에 기록
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final double scale;
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public Histogram(double scale)
+     * @brief registry 에 등록하지 않는 histogram (ex. session 별) 을 만들 때 사용한다.
+     * @param scale 출력할 때 기록된 값에 곱할 값
+     */
+    public Histogram(double scale) {
+        this.scale = scale;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void record(long value)
+     * @brief 값 한 개를 기록하는 함수 (음수는 0 으로 기록)
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        bucketCounts.incrementAndGet(getBucketIndex(value));
+        sum.addAndGet(value);
+
+        long curMax = max.get();
+        while (value > curMax && !max.compareAndSet(curMax, value)) {
+            curMax = max.get();
+        }
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return bucket 에 들어가는 가장 큰 값
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKET_COUNT + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += bucketCounts.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @fn public long[] getQuantiles(double[] quantiles)
+     * @brief 지정한 분위수의 값을 반환하는 함수 (scrape 할 때 호출)
+     * bucket 의 상한값을 반환하지만 최대값보다 크지 않게 한다.
+     * @param quantiles 오름차순으로 정렬된 분위수 (0 ~ 1)
+     * @return 분위수 별 값 (기록된 값이 없으면 0)
+     */
+    public long[] getQuantiles(double[] quantiles) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = bucketCounts.get(i);
+            total += counts[i];
+        }
+
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+
+        long curMax = max.get();
+        long cumulative = 0;
+        int bucketIndex = 0;
+        for (int i = 0; i < quantiles.length; i++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[i] * total));
+            while (bucketIndex < BUCKET_COUNT - 1 && cumulative + counts[bucketIndex] < rank) {
+                cumulative += counts[bucketIndex];
+                bucketIndex++;
+            }
+            values[i] = Math.min(getBucketUpperBound(bucketIndex), curMax);
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,175 @@
+package rtsp.service.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * @class class MetricFamily
+ * @brief 이름이 같은 metric 의 묶음 (HELP, TYPE 한 번과 label 별 sample 로 출력된다.)
+ */
+class MetricFamily {
+
+    // Summary 로 출력할 분위수
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final String name;
+    private final String help;
+    private final MetricType type;
+
+    // 등록은 드물고 scrape 는 lock 없이 순회해야 하므로 CopyOnWriteArrayList 를 사용한다.
+    private final List<Child> children = new CopyOnWriteArrayList<>();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    MetricFamily(String name, String help, MetricType type) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    String getName() {
+        return name;
+    }
+
+    MetricType getType() {
+        return type;
+    }
+
+    /**
+     * @return label 이 같은 child 의 source, 없으면 null 반환
+     */
+    Object findSource(String labels) {
+        for (Child child : children) {
+            if (child.labels.equals(labels)) {
+                return child.source;
+            }
+        }
+        return null;
+    }
+
+    void addChild(String labels, Object source) {
+        children.add(new Child(labels, source));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn void write(StringBuilder out)
+     * @brief Prometheus text format (0.0.4) 으로 출력하는 함수
+     */
+    void write(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ').append(escapeHelp(help)).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type.getTypeName()).append('\n');
+
+        for (Child child : children) {
+            Object source = child.source;
+            if (source instanceof Counter) {
+                writeSample(out, name, child.labels, ((Counter) source).get());
+            } else if (source instanceof DoubleSupplier) {
+                writeSample(out, name, child.labels, ((DoubleSupplier) source).getAsDouble());
+            } else if (source instanceof Histogram) {
+                writeHistogram(out, child.labels, (Histogram) source);
+            } else if (source instanceof SampleCollector) {
+                ((SampleCollector) source).collect(new SampleCollector.SampleWriter() {
+                    @Override
+                    public void write(String labelName, String labelValue, double value) {
+                        writeSample(out, name, joinLabels(child.labels, labelName, labelValue), value);
+                    }
+
+                    @Override
+                    public void writeHistogram(String labelName, String labelValue, Histogram histogram) {
+                        MetricFamily.this.writeHistogram(out, joinLabels(child.labels, labelName, labelValue), histogram);
+                    }
+                });
+            }
+        }
+    }
+
+    private void writeHistogram(StringBuilder out, String labels, Histogram histogram) {
+        double scale = histogram.getScale();
+
+        // count 와 sum 은 분위수보다 먼저 읽어서 count 가 분위수 계산에 사용된 개수보다 크지 않게 한다.
+        long count = histogram.getCount();
+        long sum = histogram.getSum();
+        long[] values = histogram.getQuantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            writeSample(out, name, joinLabels(labels, "quantile", QUANTILE_LABELS[i]), values[i] * scale);
+        }
+        writeSample(out, name + "_sum", labels, sum * scale);
+        writeSample(out, name + "_count", labels, count);
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    private static void appendValue(StringBuilder out, double value) {
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn static String formatLabel(String labelName, String labelValue)
+     * @brief label 한 개를 name="value" 형식으로 만드는 함수 (value 의 \, ", 줄바꿈은 escape)
+     */
+    static String formatLabel(String labelName, String labelValue) {
+        StringBuilder sb = new StringBuilder(labelName.length() + labelValue.length() + 3);
+        sb.append(labelName).append("=\"");
+        for (int i = 0; i < labelValue.length(); i++) {
+            char c = labelValue.charAt(i);
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c == '"') {
+                sb.append("\\\"");
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String joinLabels(String labels, String labelName, String labelValue) {
+        String label = formatLabel(labelName, labelValue);
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static class Child {
+
+        private final String labels; // name="value",... (중괄호 제외)
+        private final Object source; // Counter, Histogram, DoubleSupplier, SampleCollector
+
+        private Child(String labels, Object source) {
+            this.labels = labels;
+            this.source = source;
+        }
+
+    }
+
+}
@@ -0,0 +1,23 @@
+package rtsp.service.metrics;
+
+/**
+ * @enum public enum MetricType
+ * @brief Prometheus text format 의 metric type (# TYPE 에 출력되는 이름)
+ */
+public enum MetricType {
+
+    COUNTER("counter"),
+    GAUGE("gauge"),
+    SUMMARY("summary");
+
+    private final String typeName;
+
+    MetricType(String typeName) {
+        this.typeName = typeName;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+}
@@ -0,0 +1,210 @@
+package rtsp.service.metrics;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.CharsetUtil;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * @class public class MetricsHttpServer
+ * @brief MetricsRegistry 를 Prometheus 가 scrape 할 수 있도록 GET /metrics 로 제공하는 HTTP 서버
+ * 진단용 text 를 반환하는 경로를 addPath 로 추가할 수 있다. (ex. GET /trace)
+ * 요청이 적으므로 NIO 스레드 한 개만 사용하고, RTSP/RTP 용 event loop 와 공유하지 않는다.
+ */
+public class MetricsHttpServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+    private static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+    private static final int MAX_CONTENT_LENGTH = 8192;
+
+    private final String ip;
+    private final int port;
+    private final MetricsRegistry metricsRegistry;
+
+    // key: 경로, value: query parameter 를 받아서 응답 body 를 반환하는 함수 (null 을 반환하면 404)
+    private final Map<String, Function<Map<String, List<String>>, String>> pathHandlerMap = new ConcurrentHashMap<>();
+
+    private EventLoopGroup eventLoopGroup = null;
+    private Channel channel = null;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public MetricsHttpServer(String ip, int port, MetricsRegistry metricsRegistry) {
+        this.ip = ip;
+        this.port = port;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void addPath(String path, Function<Map<String, List<String>>, String> handler)
+     * @brief GET 요청에 text 를 응답할 경로를 추가하는 함수 (handler 는 HTTP 스레드에서 호출된다.)
+     * @param path 경로 (ex. /trace, /metrics 는 사용할 수 없음)
+     * @param handler query parameter 를 받아서 응답 body 를 반환하는 함수 (null 을 반환하면 404)
+     */
+    public void addPath(String path, Function<Map<String, List<String>>, String> handler) {
+        if (METRICS_PATH.equals(path)) {
+            logger.warn("Fail to add the path. {} is reserved.", path);
+            return;
+        }
+        pathHandlerMap.put(path, handler);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public boolean start()
+     * @brief HTTP 서버를 시작하는 함수
+     * @return 성공 시 true, 실패 시 false 반환
+     */
+    public boolean start() {
+        if (channel != null) {
+            return true;
+        }
+
+        InetAddress address;
+        try {
+            address = InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            logger.warn("UnknownHostException is occurred. (ip={})", ip, e);
+            return false;
+        }
+
+        eventLoopGroup = new NioEventLoopGroup(1,
+                new BasicThreadFactory.Builder()
+                        .namingPattern("MetricsHttp-%d")
+                        .daemon(true)
+                        .build()
+        );
+
+        ServerBootstrap serverBootstrap = new ServerBootstrap();
+        serverBootstrap.group(eventLoopGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel socketChannel) {
+                        final ChannelPipeline pipeline = socketChannel.pipeline();
+                        pipeline.addLast(new HttpServerCodec());
+                        pipeline.addLast(new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                        pipeline.addLast(new MetricsHttpHandler());
+                    }
+                });
+
+        try {
+            channel = serverBootstrap.bind(address, port).sync().channel();
+            logger.debug("Success to start the metrics http server. (ip={}, port={})", ip, port);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Fail to start the metrics http server. (ip={}, port={})", ip, port, e);
+            eventLoopGroup.shutdownGracefully();
+            eventLoopGroup = null;
+            return false;
+        }
+    }
+
+    /**
+     * @fn public void stop()
+     * @brief HTTP 서버를 종료하는 함수
+     */
+    public void stop() {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully();
+            eventLoopGroup = null;
+        }
+
+        logger.debug("Success to stop the metrics http server. (ip={}, port={})", ip, port);
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @class private class MetricsHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
+     * @brief GET /metrics 요청에 MetricsRegistry 의 출력을, addPath 로 추가한 경로에는 handler 의 출력을 응답하는 handler
+     * (그 외 경로는 404, GET 이 아니면 405)
+     */
+    private class MetricsHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            HttpResponseStatus status;
+            String body;
+            String contentType = TEXT_CONTENT_TYPE;
+            QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+            String path = decoder.path();
+            Function<Map<String, List<String>>, String> pathHandler = pathHandlerMap.get(path);
+            if (!request.decoderResult().isSuccess()) {
+                status = HttpResponseStatus.BAD_REQUEST;
+                body = "Bad Request\n";
+            } else if (!METRICS_PATH.equals(path) && pathHandler == null) {
+                status = HttpResponseStatus.NOT_FOUND;
+                body = "Not Found\n";
+            } else if (!HttpMethod.GET.equals(request.method()) && !HttpMethod.HEAD.equals(request.method())) {
+                status = HttpResponseStatus.METHOD_NOT_ALLOWED;
+                body = "Method Not Allowed\n";
+            } else if (METRICS_PATH.equals(path)) {
+                status = HttpResponseStatus.OK;
+                body = metricsRegistry.scrape();
+                contentType = CONTENT_TYPE;
+            } else {
+                body = pathHandler.apply(decoder.parameters());
+                if (body != null) {
+                    status = HttpResponseStatus.OK;
+                } else {
+                    status = HttpResponseStatus.NOT_FOUND;
+                    body = "Not Found\n";
+                }
+            }
+
+            ByteBuf content = HttpMethod.HEAD.equals(request.method()) ?
+                    Unpooled.EMPTY_BUFFER : Unpooled.copiedBuffer(body, CharsetUtil.UTF_8);
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+
+            boolean isKeepAlive = HttpUtil.isKeepAlive(request);
+            if (isKeepAlive) {
+                response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+                ctx.writeAndFlush(response);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.warn("MetricsHttpHandler.exceptionCaught (remote={})", ctx.channel().remoteAddress(), cause);
+            ctx.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+package rtsp.service.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * @class public class MetricsRegistry
+ * @brief Counter, Gauge, Histogram 을 이름과 label 로 등록하고 Prometheus text format 으로 출력하는 클래스
+ * 등록은 서비스 시작 시점에 한 번만 하고, hot path 에서는 등록할 때 반환된 객체를 바로 사용한다.
+ * (기록할 때 이름이나 label 로 조회하지 않으므로 lock 과 메모리 할당이 없다.)
+ */
+public class MetricsRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    private final ReentrantLock registerLock = new ReentrantLock();
+    // Key : metric 이름 (출력 순서를 고정하기 위해 정렬)
+    private final Map<String, MetricFamily> familyMap = new ConcurrentSkipListMap<>();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public MetricsRegistry() {
+        // Nothing
+    }
+
+    public static MetricsRegistry getInstance() {
+        return metricsRegistry;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public Counter counter(String name, String help) {
+        return counter(name, help, null, null);
+    }
+
+    /**
+     * @fn public Counter counter(String name, String help, String labelName, String labelValue)
+     * @brief Counter 를 등록하는 함수 (같은 이름과 label 로 이미 등록되어 있으면 등록된 Counter 를 반환)
+     */
+    public Counter counter(String name, String help, String labelName, String labelValue) {
+        return (Counter) register(name, help, MetricType.COUNTER, labelName, labelValue, new Counter());
+    }
+
+    public Histogram histogram(String name, String help, double scale) {
+        return histogram(name, help, scale, null, null);
+    }
+
+    /**
+     * @fn public Histogram histogram(String name, String help, double scale, String labelName, String labelValue)
+     * @brief Histogram 을 등록하는 함수 (Prometheus summary 로 출력)
+     * @param scale 출력할 때 기록된 값에 곱할 값 (ex. us 로 기록하고 초로 출력하면 1e-6)
+     */
+    public Histogram histogram(String name, String help, double scale, String labelName, String labelValue) {
+        return (Histogram) register(name, help, MetricType.SUMMARY, labelName, labelValue, new Histogram(scale));
+    }
+
+    /**
+     * @fn public void gauge(String name, String help, DoubleSupplier supplier)
+     * @brief scrape 할 때 supplier 에서 값을 읽는 gauge 를 등록하는 함수
+     */
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        register(name, help, MetricType.GAUGE, null, null, supplier);
+    }
+
+    public void gauge(String name, String help, String labelName, String labelValue, DoubleSupplier supplier) {
+        register(name, help, MetricType.GAUGE, labelName, labelValue, supplier);
+    }
+
+    /**
+     * @fn public void counterFunction(String name, String help, String labelName, String labelValue, DoubleSupplier supplier)
+     * @brief 다른 모듈이 이미 세고 있는 누적 값(ex. SegmentCache hit 개수)을 counter 로 등록하는 함수
+     */
+    public void counterFunction(String name, String help, String labelName, String labelValue, DoubleSupplier supplier) {
+        register(name, help, MetricType.COUNTER, labelName, labelValue, supplier);
+    }
+
+    /**
+     * @fn public void collector(String name, String help, MetricType type, SampleCollector collector)
+     * @brief scrape 시점에 sample 을 만드는 collector 를 등록하는 함수 (ex. session 별 metric)
+     */
+    public void collector(String name, String help, MetricType type, SampleCollector collector) {
+        register(name, help, type, null, null, collector);
+    }
+
+    private Object register(String name, String help, MetricType type, String labelName, String labelValue, Object source) {
+        String labels = labelName == null ? "" : MetricFamily.formatLabel(labelName, labelValue);
+
+        registerLock.lock();
+        try {
+            MetricFamily metricFamily = familyMap.get(name);
+            if (metricFamily == null) {
+                metricFamily = new MetricFamily(name, help, type);
+                familyMap.put(name, metricFamily);
+            } else if (metricFamily.getType() != type) {
+                logger.warn("Metric type is mismatched. Fail to register the metric. (name={}, type={}, registeredType={})", name, type, metricFamily.getType());
+                return source;
+            }
+
+            Object registeredSource = metricFamily.findSource(labels);
+            if (registeredSource != null) {
+                // Counter 와 Histogram 은 같은 객체를 공유하고, supplier 는 새로 등록한 것으로 바꾸지 않는다.
+                return registeredSource;
+            }
+
+            metricFamily.addChild(labels, source);
+            return source;
+        } finally {
+            registerLock.unlock();
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public String scrape()
+     * @brief 등록된 모든 metric 을 Prometheus text format (0.0.4) 으로 출력하는 함수
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        for (MetricFamily metricFamily : familyMap.values()) {
+            try {
+                metricFamily.write(out);
+            } catch (Exception e) {
+                logger.warn("MetricsRegistry.scrape.Exception (name={})", metricFamily.getName(), e);
+            }
+        }
+        return out.toString();
+    }
+
+}
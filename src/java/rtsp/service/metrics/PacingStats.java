@@ -0,0 +1,74 @@
+package rtsp.service.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @class public class PacingStats
+ * @brief session 한 개의 PCR pacing 정확도 통계
+ * 오차는 (실제 전송 시간 - 첫 PCR 기준으로 계산한 전송 시간) 이고, PCR 이 있는 TS 패킷을 보낼 때마다 기록한다.
+ * 기준을 다시 잡은 경우(reset)는 원인 별로 센다.
+ */
+public class PacingStats {
+
+    public enum ResetReason {
+        DISCONTINUITY, // PCR 이 이전 PCR 보다 작거나 같음
+        JUMP, // 다음 PCR 까지 대기 시간이 너무 김 (> 100ms)
+        INDICATOR, // adaptation field 의 discontinuity indicator
+        LATE // 계산한 전송 시간보다 너무 늦음 (> 100ms, ANCHORED)
+    }
+
+    private final Histogram errorHistogram = new Histogram(1e-6); // us > seconds
+    private final AtomicLongArray resetCounts = new AtomicLongArray(ResetReason.values().length);
+    private volatile long lastErrorNanos = 0; // 부호 있는 마지막 오차 (양수면 늦음)
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void recordError(long errorNanos)
+     * @brief 전송 오차를 session 과 전체 histogram 에 기록하는 함수 (일찍 보낸 경우는 0 으로 기록)
+     */
+    public void recordError(long errorNanos) {
+        lastErrorNanos = errorNanos;
+        long errorMicros = errorNanos / 1000;
+        errorHistogram.record(errorMicros);
+        RtspMetrics.PACING_ERROR.record(errorMicros);
+    }
+
+    public void recordReset(ResetReason reason) {
+        resetCounts.incrementAndGet(reason.ordinal());
+        RtspMetrics.recordPacingReset(reason);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public Histogram getErrorHistogram() {
+        return errorHistogram;
+    }
+
+    public long getResetCount(ResetReason reason) {
+        return resetCounts.get(reason.ordinal());
+    }
+
+    public long getTotalResetCount() {
+        long total = 0;
+        for (int i = 0; i < resetCounts.length(); i++) {
+            total += resetCounts.get(i);
+        }
+        return total;
+    }
+
+    public long getLastErrorNanos() {
+        return lastErrorNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "PacingStats{" +
+                "count=" + errorHistogram.getCount() +
+                ", maxError=" + errorHistogram.getMax() / 1000 + "ms" +
+                ", lastError=" + lastErrorNanos / 1000000 + "ms" +
+                ", resets=" + getTotalResetCount() +
+                '}';
+    }
+
+}
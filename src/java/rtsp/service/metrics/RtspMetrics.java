@@ -0,0 +1,328 @@
+package rtsp.service.metrics;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.rtsp.RtspMethods;
+import rtsp.ffmpeg.ExternalToolExecutor;
+import rtsp.module.RtspManager;
+import rtsp.module.Streamer;
+import rtsp.module.cache.SegmentCache;
+import rtsp.service.AdmissionController;
+import rtsp.service.HealthSample;
+import rtsp.service.HealthSampler;
+import rtsp.service.ResourceManager;
+import rtsp.service.ServiceManager;
+import rtsp.service.base.BoundedTaskExecutor;
+import rtsp.service.scheduler.schedule.unit.ScheduleUnit;
+import rtsp.system.SystemManager;
+
+import java.util.Locale;
+
+/**
+ * @class public class RtspMetrics
+ * @brief RTSP 서버의 metric 목록
+ * hot path (RTP 전송, RTSP 요청, RTCP 수신, 외부 tool 실행) 에서 기록하는 metric 은 static 으로 미리 등록해두고,
+ * 다른 모듈이 이미 관리하는 값(port pool, scheduler, cache 등)은 scrape 할 때 읽는 gauge 로 등록한다. (registerGauges)
+ * 시간 값은 us 로 기록하고 초 단위로 출력한다.
+ */
+public class RtspMetrics {
+
+    private static final double MICROS_TO_SECONDS = 1e-6;
+
+    private static final MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // RTP
+    public static final Counter RTP_SENT_PACKETS = metricsRegistry.counter(
+            "rtsp_rtp_sent_packets_total", "Total number of RTP packets sent to clients.");
+    public static final Counter RTP_SENT_BYTES = metricsRegistry.counter(
+            "rtsp_rtp_sent_bytes_total", "Total number of RTP bytes (header + payload) sent to clients.");
+    public static final Histogram PACING_ERROR = metricsRegistry.histogram(
+            "rtsp_rtp_pacing_error_seconds", "Actual send time - ideal send time on the PCR timeline (anchored to the first PCR), for packets with a PCR.", MICROS_TO_SECONDS);
+    private static final Counter[] PACING_RESETS = new Counter[PacingStats.ResetReason.values().length];
+    static {
+        for (PacingStats.ResetReason reason : PacingStats.ResetReason.values()) {
+            PACING_RESETS[reason.ordinal()] = metricsRegistry.counter(
+                    "rtsp_rtp_pacing_resets_total", "Total number of PCR pacing re-anchors by reason.", "reason", reason.name().toLowerCase(Locale.ROOT));
+        }
+    }
+    public static final Counter RTP_DROPPED_PACKETS = metricsRegistry.counter(
+            "rtsp_rtp_dropped_packets_total", "Total number of RTP packets dropped because the session channel was not writable.");
+    public static final Counter RTP_DROPPED_BYTES = metricsRegistry.counter(
+            "rtsp_rtp_dropped_bytes_total", "Total number of RTP bytes dropped because the session channel was not writable.");
+    public static final Counter EGRESS_UNWRITABLE = metricsRegistry.counter(
+            "rtsp_egress_unwritable_total", "Total number of times a session channel crossed the write buffer high water mark.");
+    public static final Histogram EGRESS_SLOW_WAIT = metricsRegistry.histogram(
+            "rtsp_egress_slow_wait_seconds", "Time the sender waited for an unwritable channel (SLOW backpressure policy).", MICROS_TO_SECONDS);
+    public static final Counter EGRESS_FLUSHES = metricsRegistry.counter(
+            "rtsp_egress_flushes_total", "Total number of session channel flushes (one per packet in PACKET mode, one per pacing tick in TICK mode).");
+    public static final Counter EGRESS_BATCH_RUNS = metricsRegistry.counter(
+            "rtsp_egress_batch_runs_total", "Total number of event loop tasks that wrote the pacing tick batches of one or more sessions (TICK mode).");
+    public static final Histogram PLAY_FIRST_PACKET = metricsRegistry.histogram(
+            "rtsp_play_first_packet_seconds", "Time from receiving a PLAY request to sending its first RTP packet.", MICROS_TO_SECONDS);
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // RTSP
+    private static final String RTSP_REQUEST_NAME = "rtsp_request_duration_seconds";
+    private static final String RTSP_REQUEST_HELP = "Time from receiving an RTSP request to writing its response.";
+    private static final Histogram RTSP_OPTIONS = rtspRequestHistogram(RtspMethods.OPTIONS);
+    private static final Histogram RTSP_DESCRIBE = rtspRequestHistogram(RtspMethods.DESCRIBE);
+    private static final Histogram RTSP_SETUP = rtspRequestHistogram(RtspMethods.SETUP);
+    private static final Histogram RTSP_PLAY = rtspRequestHistogram(RtspMethods.PLAY);
+    private static final Histogram RTSP_PAUSE = rtspRequestHistogram(RtspMethods.PAUSE);
+    private static final Histogram RTSP_TEARDOWN = rtspRequestHistogram(RtspMethods.TEARDOWN);
+    private static final Histogram RTSP_GET_PARAMETER = rtspRequestHistogram(RtspMethods.GET_PARAMETER);
+    private static final Histogram RTSP_OTHER = metricsRegistry.histogram(
+            RTSP_REQUEST_NAME, RTSP_REQUEST_HELP, MICROS_TO_SECONDS, "method", "OTHER");
+    private static final Counter[] ADMISSION_REJECTS = new Counter[AdmissionController.Decision.values().length];
+    static {
+        for (AdmissionController.Decision decision : AdmissionController.Decision.values()) {
+            if (!decision.isAdmitted()) {
+                ADMISSION_REJECTS[decision.ordinal()] = metricsRegistry.counter(
+                        "rtsp_admission_rejected_total", "Total number of SETUP/PLAY requests rejected by admission control.", "reason", decision.name().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // RTCP
+    public static final Counter RTCP_RECEIVER_REPORTS = metricsRegistry.counter(
+            "rtsp_rtcp_receiver_reports_total", "Total number of RTCP receiver report blocks received for active streams.");
+    public static final Histogram RTCP_FRACTION_LOST = metricsRegistry.histogram(
+            "rtsp_rtcp_fraction_lost_ratio", "Fraction lost reported in RTCP receiver reports.", 1.0 / 256);
+    public static final Histogram RTCP_JITTER = metricsRegistry.histogram(
+            "rtsp_rtcp_jitter_seconds", "Interarrival jitter reported in RTCP receiver reports.", 1.0 / 90000);
+    public static final Histogram RTCP_RTT = metricsRegistry.histogram(
+            "rtsp_rtcp_rtt_seconds", "Round trip time computed from LSR/DLSR of RTCP receiver reports.", MICROS_TO_SECONDS);
+
+    ////////////////////////////////////////////////////////////////////////////////
+    // EXTERNAL TOOL (ffmpeg, ffprobe)
+    private static final Histogram[] TOOL_RUN = new Histogram[ExternalToolExecutor.Tool.values().length];
+    private static final Histogram[] TOOL_WAIT = new Histogram[ExternalToolExecutor.Tool.values().length];
+    static {
+        for (ExternalToolExecutor.Tool tool : ExternalToolExecutor.Tool.values()) {
+            String toolName = tool.name().toLowerCase(Locale.ROOT);
+            TOOL_RUN[tool.ordinal()] = metricsRegistry.histogram(
+                    "rtsp_tool_run_seconds", "Run time of external tool processes (ffmpeg conversion, ffprobe).", MICROS_TO_SECONDS, "tool", toolName);
+            TOOL_WAIT[tool.ordinal()] = metricsRegistry.histogram(
+                    "rtsp_tool_wait_seconds", "Time spent waiting for an external tool slot.", MICROS_TO_SECONDS, "tool", toolName);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private RtspMetrics() {
+        // Nothing
+    }
+
+    private static Histogram rtspRequestHistogram(HttpMethod method) {
+        return metricsRegistry.histogram(RTSP_REQUEST_NAME, RTSP_REQUEST_HELP, MICROS_TO_SECONDS, "method", method.name());
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public static void recordRtspRequest(HttpMethod method, long elapsedNanos)
+     * @brief RTSP method 별 처리 시간을 기록하는 함수
+     */
+    public static void recordRtspRequest(HttpMethod method, long elapsedNanos) {
+        Histogram histogram;
+        if (method == RtspMethods.OPTIONS) {
+            histogram = RTSP_OPTIONS;
+        } else if (method == RtspMethods.DESCRIBE) {
+            histogram = RTSP_DESCRIBE;
+        } else if (method == RtspMethods.SETUP) {
+            histogram = RTSP_SETUP;
+        } else if (method == RtspMethods.PLAY) {
+            histogram = RTSP_PLAY;
+        } else if (method == RtspMethods.PAUSE) {
+            histogram = RTSP_PAUSE;
+        } else if (method == RtspMethods.TEARDOWN) {
+            histogram = RTSP_TEARDOWN;
+        } else if (method == RtspMethods.GET_PARAMETER) {
+            histogram = RTSP_GET_PARAMETER;
+        } else {
+            histogram = RTSP_OTHER;
+        }
+        histogram.record(elapsedNanos / 1000);
+    }
+
+    public static void recordPacingReset(PacingStats.ResetReason reason) {
+        PACING_RESETS[reason.ordinal()].inc();
+    }
+
+    public static void recordAdmissionReject(AdmissionController.Decision decision) {
+        Counter counter = ADMISSION_REJECTS[decision.ordinal()];
+        if (counter != null) {
+            counter.inc();
+        }
+    }
+
+    public static void recordToolRun(ExternalToolExecutor.Tool tool, long runNanos) {
+        TOOL_RUN[tool.ordinal()].record(runNanos / 1000);
+    }
+
+    public static void recordToolWait(ExternalToolExecutor.Tool tool, long waitNanos) {
+        TOOL_WAIT[tool.ordinal()].record(waitNanos / 1000);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public static void registerGauges()
+     * @brief 다른 모듈의 현재 상태를 scrape 시점에 읽는 gauge 와 session 별 metric 을 등록하는 함수 (서비스 시작 시 한 번 호출)
+     */
+    public static void registerGauges() {
+        ///////////////////////////////////////////////////////////////////////////
+        // PROCESS (HaHandler 에서 debug log 로만 보던 값)
+        SystemManager systemManager = SystemManager.getInstance();
+        metricsRegistry.gauge("rtsp_process_cpu_usage_ratio", "Recent CPU usage of the server process (0 ~ 1).", systemManager::getProcessCpuLoad);
+        metricsRegistry.gauge("rtsp_system_cpu_usage_ratio", "Recent CPU usage of the whole system (0 ~ 1).", systemManager::getSystemCpuLoad);
+        metricsRegistry.gauge("rtsp_heap_used_bytes", "Used heap memory.", systemManager::getHeapUsedBytes);
+        metricsRegistry.gauge("rtsp_heap_max_bytes", "Max heap memory.", () -> Runtime.getRuntime().maxMemory());
+        metricsRegistry.gauge("rtsp_threads", "Number of live threads.", systemManager::getThreadCount);
+        metricsRegistry.gauge("rtsp_units", "Number of RTSP units (registered clients).", () -> RtspManager.getInstance().getRtspUnitMapSize());
+        metricsRegistry.counterFunction("rtsp_gc_time_seconds_total", "Accumulated GC time of all collectors.", null, null, () -> systemManager.getGcTimeMillis() / 1000.0);
+        metricsRegistry.counterFunction("rtsp_gc_collections_total", "Total number of GC runs of all collectors.", null, null, systemManager::getGcCount);
+        metricsRegistry.gauge("rtsp_open_fds", "Number of open file descriptors (-1 if unknown).", systemManager::getOpenFileDescriptorCount);
+        metricsRegistry.gauge("rtsp_max_fds", "Max number of file descriptors (-1 if unknown).", systemManager::getMaxFileDescriptorCount);
+        metricsRegistry.gauge("rtsp_pooled_direct_memory_used_bytes", "Direct memory held by the pooled Netty allocator.", systemManager::getPooledDirectMemoryUsed);
+        metricsRegistry.gauge("rtsp_direct_memory_max_bytes", "Max direct memory available to Netty.", systemManager::getMaxDirectMemory);
+
+        ///////////////////////////////////////////////////////////////////////////
+        // HEALTH (HealthSampler 가 전용 스레드에서 주기마다 측정한 값)
+        HealthSampler healthSampler = HealthSampler.getInstance();
+        metricsRegistry.gauge("rtsp_load_factor", "Load factor of the recent health window (>= 1 means overloaded).", healthSampler::getLoadFactor);
+        metricsRegistry.gauge("rtsp_event_loops", "Number of Netty event loops watched for scheduling lag.", healthSampler::getEventLoopCount);
+        metricsRegistry.collector("rtsp_event_loop_lag_seconds", "Max scheduling lag of the event loops in each group at the last sample.", MetricType.GAUGE,
+                writer -> {
+                    HealthSample healthSample = healthSampler.getLastSample();
+                    if (healthSample != null) {
+                        healthSample.getEventLoopLagNanosMap().forEach((group, lagNanos) -> writer.write("group", group, lagNanos * 1e-9));
+                    }
+                }
+        );
+        metricsRegistry.gauge("rtsp_egress_bits_per_second", "RTP egress rate at the last sample.", () -> {
+            HealthSample healthSample = healthSampler.getLastSample();
+            return healthSample == null ? 0 : healthSample.getEgressBitsPerSecond();
+        });
+        metricsRegistry.gauge("rtsp_pacing_lateness_seconds", "Mean PCR pacing lateness of the recent health window.", () -> healthSampler.getPacingLatenessNanos() * 1e-9);
+        metricsRegistry.collector("rtsp_sessions", "Number of RTSP units per FSM state at the last sample.", MetricType.GAUGE,
+                writer -> {
+                    HealthSample healthSample = healthSampler.getLastSample();
+                    if (healthSample != null) {
+                        healthSample.getSessionCountMap().forEach((state, count) -> writer.write("state", state, count));
+                    }
+                }
+        );
+
+        ///////////////////////////////////////////////////////////////////////////
+        // ADMISSION
+        AdmissionController admissionController = AdmissionController.getInstance();
+        metricsRegistry.gauge("rtsp_admission_committed_bits_per_second", "Sum of the bitrates reserved by admitted sessions.", admissionController::getCommittedBitRate);
+        metricsRegistry.gauge("rtsp_admission_sessions", "Number of sessions holding an admission reservation.", admissionController::getSessionCount);
+
+        ///////////////////////////////////////////////////////////////////////////
+        // RTP PORT POOL
+        ResourceManager resourceManager = ResourceManager.getInstance();
+        metricsRegistry.gauge("rtsp_rtp_ports_used", "Number of RTP port pairs in use.", resourceManager::getUsedPortCount);
+        metricsRegistry.gauge("rtsp_rtp_ports_free", "Number of free RTP port pairs.", resourceManager::getFreePortCount);
+        metricsRegistry.gauge("rtsp_rtp_ports_utilization_ratio", "RTP port pool utilization (0 ~ 1).", resourceManager::getPortUtilization);
+
+        ///////////////////////////////////////////////////////////////////////////
+        // SCHEDULER
+        metricsRegistry.gauge("rtsp_scheduler_queued_jobs", "Number of jobs waiting in the main job executors.", () -> {
+            ScheduleUnit scheduleUnit = ServiceManager.getInstance().getScheduleManager().getScheduleUnit(ServiceManager.MAIN_SCHEDULE_JOB);
+            return scheduleUnit == null ? 0 : scheduleUnit.getJobScheduler().getQueuedJobCount();
+        });
+        metricsRegistry.gauge("rtsp_scheduler_scheduled_jobs", "Number of jobs scheduled in the main job scheduler.", () -> {
+            ScheduleUnit scheduleUnit = ServiceManager.getInstance().getScheduleManager().getScheduleUnit(ServiceManager.MAIN_SCHEDULE_JOB);
+            return scheduleUnit == null ? 0 : scheduleUnit.getJobScheduler().getScheduledJobCount();
+        });
+        metricsRegistry.gauge("rtsp_play_prepare_active", "Number of PLAY preparations running.", () -> {
+            BoundedTaskExecutor executor = ServiceManager.getInstance().getPlayPreparationExecutor();
+            return executor == null ? 0 : executor.getActiveCount();
+        });
+        metricsRegistry.gauge("rtsp_play_prepare_pending", "Number of PLAY preparations waiting.", () -> {
+            BoundedTaskExecutor executor = ServiceManager.getInstance().getPlayPreparationExecutor();
+            return executor == null ? 0 : executor.getPendingCount();
+        });
+        metricsRegistry.counterFunction("rtsp_play_prepare_rejected_total", "Total number of PLAY requests rejected because the preparation pool was full.", null, null, () -> {
+            BoundedTaskExecutor executor = ServiceManager.getInstance().getPlayPreparationExecutor();
+            return executor == null ? 0 : executor.getRejectedCount();
+        });
+
+        ///////////////////////////////////////////////////////////////////////////
+        // EXTERNAL TOOL
+        for (ExternalToolExecutor.Tool tool : ExternalToolExecutor.Tool.values()) {
+            String toolName = tool.name().toLowerCase(Locale.ROOT);
+            metricsRegistry.gauge("rtsp_tool_running", "Number of external tool processes running.", "tool", toolName,
+                    () -> ExternalToolExecutor.getInstance().getRunningCount(tool));
+            metricsRegistry.gauge("rtsp_tool_queued", "Number of requests waiting for an external tool slot.", "tool", toolName,
+                    () -> ExternalToolExecutor.getInstance().getQueuedCount(tool));
+        }
+
+        ///////////////////////////////////////////////////////////////////////////
+        // SEGMENT CACHE
+        SegmentCache segmentCache = SegmentCache.getInstance();
+        String cacheName = "rtsp_segment_cache_requests_total";
+        String cacheHelp = "Segment cache lookups by result.";
+        metricsRegistry.counterFunction(cacheName, cacheHelp, "result", "hit", segmentCache::getHitCount);
+        metricsRegistry.counterFunction(cacheName, cacheHelp, "result", "miss", segmentCache::getMissCount);
+        metricsRegistry.counterFunction(cacheName, cacheHelp, "result", "bypass", segmentCache::getBypassCount);
+        metricsRegistry.counterFunction("rtsp_segment_cache_evictions_total", "Total number of segments evicted from the cache.", null, null, segmentCache::getEvictCount);
+        metricsRegistry.gauge("rtsp_segment_cache_used_bytes", "Direct memory used by cached segments.", segmentCache::getUsedSize);
+        metricsRegistry.gauge("rtsp_segment_cache_segments", "Number of cached segments.", segmentCache::getSegmentCount);
+
+        ///////////////////////////////////////////////////////////////////////////
+        // SESSION (scrape 시점에 살아있는 session 만 출력)
+        metricsRegistry.collector("rtsp_session_sent_packets_total", "RTP packets sent per session.", MetricType.COUNTER,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.write("session", streamer.getSessionId(), streamer.getSentPacketCount());
+                    }
+                })
+        );
+        metricsRegistry.collector("rtsp_session_sent_bytes_total", "RTP bytes sent per session.", MetricType.COUNTER,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.write("session", streamer.getSessionId(), streamer.getSentByteCount());
+                    }
+                })
+        );
+        metricsRegistry.collector("rtsp_session_dropped_packets_total", "RTP packets dropped per session because its channel was not writable.", MetricType.COUNTER,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.write("session", streamer.getSessionId(), streamer.getEgressFlowControl().getDroppedPacketCount());
+                    }
+                })
+        );
+        metricsRegistry.collector("rtsp_session_pacing_error_seconds", "PCR pacing error per session (actual - ideal send time).", MetricType.SUMMARY,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.writeHistogram("session", streamer.getSessionId(), streamer.getPacingStats().getErrorHistogram());
+                    }
+                })
+        );
+        metricsRegistry.collector("rtsp_session_pacing_drift_seconds", "Last signed PCR pacing error per session (positive = behind the PCR timeline).", MetricType.GAUGE,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.write("session", streamer.getSessionId(), streamer.getPacingStats().getLastErrorNanos() * 1e-9);
+                    }
+                })
+        );
+        metricsRegistry.collector("rtsp_session_pacing_resets_total", "PCR pacing re-anchors per session.", MetricType.COUNTER,
+                writer -> RtspManager.getInstance().forEachRtspUnit(rtspUnit -> {
+                    Streamer streamer = rtspUnit.getStreamer();
+                    if (streamer != null) {
+                        writer.write("session", streamer.getSessionId(), streamer.getPacingStats().getTotalResetCount());
+                    }
+                })
+        );
+    }
+
+}
@@ -0,0 +1,32 @@
+package rtsp.service.metrics;
+
+/**
+ * @interface public interface SampleCollector
+ * @brief scrape 할 때마다 label 이 바뀌는 metric (ex. session 별 전송량) 을 출력하는 interface
+ * session 처럼 생성과 삭제가 잦은 대상은 registry 에 등록하지 않고, scrape 시점에 살아있는 대상만 출력한다.
+ */
+public interface SampleCollector {
+
+    /**
+     * @fn void collect(SampleWriter writer)
+     * @brief 현재 값을 writer 로 출력하는 함수 (scrape 스레드에서 호출)
+     */
+    void collect(SampleWriter writer);
+
+    /**
+     * @interface interface SampleWriter
+     * @brief label 한 개를 가진 sample 을 출력하는 interface
+     */
+    interface SampleWriter {
+
+        void write(String labelName, String labelValue, double value);
+
+        /**
+         * @fn void writeHistogram(String labelName, String labelValue, Histogram histogram)
+         * @brief histogram 을 summary 로 출력하는 함수 (MetricType.SUMMARY collector 에서 사용)
+         */
+        void writeHistogram(String labelName, String labelValue, Histogram histogram);
+
+    }
+
+}
@@ -6,7 +6,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class Job {
+public class Job implements Runnable {
+
+    public static final long DEFAULT_RELATIVE_DEADLINE_MS = 1000;
 
     private ScheduleManager scheduleManager = null;
     private String name = null;
@@ -23,10 +25,37 @@ public class Job {
     private String scheduleUnitKey = null;
     private Runnable runnable = null;
 
+    // EDF: queue 에 들어간 시각 + relativeDeadline 까지 실행이 시작되어야 한다. (절대 deadline 은 queue 에 넣을 때마다 계산)
+    private int relativeDeadline = 0; // timeUnit 단위, 0 이면 주기 Job 은 interval, 아니면 DEFAULT_RELATIVE_DEADLINE_MS
+    private String jobClass = null; // Lateness 통계 분류 이름
+
     public Job() {
         // Nothing
     }
 
+    public Job(String name, int initialDelay, int interval, TimeUnit timeUnit, int priority, int totalRunCount, boolean isLasted) {
+        this.name = name;
+        this.initialDelay = initialDelay;
+        this.interval = interval;
+        this.timeUnit = timeUnit;
+        this.priority = priority;
+        this.totalRunCount = totalRunCount;
+        this.isLasted = isLasted;
+    }
+
+    /**
+     * @fn public void run()
+     * @brief Job 의 실제 작업을 수행하는 함수
+     * 하위 클래스에서 재정의하지 않으면 setRunnable 로 지정된 작업을 수행한다.
+     */
+    @Override
+    public void run() {
+        Runnable curRunnable = runnable;
+        if (curRunnable != null) {
+            curRunnable.run();
+        }
+    }
+
     public ScheduleManager getScheduleManager() {
         return scheduleManager;
     }
@@ -131,6 +160,42 @@ public class Job {
         this.runnable = runnable;
     }
 
+    public int getRelativeDeadline() {
+        return relativeDeadline;
+    }
+
+    public void setRelativeDeadline(int relativeDeadline) {
+        this.relativeDeadline = relativeDeadline;
+    }
+
+    /**
+     * @fn public long getRelativeDeadlineNanos()
+     * @brief 상대 deadline 을 ns 로 반환하는 함수
+     * 지정하지 않았으면 주기 Job 은 주기(interval)를, 일회성 Job 은 DEFAULT_RELATIVE_DEADLINE_MS 를 사용한다.
+     */
+    public long getRelativeDeadlineNanos() {
+        TimeUnit unit = (timeUnit != null) ? timeUnit : TimeUnit.MILLISECONDS;
+        if (relativeDeadline > 0) {
+            return unit.toNanos(relativeDeadline);
+        } else if (isLasted && interval > 0) {
+            return unit.toNanos(interval);
+        }
+        return TimeUnit.MILLISECONDS.toNanos(DEFAULT_RELATIVE_DEADLINE_MS);
+    }
+
+    public String getJobClass() {
+        if (jobClass != null) {
+            return jobClass;
+        }
+
+        // 하위 클래스(HaHandler, RtpSender 등)는 클래스 이름, JobBuilder 로 만든 Job 은 Job 이름으로 분류
+        return (getClass() == Job.class) ? name : getClass().getSimpleName();
+    }
+
+    public void setJobClass(String jobClass) {
+        this.jobClass = jobClass;
+    }
+
     @Override
     public String toString() {
         return "Job{" +
@@ -143,6 +208,8 @@ public class Job {
                 ", curRemainRunCount=" + curRemainRunCount.get() +
                 ", isLasted=" + isLasted +
                 ", isFinished=" + isFinished.get() +
+                ", relativeDeadline=" + relativeDeadline +
+                ", jobClass=" + getJobClass() +
                 ", scheduleUnitKey=" + scheduleUnitKey +
                 '}';
     }
@@ -52,6 +52,21 @@ public class JobBuilder {
         return this;
     }
 
+    public JobBuilder setRelativeDeadline(int relativeDeadline) {
+        job.setRelativeDeadline(relativeDeadline);
+        return this;
+    }
+
+    public JobBuilder setJobClass(String jobClass) {
+        job.setJobClass(jobClass);
+        return this;
+    }
+
+    public JobBuilder setRunnable(Runnable runnable) {
+        job.setRunnable(runnable);
+        return this;
+    }
+
     public Job build() {
         return job;
     }
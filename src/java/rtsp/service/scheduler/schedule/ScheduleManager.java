@@ -2,21 +2,24 @@ package rtsp.service.scheduler.schedule;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rtsp.service.base.ExecutorBackend;
+import rtsp.service.base.SessionRegistry;
 import rtsp.service.scheduler.job.Job;
+import rtsp.service.scheduler.schedule.handler.JobSchedulingPolicy;
+import rtsp.service.scheduler.schedule.timer.JobTimer;
 import rtsp.service.scheduler.schedule.unit.ScheduleUnit;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 public class ScheduleManager {
 
     ////////////////////////////////////////////////////////////
     // VARIABLES
     private static final Logger logger = LoggerFactory.getLogger(ScheduleManager.class);
-    private final HashMap<String, ScheduleUnit> scheduleUnitMap = new HashMap<>();
-    private final ReentrantLock scheduleUnitMapLock = new ReentrantLock();
+    private final SessionRegistry<String, ScheduleUnit> scheduleUnitMap = new SessionRegistry<>(4);
+
+    // 모든 ScheduleUnit 의 주기 Job 이 공유하는 timer (스레드 1개)
+    private final JobTimer jobTimer = new JobTimer(ScheduleManager.class.getSimpleName());
     ////////////////////////////////////////////////////////////
 
     ////////////////////////////////////////////////////////////
@@ -30,48 +33,34 @@ public class ScheduleManager {
         return scheduleUnitMap.size();
     }
 
-    public Map<String, ScheduleUnit> getCloneCallMap( ) {
-        HashMap<String, ScheduleUnit> cloneMap;
-
-        try {
-            scheduleUnitMapLock.lock();
-
-            cloneMap = (HashMap<String, ScheduleUnit>) scheduleUnitMap.clone();
-        } catch (Exception e) {
-            logger.warn("Fail to clone the schedule unit map.",  e);
-            cloneMap = scheduleUnitMap;
-        } finally {
-            scheduleUnitMapLock.unlock();
-        }
-
-        return cloneMap;
+    public void forEachScheduleUnit(Consumer<ScheduleUnit> action) {
+        scheduleUnitMap.forEachValue(action);
     }
 
-    private ScheduleUnit addScheduleUnit(String key, int poolSize, int queueSize) {
+    private ScheduleUnit addScheduleUnit(String key, int poolSize, int queueSize, JobSchedulingPolicy policy, boolean isWorkStealing, ExecutorBackend backend) {
         if (key == null) {
             return null;
         }
 
-        ScheduleUnit scheduleUnit = scheduleUnitMap.get(key);
-        if (scheduleUnit != null) {
-            return scheduleUnit;
-        }
-
         try {
-            scheduleUnitMapLock.lock();
+            ScheduleUnit scheduleUnit = scheduleUnitMap.get(key);
+            if (scheduleUnit != null) {
+                return scheduleUnit;
+            }
 
-            scheduleUnit = new ScheduleUnit(
-                    key,
+            scheduleUnitMap.createIfAbsent(key, k -> new ScheduleUnit(
+                    k,
                     poolSize,
-                    queueSize
-            );
-            scheduleUnitMap.put(key, scheduleUnit);
-            return scheduleUnit;
+                    queueSize,
+                    jobTimer,
+                    policy,
+                    isWorkStealing,
+                    backend
+            ), ScheduleUnit::stopAll);
+            return scheduleUnitMap.get(key);
         } catch (Exception e) {
             logger.warn("Fail to add the schedule unit.", e);
             return null;
-        } finally {
-            scheduleUnitMapLock.unlock();
         }
     }
 
@@ -79,13 +68,12 @@ public class ScheduleManager {
         if (key == null) { return; }
 
         try {
-            scheduleUnitMapLock.lock();
-            Optional.ofNullable(scheduleUnitMap.get(key)).ifPresent(ScheduleUnit::stopAll);
-            scheduleUnitMap.remove(key);
+            ScheduleUnit scheduleUnit = scheduleUnitMap.remove(key);
+            if (scheduleUnit != null) {
+                scheduleUnit.stopAll();
+            }
         } catch (Exception e) {
             logger.warn("Fail to delete the schedule unit map.", e);
-        } finally {
-            scheduleUnitMapLock.unlock();
         }
     }
 
@@ -97,21 +85,22 @@ public class ScheduleManager {
 
     public void clearScheduleUnitMap() {
         try {
-            scheduleUnitMapLock.lock();
-            scheduleUnitMap.values().forEach(ScheduleUnit::stopAll);
-            scheduleUnitMap.clear();
+            scheduleUnitMap.removeAll((key, scheduleUnit) -> scheduleUnit.stopAll());
             logger.debug("Success to clear the schedule unit map.");
         } catch (Exception e) {
             logger.warn("Fail to clear the schedule unit map.", e);
-        } finally {
-            scheduleUnitMapLock.unlock();
         }
     }
 
     ////////////////////////////////////////////////////////////////////////////////
 
     public boolean initJob(String key, int totalThreadPoolSize, int priorityBlockingQueueSize) {
-        return addScheduleUnit(key, totalThreadPoolSize, priorityBlockingQueueSize) != null;
+        return initJob(key, totalThreadPoolSize, priorityBlockingQueueSize, JobSchedulingPolicy.PRIORITY, false, ExecutorBackend.PLATFORM);
+    }
+
+    public boolean initJob(String key, int totalThreadPoolSize, int priorityBlockingQueueSize,
+                           JobSchedulingPolicy policy, boolean isWorkStealing, ExecutorBackend backend) {
+        return addScheduleUnit(key, totalThreadPoolSize, priorityBlockingQueueSize, policy, isWorkStealing, backend) != null;
     }
 
     public boolean startJob(String scheduleUnitKey, Job job) {
@@ -141,6 +130,7 @@ public class ScheduleManager {
 
     public void finish() {
         clearScheduleUnitMap();
+        jobTimer.stop();
     }
 
     public int getActiveJobNumber(String scheduleUnitKey) {
@@ -154,6 +144,10 @@ public class ScheduleManager {
         return scheduleUnit.getJobListSize();
     }
 
+    public JobTimer getJobTimer() {
+        return jobTimer;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////
 
 }
@@ -3,35 +3,71 @@ package rtsp.service.scheduler.schedule.handler;
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rtsp.service.base.ExecutorBackend;
+import rtsp.service.jfr.JfrEvents;
 import rtsp.service.scheduler.job.Job;
 
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JobExecutor {
 
     ////////////////////////////////////////////////////////////////////////////////
     private static final Logger logger = LoggerFactory.getLogger(JobExecutor.class);
 
+    private static final long STEAL_POLL_INTERVAL_MS = 10; // work stealing 사용 시 idle executor 가 다른 queue 를 확인하는 간격
+
     private final String scheduleUnitKey;
     private final int index;
+    private final JobSchedulingPolicy policy;
+    private final ExecutorBackend backend;
+    private final JobScheduler jobScheduler; // null 이면 단독 실행 (stealing, 통계 없음)
+
+    // VIRTUAL: worker 스레드는 순서만 정하고, Job 은 각자 virtual thread 에서 실행한다.
+    private final ExecutorService jobRunner;
+
+    private final PriorityBlockingQueue<QueuedJob> priorityQueue;
+    private final Thread workerThread;
+    private volatile boolean isRunning = true;
+    private volatile boolean isBusy = false;
 
-    private final PriorityBlockingQueue<Job> priorityQueue;
-    private final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
+    private final AtomicInteger load = new AtomicInteger(0); // 대기 중 + 실행 중인 Job 개수
+    private final AtomicLong executedJobCount = new AtomicLong(0);
+    private final AtomicLong stolenJobCount = new AtomicLong(0);
     ////////////////////////////////////////////////////////////////////////////////
 
     ////////////////////////////////////////////////////////////////////////////////
     public JobExecutor(String scheduleUnitKey, int index, int queueSize) {
+        this(scheduleUnitKey, index, queueSize, JobSchedulingPolicy.PRIORITY, ExecutorBackend.PLATFORM, null);
+    }
+
+    public JobExecutor(String scheduleUnitKey, int index, int queueSize, JobSchedulingPolicy policy,
+                       ExecutorBackend backend, JobScheduler jobScheduler) {
         this.scheduleUnitKey = scheduleUnitKey;
         this.index = index;
+        this.policy = policy;
+        this.backend = backend.resolve();
+        this.jobScheduler = jobScheduler;
+
+        if (this.backend == ExecutorBackend.VIRTUAL) {
+            jobRunner = this.backend.newTaskExecutor(scheduleUnitKey + "_Job" + "-" + index, 0);
+        } else {
+            jobRunner = null;
+        }
 
-        priorityQueue = new PriorityBlockingQueue<>(
-                queueSize,
-                Comparator.comparing(Job::getPriority)
-        );
+        Comparator<QueuedJob> comparator;
+        if (policy == JobSchedulingPolicy.EDF) {
+            // 절대 deadline 이 가장 이른 Job 부터, 같으면 priority 순
+            comparator = Comparator.comparingLong(QueuedJob::getDeadline).thenComparingInt(QueuedJob::getPriority);
+        } else {
+            comparator = Comparator.comparingInt(QueuedJob::getPriority);
+        }
+        priorityQueue = new PriorityBlockingQueue<>(queueSize, comparator);
 
         ThreadFactory threadFactory = new BasicThreadFactory
                 .Builder()
@@ -39,13 +75,8 @@ public class JobExecutor {
                 .daemon(true)
                 .build();
 
-        scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1, threadFactory);
-        scheduledThreadPoolExecutor.scheduleAtFixedRate(
-                new Worker(),
-                0,
-                1,
-                TimeUnit.MILLISECONDS
-        );
+        workerThread = threadFactory.newThread(new Worker());
+        workerThread.start();
     }
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -54,41 +85,171 @@ public class JobExecutor {
 
         @Override
         public void run() {
+            boolean isWorkStealing = jobScheduler != null && jobScheduler.isWorkStealing();
+            while (isRunning) {
+                try {
+                    // 이미 준비된 Job 은 다시 대기하지 않고 모두 처리
+                    QueuedJob queuedJob = priorityQueue.poll();
+
+                    if (queuedJob == null) {
+                        if (isWorkStealing) {
+                            // 자기 queue 가 비었으면 다른 executor 에 밀려 있는 Job 을 가져온다.
+                            // 대기 중에도 STEAL_POLL_INTERVAL_MS 마다 깨어나서 다시 확인한다. (idle executor 도 stealing 에 참여)
+                            queuedJob = steal();
+                            if (queuedJob == null) {
+                                queuedJob = priorityQueue.poll(STEAL_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                            }
+                            if (queuedJob == null) {
+                                continue;
+                            }
+                        } else {
+                            // take(): 실행할 Job 이 들어올 때까지 대기 (idle 상태에서 주기적으로 깨어나지 않음)
+                            queuedJob = priorityQueue.take();
+                        }
+                    }
+
+                    if (jobRunner != null) {
+                        QueuedJob virtualJob = queuedJob;
+                        jobRunner.execute(() -> execute(virtualJob));
+                    } else {
+                        execute(queuedJob);
+                    }
+                } catch (InterruptedException e) {
+                    if (isRunning) {
+                        logger.warn("[JobExecutor({}-{})] Worker is interrupted.", scheduleUnitKey, index);
+                    }
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    logger.warn("[JobExecutor({}-{})] Fail to dispatch the job.", scheduleUnitKey, index, e);
+                }
+            }
+        }
+
+        private QueuedJob steal() {
+            QueuedJob queuedJob = jobScheduler.stealJob(index);
+            if (queuedJob != null) {
+                load.incrementAndGet();
+                stolenJobCount.incrementAndGet();
+            }
+            return queuedJob;
+        }
+
+        private void execute(QueuedJob queuedJob) {
+            Job job = queuedJob.getJob();
+            isBusy = true;
+            long startTime = System.nanoTime();
+            boolean isSuccess = false;
             try {
-                // poll(): dequeue 후 객체 null 여부에 상관없이 기다리지 않음
-                // take(): dequeue 후 객체가 null 이 아닐 때까지 기다림
-                Job job = priorityQueue.poll();
-                if (job == null) { return; }
+                if (jobScheduler != null) {
+                    jobScheduler.getLatenessStats().record(job.getJobClass(), queuedJob.getDeadline(), startTime);
+                }
 
-                Runnable runnable = job.getRunnable();
-                if (runnable == null) { return; }
+                job.run();
+                executedJobCount.incrementAndGet();
+                isSuccess = true;
 
-                runnable.run();
                 if (!job.isLasted()) {
                     job.decCurRemainRunCount();
                     if (job.getCurRemainRunCount() < 0) {
                         job.setIsFinished(true);
+                        if (jobScheduler != null) {
+                            jobScheduler.onJobFinished(job);
+                        }
                     }
                 }
             } catch (Exception e) {
-                // ignore
+                logger.warn("[JobExecutor({}-{})] Fail to run the job. ({})", scheduleUnitKey, index, job.getName(), e);
+            } finally {
+                load.decrementAndGet();
+                isBusy = false;
+                JfrEvents.schedulerJob(
+                        scheduleUnitKey, index, job.getName(), job.getJobClass(),
+                        startTime - queuedJob.getEnqueuedTime(), startTime - queuedJob.getDeadline(),
+                        System.nanoTime() - startTime, isSuccess
+                );
             }
         }
 
     }
 
     public void stop() {
-        scheduledThreadPoolExecutor.shutdown();
+        isRunning = false;
+        workerThread.interrupt();
+        if (jobRunner != null) {
+            jobRunner.shutdownNow();
+        }
         priorityQueue.clear();
+        load.set(0);
     }
 
     public boolean addJob(Job job) {
-        return priorityQueue.offer(job);
+        load.incrementAndGet();
+        if (!priorityQueue.offer(new QueuedJob(job, System.nanoTime()))) {
+            load.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @fn public boolean removeJob(Job job)
+     * @brief 아직 실행되지 않은 Job 을 queue 에서 모두 제거하는 함수 (주기 Job 은 여러 번 들어가 있을 수 있음)
+     */
+    public boolean removeJob(Job job) {
+        boolean isRemoved = false;
+        for (QueuedJob queuedJob : priorityQueue) {
+            if (queuedJob.getJob() == job && priorityQueue.remove(queuedJob)) {
+                load.decrementAndGet();
+                isRemoved = true;
+            }
+        }
+        return isRemoved;
+    }
+
+    /**
+     * @fn QueuedJob pollForSteal()
+     * @brief 다른 executor 가 가져갈 Job 을 하나 꺼내는 함수 (가장 급한 Job)
+     */
+    QueuedJob pollForSteal() {
+        QueuedJob queuedJob = priorityQueue.poll();
+        if (queuedJob != null) {
+            load.decrementAndGet();
+        }
+        return queuedJob;
     }
 
     public int getIndex() {
         return index;
     }
+
+    public JobSchedulingPolicy getPolicy() {
+        return policy;
+    }
+
+    public ExecutorBackend getBackend() {
+        return backend;
+    }
+
+    public int getLoad() {
+        return load.get();
+    }
+
+    public boolean isBusy() {
+        return isBusy;
+    }
+
+    public int getQueuedJobCount() {
+        return priorityQueue.size();
+    }
+
+    public long getExecutedJobCount() {
+        return executedJobCount.get();
+    }
+
+    public long getStolenJobCount() {
+        return stolenJobCount.get();
+    }
     ////////////////////////////////////////////////////////////////////////////////
 
 }
@@ -0,0 +1,118 @@
+package rtsp.service.scheduler.schedule.handler;
+
+import rtsp.service.base.SessionRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @class public class JobLatenessStats
+ * @brief Job class 별 deadline 초과(lateness) 통계 클래스
+ * Job 실행이 시작된 시각과 절대 deadline 의 차이를 기록한다.
+ * (RtpSender 처럼 오래 실행되는 Job 이 있으므로 종료 시각이 아니라 시작 시각 기준)
+ * Deadline miss 비율이 올라가면 executor 가 포화 상태라는 의미이다.
+ */
+public class JobLatenessStats {
+
+    public static class ClassStats {
+        private final String jobClass;
+        private final LongAdder runCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+        private final LongAdder totalLatenessNanos = new LongAdder(); // miss 된 Job 의 lateness 합
+        private final AtomicLong maxLatenessNanos = new AtomicLong(0);
+
+        private ClassStats(String jobClass) {
+            this.jobClass = jobClass;
+        }
+
+        private void record(long latenessNanos) {
+            runCount.increment();
+            if (latenessNanos > 0) {
+                missCount.increment();
+                totalLatenessNanos.add(latenessNanos);
+                maxLatenessNanos.accumulateAndGet(latenessNanos, Math::max);
+            }
+        }
+
+        public String getJobClass() {
+            return jobClass;
+        }
+
+        public long getRunCount() {
+            return runCount.sum();
+        }
+
+        public long getMissCount() {
+            return missCount.sum();
+        }
+
+        public double getMissRatio() {
+            long runs = runCount.sum();
+            return (runs == 0) ? 0 : (double) missCount.sum() / runs;
+        }
+
+        public long getAvgLatenessMillis() {
+            long misses = missCount.sum();
+            return (misses == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatenessNanos.sum() / misses);
+        }
+
+        public long getMaxLatenessMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLatenessNanos.get());
+        }
+
+        @Override
+        public String toString() {
+            return jobClass + "{" +
+                    "runs=" + getRunCount() +
+                    ", misses=" + getMissCount() +
+                    ", avgLateMs=" + getAvgLatenessMillis() +
+                    ", maxLateMs=" + getMaxLatenessMillis() +
+                    '}';
+        }
+    }
+
+    private final SessionRegistry<String, ClassStats> classStatsMap = new SessionRegistry<>(4);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void record(String jobClass, long deadline, long startTime)
+     * @brief Job 실행 시작 시각을 기록하는 함수
+     * @param jobClass Job class 이름
+     * @param deadline 절대 deadline (System.nanoTime 기준)
+     * @param startTime 실행 시작 시각 (System.nanoTime 기준)
+     */
+    public void record(String jobClass, long deadline, long startTime) {
+        ClassStats classStats = classStatsMap.get(jobClass);
+        if (classStats == null) {
+            classStatsMap.createIfAbsent(jobClass, ClassStats::new);
+            classStats = classStatsMap.get(jobClass);
+        }
+
+        classStats.record(startTime - deadline);
+    }
+
+    public ClassStats getClassStats(String jobClass) {
+        return classStatsMap.get(jobClass);
+    }
+
+    public long getTotalMissCount() {
+        long[] total = {0};
+        classStatsMap.forEachValue(classStats -> total[0] += classStats.getMissCount());
+        return total[0];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("[");
+        classStatsMap.forEachValue(classStats -> {
+            if (stringBuilder.length() > 1) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(classStats);
+        });
+        return stringBuilder.append("]").toString();
+    }
+
+}
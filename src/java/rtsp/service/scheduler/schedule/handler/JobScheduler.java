@@ -2,7 +2,9 @@ package rtsp.service.scheduler.schedule.handler;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rtsp.service.base.ExecutorBackend;
 import rtsp.service.scheduler.job.Job;
+import rtsp.service.scheduler.schedule.timer.JobTimer;
 import rtsp.service.scheduler.schedule.unit.JobAdder;
 
 import java.util.HashMap;
@@ -16,24 +18,38 @@ public class JobScheduler {
     private final String scheduleUnitKey;
     private final int poolSize;
     private final int queueSize;
+    private final JobTimer jobTimer; // ScheduleManager 공용 timer
+    private final JobSchedulingPolicy policy;
+    private final boolean isWorkStealing;
+    private final ExecutorBackend backend;
+    private final JobLatenessStats latenessStats = new JobLatenessStats();
 
     private final HashMap<String, JobAdder> scheduleMap = new HashMap<>();
     private final ReentrantLock scheduleLock = new ReentrantLock();
 
-    private final JobExecutor[] jobExecutors; // Round-Robin executor selection
+    private final JobExecutor[] jobExecutors; // PRIORITY: Round-Robin 고정 배치, EDF: 가장 한가한 executor 에 배치
     private final ReentrantLock executorLock = new ReentrantLock();
     private int curExecutorIndex = 0;
     ////////////////////////////////////////////////////////////////////////////////
 
     ////////////////////////////////////////////////////////////////////////////////
-    public JobScheduler(String scheduleUnitKey, int poolSize, int queueSize) {
+    public JobScheduler(String scheduleUnitKey, int poolSize, int queueSize, JobTimer jobTimer) {
+        this(scheduleUnitKey, poolSize, queueSize, jobTimer, JobSchedulingPolicy.PRIORITY, false, ExecutorBackend.PLATFORM);
+    }
+
+    public JobScheduler(String scheduleUnitKey, int poolSize, int queueSize, JobTimer jobTimer,
+                        JobSchedulingPolicy policy, boolean isWorkStealing, ExecutorBackend backend) {
         this.scheduleUnitKey = scheduleUnitKey;
         this.poolSize = poolSize;
         this.queueSize = queueSize;
+        this.jobTimer = jobTimer;
+        this.policy = (policy != null) ? policy : JobSchedulingPolicy.PRIORITY;
+        this.isWorkStealing = isWorkStealing;
+        this.backend = (backend != null) ? backend.resolve() : ExecutorBackend.PLATFORM;
 
         jobExecutors = new JobExecutor[poolSize];
         for (int i = 0; i < poolSize; i++) {
-            jobExecutors[i] = new JobExecutor(scheduleUnitKey, i, queueSize);
+            jobExecutors[i] = new JobExecutor(scheduleUnitKey, i, queueSize, this.policy, this.backend, this);
         }
     }
     ////////////////////////////////////////////////////////////////////////////////
@@ -57,8 +73,7 @@ public class JobScheduler {
                 return false;
             }
 
-            JobAdder jobAdder = new JobAdder(this, job, curExecutorIndex);
-            jobAdder.run();
+            JobAdder jobAdder = new JobAdder(this, jobTimer, job, curExecutorIndex);
             curExecutorIndex++;
             if (curExecutorIndex >= poolSize) {
                 curExecutorIndex = 0;
@@ -67,6 +82,7 @@ public class JobScheduler {
                     scheduleUnitKey + ":" + job.getName(),
                     jobAdder
             );
+            jobAdder.start();
             logger.debug("[JobScheduler({})] [{}] is started.", scheduleUnitKey, job.getName());
         } catch (Exception e) {
             logger.warn("[JobScheduler({})] Fail to schedule the job. ({})", scheduleUnitKey, job.getName(), e);
@@ -86,7 +102,11 @@ public class JobScheduler {
             String jobKey = scheduleUnitKey + ":" + job.getName();
             JobAdder jobAdder = scheduleMap.get(jobKey);
             if (jobAdder != null) {
+                // Timer 에서 O(1) 로 제거하고, 아직 실행되지 않은 queue 의 Job 도 바로 제거한다.
                 jobAdder.stop();
+                for (JobExecutor jobExecutor : jobExecutors) {
+                    jobExecutor.removeJob(job);
+                }
                 job.setIsFinished(true);
                 scheduleMap.remove(jobKey);
                 logger.debug("[JobScheduler({})] [{}] is canceled.", scheduleUnitKey, job.getName());
@@ -131,6 +151,10 @@ public class JobScheduler {
     public void addJobToExecutor(int executorIndex, Job job) {
         executorLock.lock();
         try {
+            if (policy == JobSchedulingPolicy.EDF) {
+                executorIndex = getLeastLoadedExecutorIndex(executorIndex);
+            }
+
             jobExecutors[executorIndex].addJob(job);
             //logger.debug("jobExecutor[{}] add job ({})", curExecutorIndex, job.getName());
         } catch (Exception e) {
@@ -140,16 +164,104 @@ public class JobScheduler {
         }
     }
 
+    /**
+     * @fn private int getLeastLoadedExecutorIndex(int preferredIndex)
+     * @brief 대기 + 실행 중인 Job 이 가장 적은 executor 를 찾는 함수 (같으면 preferredIndex 우선)
+     */
+    private int getLeastLoadedExecutorIndex(int preferredIndex) {
+        int minIndex = preferredIndex;
+        int minLoad = jobExecutors[preferredIndex].getLoad();
+        for (int i = 0; i < poolSize && minLoad > 0; i++) {
+            int curLoad = jobExecutors[i].getLoad();
+            if (curLoad < minLoad) {
+                minLoad = curLoad;
+                minIndex = i;
+            }
+        }
+        return minIndex;
+    }
+
+    /**
+     * @fn QueuedJob stealJob(int thiefIndex)
+     * @brief 대기 중인 Job 이 가장 많은 다른 executor 에서 Job 하나를 가져오는 함수
+     * @param thiefIndex 가져가는 executor index
+     * @return 가져온 Job, 없으면 null
+     */
+    QueuedJob stealJob(int thiefIndex) {
+        JobExecutor victim = null;
+        int maxQueued = 0;
+        for (int i = 0; i < poolSize; i++) {
+            // 생성자에서 executor 를 만드는 중이면 아직 null 일 수 있다.
+            if (i == thiefIndex || jobExecutors[i] == null) { continue; }
+
+            int queued = jobExecutors[i].getQueuedJobCount();
+            if (queued > maxQueued) {
+                maxQueued = queued;
+                victim = jobExecutors[i];
+            }
+        }
+
+        return (victim != null) ? victim.pollForSteal() : null;
+    }
+
+    /**
+     * @fn void onJobFinished(Job job)
+     * @brief 실행이 끝난 일회성 Job 을 scheduleMap 에서 제거하는 함수 (같은 이름으로 다시 schedule 가능)
+     */
+    void onJobFinished(Job job) {
+        scheduleLock.lock();
+        try {
+            String jobKey = scheduleUnitKey + ":" + job.getName();
+            JobAdder jobAdder = scheduleMap.get(jobKey);
+            if (jobAdder != null && jobAdder.getJob() == job) {
+                scheduleMap.remove(jobKey);
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    public JobSchedulingPolicy getPolicy() {
+        return policy;
+    }
+
+    public ExecutorBackend getBackend() {
+        return backend;
+    }
+
+    public boolean isWorkStealing() {
+        return isWorkStealing;
+    }
+
+    public JobLatenessStats getLatenessStats() {
+        return latenessStats;
+    }
+
     public int getScheduledJobCount() {
         return scheduleMap.size();
     }
 
+    /**
+     * @fn public int getQueuedJobCount()
+     * @brief 모든 executor 에서 실행을 기다리는 Job 개수를 반환하는 함수
+     */
+    public int getQueuedJobCount() {
+        int queuedJobCount = 0;
+        for (JobExecutor jobExecutor : jobExecutors) {
+            queuedJobCount += jobExecutor.getQueuedJobCount();
+        }
+        return queuedJobCount;
+    }
+
     @Override
     public String toString() {
         return "JobScheduler{" +
                 "scheduleUnitKey='" + scheduleUnitKey + '\'' +
                 ", poolSize=" + poolSize +
                 ", queueSize=" + queueSize +
+                ", policy=" + policy +
+                ", workStealing=" + isWorkStealing +
+                ", backend=" + backend +
                 '}';
     }
     ////////////////////////////////////////////////////////////////////////////////
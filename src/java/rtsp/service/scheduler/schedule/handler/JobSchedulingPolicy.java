@@ -0,0 +1,28 @@
+package rtsp.service.scheduler.schedule.handler;
+
+/**
+ * @enum public enum JobSchedulingPolicy
+ * @brief JobExecutor 의 Job 선택 및 배치 정책
+ */
+public enum JobSchedulingPolicy {
+
+    // 정적 priority 순서로 실행, executor 는 round-robin 으로 고정 배치 (기존 방식)
+    PRIORITY,
+
+    // 절대 deadline 이 가장 이른 Job 부터 실행 (Earliest Deadline First), 넣을 때마다 가장 한가한 executor 에 배치
+    EDF;
+
+    public static JobSchedulingPolicy fromName(String name) {
+        if (name == null) {
+            return PRIORITY;
+        }
+
+        for (JobSchedulingPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+        return PRIORITY;
+    }
+
+}
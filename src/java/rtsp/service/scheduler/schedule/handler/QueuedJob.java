@@ -0,0 +1,43 @@
+package rtsp.service.scheduler.schedule.handler;
+
+import rtsp.service.scheduler.job.Job;
+
+/**
+ * @class final class QueuedJob
+ * @brief JobExecutor queue 에 Job 을 한 번 넣을 때마다 생성하는 항목 클래스
+ * 주기 Job 은 같은 Job 객체를 매 주기 다시 넣으므로, 넣은 시각과 절대 deadline 을 Job 이 아니라 항목에 둔다.
+ * (queue 에 남아 있는 이전 항목의 정렬 기준이 바뀌지 않도록 생성 후 변경하지 않는다.)
+ */
+final class QueuedJob {
+
+    private final Job job;
+    private final long enqueuedTime; // ns, queue 에 들어간 시각
+    private final long deadline; // ns, 절대 deadline (System.nanoTime 기준)
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    QueuedJob(Job job, long enqueuedTime) {
+        this.job = job;
+        this.enqueuedTime = enqueuedTime;
+        this.deadline = enqueuedTime + job.getRelativeDeadlineNanos();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    Job getJob() {
+        return job;
+    }
+
+    int getPriority() {
+        return job.getPriority();
+    }
+
+    long getEnqueuedTime() {
+        return enqueuedTime;
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+}
@@ -0,0 +1,160 @@
+package rtsp.service.scheduler.schedule.timer;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @class public class JobTimer
+ * @brief Hierarchical timing wheel 기반 timer 클래스
+ * ScheduleManager 당 하나만 생성되며, 주기 Job 개수와 상관없이 스레드는 하나만 사용한다.
+ * 등록/취소는 O(1) 이고, DelayQueue 에는 task 가 아니라 만료 시각이 있는 bucket 만 들어간다.
+ */
+public class JobTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobTimer.class);
+
+    public static final long DEFAULT_TICK_MS = 1;
+    public static final int DEFAULT_WHEEL_SIZE = 20;
+    private static final long ADVANCE_TIMEOUT_MS = 200;
+
+    private final String name;
+    private final DelayQueue<TimerTaskList> delayQueue = new DelayQueue<>();
+    private final AtomicInteger taskCounter = new AtomicInteger(0);
+    private final TimingWheel timingWheel;
+
+    // add 는 read lock, 시간 진행(bucket flush)은 write lock
+    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Thread timerThread;
+    private volatile boolean isRunning = true;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public JobTimer(String name) {
+        this(name, DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public JobTimer(String name, long tickMs, int wheelSize) {
+        this.name = name;
+        this.timingWheel = new TimingWheel(
+                tickMs,
+                wheelSize,
+                currentTimeMs(),
+                taskCounter,
+                delayQueue
+        );
+
+        timerThread = new BasicThreadFactory
+                .Builder()
+                .namingPattern(name + "_JobTimer")
+                .daemon(true)
+                .build()
+                .newThread(this::loop);
+        timerThread.start();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static long currentTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * @fn public void add(TimerTask timerTask, long delayMs)
+     * @brief TimerTask 를 delayMs 후에 실행하도록 등록하는 함수
+     * 이미 만료된 시각이면 호출한 스레드에서 바로 실행한다.
+     */
+    public void add(TimerTask timerTask, long delayMs) {
+        addAt(timerTask, currentTimeMs() + Math.max(delayMs, 0));
+    }
+
+    /**
+     * @fn public void addAt(TimerTask timerTask, long expirationMs)
+     * @brief TimerTask 를 절대 시각(currentTimeMs 기준)에 실행하도록 등록하는 함수 (고정 주기 재등록용)
+     */
+    public void addAt(TimerTask timerTask, long expirationMs) {
+        if (!isRunning) {
+            return;
+        }
+
+        readWriteLock.readLock().lock();
+        try {
+            addTimerTaskEntry(new TimerTaskEntry(timerTask, expirationMs));
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    private void addTimerTaskEntry(TimerTaskEntry entry) {
+        if (!timingWheel.add(entry)) {
+            // 만료되었고 취소되지 않은 경우에만 실행
+            if (!entry.isCancelled()) {
+                runTask(entry.timerTask);
+            }
+        }
+    }
+
+    private void runTask(TimerTask timerTask) {
+        try {
+            timerTask.run();
+        } catch (Exception e) {
+            logger.warn("[JobTimer({})] Fail to run the timer task.", name, e);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private void loop() {
+        while (isRunning) {
+            try {
+                advanceClock(ADVANCE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("[JobTimer({})] Fail to advance the clock.", name, e);
+            }
+        }
+    }
+
+    private void advanceClock(long timeoutMs) throws InterruptedException {
+        TimerTaskList bucket = delayQueue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return;
+        }
+
+        readWriteLock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                timingWheel.advanceClock(bucket.getExpiration());
+                bucket.flush(this::addTimerTaskEntry);
+                bucket = delayQueue.poll();
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    public void stop() {
+        isRunning = false;
+        timerThread.interrupt();
+        logger.debug("[JobTimer({})] is stopped. (remainTaskCount={})", name, taskCounter.get());
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public int getTaskCount() {
+        return taskCounter.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
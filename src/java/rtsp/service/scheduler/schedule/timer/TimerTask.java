@@ -0,0 +1,42 @@
+package rtsp.service.scheduler.schedule.timer;
+
+/**
+ * @class public abstract class TimerTask implements Runnable
+ * @brief JobTimer 에 등록되는 작업 클래스
+ * 하나의 TimerTask 는 한 번에 하나의 bucket 에만 등록되며, 만료 후 다시 등록할 수 있다.
+ * run() 은 JobTimer 스레드에서 호출되므로 오래 걸리는 작업을 직접 수행하면 안된다. (JobExecutor queue 에 넣는 정도)
+ */
+public abstract class TimerTask implements Runnable {
+
+    private TimerTaskEntry timerTaskEntry = null;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @fn public void cancel()
+     * @brief 등록된 bucket 에서 O(1) 로 제거하는 함수
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (timerTaskEntry != null) {
+                timerTaskEntry.remove();
+            }
+            timerTaskEntry = null;
+        }
+    }
+
+    void setTimerTaskEntry(TimerTaskEntry entry) {
+        synchronized (this) {
+            // 다른 entry 로 이미 등록되어 있으면 이전 entry 를 먼저 제거한다.
+            if (timerTaskEntry != null && timerTaskEntry != entry) {
+                timerTaskEntry.remove();
+            }
+            timerTaskEntry = entry;
+        }
+    }
+
+    TimerTaskEntry getTimerTaskEntry() {
+        return timerTaskEntry;
+    }
+
+}
@@ -0,0 +1,42 @@
+package rtsp.service.scheduler.schedule.timer;
+
+/**
+ * @class class TimerTaskEntry
+ * @brief TimerTaskList(bucket) 의 doubly linked list node 클래스
+ */
+class TimerTaskEntry {
+
+    final TimerTask timerTask;
+    final long expirationMs;
+
+    volatile TimerTaskList list = null;
+    TimerTaskEntry next = null;
+    TimerTaskEntry prev = null;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    TimerTaskEntry(TimerTask timerTask, long expirationMs) {
+        this.timerTask = timerTask;
+        this.expirationMs = expirationMs;
+
+        if (timerTask != null) {
+            timerTask.setTimerTaskEntry(this);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    boolean isCancelled() {
+        return timerTask.getTimerTaskEntry() != this;
+    }
+
+    void remove() {
+        // 다른 스레드가 bucket 을 옮기는 중일 수 있으므로 list 가 null 이 될 때까지 반복한다.
+        TimerTaskList currentList = list;
+        while (currentList != null) {
+            currentList.remove(this);
+            currentList = list;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+package rtsp.service.scheduler.schedule.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @class class TimerTaskList implements Delayed
+ * @brief TimingWheel 의 bucket 클래스
+ * 같은 tick 에 만료되는 TimerTaskEntry 들을 doubly linked list 로 보관한다. (추가/삭제 O(1))
+ * Bucket 단위로 DelayQueue 에 들어가므로, DelayQueue 의 크기는 task 개수가 아니라 bucket 개수에 비례한다.
+ */
+class TimerTaskList implements Delayed {
+
+    private final AtomicInteger taskCounter;
+    private final TimerTaskEntry root = new TimerTaskEntry(null, -1);
+    private final AtomicLong expiration = new AtomicLong(-1L);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    TimerTaskList(AtomicInteger taskCounter) {
+        this.taskCounter = taskCounter;
+        root.next = root;
+        root.prev = root;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * @return Bucket 만료 시각이 변경되었으면 true (DelayQueue 에 다시 넣어야 함)
+     */
+    boolean setExpiration(long expirationMs) {
+        return expiration.getAndSet(expirationMs) != expirationMs;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    void add(TimerTaskEntry entry) {
+        boolean isDone = false;
+        while (!isDone) {
+            // 다른 list 에 있으면 먼저 제거한다.
+            entry.remove();
+
+            synchronized (this) {
+                synchronized (entry) {
+                    if (entry.list == null) {
+                        TimerTaskEntry tail = root.prev;
+                        entry.next = root;
+                        entry.prev = tail;
+                        entry.list = this;
+                        tail.next = entry;
+                        root.prev = entry;
+                        taskCounter.incrementAndGet();
+                        isDone = true;
+                    }
+                }
+            }
+        }
+    }
+
+    void remove(TimerTaskEntry entry) {
+        synchronized (this) {
+            synchronized (entry) {
+                if (entry.list == this) {
+                    entry.next.prev = entry.prev;
+                    entry.prev.next = entry.next;
+                    entry.next = null;
+                    entry.prev = null;
+                    entry.list = null;
+                    taskCounter.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * @fn void flush(Consumer<TimerTaskEntry> handler)
+     * @brief Bucket 의 모든 entry 를 제거한 후 handler 에 넘기는 함수 (하위 wheel 로 재배치 또는 실행)
+     * Handler 에서 같은 bucket 에 다시 등록할 수 있으므로, 먼저 모두 떼어낸 다음 lock 밖에서 처리한다.
+     */
+    void flush(Consumer<TimerTaskEntry> handler) {
+        List<TimerTaskEntry> entries = new ArrayList<>();
+        synchronized (this) {
+            TimerTaskEntry head = root.next;
+            while (head != root) {
+                remove(head);
+                entries.add(head);
+                head = root.next;
+            }
+            expiration.set(-1L);
+        }
+
+        for (TimerTaskEntry entry : entries) {
+            handler.accept(entry);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        long delayMs = getExpiration() - JobTimer.currentTimeMs();
+        return unit.convert(Math.max(delayMs, 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        TimerTaskList otherList = (TimerTaskList) other;
+        return Long.compare(getExpiration(), otherList.getExpiration());
+    }
+
+}
@@ -0,0 +1,96 @@
+package rtsp.service.scheduler.schedule.timer;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @class class TimingWheel
+ * @brief Hierarchical timing wheel 클래스
+ * 한 바퀴(tickMs * wheelSize) 안에 만료되는 task 는 현재 wheel 의 bucket 에 넣고,
+ * 그보다 먼 task 는 tick 이 wheelSize 배인 상위(overflow) wheel 에 넣는다.
+ * 상위 wheel 의 bucket 이 만료되면 JobTimer 가 entry 들을 다시 add 하여 하위 wheel 로 내려보낸다.
+ */
+class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final AtomicInteger taskCounter;
+    private final DelayQueue<TimerTaskList> queue;
+    private final TimerTaskList[] buckets;
+
+    private long currentTime; // tickMs 의 배수로 내림한 현재 시각
+    private volatile TimingWheel overflowWheel = null;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    TimingWheel(long tickMs, int wheelSize, long startMs, AtomicInteger taskCounter, DelayQueue<TimerTaskList> queue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.taskCounter = taskCounter;
+        this.queue = queue;
+        this.currentTime = startMs - (startMs % tickMs);
+
+        buckets = new TimerTaskList[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new TimerTaskList(taskCounter);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private void addOverflowWheel() {
+        synchronized (this) {
+            if (overflowWheel == null) {
+                overflowWheel = new TimingWheel(
+                        interval,
+                        wheelSize,
+                        currentTime,
+                        taskCounter,
+                        queue
+                );
+            }
+        }
+    }
+
+    /**
+     * @return 등록되었으면 true, 이미 만료되었거나 취소된 entry 면 false 반환
+     */
+    boolean add(TimerTaskEntry entry) {
+        long expirationMs = entry.expirationMs;
+
+        if (entry.isCancelled()) {
+            return false;
+        } else if (expirationMs < currentTime + tickMs) {
+            // 이미 만료됨
+            return false;
+        } else if (expirationMs < currentTime + interval) {
+            long virtualId = expirationMs / tickMs;
+            TimerTaskList bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+
+            // Bucket 의 만료 시각이 바뀐 경우에만 DelayQueue 에 넣는다. (같은 bucket 의 다음 task 는 추가 비용 없음)
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        } else {
+            if (overflowWheel == null) {
+                addOverflowWheel();
+            }
+            return overflowWheel.add(entry);
+        }
+    }
+
+    void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+
+            if (overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+}
@@ -2,43 +2,82 @@ package rtsp.service.scheduler.schedule.unit;
 
 import rtsp.service.scheduler.job.Job;
 import rtsp.service.scheduler.schedule.handler.JobScheduler;
+import rtsp.service.scheduler.schedule.timer.JobTimer;
+import rtsp.service.scheduler.schedule.timer.TimerTask;
 
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-public class JobAdder implements Runnable {
-
-    ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1);
+/**
+ * @class public class JobAdder extends TimerTask
+ * @brief Job 을 지정된 시각에 JobExecutor queue 에 넣는 클래스
+ * 주기 Job 은 ScheduleManager 의 JobTimer 에 고정 주기(fixed-rate)로 다시 등록되며, 별도 스레드를 만들지 않는다.
+ */
+public class JobAdder extends TimerTask {
 
     private final JobScheduler jobScheduler;
+    private final JobTimer jobTimer;
     private final Job job;
     private final int executorIndex;
 
-    public JobAdder(JobScheduler jobScheduler, Job job, int executorIndex) {
+    private final long initialDelayMs;
+    private final long intervalMs;
+    private long nextRunTime = 0; // JobTimer.currentTimeMs() 기준
+    private volatile boolean isStopped = false;
+
+    public JobAdder(JobScheduler jobScheduler, JobTimer jobTimer, Job job, int executorIndex) {
         this.jobScheduler = jobScheduler;
+        this.jobTimer = jobTimer;
         this.job = job;
         this.executorIndex = executorIndex;
+
+        TimeUnit timeUnit = job.getTimeUnit() != null ? job.getTimeUnit() : TimeUnit.MILLISECONDS;
+        this.initialDelayMs = Math.max(timeUnit.toMillis(job.getInitialDelay()), 0);
+        this.intervalMs = (job.getInterval() > 0) ? Math.max(timeUnit.toMillis(job.getInterval()), 1) : 0;
+    }
+
+    public void start() {
+        if (!job.isLasted() && initialDelayMs <= 0) {
+            jobScheduler.addJobToExecutor(executorIndex, job);
+            return;
+        }
+
+        nextRunTime = JobTimer.currentTimeMs() + initialDelayMs;
+        jobTimer.addAt(this, nextRunTime);
     }
 
     @Override
     public void run() {
-        if (job.isLasted()) {
-            scheduledThreadPoolExecutor.scheduleAtFixedRate(
-                    () -> {
-                        if (isJobFinished(job)) {
-                            jobScheduler.cancel(job);
-                        } else {
-                            jobScheduler.addJobToExecutor(executorIndex, job);
-                        }
-                    },
-                    job.getInitialDelay(), job.getInterval(), job.getTimeUnit()
-            );
-        } else {
+        if (isStopped) {
+            return;
+        }
+
+        if (!job.isLasted()) {
             jobScheduler.addJobToExecutor(executorIndex, job);
+            return;
+        }
+
+        if (isJobFinished(job)) {
+            jobScheduler.cancel(job);
+            return;
+        }
+
+        jobScheduler.addJobToExecutor(executorIndex, job);
+
+        // 고정 주기로 다시 등록 (한 주기 이상 밀렸으면 밀린 실행은 건너뛴다)
+        nextRunTime += intervalMs;
+        long curTime = JobTimer.currentTimeMs();
+        if (nextRunTime < curTime) {
+            nextRunTime = curTime + intervalMs;
+        }
+
+        if (!isStopped) {
+            jobTimer.addAt(this, nextRunTime);
         }
     }
 
     public void stop() {
-        scheduledThreadPoolExecutor.shutdown();
+        isStopped = true;
+        cancel();
     }
 
     public boolean isJobFinished(Job job) {
@@ -50,4 +89,12 @@ public class JobAdder implements Runnable {
                 (!job.isLasted() && (job.decCurRemainRunCount() < 0));
     }
 
+    public Job getJob() {
+        return job;
+    }
+
+    public int getExecutorIndex() {
+        return executorIndex;
+    }
+
 }
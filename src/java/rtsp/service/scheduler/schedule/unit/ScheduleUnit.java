@@ -2,8 +2,11 @@ package rtsp.service.scheduler.schedule.unit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import rtsp.service.base.ExecutorBackend;
 import rtsp.service.scheduler.job.Job;
 import rtsp.service.scheduler.schedule.handler.JobScheduler;
+import rtsp.service.scheduler.schedule.handler.JobSchedulingPolicy;
+import rtsp.service.scheduler.schedule.timer.JobTimer;
 
 public class ScheduleUnit {
 
@@ -20,7 +23,12 @@ public class ScheduleUnit {
     ////////////////////////////////////////////////////////////////////////////////
 
     ////////////////////////////////////////////////////////////////////////////////
-    public ScheduleUnit(String key, int poolSize, int queueSize) {
+    public ScheduleUnit(String key, int poolSize, int queueSize, JobTimer jobTimer) {
+        this(key, poolSize, queueSize, jobTimer, JobSchedulingPolicy.PRIORITY, false, ExecutorBackend.PLATFORM);
+    }
+
+    public ScheduleUnit(String key, int poolSize, int queueSize, JobTimer jobTimer,
+                        JobSchedulingPolicy policy, boolean isWorkStealing, ExecutorBackend backend) {
         this.scheduleUnitKey = key;
 
         if (poolSize > 0) {
@@ -29,7 +37,7 @@ public class ScheduleUnit {
             this.poolSize = DEFAULT_THREAD_COUNT;
         }
 
-        jobScheduler = new JobScheduler(scheduleUnitKey, poolSize, queueSize);
+        jobScheduler = new JobScheduler(scheduleUnitKey, this.poolSize, queueSize, jobTimer, policy, isWorkStealing, backend);
     }
     ////////////////////////////////////////////////////////////////////////////////
 
@@ -77,6 +85,8 @@ public class ScheduleUnit {
         return "ScheduleUnit{" +
                 "key='" + scheduleUnitKey + '\'' +
                 ", threadCount=" + poolSize +
+                ", policy=" + jobScheduler.getPolicy() +
+                ", backend=" + jobScheduler.getBackend() +
                 '}';
     }
     ////////////////////////////////////////////////////////////////////////////////
@@ -1,14 +1,22 @@
 package rtsp.system;
 
 import com.sun.management.OperatingSystemMXBean;
+import com.sun.management.UnixOperatingSystemMXBean;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
 
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
 
 public class SystemManager {
 
     private static SystemManager systemManager = null;
 
     private final OperatingSystemMXBean osBean = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
 
     public SystemManager() {
         // Nothing
@@ -55,6 +63,87 @@ public class SystemManager {
         );
     }
 
+    /**
+     * @return 서버 프로세스의 최근 CPU 사용률 (0.0 ~ 1.0, 알 수 없으면 음수)
+     */
+    public double getProcessCpuLoad () {
+        return osBean.getProcessCpuLoad();
+    }
+
+    /**
+     * @return 전체 시스템의 최근 CPU 사용률 (0.0 ~ 1.0, 알 수 없으면 음수)
+     */
+    public double getSystemCpuLoad () {
+        return osBean.getSystemCpuLoad();
+    }
+
+    public long getHeapUsedBytes () {
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+    public int getThreadCount () {
+        return threadBean.getThreadCount();
+    }
+
+    /**
+     * @return 모든 GC 의 누적 수행 시간 (ms, stop-the-world 가 아닌 concurrent 단계가 포함될 수 있음)
+     */
+    public long getGcTimeMillis () {
+        long total = 0;
+        for (GarbageCollectorMXBean gcBean : gcBeans) {
+            long time = gcBean.getCollectionTime();
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    public long getGcCount () {
+        long total = 0;
+        for (GarbageCollectorMXBean gcBean : gcBeans) {
+            long count = gcBean.getCollectionCount();
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return 열려 있는 file descriptor 개수 (Unix 가 아니면 -1)
+     */
+    public long getOpenFileDescriptorCount () {
+        if (osBean instanceof UnixOperatingSystemMXBean) {
+            return ((UnixOperatingSystemMXBean) osBean).getOpenFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    /**
+     * @return 프로세스가 열 수 있는 최대 file descriptor 개수 (Unix 가 아니면 -1)
+     */
+    public long getMaxFileDescriptorCount () {
+        if (osBean instanceof UnixOperatingSystemMXBean) {
+            return ((UnixOperatingSystemMXBean) osBean).getMaxFileDescriptorCount();
+        }
+        return -1;
+    }
+
+    /**
+     * @return Netty 의 기본 pooled allocator 가 사용 중인 direct memory (arena 에 할당된 chunk 기준)
+     */
+    public long getPooledDirectMemoryUsed () {
+        return PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+    }
+
+    /**
+     * @return Netty 가 사용할 수 있는 최대 direct memory (-XX:MaxDirectMemorySize 또는 io.netty.maxDirectMemory)
+     */
+    public long getMaxDirectMemory () {
+        return PlatformDependent.maxDirectMemory();
+    }
+
     public String getOs () {
         return System.getProperty("os.name").toLowerCase();
     }
@@ -0,0 +1,127 @@
+package rtsp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @class public class BenchmarkRunner
+ * @brief protocol codec JMH benchmark 실행 클래스
+ * 모든 benchmark 는 gc profiler 를 붙여서 실행하므로 ops/s 와 함께 할당량(gc.alloc.rate, gc.alloc.rate.norm)이 출력된다.
+ * 결과는 JSON 으로 저장하고, 이전 결과(baseline)를 지정하면 처리량이 떨어지거나 할당량이 늘어난 benchmark 를 출력한다.
+ *
+ * ex) mvn -P jmh compile exec:exec -Djmh.args="RtpPacket target/jmh-baseline.json"
+ *     java rtsp.BenchmarkRunner [include=.*Benchmark.*] [baseline.json] [threshold=0.1]
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_INCLUDE = ".*Benchmark.*";
+    private static final String RESULT_FILE = "target/jmh-result.json";
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+    private static final String ALLOC_RATE_NORM_OLD = "·gc.alloc.rate.norm"; // JMH 1.36 이하
+    private static final double DEFAULT_THRESHOLD = 0.1; // 10%
+
+    public static void main(String[] args) throws Exception {
+        // exec-maven-plugin 은 jmh.args 를 인자 한 개로 넘긴다.
+        if (args.length == 1) {
+            args = args[0].trim().split("\\s+");
+        }
+
+        String include = args.length > 0 && !args[0].isEmpty() ? args[0] : DEFAULT_INCLUDE;
+        String baselinePath = args.length > 1 && !args[1].isEmpty() ? args[1] : null;
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        File resultFile = new File(RESULT_FILE);
+        if (resultFile.getParentFile() != null) {
+            resultFile.getParentFile().mkdirs();
+        }
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath())
+                .build();
+        new Runner(options).run();
+        System.out.println("Result: " + resultFile.getAbsolutePath());
+
+        if (baselinePath != null) {
+            int regressionCount = compare(readScores(baselinePath), readScores(resultFile.getPath()), threshold);
+            if (regressionCount > 0) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * @fn private static int compare(Map<String, double[]> baseline, Map<String, double[]> current, double threshold)
+     * @brief baseline 과 현재 결과를 비교해서 threshold 보다 나빠진 benchmark 개수를 반환하는 함수
+     * 처리량(ops/s)은 줄어들면, 할당량(B/op)은 늘어나면 나빠진 것으로 판단한다.
+     */
+    private static int compare(Map<String, double[]> baseline, Map<String, double[]> current, double threshold) {
+        int regressionCount = 0;
+        System.out.printf("%n%-70s %14s %14s %12s %12s%n", "Benchmark", "base(ops/s)", "cur(ops/s)", "base(B/op)", "cur(B/op)");
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            double[] base = baseline.get(entry.getKey());
+            if (base == null) {
+                continue;
+            }
+
+            double[] cur = entry.getValue();
+            boolean isSlower = cur[0] < base[0] * (1 - threshold);
+            boolean isMoreAlloc = cur[1] > base[1] * (1 + threshold) + 1; // 1 byte 미만 차이는 무시
+            System.out.printf("%-70s %14.0f %14.0f %12.1f %12.1f %s%n",
+                    entry.getKey(), base[0], cur[0], base[1], cur[1],
+                    isSlower || isMoreAlloc ? "<< REGRESSION" : ""
+            );
+
+            if (isSlower || isMoreAlloc) {
+                regressionCount++;
+            }
+        }
+
+        System.out.printf("Regression: %d (threshold=%.0f%%)%n", regressionCount, threshold * 100);
+        return regressionCount;
+    }
+
+    /**
+     * @return benchmark 이름 > [ops/s, B/op]
+     */
+    private static Map<String, double[]> readScores(String path) throws Exception {
+        Map<String, double[]> scoreMap = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            JsonArray resultArray = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : resultArray) {
+                JsonObject result = element.getAsJsonObject();
+                double score = result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+
+                double allocNorm = 0;
+                JsonObject secondaryMetrics = result.getAsJsonObject("secondaryMetrics");
+                if (secondaryMetrics != null) {
+                    String key = secondaryMetrics.has(ALLOC_RATE_NORM) ? ALLOC_RATE_NORM : ALLOC_RATE_NORM_OLD;
+                    if (secondaryMetrics.has(key)) {
+                        allocNorm = secondaryMetrics.getAsJsonObject(key).get("score").getAsDouble();
+                    }
+                }
+
+                scoreMap.put(result.get("benchmark").getAsString(), new double[]{score, allocNorm});
+            }
+        }
+        return scoreMap;
+    }
+
+}
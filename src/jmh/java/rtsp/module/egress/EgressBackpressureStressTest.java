@@ -0,0 +1,281 @@
+package rtsp.module.egress;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.traffic.GlobalTrafficShapingHandler;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @class public class EgressBackpressureStressTest
+ * @brief egress 가 10 배 초과 예약(oversubscribed)된 상황에서 EgressFlowControl 정책 별로 메모리가 제한되는지 확인하는 stress test
+ * session 마다 전송 스레드가 RTP 크기(200 byte) 패킷을 일정 속도로 Streamer 와 같은 방식(connect 한 channel 의 EgressWriter)으로 보낸다.
+ * (1ms 마다 보낼 패킷을 쓰고 flush 한다. GlobalTrafficShapingHandler 는 channel 이 닫힐 때 대기 중인 ByteBuf 만 release 하므로
+ * Streamer 와 같이 DatagramPacket 없이 ByteBuf 를 쓴다.)
+ * 모든 session 의 channel 은 GlobalTrafficShapingHandler 한 개를 공유하고, 이것이 linkMbps 짜리 회선 역할을 한다.
+ * (shaping 대기 중인 크기가 high water mark 를 넘으면 channel 이 unwritable 이 된다.)
+ * 전체 전송 속도는 linkMbps * oversubscription 이다.
+ * 1) DROP, SKIP_TO_KEYFRAME, SLOW : EgressFlowControl 사용
+ * 2) UNBOUNDED : writability 를 보지 않는 기존 방식 (보내지 못한 패킷이 계속 쌓임, pool 이 커진 채로 남으므로 마지막에 실행)
+ * 각 방식마다 보내지 못한 크기(shaping 대기 + channel outbound buffer + EgressWriter 가 아직 쓰지 않은 패킷)와 pooled direct memory 의 최대값을 출력하고,
+ * 정책을 사용한 경우 최대값이 sessions * highWaterMark * 2 이하인지 확인한다.
+ *
+ * ex) mvn -P jmh compile exec:java -Dexec.mainClass=rtsp.module.egress.EgressBackpressureStressTest -Dexec.args="[sessions=20] [linkMbps=8] [oversubscription=10] [durationMs=5000] [highWaterMark=262144] [lowWaterMark=65536] [gopPackets=500] [flushMode=TICK]"
+ */
+public class EgressBackpressureStressTest {
+
+    private static final int PACKET_SIZE = 12 + 188; // RTP header + TS 패킷 한 개
+    private static final long SAMPLE_INTERVAL_MS = 100;
+    private static final long SLOW_MAX_WAIT_MS = 100;
+    private static final long LATE_RESET_NANOS = 100000000L; // 100ms 이상 늦으면 전송 기준을 다시 잡음 (RtpSender 와 같음)
+
+    private final int sessions;
+    private final long linkBytesPerSecond;
+    private final int oversubscription;
+    private final long durationMs;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+    private final int gopPackets;
+    private final EgressFlushMode flushMode;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private EgressBackpressureStressTest(int sessions, long linkMbps, int oversubscription, long durationMs,
+                                         int highWaterMark, int lowWaterMark, int gopPackets, EgressFlushMode flushMode) {
+        this.sessions = sessions;
+        this.linkBytesPerSecond = linkMbps * 1000000 / 8;
+        this.oversubscription = oversubscription;
+        this.durationMs = durationMs;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+        this.gopPackets = gopPackets;
+        this.flushMode = flushMode;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long linkMbps = args.length > 1 ? Long.parseLong(args[1]) : 8;
+        int oversubscription = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long durationMs = args.length > 3 ? Long.parseLong(args[3]) : 5000;
+        int highWaterMark = args.length > 4 ? Integer.parseInt(args[4]) : 262144;
+        int lowWaterMark = args.length > 5 ? Integer.parseInt(args[5]) : 65536;
+        int gopPackets = args.length > 6 ? Integer.parseInt(args[6]) : 500;
+        EgressFlushMode flushMode = args.length > 7 ? EgressFlushMode.fromName(args[7]) : EgressFlushMode.TICK;
+
+        EgressBackpressureStressTest stressTest = new EgressBackpressureStressTest(
+                sessions, linkMbps, oversubscription, durationMs, highWaterMark, lowWaterMark, gopPackets, flushMode
+        );
+        System.out.printf("sessions=%d link=%dMbps offered=%dMbps duration=%dms highWaterMark=%d lowWaterMark=%d bound=%d flushMode=%s%n",
+                sessions, linkMbps, linkMbps * oversubscription, durationMs, highWaterMark, lowWaterMark, stressTest.getBound(), flushMode
+        );
+
+        boolean isPassed = true;
+        for (EgressBackpressurePolicy policy : EgressBackpressurePolicy.values()) {
+            isPassed &= stressTest.run(policy);
+        }
+        stressTest.run(null);
+
+        System.out.println(isPassed ? "PASS" : "FAIL");
+        if (!isPassed) {
+            System.exit(1);
+        }
+    }
+
+    private long getBound() {
+        return (long) sessions * highWaterMark * 2;
+    }
+
+    /**
+     * @fn private boolean run(EgressBackpressurePolicy policy)
+     * @brief 한 가지 방식으로 durationMs 동안 전송하고 결과를 출력하는 함수
+     * @param policy null 이면 writability 를 보지 않음 (UNBOUNDED)
+     * @return 메모리가 bound 이하이면 true (UNBOUNDED 는 항상 true)
+     */
+    private boolean run(EgressBackpressurePolicy policy) throws InterruptedException {
+        NioEventLoopGroup group = new NioEventLoopGroup(2);
+        GlobalTrafficShapingHandler linkShaper = new GlobalTrafficShapingHandler(group, linkBytesPerSecond, 0, 100);
+        linkShaper.setMaxWriteSize(highWaterMark);
+
+        AtomicLong receivedBytes = new AtomicLong(0);
+        List<Channel> channelList = new ArrayList<>();
+        List<EgressWriter> writerList = new ArrayList<>();
+        List<EgressFlowControl> flowControlList = new ArrayList<>();
+        long startDirectMemory = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+
+        try {
+            ///////////////////////////////////////////////////////////////////////////
+            // RECEIVER
+            Channel receiver = new Bootstrap().group(group).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                            receivedBytes.addAndGet(packet.content().readableBytes());
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            channelList.add(receiver);
+            InetSocketAddress receiverAddress = (InetSocketAddress) receiver.localAddress();
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // SENDERS (Streamer.init 과 같은 option)
+            Bootstrap senderBootstrap = new Bootstrap().group(group).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(lowWaterMark, highWaterMark))
+                    .handler(new ChannelInitializer<NioDatagramChannel>() {
+                        @Override
+                        public void initChannel(NioDatagramChannel ch) {
+                            ch.pipeline().addLast(linkShaper);
+                        }
+                    });
+
+            List<Thread> senderThreadList = new ArrayList<>();
+            CountDownLatch startLatch = new CountDownLatch(1);
+            long sessionBytesPerSecond = linkBytesPerSecond * oversubscription / sessions;
+            for (int i = 0; i < sessions; i++) {
+                Channel channel = senderBootstrap.connect(receiverAddress).sync().channel();
+                channelList.add(channel);
+
+                EgressFlowControl egressFlowControl = policy == null ? null : new EgressFlowControl(policy, SLOW_MAX_WAIT_MS);
+                if (egressFlowControl != null) {
+                    flowControlList.add(egressFlowControl);
+                    channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                            if (ctx.channel().isWritable()) {
+                                egressFlowControl.signalWritable();
+                            }
+                            ctx.fireChannelWritabilityChanged();
+                        }
+                    });
+                }
+
+                // TICK 모드의 묶음 크기 상한은 Streamer 기본값 사용
+                EgressWriter writer = new EgressWriter(channel, flushMode, 64, egressFlowControl);
+                writerList.add(writer);
+
+                Thread senderThread = new Thread(
+                        () -> send(writer, sessionBytesPerSecond, startLatch),
+                        "EgressSender-" + i
+                );
+                senderThread.start();
+                senderThreadList.add(senderThread);
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // SAMPLE
+            long peakPendingBytes = 0;
+            long peakDirectMemory = 0;
+            long startTime = System.nanoTime();
+            startLatch.countDown();
+            for (Thread senderThread : senderThreadList) {
+                while (senderThread.isAlive()) {
+                    peakPendingBytes = Math.max(peakPendingBytes, getPendingBytes(linkShaper, channelList, writerList));
+                    peakDirectMemory = Math.max(peakDirectMemory, PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory() - startDirectMemory);
+                    senderThread.join(SAMPLE_INTERVAL_MS);
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // RESULT
+            long droppedPackets = 0;
+            long unwritableCount = 0;
+            long slowWaitNanos = 0;
+            for (EgressFlowControl egressFlowControl : flowControlList) {
+                droppedPackets += egressFlowControl.getDroppedPacketCount();
+                unwritableCount += egressFlowControl.getUnwritableCount();
+                slowWaitNanos += egressFlowControl.getSlowWaitNanos();
+            }
+
+            boolean isBounded = policy == null || peakPendingBytes <= getBound();
+            System.out.printf("%-16s delivered=%7.2fMbps peakPending=%10d peakDirect=%10d dropped=%9d unwritable=%6d slowWait=%6dms %s%n",
+                    policy == null ? "UNBOUNDED" : policy.name(),
+                    receivedBytes.get() * 8 * 1000.0 / elapsedNanos,
+                    peakPendingBytes, peakDirectMemory, droppedPackets, unwritableCount, slowWaitNanos / 1000000,
+                    policy == null ? "" : (isBounded ? "bounded" : "NOT BOUNDED")
+            );
+            return isBounded;
+            ///////////////////////////////////////////////////////////////////////////
+        } finally {
+            // 전송 channel 을 먼저 닫는다. (receiver 를 먼저 닫으면 PortUnreachable 발생)
+            for (int i = channelList.size() - 1; i >= 0; i--) {
+                channelList.get(i).close().awaitUninterruptibly();
+            }
+            linkShaper.release();
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * @fn private void send(EgressWriter writer, long bytesPerSecond, CountDownLatch startLatch)
+     * @brief session 한 개의 전송 스레드 (시작 시간 기준으로 보낼 패킷 수를 계산하고, 100ms 이상 늦으면 기준을 다시 잡음)
+     */
+    private void send(EgressWriter writer, long bytesPerSecond, CountDownLatch startLatch) {
+        try {
+            startLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long endTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        long anchorTime = System.nanoTime();
+        long anchorPacketCount = 0;
+        long packetCount = 0;
+        while (System.nanoTime() < endTime) {
+            long now = System.nanoTime();
+            long duePacketCount = anchorPacketCount + (now - anchorTime) * bytesPerSecond / PACKET_SIZE / 1000000000L;
+            if ((duePacketCount - packetCount) * PACKET_SIZE * 1000000000L / bytesPerSecond > LATE_RESET_NANOS) {
+                anchorTime = now;
+                anchorPacketCount = packetCount;
+                continue;
+            }
+
+            while (packetCount < duePacketCount && System.nanoTime() < endTime) {
+                boolean isKeyFrame = packetCount % gopPackets == 0;
+                packetCount++;
+
+                // RtpSender 와 같이 heap buffer 를 감싸서 쓴다. (channel 에 쓸 때 pooled direct buffer 로 복사)
+                writer.write(Unpooled.wrappedBuffer(new byte[PACKET_SIZE]), isKeyFrame);
+            }
+            writer.flush();
+            LockSupport.parkNanos(1000000);
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return 보내지 못한 크기 (shaping 대기 + channel outbound buffer, event loop 에 넣은 write task, EgressWriter 의 묶음 포함)
+     */
+    private static long getPendingBytes(GlobalTrafficShapingHandler linkShaper, List<Channel> channelList, List<EgressWriter> writerList) {
+        long pendingBytes = linkShaper.queuesSize();
+        for (EgressWriter writer : writerList) {
+            pendingBytes += writer.getPendingBytes();
+        }
+        for (Channel channel : channelList) {
+            ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+            if (outboundBuffer != null) {
+                pendingBytes += outboundBuffer.totalPendingWriteBytes();
+            }
+        }
+        return pendingBytes;
+    }
+
+}
@@ -0,0 +1,294 @@
+package rtsp.module.egress;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import rtsp.service.metrics.RtspMetrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @class public class EgressFlushBenchmark
+ * @brief EgressFlushMode 별 RTP 전송 CPU 효율 비교 (core 당 packets/s)
+ * session 마다 전송 스레드가 pacing 간격마다 packetsPerTick 개의 RTP 패킷(RtpSender 와 같이 heap header + TS payload)을
+ * EgressWriter 로 쓰고 flush 한다. 모든 session 은 loops 개의 event loop 를 공유한다. (Streamer 와 같음)
+ * 1) PACKET : 패킷마다 writeAndFlush (event loop task, flush 가 패킷마다 발생)
+ * 2) TICK : pacing 간격의 패킷을 모아서 event loop task 한 번에 write 하고 flush 는 한 번 (같은 event loop 의 session 은 task 한 번에 처리)
+ * 전송 스레드와 전송 event loop 스레드의 CPU 시간 합으로 core 당 packets/s 를 계산한다. (수신 channel 은 별도 event loop 로 제외)
+ * unwritable 이면 SLOW 정책으로 기다리므로 tickMicros=0 (대기 없이 계속 전송) 이면 최대 처리량을 측정한다.
+ *
+ * ex) mvn -P jmh compile exec:java -Dexec.mainClass=rtsp.module.egress.EgressFlushBenchmark -Dexec.args="[sessions=50] [loops=2] [packetsPerTick=20] [tickMicros=0] [durationMs=5000]"
+ */
+public class EgressFlushBenchmark {
+
+    private static final int TS_PACKET_SIZE = 188;
+    private static final int RTP_HEADER_SIZE = 12;
+    private static final int HIGH_WATER_MARK = 262144;
+    private static final int LOW_WATER_MARK = 65536;
+    private static final long SLOW_MAX_WAIT_MS = 100;
+    private static final long LATE_RESET_NANOS = 100000000L; // 100ms 이상 늦으면 pacing 기준을 다시 잡음 (RtpSender 와 같음)
+    private static final String LOOP_THREAD_NAME = "EgressBenchLoop";
+
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final int sessions;
+    private final int loops;
+    private final int packetsPerTick;
+    private final long tickNanos;
+
+    // RtpSender 가 보내는 TS 패킷 (cache 의 segment slice 와 같이 패킷마다 복사하지 않고 공유)
+    private final ByteBuffer tsPayload = ByteBuffer.allocate(TS_PACKET_SIZE);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private EgressFlushBenchmark(int sessions, int loops, int packetsPerTick, long tickMicros) {
+        this.sessions = sessions;
+        this.loops = loops;
+        this.packetsPerTick = packetsPerTick;
+        this.tickNanos = TimeUnit.MICROSECONDS.toNanos(tickMicros);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int loops = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int packetsPerTick = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long tickMicros = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        long durationMs = args.length > 4 ? Long.parseLong(args[4]) : 5000;
+
+        if (!threadMXBean.isThreadCpuTimeSupported()) {
+            System.out.println("Thread CPU time is not supported in this JVM.");
+            return;
+        }
+        threadMXBean.setThreadCpuTimeEnabled(true);
+
+        System.out.printf("java=%s cpus=%d sessions=%d loops=%d packetsPerTick=%d tickMicros=%d duration=%dms%n",
+                System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+                sessions, loops, packetsPerTick, tickMicros, durationMs
+        );
+
+        EgressFlushBenchmark benchmark = new EgressFlushBenchmark(sessions, loops, packetsPerTick, tickMicros);
+
+        // WARM UP (JIT, pooled allocator)
+        for (EgressFlushMode flushMode : EgressFlushMode.values()) {
+            benchmark.run(flushMode, durationMs / 5, false);
+        }
+
+        double packetPerCore = 0;
+        double tickPerCore = 0;
+        for (EgressFlushMode flushMode : EgressFlushMode.values()) {
+            double packetsPerCoreSecond = benchmark.run(flushMode, durationMs, true);
+            if (flushMode == EgressFlushMode.PACKET) {
+                packetPerCore = packetsPerCoreSecond;
+            } else {
+                tickPerCore = packetsPerCoreSecond;
+            }
+        }
+
+        if (packetPerCore > 0) {
+            System.out.printf("TICK / PACKET = %.2fx (packets/s per core)%n", tickPerCore / packetPerCore);
+        }
+    }
+
+    /**
+     * @fn private double run(EgressFlushMode flushMode, long durationMs, boolean isPrinted)
+     * @brief 한 가지 flush 모드로 durationMs 동안 전송하고 core 당 packets/s 를 반환하는 함수
+     */
+    private double run(EgressFlushMode flushMode, long durationMs, boolean isPrinted) throws InterruptedException {
+        NioEventLoopGroup receiverGroup = new NioEventLoopGroup(1);
+        NioEventLoopGroup senderGroup = new NioEventLoopGroup(loops, new DefaultThreadFactory(LOOP_THREAD_NAME));
+
+        AtomicLong sentPackets = new AtomicLong(0);
+        AtomicLong senderCpuNanos = new AtomicLong(0);
+        List<Channel> channelList = new ArrayList<>();
+        List<EgressFlowControl> flowControlList = new ArrayList<>();
+
+        try {
+            ///////////////////////////////////////////////////////////////////////////
+            // RECEIVER (읽은 패킷은 버림)
+            Channel receiver = new Bootstrap().group(receiverGroup).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.SO_RCVBUF, 4 * 1024 * 1024)
+                    .handler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            channelList.add(receiver);
+            InetSocketAddress receiverAddress = (InetSocketAddress) receiver.localAddress();
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // SENDERS (Streamer.init 과 같은 option)
+            Bootstrap senderBootstrap = new Bootstrap().group(senderGroup).channel(NioDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(LOW_WATER_MARK, HIGH_WATER_MARK))
+                    .handler(new ChannelInitializer<NioDatagramChannel>() {
+                        @Override
+                        public void initChannel(NioDatagramChannel ch) {
+                            // writability handler 는 session 마다 connect 후 추가
+                        }
+                    });
+
+            List<Thread> senderThreadList = new ArrayList<>();
+            CountDownLatch startLatch = new CountDownLatch(1);
+            for (int i = 0; i < sessions; i++) {
+                Channel channel = senderBootstrap.connect(receiverAddress).sync().channel();
+                channelList.add(channel);
+
+                EgressFlowControl egressFlowControl = new EgressFlowControl(EgressBackpressurePolicy.SLOW, SLOW_MAX_WAIT_MS);
+                flowControlList.add(egressFlowControl);
+                channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+                        if (ctx.channel().isWritable()) {
+                            egressFlowControl.signalWritable();
+                        }
+                        ctx.fireChannelWritabilityChanged();
+                    }
+                });
+
+                // TICK 모드의 묶음 크기 상한은 pacing 간격의 패킷 개수
+                EgressWriter writer = new EgressWriter(channel, flushMode, packetsPerTick, egressFlowControl);
+                Thread senderThread = new Thread(
+                        () -> send(writer, durationMs, startLatch, sentPackets, senderCpuNanos),
+                        "EgressBenchSender-" + i
+                );
+                senderThread.setDaemon(true);
+                senderThread.start();
+                senderThreadList.add(senderThread);
+            }
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // RUN
+            List<Long> loopThreadIdList = getLoopThreadIdList();
+            long loopStartCpuNanos = getCpuNanos(loopThreadIdList);
+            long startFlushCount = RtspMetrics.EGRESS_FLUSHES.get();
+            long startBatchRunCount = RtspMetrics.EGRESS_BATCH_RUNS.get();
+            long startTime = System.nanoTime();
+            startLatch.countDown();
+            for (Thread senderThread : senderThreadList) {
+                senderThread.join();
+            }
+            long elapsedNanos = System.nanoTime() - startTime;
+
+            // 마지막 묶음을 event loop 가 쓸 때까지 기다린다.
+            senderGroup.submit(() -> { }).awaitUninterruptibly();
+            long loopCpuNanos = getCpuNanos(loopThreadIdList) - loopStartCpuNanos;
+            long flushCount = RtspMetrics.EGRESS_FLUSHES.get() - startFlushCount;
+            long batchRunCount = RtspMetrics.EGRESS_BATCH_RUNS.get() - startBatchRunCount;
+            ///////////////////////////////////////////////////////////////////////////
+
+            ///////////////////////////////////////////////////////////////////////////
+            // RESULT
+            long droppedPackets = 0;
+            for (EgressFlowControl egressFlowControl : flowControlList) {
+                droppedPackets += egressFlowControl.getDroppedPacketCount();
+            }
+
+            long packets = sentPackets.get();
+            long cpuNanos = senderCpuNanos.get() + loopCpuNanos;
+            double packetsPerCoreSecond = cpuNanos > 0 ? packets * 1000000000.0 / cpuNanos : 0;
+            if (isPrinted) {
+                System.out.printf("%-6s packets/s=%10.0f packets/s/core=%10.0f cpu(sender=%6dms loop=%6dms) packets/flush=%6.1f sessions/task=%6.1f dropped=%d%n",
+                        flushMode.name(),
+                        packets * 1000000000.0 / elapsedNanos, packetsPerCoreSecond,
+                        senderCpuNanos.get() / 1000000, loopCpuNanos / 1000000,
+                        flushCount > 0 ? (double) packets / flushCount : 0,
+                        batchRunCount > 0 ? (double) flushCount / batchRunCount : 0,
+                        droppedPackets
+                );
+            }
+            return packetsPerCoreSecond;
+            ///////////////////////////////////////////////////////////////////////////
+        } finally {
+            // 전송 channel 을 먼저 닫는다. (receiver 를 먼저 닫으면 PortUnreachable 발생)
+            for (int i = channelList.size() - 1; i >= 0; i--) {
+                channelList.get(i).close().awaitUninterruptibly();
+            }
+            senderGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+            receiverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * @fn private void send(EgressWriter writer, long durationMs, CountDownLatch startLatch, AtomicLong sentPackets, AtomicLong senderCpuNanos)
+     * @brief session 한 개의 전송 스레드 (pacing 간격마다 packetsPerTick 개를 쓰고 flush, RtpSender 의 PCR 대기와 같은 위치)
+     */
+    private void send(EgressWriter writer, long durationMs, CountDownLatch startLatch, AtomicLong sentPackets, AtomicLong senderCpuNanos) {
+        try {
+            startLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long startCpuNanos = threadMXBean.getCurrentThreadCpuTime();
+        long endTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        long nextTickTime = System.nanoTime();
+        long packetCount = 0;
+        while (System.nanoTime() < endTime) {
+            for (int i = 0; i < packetsPerTick; i++) {
+                ByteBuf buf = Unpooled.wrappedBuffer(ByteBuffer.wrap(new byte[RTP_HEADER_SIZE]), tsPayload.duplicate());
+                if (writer.write(buf, true)) {
+                    packetCount++;
+                }
+            }
+            writer.flush();
+
+            if (tickNanos > 0) {
+                nextTickTime += tickNanos;
+                long sleepNanos = nextTickTime - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(sleepNanos);
+                } else if (-sleepNanos > LATE_RESET_NANOS) {
+                    nextTickTime = System.nanoTime();
+                }
+            }
+        }
+        writer.flush();
+
+        sentPackets.addAndGet(packetCount);
+        senderCpuNanos.addAndGet(threadMXBean.getCurrentThreadCpuTime() - startCpuNanos);
+    }
+
+    private static List<Long> getLoopThreadIdList() {
+        List<Long> threadIdList = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(LOOP_THREAD_NAME)) {
+                threadIdList.add(thread.getId());
+            }
+        }
+        return threadIdList;
+    }
+
+    private static long getCpuNanos(List<Long> threadIdList) {
+        long cpuNanos = 0;
+        for (long threadId : threadIdList) {
+            long threadCpuNanos = threadMXBean.getThreadCpuTime(threadId);
+            if (threadCpuNanos > 0) {
+                cpuNanos += threadCpuNanos;
+            }
+        }
+        return cpuNanos;
+    }
+
+}
@@ -0,0 +1,87 @@
+package rtsp.module.mpegts;
+
+import org.openjdk.jmh.annotations.*;
+import rtsp.module.mpegts.content.MpegTsPacket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class MpegTsPacketBenchmark
+ * @brief RtpSender 가 TS 패킷마다 수행하는 MpegTsPacket 생성(parse)과 PCR 추출 benchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MpegTsPacketBenchmark {
+
+    private static final int TS_PACKET_SIZE = 188;
+
+    private ByteBuffer pcrPacket; // adaptation field + PCR
+    private ByteBuffer payloadPacket; // payload only
+
+    @Setup
+    public void setup() {
+        pcrPacket = ByteBuffer.wrap(newPcrPacket(0x100, 27000000L * 10));
+        payloadPacket = ByteBuffer.wrap(newPayloadPacket(0x100));
+    }
+
+    @Benchmark
+    public MpegTsPacket parsePayloadPacket() {
+        return new MpegTsPacket(payloadPacket);
+    }
+
+    @Benchmark
+    public MpegTsPacket parsePcrPacket() {
+        return new MpegTsPacket(pcrPacket);
+    }
+
+    @Benchmark
+    public long extractPcr() {
+        MpegTsPacket mpegTsPacket = new MpegTsPacket(pcrPacket);
+        MpegTsPacket.AdaptationField adaptationField = mpegTsPacket.getAdaptationField();
+        if (adaptationField == null || adaptationField.getPcr() == null) {
+            return -1;
+        }
+        return adaptationField.getPcr().getValue();
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static byte[] newPayloadPacket(int pid) {
+        byte[] data = new byte[TS_PACKET_SIZE];
+        data[0] = 0x47;
+        data[1] = (byte) ((pid >> 8) & 0x1F);
+        data[2] = (byte) pid;
+        data[3] = 0x10; // payload only
+        for (int i = 4; i < TS_PACKET_SIZE; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    /**
+     * PCR(27MHz) = base(90kHz, 33 bits) * 300 + extension(9 bits)
+     */
+    private static byte[] newPcrPacket(int pid, long pcr) {
+        long base = pcr / 300;
+        long extension = pcr % 300;
+
+        byte[] data = newPayloadPacket(pid);
+        data[1] |= 0x40; // payload unit start
+        data[3] = 0x30; // adaptation field + payload
+        data[4] = 7; // adaptation field length
+        data[5] = 0x50; // random access + PCR flag
+        data[6] = (byte) (base >> 25);
+        data[7] = (byte) (base >> 17);
+        data[8] = (byte) (base >> 9);
+        data[9] = (byte) (base >> 1);
+        data[10] = (byte) (((base & 0x1) << 7) | 0x7E | ((extension >> 8) & 0x1));
+        data[11] = (byte) extension;
+        return data;
+    }
+
+}
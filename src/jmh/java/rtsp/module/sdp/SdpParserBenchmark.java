@@ -0,0 +1,36 @@
+package rtsp.module.sdp;
+
+import org.openjdk.jmh.annotations.*;
+import rtsp.module.sdp.base.Sdp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class SdpParserBenchmark
+ * @brief SdpParser.parseSdp benchmark (DESCRIBE 응답과 같은 MP2T SDP)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SdpParserBenchmark {
+
+    private static final String SDP_STR =
+            "v=0\r\n" +
+            "o=rtsp_server 1650000000 0 IN IP4 192.168.1.10\r\n" +
+            "s=streaming\r\n" +
+            "c=IN IP4 192.168.1.10\r\n" +
+            "t=0 0\r\n" +
+            "m=video 5000 RTP/AVP 33\r\n" +
+            "a=rtpmap:33 MP2T/90000\r\n";
+
+    private final SdpParser sdpParser = new SdpParser();
+
+    @Benchmark
+    public Sdp parseSdp() throws Exception {
+        return sdpParser.parseSdp("bench", null, null, SDP_STR);
+    }
+
+}
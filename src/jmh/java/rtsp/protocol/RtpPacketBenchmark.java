@@ -0,0 +1,49 @@
+package rtsp.protocol;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class RtpPacketBenchmark
+ * @brief RtpPacket packing(getData) / unpacking(byte[] 생성자) benchmark
+ * payload 는 RtpSender 와 같은 MPEG-TS 패킷 한 개(188 bytes)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtpPacketBenchmark {
+
+    private static final int TS_PACKET_SIZE = 188;
+    private static final int MP2T_TYPE = 33;
+
+    private final RtpPacket rtpPacket = new RtpPacket();
+    private byte[] payload;
+    private byte[] rtpData;
+    private int seqNum = 0;
+
+    @Setup
+    public void setup() {
+        payload = new byte[TS_PACKET_SIZE];
+        payload[0] = 0x47;
+
+        rtpPacket.setValue(2, 0, 0, 0, 0, MP2T_TYPE, 1, 3000, 0x12345678L, payload, payload.length);
+        rtpData = rtpPacket.getData();
+    }
+
+    @Benchmark
+    public byte[] pack() {
+        seqNum = (seqNum + 1) & 0xFFFF;
+        rtpPacket.setValue(2, 0, 0, 0, 0, MP2T_TYPE, seqNum, 3000L * seqNum, 0x12345678L, payload, payload.length);
+        return rtpPacket.getData();
+    }
+
+    @Benchmark
+    public RtpPacket unpack() {
+        return new RtpPacket(rtpData, rtpData.length);
+    }
+
+}
@@ -0,0 +1,54 @@
+package rtsp.protocol.register;
+
+import org.openjdk.jmh.annotations.*;
+import rtsp.protocol.register.base.URtspHeader;
+import rtsp.protocol.register.base.URtspMessageType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class URtspMessageBenchmark
+ * @brief Register 채널 메시지(URtspHeader, RegisterRtspUnitReq) 생성, 파싱 benchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class URtspMessageBenchmark {
+
+    private static final String MAGIC_COOKIE = "UR";
+    private static final String RTSP_UNIT_ID = "3f0c9a52-8b1e-4d47-a1c6-2f5d7e9b0c13";
+
+    private RegisterRtspUnitReq registerRtspUnitReq;
+    private byte[] headerData;
+    private byte[] registerData;
+
+    @Setup
+    public void setup() {
+        registerRtspUnitReq = new RegisterRtspUnitReq(
+                MAGIC_COOKIE, URtspMessageType.REGISTER, 1, System.currentTimeMillis(),
+                RTSP_UNIT_ID, 3600, (short) 8554
+        );
+        registerData = registerRtspUnitReq.getByteData();
+        headerData = new byte[URtspHeader.U_RTSP_HEADER_SIZE];
+        System.arraycopy(registerData, 0, headerData, 0, headerData.length);
+    }
+
+    @Benchmark
+    public URtspHeader parseHeader() throws Exception {
+        return new URtspHeader(headerData);
+    }
+
+    @Benchmark
+    public RegisterRtspUnitReq parseRegisterReq() throws Exception {
+        return new RegisterRtspUnitReq(registerData);
+    }
+
+    @Benchmark
+    public byte[] encodeRegisterReq() {
+        return registerRtspUnitReq.getByteData();
+    }
+
+}
@@ -0,0 +1,95 @@
+package rtsp.protocol.rtcp;
+
+import org.openjdk.jmh.annotations.*;
+import rtsp.protocol.rtcp.base.RtcpType;
+import rtsp.protocol.rtcp.packet.RtcpCompoundPacket;
+import rtsp.protocol.rtcp.packet.RtcpPacket;
+import rtsp.protocol.rtcp.packet.RtcpPacketPaddingResult;
+import rtsp.protocol.rtcp.type.regular.RtcpReceiverReport;
+import rtsp.protocol.rtcp.type.regular.RtcpSenderReport;
+import rtsp.protocol.rtcp.type.regular.base.RtcpHeader;
+import rtsp.protocol.rtcp.type.regular.base.report.RtcpReportBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class public class RtcpPacketBenchmark
+ * @brief RtcpPacket (RR, SR) / RtcpCompoundPacket encode, decode benchmark
+ * decode 는 RtcpChannelHandler 와 같이 수신한 byte array 로 RtcpPacket 을 생성한다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtcpPacketBenchmark {
+
+    private static final long SSRC = 0x12345678L;
+
+    private RtcpPacket receiverReportPacket;
+    private RtcpCompoundPacket compoundPacket;
+    private byte[] receiverReportData;
+    private byte[] senderReportData;
+
+    @Setup
+    public void setup() {
+        receiverReportPacket = newReceiverReportPacket();
+
+        List<RtcpPacket> rtcpPacketList = new ArrayList<>();
+        rtcpPacketList.add(newSenderReportPacket());
+        rtcpPacketList.add(newReceiverReportPacket());
+        compoundPacket = new RtcpCompoundPacket(rtcpPacketList);
+
+        receiverReportData = receiverReportPacket.getData();
+        senderReportData = rtcpPacketList.get(0).getData();
+    }
+
+    @Benchmark
+    public byte[] encodeReceiverReport() {
+        return receiverReportPacket.getData();
+    }
+
+    @Benchmark
+    public byte[] encodeCompound() {
+        return compoundPacket.getData();
+    }
+
+    @Benchmark
+    public RtcpPacket decodeReceiverReport() {
+        return new RtcpPacket(receiverReportData);
+    }
+
+    @Benchmark
+    public RtcpPacket decodeSenderReport() {
+        return new RtcpPacket(senderReportData);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static List<RtcpReportBlock> newReportBlockList() {
+        List<RtcpReportBlock> rtcpReportBlockList = new ArrayList<>();
+        rtcpReportBlockList.add(new RtcpReportBlock(SSRC + 1, (short) 12, 3, 65536, 120, 0x11223344L, 6553));
+        return rtcpReportBlockList;
+    }
+
+    private static RtcpPacket newReceiverReportPacket() {
+        RtcpReceiverReport rtcpReceiverReport = new RtcpReceiverReport(newReportBlockList(), null);
+        RtcpPacketPaddingResult paddingResult = RtcpPacket.getPacketLengthByBytes(rtcpReceiverReport.getData().length, false);
+        RtcpHeader rtcpHeader = new RtcpHeader(2, paddingResult, 1, RtcpType.RECEIVER_REPORT, SSRC);
+        return new RtcpPacket(rtcpHeader, rtcpReceiverReport);
+    }
+
+    private static RtcpPacket newSenderReportPacket() {
+        RtcpSenderReport rtcpSenderReport = new RtcpSenderReport(
+                0xE5F1A2B3L, 0x12345678L, 90000, 1500, 282000,
+                newReportBlockList(), null
+        );
+        RtcpPacketPaddingResult paddingResult = RtcpPacket.getPacketLengthByBytes(rtcpSenderReport.getData().length, false);
+        RtcpHeader rtcpHeader = new RtcpHeader(2, paddingResult, 1, RtcpType.SENDER_REPORT, SSRC);
+        return new RtcpPacket(rtcpHeader, rtcpSenderReport);
+    }
+
+}
@@ -0,0 +1,184 @@
+package rtsp.service.base;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class public class SessionRegistryBenchmark
+ * @brief Session registry contention benchmark
+ * N 개의 스레드가 OPTIONS(조회) / SETUP(생성) / PLAY(상태 전이) / TEARDOWN(삭제) 를 섞어서 반복 수행하고,
+ * 기존 방식(HashMap + ReentrantLock)과 SessionRegistry 의 초당 처리량을 비교한다.
+ *
+ * ex) mvn -P jmh compile exec:java -Dexec.mainClass=rtsp.service.base.SessionRegistryBenchmark -Dexec.args="[threads=64] [seconds=5] [sessions=4096]"
+ */
+public class SessionRegistryBenchmark {
+
+    private static final String STATE_SETUP = "SETUP";
+    private static final String STATE_PLAY = "PLAY";
+
+    private static class BenchSession {
+        volatile String state = STATE_SETUP;
+    }
+
+    private interface Registry {
+        BenchSession options(String key);
+        void setup(String key);
+        void play(String key);
+        void teardown(String key);
+    }
+
+    /**
+     * 기존 RtspManager / NettyChannelManager 와 같은 HashMap + 단일 lock 구조
+     */
+    private static class LockedHashMapRegistry implements Registry {
+        private final HashMap<String, BenchSession> map = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @Override
+        public BenchSession options(String key) {
+            lock.lock();
+            try {
+                return map.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void setup(String key) {
+            lock.lock();
+            try {
+                map.putIfAbsent(key, new BenchSession());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void play(String key) {
+            lock.lock();
+            try {
+                BenchSession session = map.get(key);
+                if (session != null) {
+                    session.state = STATE_PLAY;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void teardown(String key) {
+            lock.lock();
+            try {
+                map.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class ShardedRegistry implements Registry {
+        private final SessionRegistry<String, BenchSession> registry = new SessionRegistry<>();
+
+        @Override
+        public BenchSession options(String key) {
+            return registry.get(key);
+        }
+
+        @Override
+        public void setup(String key) {
+            registry.createIfAbsent(key, k -> new BenchSession());
+        }
+
+        @Override
+        public void play(String key) {
+            registry.computeIfPresent(key, (k, session) -> {
+                session.state = STATE_PLAY;
+                return session;
+            });
+        }
+
+        @Override
+        public void teardown(String key) {
+            registry.remove(key);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int sessionCount = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+        String[] keys = new String[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            keys[i] = "rtsp-unit-" + i;
+        }
+
+        // Warm up
+        run("HashMap+ReentrantLock", new LockedHashMapRegistry(), keys, threadCount, 1, false);
+        run("SessionRegistry", new ShardedRegistry(), keys, threadCount, 1, false);
+
+        run("HashMap+ReentrantLock", new LockedHashMapRegistry(), keys, threadCount, seconds, true);
+        run("SessionRegistry", new ShardedRegistry(), keys, threadCount, seconds, true);
+    }
+
+    private static void run(String name, Registry registry, String[] keys, int threadCount, int seconds, boolean print) throws InterruptedException {
+        AtomicBoolean isRunning = new AtomicBoolean(true);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch endLatch = new CountDownLatch(threadCount);
+        LongAdder totalOps = new LongAdder();
+
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                try {
+                    startLatch.await();
+                    while (isRunning.get()) {
+                        String key = keys[random.nextInt(keys.length)];
+                        int method = random.nextInt(10);
+                        if (method < 4) {
+                            registry.options(key);
+                        } else if (method < 6) {
+                            registry.setup(key);
+                        } else if (method < 8) {
+                            registry.play(key);
+                        } else {
+                            registry.teardown(key);
+                        }
+                        ops++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    totalOps.add(ops);
+                    endLatch.countDown();
+                }
+            }, name + "-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        Thread.sleep(seconds * 1000L);
+        isRunning.set(false);
+        endLatch.await();
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        if (print) {
+            double opsPerSec = totalOps.sum() / (elapsedNanos / 1e9);
+            System.out.printf("%-24s threads=%d sessions=%d ops=%d ops/s=%.0f%n",
+                    name, threadCount, keys.length, totalOps.sum(), opsPerSec
+            );
+        }
+    }
+
+}
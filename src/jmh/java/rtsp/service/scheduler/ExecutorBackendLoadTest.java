@@ -0,0 +1,174 @@
+package rtsp.service.scheduler;
+
+import rtsp.service.base.ExecutorBackend;
+import rtsp.service.scheduler.job.Job;
+import rtsp.service.scheduler.job.JobBuilder;
+import rtsp.service.scheduler.schedule.ScheduleManager;
+import rtsp.service.scheduler.schedule.handler.JobSchedulingPolicy;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class public class ExecutorBackendLoadTest
+ * @brief PLATFORM / VIRTUAL backend 의 최대 동시 session 개수 비교
+ * 각 session 은 PLAY 처리와 같은 순서로 동작한다.
+ * 1) blocking task executor 에서 재생 시간 조회(ffprobe)를 흉내내어 prepareMs 동안 blocking
+ * 2) ScheduleUnit 에 일회성 Job(RtpSender 와 같은 형태)을 등록하고, pacingMs 마다 sleep 하면서 durationMs 동안 전송
+ * 일정 간격으로 session 을 늘리다가 session 시작 지연이 maxStartDelayMs 를 넘으면 멈추고,
+ * 그 직전까지 동시에 실행된 session 개수를 최대 동시 session 개수로 출력한다.
+ *
+ * ex) mvn -P jmh compile exec:java -Dexec.mainClass=rtsp.service.scheduler.ExecutorBackendLoadTest -Dexec.args="[poolSize=10] [maxSessions=2000] [rampIntervalMs=5] [durationMs=10000] [pacingMs=20] [prepareMs=50] [maxStartDelayMs=500]"
+ */
+public class ExecutorBackendLoadTest {
+
+    private static final String SCHEDULE_KEY = "LOAD";
+
+    private final ExecutorBackend backend;
+    private final int poolSize;
+    private final long durationMs;
+    private final long pacingMs;
+    private final long prepareMs;
+
+    private final AtomicInteger runningSessions = new AtomicInteger(0);
+    private final AtomicInteger peakSessions = new AtomicInteger(0);
+    private final AtomicLong maxStartDelayNanos = new AtomicLong(0);
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private ExecutorBackendLoadTest(ExecutorBackend backend, int poolSize, long durationMs, long pacingMs, long prepareMs) {
+        this.backend = backend;
+        this.poolSize = poolSize;
+        this.durationMs = durationMs;
+        this.pacingMs = pacingMs;
+        this.prepareMs = prepareMs;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        int poolSize = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long rampIntervalMs = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        long durationMs = args.length > 3 ? Long.parseLong(args[3]) : 10000;
+        long pacingMs = args.length > 4 ? Long.parseLong(args[4]) : 20;
+        long prepareMs = args.length > 5 ? Long.parseLong(args[5]) : 50;
+        long maxStartDelayMs = args.length > 6 ? Long.parseLong(args[6]) : 500;
+
+        System.out.printf("java=%s virtualThreadSupported=%s%n",
+                System.getProperty("java.version"), ExecutorBackend.isVirtualThreadSupported()
+        );
+
+        for (ExecutorBackend backend : ExecutorBackend.values()) {
+            if (backend.resolve() != backend) {
+                System.out.printf("%-8s skipped (not supported in this JVM)%n", backend);
+                continue;
+            }
+
+            new ExecutorBackendLoadTest(backend, poolSize, durationMs, pacingMs, prepareMs)
+                    .run(maxSessions, rampIntervalMs, maxStartDelayMs);
+        }
+    }
+
+    private void run(int maxSessions, long rampIntervalMs, long maxStartDelayMs) throws InterruptedException {
+        ScheduleManager scheduleManager = new ScheduleManager();
+        scheduleManager.initJob(SCHEDULE_KEY, poolSize, poolSize * 2, JobSchedulingPolicy.PRIORITY, false, backend);
+        ExecutorService blockingTaskExecutor = backend.newTaskExecutor("LoadBlockingTask", poolSize);
+
+        long[] submitTimes = new long[maxSessions];
+        long[] startDelays = new long[maxSessions];
+        Arrays.fill(startDelays, -1);
+
+        int submitted = 0;
+        int oldestPending = 0;
+        int saturatedAt = -1;
+        long maxStartDelayNanosLimit = TimeUnit.MILLISECONDS.toNanos(maxStartDelayMs);
+        long prepareNanos = TimeUnit.MILLISECONDS.toNanos(prepareMs);
+        try {
+            for (; submitted < maxSessions; submitted++) {
+                // 아직 시작하지 못한 session 의 대기 시간이 한계를 넘었으면 더 이상 늘리지 않는다.
+                while (oldestPending < submitted && startDelays[oldestPending] >= 0) {
+                    oldestPending++;
+                }
+                if (oldestPending < submitted
+                        && System.nanoTime() - submitTimes[oldestPending] - prepareNanos > maxStartDelayNanosLimit) {
+                    saturatedAt = submitted;
+                    break;
+                }
+
+                int seq = submitted;
+                long submitTime = System.nanoTime();
+                submitTimes[seq] = submitTime;
+                blockingTaskExecutor.execute(() -> {
+                    sleep(prepareMs);
+                    scheduleManager.startJob(SCHEDULE_KEY, newSessionJob(seq, submitTime, startDelays));
+                });
+                sleep(rampIntervalMs);
+            }
+
+            // 남은 session 이 끝날 때까지 대기
+            long waitUntil = System.currentTimeMillis() + durationMs + maxStartDelayMs * 4;
+            while (runningSessions.get() > 0 && System.currentTimeMillis() < waitUntil) {
+                sleep(100);
+            }
+        } finally {
+            blockingTaskExecutor.shutdownNow();
+            scheduleManager.finish();
+        }
+
+        long[] started = Arrays.stream(startDelays).filter(delay -> delay >= 0).sorted().toArray();
+        System.out.printf("%-8s poolSize=%d submitted=%d started=%d maxConcurrentSessions=%d saturatedAt=%s startDelay(ms) p50=%.1f p99=%.1f max=%.1f%n",
+                backend, poolSize, submitted, started.length, peakSessions.get(),
+                saturatedAt < 0 ? "-" : String.valueOf(saturatedAt),
+                percentile(started, 0.50), percentile(started, 0.99), maxStartDelayNanos.get() / 1e6
+        );
+    }
+
+    private Job newSessionJob(int seq, long submitTime, long[] startDelays) {
+        Job job = new JobBuilder()
+                .setName("LOAD_SESSION_" + seq)
+                .setInitialDelay(0)
+                .setInterval(0)
+                .setTimeUnit(TimeUnit.MILLISECONDS)
+                .setPriority(1)
+                .setTotalRunCount(1)
+                .setIsLasted(false)
+                .build();
+        job.setRunnable(() -> {
+            long startDelay = System.nanoTime() - submitTime - TimeUnit.MILLISECONDS.toNanos(prepareMs);
+            startDelays[seq] = Math.max(startDelay, 0);
+            maxStartDelayNanos.accumulateAndGet(startDelay, Math::max);
+
+            peakSessions.accumulateAndGet(runningSessions.incrementAndGet(), Math::max);
+            try {
+                // RtpSender 처럼 pacing 간격으로 sleep 하면서 전송
+                long endTime = System.currentTimeMillis() + durationMs;
+                while (System.currentTimeMillis() < endTime) {
+                    sleep(pacingMs);
+                }
+            } finally {
+                runningSessions.decrementAndGet();
+            }
+        });
+        return job;
+    }
+
+    private static double percentile(long[] sorted, double ratio) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * ratio))] / 1e6;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
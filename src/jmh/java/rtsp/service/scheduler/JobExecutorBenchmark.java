@@ -0,0 +1,170 @@
+package rtsp.service.scheduler;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import rtsp.service.scheduler.job.Job;
+import rtsp.service.scheduler.job.JobBuilder;
+import rtsp.service.scheduler.schedule.handler.JobExecutor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @class public class JobExecutorBenchmark
+ * @brief JobExecutor benchmark
+ * 기존 방식(1 ms 주기 poll)과 현재 JobExecutor(take 대기 + drain)의 처리량(jobs/s)과
+ * queue 에 들어간 시점부터 실행될 때까지의 지연 시간(queue-to-run latency)을 비교한다.
+ *
+ * ex) mvn -P jmh compile exec:java -Dexec.mainClass=rtsp.service.scheduler.JobExecutorBenchmark -Dexec.args="[executors=4] [burstJobs=20000] [pacedJobs=2000] [pacedIntervalUs=500]"
+ */
+public class JobExecutorBenchmark {
+
+    private interface Executor {
+        void addJob(Job job);
+        void stop();
+    }
+
+    /**
+     * 변경 전 JobExecutor 와 같은 구조 (1 ms 마다 poll 한 번)
+     */
+    private static class LegacyPollingExecutor implements Executor {
+        private final PriorityBlockingQueue<Job> priorityQueue = new PriorityBlockingQueue<>(16, Comparator.comparing(Job::getPriority));
+        private final ScheduledThreadPoolExecutor scheduledThreadPoolExecutor;
+
+        private LegacyPollingExecutor(int index) {
+            scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1, new BasicThreadFactory.Builder()
+                    .namingPattern("LegacyJobExecutor-" + index)
+                    .daemon(true)
+                    .build()
+            );
+            scheduledThreadPoolExecutor.scheduleAtFixedRate(() -> {
+                Job job = priorityQueue.poll();
+                if (job != null) {
+                    job.run();
+                }
+            }, 0, 1, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void addJob(Job job) {
+            priorityQueue.offer(job);
+        }
+
+        @Override
+        public void stop() {
+            scheduledThreadPoolExecutor.shutdown();
+        }
+    }
+
+    private static class CurrentExecutor implements Executor {
+        private final JobExecutor jobExecutor;
+
+        private CurrentExecutor(int index) {
+            jobExecutor = new JobExecutor("BENCH", index, 16);
+        }
+
+        @Override
+        public void addJob(Job job) {
+            jobExecutor.addJob(job);
+        }
+
+        @Override
+        public void stop() {
+            jobExecutor.stop();
+        }
+    }
+
+    private interface ExecutorFactory {
+        Executor create(int index);
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    public static void main(String[] args) throws Exception {
+        int executorCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int burstJobCount = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int pacedJobCount = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        long pacedIntervalNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 3 ? Long.parseLong(args[3]) : 500);
+
+        run("legacy-poll-1ms", LegacyPollingExecutor::new, executorCount, burstJobCount, pacedJobCount, pacedIntervalNanos);
+        run("take-and-drain", CurrentExecutor::new, executorCount, burstJobCount, pacedJobCount, pacedIntervalNanos);
+    }
+
+    private static void run(String name, ExecutorFactory factory, int executorCount,
+                            int burstJobCount, int pacedJobCount, long pacedIntervalNanos) throws InterruptedException {
+        Executor[] executors = new Executor[executorCount];
+        for (int i = 0; i < executorCount; i++) {
+            executors[i] = factory.create(i);
+        }
+
+        try {
+            // 1) Burst: 한 번에 넣고 모두 끝날 때까지의 처리량
+            long[] enqueuedTimes = new long[burstJobCount];
+            long[] latencies = new long[burstJobCount];
+            CountDownLatch latch = new CountDownLatch(burstJobCount);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < burstJobCount; i++) {
+                Job job = newJob(i, enqueuedTimes, latencies, latch);
+                enqueuedTimes[i] = System.nanoTime();
+                executors[i % executorCount].addJob(job);
+            }
+            latch.await();
+            long elapsedNanos = System.nanoTime() - startTime;
+            System.out.printf("%-16s burst  jobs=%d jobs/s=%.0f %s%n",
+                    name, burstJobCount, burstJobCount / (elapsedNanos / 1e9), summary(latencies)
+            );
+
+            // 2) Paced: 일정 간격으로 넣을 때의 queue-to-run 지연 시간
+            enqueuedTimes = new long[pacedJobCount];
+            latencies = new long[pacedJobCount];
+            latch = new CountDownLatch(pacedJobCount);
+            long nextTime = System.nanoTime();
+            for (int i = 0; i < pacedJobCount; i++) {
+                Job job = newJob(i, enqueuedTimes, latencies, latch);
+                enqueuedTimes[i] = System.nanoTime();
+                executors[i % executorCount].addJob(job);
+                nextTime += pacedIntervalNanos;
+                long sleepNanos = nextTime - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(sleepNanos);
+                }
+            }
+            latch.await();
+            System.out.printf("%-16s paced  jobs=%d interval=%dus %s%n",
+                    name, pacedJobCount, TimeUnit.NANOSECONDS.toMicros(pacedIntervalNanos), summary(latencies)
+            );
+        } finally {
+            for (Executor executor : executors) {
+                executor.stop();
+            }
+        }
+    }
+
+    private static Job newJob(int seq, long[] enqueuedTimes, long[] latencies, CountDownLatch latch) {
+        Job job = new JobBuilder()
+                .setName("BENCH_JOB_" + seq)
+                .setPriority(1)
+                .setIsLasted(false)
+                .build();
+        job.setRunnable(() -> {
+            latencies[seq] = System.nanoTime() - enqueuedTimes[seq];
+            latch.countDown();
+        });
+        return job;
+    }
+
+    private static String summary(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return String.format("latency(us) p50=%.1f p99=%.1f max=%.1f",
+                sorted[(int) (sorted.length * 0.50)] / 1e3,
+                sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))] / 1e3,
+                sorted[sorted.length - 1] / 1e3
+        );
+    }
+
+}
@@ -0,0 +1,137 @@
+package rtsp.module.sdp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Test;
+import rtsp.module.sdp.base.Sdp;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @class public class SdpTemplateTest
+ * @brief SdpTemplate 결과가 기존 방식(Sdp 객체 직렬화)과 byte 단위로 같은지 확인하는 테스트
+ * SDP 문자열은 user_conf.ini 의 기본 [SDP] Section 값으로 ConfigManager.buildLocalSdpString 과 같은 형식으로 만든다.
+ */
+public class SdpTemplateTest {
+
+    private static final String ADDRESS_MARKER = "255.255.255.254";
+    private static final int PORT_MARKER = 65533;
+    private static final String SESSION_ID_MARKER = "7038429156203847561";
+
+    private final SdpParser sdpParser = new SdpParser();
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    private static String buildSdpString(String sessionId, String address, int port, String... attributes) {
+        StringBuilder sdpStr = new StringBuilder();
+        sdpStr.append("v=0\r\n");
+        sdpStr.append("o=rtsp_server ").append(sessionId).append(" 0 IN IP4 ").append(address).append("\r\n");
+        sdpStr.append("s=streaming\r\n");
+        sdpStr.append("c=IN IP4 ").append(address).append("\r\n");
+        sdpStr.append("t=0 0\r\n");
+        sdpStr.append("m=video ").append(port).append(" UDP 33\r\n");
+        sdpStr.append("a=rtpmap:33 MP2T/90000\r\n");
+        for (String attribute : attributes) {
+            sdpStr.append("a=").append(attribute).append("\r\n");
+        }
+        return sdpStr.toString();
+    }
+
+    private String serialize(String sessionId, String address, int port, String... attributes) throws Exception {
+        Sdp sdp = sdpParser.parseSdp("test", null, null, buildSdpString(sessionId, address, port, attributes));
+        assertNotNull(sdp);
+        return sdp.getData(true);
+    }
+
+    private SdpTemplate compile(String... attributes) throws Exception {
+        SdpTemplate sdpTemplate = SdpTemplate.compile(
+                serialize(SESSION_ID_MARKER, ADDRESS_MARKER, PORT_MARKER, attributes),
+                ADDRESS_MARKER, String.valueOf(PORT_MARKER), SESSION_ID_MARKER
+        );
+        assertNotNull(sdpTemplate);
+        return sdpTemplate;
+    }
+
+    private static byte[] fillBytes(SdpTemplate sdpTemplate, String address, int port, long sessionId) {
+        ByteBuf buf = sdpTemplate.fill(UnpooledByteBufAllocator.DEFAULT, address, port, sessionId);
+        try {
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.getBytes(buf.readerIndex(), bytes);
+            return bytes;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private void assertSameAsSerializer(SdpTemplate sdpTemplate, String address, int port, long sessionId, String... attributes) throws Exception {
+        String expected = serialize(String.valueOf(sessionId), address, port, attributes);
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), fillBytes(sdpTemplate, address, port, sessionId));
+        assertEquals(expected, sdpTemplate.fillToString(address, port, sessionId));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void fillMatchesSerializer() throws Exception {
+        SdpTemplate sdpTemplate = compile();
+        assertSameAsSerializer(sdpTemplate, "192.168.1.10", 5000, 1650000000L);
+        assertSameAsSerializer(sdpTemplate, "10.0.0.1", 5002, 3900000000123L);
+    }
+
+    @Test
+    public void fillMatchesSerializerAtBoundaries() throws Exception {
+        SdpTemplate sdpTemplate = compile();
+        assertSameAsSerializer(sdpTemplate, "0.0.0.0", 0, 0L);
+        assertSameAsSerializer(sdpTemplate, "255.255.255.255", 65535, Long.MAX_VALUE);
+        assertSameAsSerializer(sdpTemplate, "1.1.1.1", 1, 1L);
+    }
+
+    @Test
+    public void fillMatchesSerializerWithAttributes() throws Exception {
+        String[] attributes = { "control:*", "range:npt=0-" };
+        SdpTemplate sdpTemplate = compile(attributes);
+        assertSameAsSerializer(sdpTemplate, "172.16.254.100", 40000, 1234567890123L, attributes);
+    }
+
+    @Test
+    public void writeAppendsToBuffer() throws Exception {
+        SdpTemplate sdpTemplate = compile();
+        String expected = serialize("42", "192.168.0.2", 6000);
+
+        ByteBuf buf = UnpooledByteBufAllocator.DEFAULT.heapBuffer();
+        try {
+            buf.writeByte('#');
+            sdpTemplate.write(buf, "192.168.0.2", 6000, 42L);
+            assertEquals("#" + expected, buf.toString(StandardCharsets.UTF_8));
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void maxLengthCoversLongestFill() throws Exception {
+        SdpTemplate sdpTemplate = compile();
+        String longest = sdpTemplate.fillToString("255.255.255.255", 65535, Long.MAX_VALUE);
+        assertTrue(sdpTemplate.getMaxLength() >= longest.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void compileRejectsMissingOrDuplicatedMarkers() throws Exception {
+        String markerSdp = serialize(SESSION_ID_MARKER, ADDRESS_MARKER, PORT_MARKER);
+
+        // port marker 가 없는 경우
+        assertNull(SdpTemplate.compile(markerSdp, ADDRESS_MARKER, "65531", SESSION_ID_MARKER));
+        // session id marker 가 없는 경우
+        assertNull(SdpTemplate.compile(markerSdp, ADDRESS_MARKER, String.valueOf(PORT_MARKER), "1111111111111111111"));
+        // port marker 가 두 번 있는 경우
+        assertNull(SdpTemplate.compile(markerSdp + "a=port:" + PORT_MARKER + "\r\n",
+                ADDRESS_MARKER, String.valueOf(PORT_MARKER), SESSION_ID_MARKER));
+    }
+
+}
@@ -0,0 +1,137 @@
+package rtsp.service.base;
+
+import org.junit.Test;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PortAllocatorTest {
+
+    private static final String PROBE_IP = "127.0.0.1";
+
+    @Test
+    public void oddMinPortStartsFromNextEvenPort() {
+        PortAllocator allocator = new PortAllocator(10001, 10010, null, false);
+        assertEquals(10002, allocator.getBasePort());
+        assertEquals(5, allocator.getPairCount()); // 10002, 10004, 10006, 10008, 10010
+
+        Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < allocator.getPairCount(); i++) {
+            int port = allocator.allocate();
+            assertEquals(0, port % 2);
+            assertTrue(port >= 10002 && port <= 10010);
+            assertTrue(ports.add(port));
+        }
+
+        assertEquals(PortAllocator.FAIL, allocator.allocate());
+        assertEquals(1.0, allocator.getUtilization(), 0.0);
+    }
+
+    @Test
+    public void pairCountAcrossWordBoundary() {
+        // 64 pair 를 넘으면 다음 word 를 사용하고, 마지막 word 의 범위 밖 bit 는 할당되지 않는다.
+        PortAllocator allocator = new PortAllocator(20000, 20000 + 2 * 69, null, false);
+        assertEquals(70, allocator.getPairCount());
+
+        for (int i = 0; i < 70; i++) {
+            assertNotEquals(PortAllocator.FAIL, allocator.allocate());
+        }
+        assertEquals(PortAllocator.FAIL, allocator.allocate());
+        assertEquals(70, allocator.getUsedCount());
+    }
+
+    @Test
+    public void releaseRejectsOddAndOutOfRangeAndDoubleFree() {
+        PortAllocator allocator = new PortAllocator(10000, 10010, null, false);
+        int port = allocator.allocate();
+
+        assertFalse(allocator.release(port + 1)); // RTCP port
+        assertFalse(allocator.release(9998));
+        assertFalse(allocator.release(10012));
+
+        assertTrue(allocator.release(port));
+        assertFalse(allocator.release(port));
+        assertEquals(0, allocator.getUsedCount());
+        assertFalse(allocator.isAllocated(port));
+    }
+
+    @Test
+    public void reservedPortIsNeitherAllocatedNorReleased() {
+        PortAllocator allocator = new PortAllocator(10000, 10002, null, false);
+        assertTrue(allocator.reserve(10000));
+        assertFalse(allocator.reserve(10000));
+
+        assertEquals(10002, allocator.allocate());
+        assertEquals(PortAllocator.FAIL, allocator.allocate());
+        assertFalse(allocator.release(10000));
+        assertEquals(1, allocator.getBlockedCount());
+    }
+
+    @Test
+    public void probeFailureBlocksPairUntilRetry() throws Exception {
+        int basePort = findFreePairBase();
+        PortAllocator allocator = new PortAllocator(basePort, basePort + 2, PROBE_IP, true, 200);
+
+        int port;
+        // RTCP port (홀수) 만 사용 중이어도 pair 전체를 건너뛴다.
+        DatagramSocket rtcpSocket = new DatagramSocket(new InetSocketAddress(PROBE_IP, basePort + 1));
+        try {
+            port = allocator.allocate();
+            assertEquals(basePort + 2, port);
+            assertEquals(1, allocator.getBlockedCount());
+            assertEquals(PortAllocator.FAIL, allocator.allocate());
+        } finally {
+            rtcpSocket.close();
+        }
+
+        // retry 시간 전에는 다시 검사하지 않는다.
+        assertEquals(PortAllocator.FAIL, allocator.allocate());
+
+        Thread.sleep(250);
+        assertEquals(basePort, allocator.allocate());
+        assertEquals(0, allocator.getBlockedCount());
+        assertEquals(2, allocator.getUsedCount());
+        assertTrue(allocator.release(basePort));
+    }
+
+    @Test
+    public void leakedPortsAreReportedAfterTtl() {
+        PortAllocator allocator = new PortAllocator(10000, 10002, null, false);
+        int port = allocator.allocate();
+        long now = System.currentTimeMillis();
+
+        assertTrue(allocator.getLeakedPorts(now, 60000).isEmpty());
+        assertEquals(port, (int) allocator.getLeakedPorts(now + 60000, 60000).get(0));
+    }
+
+    private static int findFreePairBase() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            int port;
+            try (DatagramSocket socket = new DatagramSocket(new InetSocketAddress(PROBE_IP, 0))) {
+                port = socket.getLocalPort() & ~1;
+            }
+
+            if (port > 1024 && port + 3 <= 65535 && isFree(port) && isFree(port + 1) && isFree(port + 2) && isFree(port + 3)) {
+                return port;
+            }
+        }
+        throw new IllegalStateException("No free udp port pair.");
+    }
+
+    private static boolean isFree(int port) {
+        try {
+            new DatagramSocket(new InetSocketAddress(PROBE_IP, port)).close();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+package rtsp.service.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SessionExpiryWheelTest {
+
+    private static final long TICK_TIME = 100;
+    private static final int WHEEL_SIZE = 8; // 한 바퀴 800ms
+
+    private final List<String> expiredKeys = new ArrayList<>();
+    private final List<SessionExpiryWheel.ExpireReason> expiredReasons = new ArrayList<>();
+
+    private int advance(SessionExpiryWheel<String> wheel, long curTime) {
+        return wheel.advance(curTime, (key, reason) -> {
+            expiredKeys.add(key);
+            expiredReasons.add(reason);
+        });
+    }
+
+    @Test
+    public void registeredKeyWithoutTouchIsIdleExpired() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, Long.MAX_VALUE, 1000);
+
+        // keep-alive 를 한 번도 받지 않아도 등록 시각 + idle 만료 시간이 지나면 만료된다.
+        assertEquals(0, advance(wheel, 1200));
+        assertEquals(1, advance(wheel, 1300));
+        assertEquals("a", expiredKeys.get(0));
+        assertEquals(SessionExpiryWheel.ExpireReason.IDLE, expiredReasons.get(0));
+        assertFalse(wheel.isRegistered("a"));
+    }
+
+    @Test
+    public void reenabledIdleTimeoutStartsFromNextTouch() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, Long.MAX_VALUE, 0);
+        wheel.setIdleTimeout("a", 0);
+        wheel.setIdleTimeout("a", 300);
+
+        // touch 전에는 idle 만료되지 않는다.
+        assertEquals(0, advance(wheel, 5000));
+        assertTrue(wheel.isRegistered("a"));
+
+        wheel.touch("a", 5000);
+        assertEquals(0, advance(wheel, 5200));
+        assertEquals(1, advance(wheel, 5300));
+        assertEquals(SessionExpiryWheel.ExpireReason.IDLE, expiredReasons.get(0));
+    }
+
+    @Test
+    public void touchExtendsIdleDeadline() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, Long.MAX_VALUE, 0);
+        wheel.touch("a", 0);
+
+        for (long time = 100; time <= 1000; time += 100) {
+            wheel.touch("a", time);
+            assertEquals(0, advance(wheel, time));
+        }
+
+        // 마지막 touch(1000) + 300 이 지나야 만료된다.
+        assertEquals(0, advance(wheel, 1200));
+        assertEquals(1, advance(wheel, 1300));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void unregisteredKeyIsNotExpired() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, 500, 0);
+        wheel.touch("a", 0);
+        wheel.unregister("a");
+
+        assertFalse(wheel.isRegistered("a"));
+        assertEquals(0, advance(wheel, 2000));
+        assertTrue(expiredKeys.isEmpty());
+
+        // 같은 key 로 다시 등록하면 새 deadline 이 적용된다.
+        assertTrue(wheel.register("a", 0, 2500, 2000));
+        assertEquals(0, advance(wheel, 2400));
+        assertEquals(1, advance(wheel, 2500));
+    }
+
+    @Test
+    public void limitDeadlineIsNotExtendedByTouch() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, 1000, 0);
+
+        for (long time = 0; time < 1000; time += 100) {
+            wheel.touch("a", time);
+            assertEquals(0, advance(wheel, time));
+        }
+
+        assertEquals(1, advance(wheel, 1000));
+        assertEquals(SessionExpiryWheel.ExpireReason.LIMIT, expiredReasons.get(0));
+    }
+
+    @Test
+    public void deadlineAfterSeveralRoundsExpiresOnTime() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        // 한 바퀴(800ms) 보다 먼 deadline 은 같은 bucket 을 지날 때마다 다시 등록된다.
+        wheel.register("a", 0, 2000, 0);
+
+        for (long time = 100; time < 2000; time += 100) {
+            assertEquals(0, advance(wheel, time));
+        }
+        assertEquals(1, advance(wheel, 2000));
+    }
+
+    @Test
+    public void advanceOverSeveralRoundsChecksAllBuckets() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.register("key-" + i, 0, 100L * (i + 1), 0);
+        }
+        wheel.register("late", 0, 10000, 0);
+
+        assertEquals(WHEEL_SIZE, advance(wheel, 5000));
+        assertTrue(wheel.isRegistered("late"));
+        assertEquals(1, advance(wheel, 10000));
+    }
+
+    @Test
+    public void disabledIdleTimeoutKeepsKey() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        wheel.register("a", 300, Long.MAX_VALUE, 0);
+        wheel.touch("a", 0);
+        wheel.setIdleTimeout("a", 0);
+
+        assertEquals(0, advance(wheel, 5000));
+        assertTrue(wheel.isRegistered("a"));
+    }
+
+    @Test
+    public void duplicatedRegisterIsRejected() {
+        SessionExpiryWheel<String> wheel = new SessionExpiryWheel<>(TICK_TIME, WHEEL_SIZE, 0);
+        assertTrue(wheel.register("a", 300, Long.MAX_VALUE, 0));
+        assertFalse(wheel.register("a", 300, Long.MAX_VALUE, 0));
+        assertEquals(1, wheel.size());
+    }
+
+}
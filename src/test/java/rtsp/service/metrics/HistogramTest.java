@@ -0,0 +1,116 @@
+package rtsp.service.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    // (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT
+    private static final int BUCKET_COUNT = (40 - 3 + 2) * 8;
+    private static final int LAST_INDEX = BUCKET_COUNT - 1;
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void smallValuesHaveOwnBucket() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, Histogram.getBucketIndex(value));
+            assertEquals(value, Histogram.getBucketUpperBound(value));
+        }
+    }
+
+    @Test
+    public void powerOfTwoBoundaries() {
+        // 2^3 부터는 2 의 거듭제곱 구간마다 8 개의 bucket
+        assertEquals(8, Histogram.getBucketIndex(8));
+        assertEquals(15, Histogram.getBucketIndex(15));
+        assertEquals(16, Histogram.getBucketIndex(16));
+        assertEquals(16, Histogram.getBucketIndex(17));
+        assertEquals(17, Histogram.getBucketIndex(18));
+        assertEquals(23, Histogram.getBucketIndex(31));
+        assertEquals(24, Histogram.getBucketIndex(32));
+        assertEquals(24, Histogram.getBucketIndex(35));
+        assertEquals(25, Histogram.getBucketIndex(36));
+
+        assertEquals(17, Histogram.getBucketUpperBound(16));
+        assertEquals(31, Histogram.getBucketUpperBound(23));
+        assertEquals(35, Histogram.getBucketUpperBound(24));
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        // bucket 의 상한값은 그 bucket 에 들어가고, 상한값 + 1 은 다음 bucket 에 들어간다.
+        for (int index = 0; index < LAST_INDEX; index++) {
+            long upperBound = Histogram.getBucketUpperBound(index);
+            assertEquals("upperBound of " + index, index, Histogram.getBucketIndex(upperBound));
+            assertEquals("upperBound + 1 of " + index, index + 1, Histogram.getBucketIndex(upperBound + 1));
+        }
+    }
+
+    @Test
+    public void relativeErrorIsBounded() {
+        for (int index = 8; index <= LAST_INDEX; index++) {
+            long lowerBound = Histogram.getBucketUpperBound(index - 1) + 1;
+            long upperBound = Histogram.getBucketUpperBound(index);
+            assertTrue("bucket " + index, (double) (upperBound - lowerBound) / lowerBound <= 0.125);
+        }
+    }
+
+    @Test
+    public void largeValuesGoToLastBucket() {
+        long lastUpperBound = (1L << 41) - 1;
+        assertEquals(lastUpperBound, Histogram.getBucketUpperBound(LAST_INDEX));
+        assertEquals(LAST_INDEX, Histogram.getBucketIndex(lastUpperBound));
+        assertEquals(LAST_INDEX - 7, Histogram.getBucketIndex(1L << 40));
+        assertEquals(LAST_INDEX, Histogram.getBucketIndex(1L << 41));
+        assertEquals(LAST_INDEX, Histogram.getBucketIndex(Long.MAX_VALUE));
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void recordClampsNegativeValues() {
+        Histogram histogram = new Histogram(1);
+        histogram.record(-5);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+        assertArrayEquals(new long[] { 0 }, histogram.getQuantiles(new double[] { 0.5 }));
+    }
+
+    @Test
+    public void quantilesAreEmptyWithoutValues() {
+        Histogram histogram = new Histogram(1);
+        assertArrayEquals(new long[] { 0, 0 }, histogram.getQuantiles(new double[] { 0.5, 0.99 }));
+    }
+
+    @Test
+    public void quantilesUseBucketUpperBoundCappedByMax() {
+        Histogram histogram = new Histogram(1e-6);
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+
+        // 50 번째 값(50)은 48~51 bucket, 99 번째 값(99)은 96~103 bucket > 최대값 100 으로 제한
+        long[] values = histogram.getQuantiles(new double[] { 0, 0.5, 0.99, 1 });
+        assertArrayEquals(new long[] { 1, 51, 100, 100 }, values);
+    }
+
+    @Test
+    public void maxIsKeptForOverflowBucket() {
+        Histogram histogram = new Histogram(1);
+        histogram.record(1L << 45);
+
+        assertEquals(1L << 45, histogram.getMax());
+        assertArrayEquals(new long[] { (1L << 41) - 1 }, histogram.getQuantiles(new double[] { 1 }));
+    }
+
+}
@@ -0,0 +1,179 @@
+package rtsp.service.scheduler.schedule.timer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 4; // 1 단계 40ms, 2 단계 160ms, 3 단계 640ms
+
+    /**
+     * JobTimer 의 시간 진행을 실제 시각 대신 지정한 시각까지 순서대로 수행한다.
+     */
+    private static class WheelDriver {
+        private final AtomicInteger taskCounter = new AtomicInteger(0);
+        private final DelayQueue<TimerTaskList> queue = new DelayQueue<>();
+        private final TimingWheel timingWheel;
+        private final List<String> firedNames = new ArrayList<>();
+        private final List<Long> firedTimes = new ArrayList<>();
+        private long now;
+
+        private WheelDriver(long startMs) {
+            this.timingWheel = new TimingWheel(TICK_MS, WHEEL_SIZE, startMs, taskCounter, queue);
+            this.now = startMs;
+        }
+
+        private NamedTask add(String name, long expirationMs) {
+            NamedTask task = new NamedTask(name);
+            add(task, expirationMs);
+            return task;
+        }
+
+        private void add(NamedTask task, long expirationMs) {
+            addEntry(new TimerTaskEntry(task, expirationMs));
+        }
+
+        private void addEntry(TimerTaskEntry entry) {
+            if (!timingWheel.add(entry) && !entry.isCancelled()) {
+                firedNames.add(((NamedTask) entry.timerTask).name);
+                firedTimes.add(now);
+            }
+        }
+
+        private void runUntil(long timeMs) {
+            while (true) {
+                TimerTaskList bucket = null;
+                for (TimerTaskList candidate : queue) {
+                    if (bucket == null || candidate.getExpiration() < bucket.getExpiration()) {
+                        bucket = candidate;
+                    }
+                }
+
+                if (bucket == null || bucket.getExpiration() > timeMs) {
+                    break;
+                }
+
+                queue.remove(bucket);
+                now = bucket.getExpiration();
+                timingWheel.advanceClock(now);
+                bucket.flush(this::addEntry);
+            }
+            now = timeMs;
+        }
+    }
+
+    private static class NamedTask extends TimerTask {
+        private final String name;
+
+        private NamedTask(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            // Nothing
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void taskInFirstWheelFiresAtItsTick() {
+        WheelDriver driver = new WheelDriver(7);
+        driver.add("a", 25);
+        assertEquals(1, driver.taskCounter.get());
+
+        driver.runUntil(19);
+        assertTrue(driver.firedNames.isEmpty());
+
+        driver.runUntil(20);
+        assertEquals("a", driver.firedNames.get(0));
+        assertEquals(20L, (long) driver.firedTimes.get(0));
+        assertEquals(0, driver.taskCounter.get());
+    }
+
+    @Test
+    public void expiredTaskIsNotAdded() {
+        WheelDriver driver = new WheelDriver(100);
+        assertFalse(driver.timingWheel.add(new TimerTaskEntry(new NamedTask("a"), 109)));
+        assertTrue(driver.timingWheel.add(new TimerTaskEntry(new NamedTask("b"), 110)));
+    }
+
+    @Test
+    public void farTaskCascadesDownThroughOverflowWheels() {
+        WheelDriver driver = new WheelDriver(0);
+        // 175 는 3 단계 wheel 의 160 bucket > 1 단계 wheel 의 170 bucket 순서로 내려온다.
+        driver.add("far", 175);
+
+        driver.runUntil(169);
+        assertTrue(driver.firedNames.isEmpty());
+        assertEquals(1, driver.taskCounter.get());
+
+        driver.runUntil(170);
+        assertEquals(1, driver.firedNames.size());
+        assertEquals(170L, (long) driver.firedTimes.get(0));
+        assertEquals(0, driver.taskCounter.get());
+    }
+
+    @Test
+    public void bucketIsReusedAfterRollover() {
+        WheelDriver driver = new WheelDriver(0);
+        // 모두 1 단계 wheel 의 같은 bucket index (virtualId % 4 == 1) 에 해당한다.
+        driver.add("round1", 15);
+        driver.add("round2", 55);
+        driver.add("round3", 95);
+        driver.add("round5", 175);
+
+        driver.runUntil(1000);
+        assertEquals(4, driver.firedNames.size());
+        assertEquals("round1", driver.firedNames.get(0));
+        assertEquals("round2", driver.firedNames.get(1));
+        assertEquals("round3", driver.firedNames.get(2));
+        assertEquals("round5", driver.firedNames.get(3));
+        assertEquals(10L, (long) driver.firedTimes.get(0));
+        assertEquals(50L, (long) driver.firedTimes.get(1));
+        assertEquals(90L, (long) driver.firedTimes.get(2));
+        assertEquals(170L, (long) driver.firedTimes.get(3));
+
+        // 지나간 bucket 에 다음 바퀴 task 를 다시 등록할 수 있다.
+        driver.add("next", 1015);
+        driver.runUntil(1010);
+        assertEquals("next", driver.firedNames.get(4));
+        assertEquals(1010L, (long) driver.firedTimes.get(4));
+    }
+
+    @Test
+    public void cancelledTaskIsNotFired() {
+        WheelDriver driver = new WheelDriver(0);
+        NamedTask near = driver.add("near", 30);
+        NamedTask far = driver.add("far", 300);
+        near.cancel();
+        far.cancel();
+        assertEquals(0, driver.taskCounter.get());
+
+        driver.runUntil(1000);
+        assertTrue(driver.firedNames.isEmpty());
+    }
+
+    @Test
+    public void readdedTaskFiresOnlyAtLastExpiration() {
+        WheelDriver driver = new WheelDriver(0);
+        NamedTask task = driver.add("a", 30);
+        driver.add(task, 60);
+        assertEquals(1, driver.taskCounter.get());
+
+        driver.runUntil(1000);
+        assertEquals(1, driver.firedNames.size());
+        assertEquals(60L, (long) driver.firedTimes.get(0));
+    }
+
+}